@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Content addressed read-through cache of artifacts on the local disk of the
+ * node. The artifacts are stored by their SHA1 hash, filled with the first
+ * read of the content and verified against the SHA1 hash of the store before
+ * they are served. The least recently used artifacts are evicted if the
+ * configured maximum size is exceeded. Every fill writes its own file, so a
+ * late eviction of a former fill of the same artifact never deletes the
+ * current file. A range read of an artifact which is not cached yet is served
+ * from the store while the artifact is filled in the background.
+ *
+ * As the artifacts are content addressed a cached artifact is never stale, an
+ * artifact which has been deleted in the store is evicted locally and on the
+ * other nodes by the size limit.
+ *
+ * The files which are taken over after a restart of the node are verified
+ * against their SHA1 hash with their first use, a file which does not match
+ * is dropped and filled again.
+ *
+ * Hits, misses, evictions and failed fills are exposed through JMX.
+ */
+@ManagedResource(objectName = "org.eclipse.hawkbit:type=ArtifactFileCache", description = "Local artifact file cache")
+public class ArtifactFileCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactFileCache.class);
+
+    private static final Pattern CACHED_FILE_NAME = Pattern.compile("([0-9a-f]{40})-[0-9]+");
+
+    private static final int FILL_THREADS = 2;
+
+    private static final long KIB = 1024L;
+
+    private final ArtifactFileCacheProperties properties;
+
+    private final Path directory;
+
+    /**
+     * The cached files by SHA1 hash.
+     */
+    private final Cache<String, CachedFile> files;
+
+    /**
+     * Distinguishes the files of the fills of the same artifact.
+     */
+    private final AtomicLong generation = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * SHA1 hashes of the artifacts which are filled in the background.
+     */
+    private final Set<String> backgroundFills = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService fillExecutor = Executors.newFixedThreadPool(FILL_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("artifact-cache-fill-%d").setDaemon(true).build());
+
+    /**
+     * @param properties
+     *            of the cache
+     */
+    public ArtifactFileCache(final ArtifactFileCacheProperties properties) {
+        this.properties = properties;
+        this.directory = Paths.get(properties.getDirectory());
+        // one segment only, so that the maximum size applies to all artifacts
+        // and not to each segment
+        this.files = CacheBuilder.newBuilder().concurrencyLevel(1)
+                .maximumWeight(Math.max(1, properties.getMaxSize() / KIB))
+                .weigher((final String sha1, final CachedFile file) -> (int) Math.min(Integer.MAX_VALUE,
+                        Math.max(1, file.size / KIB)))
+                .removalListener(ArtifactFileCache::onRemoval).recordStats().build();
+    }
+
+    /**
+     * Takes over the artifacts which have been cached before the restart of
+     * the node and removes incomplete ones. The taken over artifacts are
+     * verified with their first use.
+     *
+     * @throws IOException
+     *             if the cache directory cannot be created or read
+     */
+    @PostConstruct
+    void init() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        final Map<String, Path> cachedFiles = new HashMap<>();
+        try (DirectoryStream<Path> cached = Files.newDirectoryStream(directory)) {
+            for (final Path file : cached) {
+                final Matcher matcher = CACHED_FILE_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches() || cachedFiles.putIfAbsent(matcher.group(1), file) != null) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        for (final Map.Entry<String, Path> cached : cachedFiles.entrySet()) {
+            files.put(cached.getKey(), new CachedFile(cached.getValue(), Files.size(cached.getValue()), false));
+        }
+        LOG.info("Artifact file cache in {} initialized with {} artifacts", directory, files.size());
+    }
+
+    /**
+     * @param artifact
+     *            of the store, might be {@code null}
+     * @return the artifact reading its content through the cache or the given
+     *         artifact if the cache is disabled
+     */
+    public DbArtifact wrap(final DbArtifact artifact) {
+        if (!properties.isEnabled() || artifact == null || artifact.getHashes() == null
+                || artifact.getHashes().getSha1() == null) {
+            return artifact;
+        }
+        return new CachedArtifact(artifact, this);
+    }
+
+    /**
+     * Returns the cached file of the given artifact and fills the cache if
+     * the artifact is not cached yet. Concurrent requests for the same
+     * artifact wait for one fill.
+     *
+     * @param artifact
+     *            of the store
+     * @return the cached file or {@code null} if the artifact cannot be
+     *         cached
+     */
+    Path getFile(final DbArtifact artifact) {
+        if (!isCacheable(artifact)) {
+            return null;
+        }
+
+        final String sha1 = artifact.getHashes().getSha1().toLowerCase();
+        try {
+            final CachedFile cached = files.get(sha1, () -> fill(artifact, sha1));
+            if (verify(sha1, cached)) {
+                return cached.path;
+            }
+            // the taken over file did not match, it has been dropped so
+            // the artifact is filled again
+            return files.get(sha1, () -> fill(artifact, sha1)).path;
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            LOG.warn("Artifact {} could not be cached, serving from store", sha1, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Verifies a file which has been taken over after a restart against the
+     * SHA1 hash of the artifact and drops the file if it does not match.
+     *
+     * @return {@code true} if the file matches the hash
+     */
+    private boolean verify(final String sha1, final CachedFile cached) {
+        if (cached.verified) {
+            return true;
+        }
+
+        synchronized (cached) {
+            if (cached.verified) {
+                return true;
+            }
+            try (final InputStream in = Files.newInputStream(cached.path)) {
+                final MessageDigest md = MessageDigest.getInstance("SHA-1");
+                ByteStreams.copy(in, new DigestOutputStream(ByteStreams.nullOutputStream(), md));
+                if (sha1.equals(BaseEncoding.base16().lowerCase().encode(md.digest()))) {
+                    cached.verified = true;
+                    return true;
+                }
+                LOG.warn("Cached artifact {} does not match its SHA1 hash and is dropped", sha1);
+            } catch (final IOException | NoSuchAlgorithmException e) {
+                LOG.warn("Cached artifact {} could not be verified and is dropped", sha1, e);
+            }
+            files.asMap().remove(sha1, cached);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the cached file of the given artifact if it is cached already.
+     * Otherwise the cache is filled in the background and the caller has to
+     * read from the store.
+     *
+     * @param artifact
+     *            of the store
+     * @return the cached file or {@code null} if the artifact is not cached
+     */
+    Path getFileIfCached(final DbArtifact artifact) {
+        if (!isCacheable(artifact)) {
+            return null;
+        }
+
+        final String sha1 = artifact.getHashes().getSha1().toLowerCase();
+        final CachedFile cached = files.getIfPresent(sha1);
+        if (cached != null && cached.verified) {
+            return cached.path;
+        }
+
+        // a taken over file is verified by the background fill
+
+        if (backgroundFills.add(sha1)) {
+            fillExecutor.execute(() -> {
+                try {
+                    getFile(artifact);
+                } finally {
+                    backgroundFills.remove(sha1);
+                }
+            });
+        }
+        return null;
+    }
+
+    private boolean isCacheable(final DbArtifact artifact) {
+        return artifact.getSize() == null || artifact.getSize() <= properties.getMaxSize();
+    }
+
+    /**
+     * Drops the cached file of the given artifact.
+     *
+     * @param sha1
+     *            hash of the artifact
+     */
+    public void evict(final String sha1) {
+        if (sha1 != null) {
+            files.invalidate(sha1.toLowerCase());
+        }
+    }
+
+    private CachedFile fill(final DbArtifact artifact, final String sha1)
+            throws IOException, NoSuchAlgorithmException {
+        final Path temp = Files.createTempFile(directory, sha1, ".part");
+        try {
+            final MessageDigest md = MessageDigest.getInstance("SHA-1");
+            final long size;
+            try (final InputStream in = artifact.getFileInputStream();
+                    final OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), md)) {
+                size = ByteStreams.copy(in, out);
+            }
+
+            final String filled = BaseEncoding.base16().lowerCase().encode(md.digest());
+            if (!sha1.equals(filled)) {
+                throw new IOException("SHA1 hash " + filled + " of the filled artifact does not match " + sha1);
+            }
+
+            final Path file = directory.resolve(sha1 + "-" + generation.incrementAndGet());
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            LOG.debug("Artifact {} with {} bytes cached", sha1, size);
+            return new CachedFile(file, size, true);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void onRemoval(final RemovalNotification<String, CachedFile> notification) {
+        // the file of the removed fill only, a new fill has its own file
+        try {
+            Files.deleteIfExists(notification.getValue().path);
+        } catch (final IOException e) {
+            LOG.warn("Evicted artifact {} could not be deleted", notification.getKey(), e);
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        fillExecutor.shutdownNow();
+    }
+
+    @ManagedAttribute(description = "Number of reads served from the cache")
+    public long getHitCount() {
+        return files.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of reads which filled the cache")
+    public long getMissCount() {
+        return files.stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Number of artifacts evicted due to the size limit")
+    public long getEvictionCount() {
+        return files.stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Number of fills which failed, e.g. due to a hash mismatch")
+    public long getFillFailureCount() {
+        return files.stats().loadExceptionCount();
+    }
+
+    @ManagedAttribute(description = "Number of cached artifacts")
+    public long getArtifactCount() {
+        return files.size();
+    }
+
+    @ManagedAttribute(description = "Size of all cached artifacts in bytes")
+    public long getCachedBytes() {
+        return files.asMap().values().stream().mapToLong(file -> file.size).sum();
+    }
+
+    private static final class CachedFile {
+        private final Path path;
+        private final long size;
+
+        /**
+         * Whether the file has been verified against the SHA1 hash, files
+         * which have been taken over after a restart are verified lazily.
+         */
+        private volatile boolean verified;
+
+        private CachedFile(final Path path, final long size, final boolean verified) {
+            this.path = path;
+            this.size = size;
+            this.verified = verified;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.File;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Properties of the local {@link ArtifactFileCache}.
+ *
+ */
+@ConfigurationProperties("hawkbit.artifact.cache")
+public class ArtifactFileCacheProperties {
+
+    /**
+     * Set to <code>true</code> to keep a copy of the downloaded artifacts on
+     * the local disk of the node.
+     */
+    private boolean enabled;
+
+    /**
+     * Directory of the cached artifacts, exclusively used by the cache.
+     */
+    private String directory = System.getProperty("java.io.tmpdir") + File.separator + "hawkbit-artifact-cache";
+
+    /**
+     * Maximum size of all cached artifacts in bytes, least recently used
+     * artifacts are evicted if exceeded.
+     */
+    private long maxSize = 10L * 1024 * 1024 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(final String directory) {
+        this.directory = directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+}
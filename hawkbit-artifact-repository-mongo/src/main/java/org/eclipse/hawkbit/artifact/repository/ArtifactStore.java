@@ -27,6 +27,7 @@ import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -67,13 +68,26 @@ public class ArtifactStore implements ArtifactRepository {
 
     private static final String ID = "_id";
 
+    /**
+     * The chunks collection of the default GridFS bucket used by the
+     * {@link GridFsOperations}.
+     */
+    private static final String CHUNKS_COLLECTION = "fs.chunks";
+
     @Autowired
     private GridFsOperations gridFs;
 
+    @Autowired
+    private MongoDbFactory mongoDbFactory;
+
+    @Autowired
+    private ArtifactFileCache artifactFileCache;
+
     MongoTemplate mongoTemplate;
 
     /**
-     * Retrieves a {@link GridFSDBFile} from the store by it's SHA1 hash.
+     * Retrieves a {@link GridFSDBFile} from the store by it's SHA1 hash. The
+     * content is read through the {@link ArtifactFileCache}.
      *
      * @param sha1Hash
      *            the sha1-hash of the file to lookup.
@@ -82,7 +96,8 @@ public class ArtifactStore implements ArtifactRepository {
      */
     @Override
     public DbArtifact getArtifactBySha1(final String sha1Hash) {
-        return map(gridFs.findOne(new Query().addCriteria(Criteria.where(FILENAME).is(sha1Hash))));
+        return artifactFileCache
+                .wrap(map(gridFs.findOne(new Query().addCriteria(Criteria.where(FILENAME).is(sha1Hash)))));
     }
 
     /**
@@ -154,6 +169,7 @@ public class ArtifactStore implements ArtifactRepository {
 
     private void deleteArtifact(final GridFSDBFile dbFile) {
         if (dbFile != null) {
+            artifactFileCache.evict(dbFile.getFilename());
             try {
                 gridFs.delete(new Query().addCriteria(Criteria.where(ID).is(dbFile.getId())));
             } catch (final MongoClientException e) {
@@ -227,7 +243,7 @@ public class ArtifactStore implements ArtifactRepository {
      * @return a paged list of artifacts mapped from the given dbFiles
      */
     private List<DbArtifact> map(final List<GridFSDBFile> dbFiles) {
-        return dbFiles.stream().map(ArtifactStore::map).collect(Collectors.toList());
+        return dbFiles.stream().map(this::map).collect(Collectors.toList());
     }
 
     /**
@@ -263,11 +279,12 @@ public class ArtifactStore implements ArtifactRepository {
      *            the mongoDB gridFs file.
      * @return a mapped artifact from the given dbFile
      */
-    private static GridFsArtifact map(final GridFSFile fsFile) {
+    private GridFsArtifact map(final GridFSFile fsFile) {
         if (fsFile == null) {
             return null;
         }
-        final GridFsArtifact artifact = new GridFsArtifact(fsFile);
+        final GridFsArtifact artifact = new GridFsArtifact(fsFile,
+                mongoDbFactory.getDb().getCollection(CHUNKS_COLLECTION));
         artifact.setArtifactId(fsFile.getId().toString());
         artifact.setSize(fsFile.getLength());
         artifact.setContentType(fsFile.getContentType());
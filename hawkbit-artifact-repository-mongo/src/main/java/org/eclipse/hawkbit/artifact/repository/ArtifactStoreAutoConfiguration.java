@@ -9,6 +9,7 @@
 package org.eclipse.hawkbit.artifact.repository;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -17,6 +18,7 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 @ConditionalOnMissingBean(value = ArtifactRepository.class)
+@EnableConfigurationProperties(ArtifactFileCacheProperties.class)
 public class ArtifactStoreAutoConfiguration {
 
     /**
@@ -26,4 +28,14 @@ public class ArtifactStoreAutoConfiguration {
     public ArtifactRepository artifactRepository() {
         return new ArtifactStore();
     }
+
+    /**
+     * @param properties
+     *            of the cache
+     * @return the local artifact file cache used by the {@link ArtifactStore}
+     */
+    @Bean
+    public ArtifactFileCache artifactFileCache(final ArtifactFileCacheProperties properties) {
+        return new ArtifactFileCache(properties);
+    }
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A {@link DbArtifact} which is read from the local {@link ArtifactFileCache}.
+ * The cache is filled with the first read of the content, so that artifacts
+ * which are only looked up for their meta data are not copied. Ranges are read
+ * by positioning a {@link FileChannel} at the start of the range. A range of
+ * an artifact which is not cached yet is read from the store while the cache
+ * is filled in the background.
+ *
+ * The artifact falls back to the store if the content cannot be cached.
+ *
+ */
+public class CachedArtifact extends DbArtifact {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedArtifact.class);
+
+    private final DbArtifact source;
+
+    private final ArtifactFileCache cache;
+
+    /**
+     * @param source
+     *            the artifact of the store
+     * @param cache
+     *            the cache to read the content from
+     */
+    public CachedArtifact(final DbArtifact source, final ArtifactFileCache cache) {
+        this.source = source;
+        this.cache = cache;
+        setArtifactId(source.getArtifactId());
+        setHashes(source.getHashes());
+        setSize(source.getSize());
+        setContentType(source.getContentType());
+    }
+
+    @Override
+    public InputStream getFileInputStream() {
+        final Path file = cache.getFile(source);
+        if (file != null) {
+            try {
+                return Files.newInputStream(file);
+            } catch (final IOException e) {
+                LOG.debug("Cached artifact {} not readable, reading from store", file, e);
+            }
+        }
+        return source.getFileInputStream();
+    }
+
+    @Override
+    public InputStream openRange(final long start, final long length) throws IOException {
+        final Path file = cache.getFileIfCached(source);
+        if (file != null) {
+            try {
+                final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                channel.position(start);
+                return ByteStreams.limit(Channels.newInputStream(channel), length);
+            } catch (final NoSuchFileException e) {
+                LOG.debug("Cached artifact {} has been evicted concurrently, reading from store", file, e);
+            }
+        }
+        return source.openRange(start, length);
+    }
+}
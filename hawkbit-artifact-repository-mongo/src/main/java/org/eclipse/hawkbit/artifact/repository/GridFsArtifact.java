@@ -8,10 +8,12 @@
  */
 package org.eclipse.hawkbit.artifact.repository;
 
+import java.io.IOException;
 import java.io.InputStream;
 
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
 
+import com.mongodb.DBCollection;
 import com.mongodb.gridfs.GridFSDBFile;
 import com.mongodb.gridfs.GridFSFile;
 
@@ -21,6 +23,9 @@ import com.mongodb.gridfs.GridFSFile;
  * retrieves when calling {@link #getFileInputStream()} always a new
  * {@link InputStream} and not the same.
  *
+ * Ranges of the artifact are read directly from the chunks which contain the
+ * range, see {@link GridFsRangeInputStream}.
+ *
  *
  *
  */
@@ -28,11 +33,17 @@ public class GridFsArtifact extends DbArtifact {
 
     private final GridFSFile dbFile;
 
+    private final DBCollection chunks;
+
     /**
      * @param dbFile
+     *            the GridFS file
+     * @param chunks
+     *            the chunks collection of the GridFS bucket of the file
      */
-    public GridFsArtifact(final GridFSFile dbFile) {
+    public GridFsArtifact(final GridFSFile dbFile, final DBCollection chunks) {
         this.dbFile = dbFile;
+        this.chunks = chunks;
     }
 
     @Override
@@ -42,4 +53,9 @@ public class GridFsArtifact extends DbArtifact {
         }
         return null;
     }
+
+    @Override
+    public InputStream openRange(final long start, final long length) throws IOException {
+        return new GridFsRangeInputStream(chunks, dbFile, start, length);
+    }
 }
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.gridfs.GridFSFile;
+
+/**
+ * {@link InputStream} on a byte range of a {@link GridFSFile} which seeks
+ * directly to the chunk containing the first byte of the range and fetches
+ * all chunks of the range with one cursor, instead of skipping from the start
+ * of the file and loading every chunk with an own query as
+ * {@link com.mongodb.gridfs.GridFSDBFile#getInputStream()} does.
+ *
+ */
+class GridFsRangeInputStream extends InputStream {
+
+    /**
+     * Number of chunks fetched with one round trip, i.e. about 2 MiB with the
+     * default chunk size of 255 KiB.
+     */
+    private static final int CHUNK_BATCH_SIZE = 8;
+
+    private final DBCursor cursor;
+
+    private byte[] chunk;
+    private int offsetInChunk;
+    private long remaining;
+
+    /**
+     * @param chunks
+     *            the chunks collection of the GridFS bucket
+     * @param file
+     *            to read from
+     * @param start
+     *            the offset of the first byte of the range
+     * @param length
+     *            the number of bytes of the range
+     */
+    GridFsRangeInputStream(final DBCollection chunks, final GridFSFile file, final long start, final long length) {
+        final long chunkSize = file.getChunkSize();
+        final int firstChunk = (int) (start / chunkSize);
+        final int lastChunk = length > 0 ? (int) ((start + length - 1) / chunkSize) : firstChunk;
+
+        this.cursor = chunks
+                .find(new BasicDBObject("files_id", file.getId()).append("n",
+                        new BasicDBObject("$gte", firstChunk).append("$lte", lastChunk)))
+                .sort(new BasicDBObject("n", 1)).batchSize(CHUNK_BATCH_SIZE);
+        this.offsetInChunk = (int) (start % chunkSize);
+        this.remaining = Math.min(length, Math.max(0, file.getLength() - start));
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        nextChunkIfNecessary();
+
+        final int read = (int) Math.min(Math.min(len, chunk.length - offsetInChunk), remaining);
+        System.arraycopy(chunk, offsetInChunk, b, off, read);
+        offsetInChunk += read;
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return chunk != null ? (int) Math.min(chunk.length - offsetInChunk, remaining) : 0;
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+
+    private void nextChunkIfNecessary() throws IOException {
+        while (chunk == null || offsetInChunk >= chunk.length) {
+            if (!cursor.hasNext()) {
+                throw new IOException("GridFS file is missing chunks, " + remaining + " bytes not read");
+            }
+            final DBObject next = cursor.next();
+            if (chunk != null) {
+                // only the first chunk of the range starts with an offset
+                offsetInChunk = 0;
+            }
+            chunk = (byte[]) next.get("data");
+        }
+    }
+}
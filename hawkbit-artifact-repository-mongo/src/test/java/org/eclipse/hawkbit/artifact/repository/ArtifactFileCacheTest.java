@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.hash.Hashing;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Artifact Repository")
+@Stories("Artifact File Cache")
+public class ArtifactFileCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ArtifactFileCache cacheUnderTest;
+
+    @Before
+    public void setUp() throws IOException {
+        final ArtifactFileCacheProperties properties = new ArtifactFileCacheProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(folder.getRoot().getAbsolutePath());
+        properties.setMaxSize(3 * 1024);
+        cacheUnderTest = new ArtifactFileCache(properties);
+        cacheUnderTest.init();
+    }
+
+    @After
+    public void tearDown() {
+        cacheUnderTest.destroy();
+    }
+
+    @Test
+    @Description("The content of an artifact is cached with the first read and served from disk afterwards.")
+    public void artifactIsServedFromDiskAfterFirstRead() throws IOException {
+        final byte[] content = randomBytes(2048);
+        final DbArtifact artifact = cacheUnderTest.wrap(artifact(content, sha1(content)));
+
+        assertThat(IOUtils.toByteArray(artifact.getFileInputStream())).isEqualTo(content);
+        assertThat(cacheUnderTest.getMissCount()).isEqualTo(1);
+        assertThat(cachedFiles(sha1(content))).hasSize(1);
+
+        try (final InputStream range = artifact.openRange(100, 1000)) {
+            assertThat(IOUtils.toByteArray(range)).isEqualTo(Arrays.copyOfRange(content, 100, 1100));
+        }
+        assertThat(cacheUnderTest.getHitCount()).isEqualTo(1);
+        assertThat(cacheUnderTest.getCachedBytes()).isEqualTo(2048);
+    }
+
+    @Test
+    @Description("An artifact whose content does not match its SHA1 hash is not cached but served from the store.")
+    public void artifactWithWrongHashIsNotCached() throws IOException {
+        final byte[] content = randomBytes(1024);
+        final String wrongSha1 = sha1(randomBytes(1024));
+        final DbArtifact artifact = cacheUnderTest.wrap(artifact(content, wrongSha1));
+
+        assertThat(IOUtils.toByteArray(artifact.getFileInputStream())).isEqualTo(content);
+        assertThat(cacheUnderTest.getFillFailureCount()).isEqualTo(1);
+        assertThat(cacheUnderTest.getArtifactCount()).isEqualTo(0);
+        assertThat(folder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    @Description("The least recently used artifact is evicted and deleted if the maximum size is exceeded.")
+    public void leastRecentlyUsedArtifactIsEvicted() throws IOException {
+        final byte[] first = randomBytes(2048);
+        final byte[] second = randomBytes(2048);
+
+        IOUtils.toByteArray(cacheUnderTest.wrap(artifact(first, sha1(first))).getFileInputStream());
+        IOUtils.toByteArray(cacheUnderTest.wrap(artifact(second, sha1(second))).getFileInputStream());
+
+        assertThat(cacheUnderTest.getEvictionCount()).isEqualTo(1);
+        assertThat(cachedFiles(sha1(first))).isEmpty();
+        assertThat(cachedFiles(sha1(second))).hasSize(1);
+    }
+
+    @Test
+    @Description("Every fill of an artifact writes its own file, so the eviction of a former fill does not delete the current file.")
+    public void evictionDeletesOnlyTheFileOfItsFill() throws IOException {
+        final byte[] content = randomBytes(1024);
+        final DbArtifact artifact = artifact(content, sha1(content));
+
+        final Path first = cacheUnderTest.getFile(artifact);
+        cacheUnderTest.evict(sha1(content));
+        final Path second = cacheUnderTest.getFile(artifact);
+
+        assertThat(second).isNotEqualTo(first);
+        assertThat(Files.exists(first)).isFalse();
+        assertThat(Files.exists(second)).isTrue();
+        assertThat(cachedFiles(sha1(content))).hasSize(1);
+    }
+
+    @Test
+    @Description("A range of an artifact which is not cached yet is read from the store while the artifact is cached in the background.")
+    public void rangeOfUncachedArtifactIsReadFromStore() throws IOException, InterruptedException {
+        final byte[] content = randomBytes(2048);
+        final DbArtifact artifact = cacheUnderTest.wrap(artifact(content, sha1(content)));
+
+        try (final InputStream range = artifact.openRange(100, 1000)) {
+            assertThat(IOUtils.toByteArray(range)).isEqualTo(Arrays.copyOfRange(content, 100, 1100));
+        }
+
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (cacheUnderTest.getArtifactCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cacheUnderTest.getArtifactCount()).as("artifact is cached in the background").isEqualTo(1);
+    }
+
+    @Test
+    @Description("Cached artifacts are taken over after a restart, incomplete fills are removed.")
+    public void cachedArtifactsAreTakenOverOnRestart() throws IOException {
+        final byte[] content = randomBytes(1024);
+        IOUtils.toByteArray(cacheUnderTest.wrap(artifact(content, sha1(content))).getFileInputStream());
+        final Path incomplete = folder.newFile("incomplete.part").toPath();
+
+        tearDown();
+        setUp();
+
+        assertThat(cacheUnderTest.getArtifactCount()).isEqualTo(1);
+        assertThat(Files.exists(incomplete)).isFalse();
+    }
+
+    @Test
+    @Description("A cached artifact which has been corrupted before a restart is verified with its first use and filled again.")
+    public void corruptedArtifactIsFilledAgainAfterRestart() throws IOException {
+        final byte[] content = randomBytes(1024);
+        final DbArtifact artifact = artifact(content, sha1(content));
+        final Path corrupted = cacheUnderTest.getFile(artifact);
+
+        tearDown();
+        Files.write(corrupted, randomBytes(1024));
+        setUp();
+
+        assertThat(cacheUnderTest.getFileIfCached(artifact)).as("taken over file is not served unverified").isNull();
+        final Path filled = cacheUnderTest.getFile(artifact);
+        assertThat(filled).isNotEqualTo(corrupted);
+        assertThat(Files.readAllBytes(filled)).isEqualTo(content);
+        assertThat(Files.exists(corrupted)).isFalse();
+    }
+
+    private static DbArtifact artifact(final byte[] content, final String sha1) {
+        // a new stream with every read like the artifacts of the store
+        final DbArtifact artifact = new DbArtifact() {
+            @Override
+            public InputStream getFileInputStream() {
+                return new ByteArrayInputStream(content);
+            }
+        };
+        artifact.setArtifactId(sha1);
+        artifact.setHashes(new DbArtifactHash(sha1, null));
+        artifact.setSize((long) content.length);
+        return artifact;
+    }
+
+    private String[] cachedFiles(final String sha1) {
+        return folder.getRoot().list((dir, name) -> name.startsWith(sha1));
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha1(final byte[] content) {
+        return Hashing.sha1().hashBytes(content).toString();
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.artifact.repository;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hawkbit.artifact.TestConfiguration;
+import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.io.ByteStreams;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+/**
+ * Compares reading ranges of a large artifact by skipping through the GridFS
+ * stream from the start of the file with reading them by
+ * {@link DbArtifact#openRange(long, long)}. The artifact size can be set with
+ * the system property {@value #SIZE_PROPERTY} in MiB, e.g. to 1024 for the
+ * 1 GiB firmware images of the field.
+ */
+@Features("Component Tests - Repository")
+@Stories("Artifact Store MongoDB")
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = { ArtifactStoreAutoConfiguration.class, TestConfiguration.class })
+@TestPropertySource(properties = { "spring.data.mongodb.port=0", "spring.mongodb.embedded.version=3.2.7" })
+public class ArtifactRangeStreamingBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(ArtifactRangeStreamingBenchmarkTest.class);
+
+    private static final String SIZE_PROPERTY = "hawkbit.benchmark.artifactSizeMb";
+
+    private static final long MIB = 1024L * 1024L;
+    private static final int RANGE_LENGTH = (int) MIB;
+    private static final int RANGES = 20;
+
+    @Autowired
+    private ArtifactStore artifactStoreUnderTest;
+
+    @Test
+    @Description("Reading ranges of a large artifact with direct chunk seeks is not slower than skipping through the artifact.")
+    public void rangeReadsSeekToTheStartOfTheRange() throws IOException {
+        final long size = Long.getLong(SIZE_PROPERTY, 64) * MIB;
+        final DbArtifact artifact = artifactStoreUnderTest.getArtifactById(artifactStoreUnderTest
+                .store(ByteStreams.limit(new RandomInputStream(), size), "large.bin", "application/octet-stream")
+                .getArtifactId());
+
+        final long[] starts = new Random(42).longs(RANGES, 0, size - RANGE_LENGTH).toArray();
+
+        // warm up both paths
+        readRangesBySkipping(artifact, starts);
+        readRangesBySeeking(artifact, starts);
+
+        final long skipStart = System.nanoTime();
+        final long skipped = readRangesBySkipping(artifact, starts);
+        final long skipMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - skipStart);
+
+        final long seekStart = System.nanoTime();
+        final long sought = readRangesBySeeking(artifact, starts);
+        final long seekMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seekStart);
+
+        LOG.info("{} ranges of {} bytes on a {} MiB artifact: skipping {} ms, seeking {} ms", RANGES, RANGE_LENGTH,
+                size / MIB, skipMillis, seekMillis);
+
+        assertThat(sought).isEqualTo(skipped).isEqualTo((long) RANGES * RANGE_LENGTH);
+    }
+
+    private static long readRangesBySkipping(final DbArtifact artifact, final long[] starts) throws IOException {
+        long total = 0;
+        for (final long start : starts) {
+            try (final InputStream stream = artifact.getFileInputStream()) {
+                ByteStreams.skipFully(stream, start);
+                total += ByteStreams.copy(ByteStreams.limit(stream, RANGE_LENGTH), ByteStreams.nullOutputStream());
+            }
+        }
+        return total;
+    }
+
+    private static long readRangesBySeeking(final DbArtifact artifact, final long[] starts) throws IOException {
+        long total = 0;
+        for (final long start : starts) {
+            try (final InputStream stream = artifact.openRange(start, RANGE_LENGTH)) {
+                total += ByteStreams.copy(stream, ByteStreams.nullOutputStream());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Endless stream of pseudo random content, to store large artifacts
+     * without holding them in memory.
+     */
+    private static final class RandomInputStream extends InputStream {
+        private final Random random = new Random();
+
+        @Override
+        public int read() {
+            return random.nextInt(256);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            final byte[] bytes = new byte[len];
+            random.nextBytes(bytes);
+            System.arraycopy(bytes, 0, b, off, len);
+            return len;
+        }
+    }
+}
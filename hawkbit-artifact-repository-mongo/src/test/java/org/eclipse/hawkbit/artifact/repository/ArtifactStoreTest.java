@@ -12,9 +12,11 @@ import static org.fest.assertions.api.Assertions.assertThat;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.apache.commons.io.IOUtils;
@@ -126,6 +128,31 @@ public class ArtifactStoreTest {
         assertThat(findOne).isNull();
     }
 
+    @Test
+    @Description("Ensures that ranges of an artifact which span multiple GridFS chunks are read correctly.")
+    public void readRangesOfArtifact() throws IOException {
+        final int filelengthBytes = 1024 * 1024 + 17;
+        final ByteArrayInputStream inputStream = generateInputStream(filelengthBytes);
+        final DbArtifact artifact = artifactStoreUnderTest.getArtifactById(
+                artifactStoreUnderTest.store(inputStream, "testfile.bin", "application/octet-stream").getArtifactId());
+        inputStream.reset();
+        final byte[] artifactBytes = new byte[filelengthBytes];
+        IOUtils.readFully(inputStream, artifactBytes);
+
+        assertRange(artifact, artifactBytes, 0, filelengthBytes);
+        assertRange(artifact, artifactBytes, 100, 10);
+        assertRange(artifact, artifactBytes, 255 * 1024 - 5, 3 * 255 * 1024);
+        assertRange(artifact, artifactBytes, filelengthBytes - 17, 17);
+    }
+
+    private static void assertRange(final DbArtifact artifact, final byte[] artifactBytes, final int start,
+            final int length) throws IOException {
+        try (final InputStream range = artifact.openRange(start, length)) {
+            assertThat(IOUtils.toByteArray(range)).as("range " + start + "+" + length)
+                    .isEqualTo(Arrays.copyOfRange(artifactBytes, start, start + length));
+        }
+    }
+
     private static ByteArrayInputStream generateInputStream(final int length) {
         final byte[] bytes = new byte[length];
         new Random().nextBytes(bytes);
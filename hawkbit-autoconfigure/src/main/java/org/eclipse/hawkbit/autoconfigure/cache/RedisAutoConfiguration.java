@@ -8,10 +8,17 @@
  */
 package org.eclipse.hawkbit.autoconfigure.cache;
 
+import org.eclipse.hawkbit.autoconfigure.security.SecurityAutoConfiguration;
 import org.eclipse.hawkbit.cache.RedisConfiguration;
+import org.eclipse.hawkbit.cache.RedisRequestRateLimiter;
 import org.eclipse.hawkbit.cache.annotation.EnableRedis;
+import org.eclipse.hawkbit.security.RequestRateLimiter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 
 /**
  * A configuration for configuring the redis configuration.
@@ -22,6 +29,18 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @ConditionalOnClass(value = RedisConfiguration.class)
 @EnableRedis
+@AutoConfigureBefore(SecurityAutoConfiguration.class)
 public class RedisAutoConfiguration {
 
+    /**
+     * @param connectionFactory
+     *            to the Redis server
+     * @return the {@link RequestRateLimiter} which shares the DoS protection
+     *         limits between the nodes of the cluster, if enabled
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "hawkbit.server.security.dos.filter", name = "distributed", havingValue = "true")
+    public RequestRateLimiter redisRequestRateLimiter(final RedisConnectionFactory connectionFactory) {
+        return new RedisRequestRateLimiter(connectionFactory);
+    }
 }
@@ -10,6 +10,8 @@ package org.eclipse.hawkbit.autoconfigure.security;
 
 import org.eclipse.hawkbit.im.authentication.PermissionService;
 import org.eclipse.hawkbit.security.DdiSecurityProperties;
+import org.eclipse.hawkbit.security.LocalRequestRateLimiter;
+import org.eclipse.hawkbit.security.RequestRateLimiter;
 import org.eclipse.hawkbit.security.SecurityContextTenantAware;
 import org.eclipse.hawkbit.security.SpringSecurityAuditorAware;
 import org.eclipse.hawkbit.tenancy.TenantAware;
@@ -62,4 +64,14 @@ public class SecurityAutoConfiguration {
         return new SpringSecurityAuditorAware();
     }
 
+    /**
+     * @return the {@link RequestRateLimiter} of this node for the DoS
+     *         protection filters, if none is shared in the cluster
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RequestRateLimiter requestRateLimiter() {
+        return new LocalRequestRateLimiter();
+    }
+
 }
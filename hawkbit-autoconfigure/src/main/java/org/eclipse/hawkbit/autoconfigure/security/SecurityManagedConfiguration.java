@@ -36,12 +36,14 @@ import org.eclipse.hawkbit.security.ControllerTenantAwareAuthenticationDetailsSo
 import org.eclipse.hawkbit.security.DdiSecurityProperties;
 import org.eclipse.hawkbit.security.DosFilter;
 import org.eclipse.hawkbit.security.HawkbitSecurityProperties;
+import org.eclipse.hawkbit.security.HawkbitSecurityProperties.Dos.Filter.ApiLimits;
 import org.eclipse.hawkbit.security.HttpControllerPreAuthenticateAnonymousDownloadFilter;
 import org.eclipse.hawkbit.security.HttpControllerPreAuthenticateSecurityTokenFilter;
 import org.eclipse.hawkbit.security.HttpControllerPreAuthenticatedGatewaySecurityTokenFilter;
 import org.eclipse.hawkbit.security.HttpControllerPreAuthenticatedSecurityHeaderFilter;
 import org.eclipse.hawkbit.security.HttpDownloadAuthenticationFilter;
 import org.eclipse.hawkbit.security.PreAuthTokenSourceTrustAuthenticationProvider;
+import org.eclipse.hawkbit.security.RequestRateLimiter;
 import org.eclipse.hawkbit.security.SystemSecurityContext;
 import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.slf4j.Logger;
@@ -223,22 +225,65 @@ public class SecurityManagedConfiguration {
     }
 
     /**
-     * Filter to protect the SP server against denial of service attacks.
+     * Filter to protect the Direct Device Integration API against denial of
+     * service attacks.
      *
-     * @return he spring filter registration bean for registering an denial of
-     *         service protection filter in the filter chain
+     * @param rateLimiter
+     *            which enforces the limits
+     * @return the spring filter registration bean for registering an denial
+     *         of service protection filter in the filter chain
      */
     @Bean
     @Order(50)
-    public FilterRegistrationBean dosFilter() {
+    public FilterRegistrationBean ddiDosFilter(final RequestRateLimiter rateLimiter) {
+        return createDosFilter("ddiDosFilter", rateLimiter, "ddi", securityProperties.getDos().getFilter().getDdi(),
+                "/{tenant}/controller/v1/**");
+    }
 
-        final FilterRegistrationBean filterRegBean = new FilterRegistrationBean();
+    /**
+     * Filter to protect the artifact download API of the controllers against
+     * denial of service attacks.
+     *
+     * @param rateLimiter
+     *            which enforces the limits
+     * @return the spring filter registration bean for registering an denial
+     *         of service protection filter in the filter chain
+     */
+    @Bean
+    @Order(50)
+    public FilterRegistrationBean dlDosFilter(final RequestRateLimiter rateLimiter) {
+        return createDosFilter("dlDosFilter", rateLimiter, "dl", securityProperties.getDos().getFilter().getDl(),
+                "/{tenant}/controller/artifacts/v1/**");
+    }
 
-        filterRegBean.setFilter(new DosFilter(securityProperties.getDos().getFilter().getMaxRead(),
-                securityProperties.getDos().getFilter().getMaxWrite(),
-                securityProperties.getDos().getFilter().getWhitelist(), securityProperties.getClients().getBlacklist(),
-                securityProperties.getClients().getRemoteIpHeader()));
-        filterRegBean.addUrlPatterns("/{tenant}/controller/v1/*", "/rest/*");
+    /**
+     * Filter to protect the management API against denial of service attacks.
+     *
+     * @param rateLimiter
+     *            which enforces the limits
+     * @return the spring filter registration bean for registering an denial
+     *         of service protection filter in the filter chain
+     */
+    @Bean
+    @Order(50)
+    public FilterRegistrationBean mgmtDosFilter(final RequestRateLimiter rateLimiter) {
+        return createDosFilter("mgmtDosFilter", rateLimiter, "mgmt",
+                securityProperties.getDos().getFilter().getMgmt(), "/rest/**");
+    }
+
+    private FilterRegistrationBean createDosFilter(final String name, final RequestRateLimiter rateLimiter,
+            final String api, final ApiLimits limits, final String... includeAntPaths) {
+        final HawkbitSecurityProperties.Dos.Filter filter = securityProperties.getDos().getFilter();
+
+        final FilterRegistrationBean filterRegBean = new FilterRegistrationBean();
+        filterRegBean.setName(name);
+        // servlet URL patterns cannot match the tenant path segment, so the
+        // filter matches its API paths on its own
+        filterRegBean.setFilter(new DosFilter(rateLimiter, api, filter.getMaxRead(limits),
+                filter.getMaxWrite(limits), limits.getMaxTenant(), filter.getWhitelist(),
+                securityProperties.getClients().getBlacklist(), securityProperties.getClients().getRemoteIpHeader(),
+                includeAntPaths));
+        filterRegBean.addUrlPatterns("/*");
 
         return filterRegBean;
     }
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.cache;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.hawkbit.security.LocalRequestRateLimiter;
+import org.eclipse.hawkbit.security.RequestRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * {@link RequestRateLimiter} which shares the token buckets between all nodes
+ * of a cluster through Redis, so the limits apply to the cluster and not per
+ * node. A bucket is kept as its theoretical arrival time (generic cell rate
+ * algorithm) in one key, which is checked and updated atomically by a script
+ * with one round trip per request. The key expires as soon as the bucket is
+ * full again.
+ *
+ * The time is taken from the calling node, so the clocks of the nodes have to
+ * be synchronized. If Redis is not available the permits are taken from a
+ * {@link LocalRequestRateLimiter} of this node, and Redis is tried again by
+ * one request after {@value #RETRY_INTERVAL} milliseconds. The failure and
+ * the recovery are logged once each.
+ */
+public class RedisRequestRateLimiter implements RequestRateLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RedisRequestRateLimiter.class);
+
+    private static final String KEY_PREFIX = "hawkbit:ratelimit:";
+
+    private static final long SECOND = TimeUnit.SECONDS.toMicros(1);
+
+    /**
+     * Time in milliseconds after which Redis is tried again once it failed.
+     */
+    private static final long RETRY_INTERVAL = 5_000;
+
+    /**
+     * ARGV: now, emission interval and tolerance in microseconds. Returns the
+     * wait in microseconds or <code>0</code> if the request is permitted.
+     */
+    private static final RedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) " //
+                    + "local tat = tonumber(redis.call('GET', KEYS[1]) or ARGV[1]) " //
+                    + "if tat < now then tat = now end " //
+                    + "local wait = tat - now - tonumber(ARGV[3]) " //
+                    + "if wait > 0 then return wait end " //
+                    + "tat = tat + tonumber(ARGV[2]) " //
+                    + "redis.call('SET', KEYS[1], string.format('%.0f', tat), 'PX', math.ceil((tat - now) / 1000)) " //
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RequestRateLimiter fallback = new LocalRequestRateLimiter();
+
+    /**
+     * Time until which the permits are taken from the fallback, 0 if Redis
+     * is available.
+     */
+    private final AtomicLong unavailableUntil = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param connectionFactory
+     *            to the Redis server which keeps the buckets
+     */
+    public RedisRequestRateLimiter(final RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @Override
+    public long acquire(final String key, final int maxPerSecond) {
+        if (maxPerSecond <= 0) {
+            return 0;
+        }
+
+        final long currentTime = System.currentTimeMillis();
+        final long retryAt = currentTime + RETRY_INTERVAL;
+        final long failedUntil = unavailableUntil.get();
+        // once the interval is over only one request tries Redis again
+        if (failedUntil != 0
+                && (currentTime < failedUntil || !unavailableUntil.compareAndSet(failedUntil, retryAt))) {
+            return fallback.acquire(key, maxPerSecond);
+        }
+
+        final long interval = SECOND / maxPerSecond;
+        final long now = TimeUnit.MILLISECONDS.toMicros(currentTime);
+
+        final Long wait;
+        try {
+            wait = redisTemplate.execute(ACQUIRE, Collections.singletonList(KEY_PREFIX + key), String.valueOf(now),
+                    String.valueOf(interval), String.valueOf(SECOND - interval));
+        } catch (final DataAccessException e) {
+            if (failedUntil == 0 && unavailableUntil.compareAndSet(0, retryAt)) {
+                LOG.warn("Failed to acquire permits from Redis, taking them from this node until it is available",
+                        e);
+            } else {
+                LOG.debug("Redis is still not available", e);
+            }
+            return fallback.acquire(key, maxPerSecond);
+        }
+
+        if (failedUntil != 0 && unavailableUntil.compareAndSet(retryAt, 0)) {
+            LOG.info("Redis is available again, permits are taken from Redis");
+        }
+        return wait == null ? 0 : TimeUnit.MICROSECONDS.toMillis(wait + TimeUnit.MILLISECONDS.toMicros(1) - 1);
+    }
+}
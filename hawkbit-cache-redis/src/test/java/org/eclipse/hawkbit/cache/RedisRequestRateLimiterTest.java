@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.cache;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Cluster Cache")
+@Stories("Redis Request Rate Limiter Test")
+@RunWith(MockitoJUnitRunner.class)
+public class RedisRequestRateLimiterTest {
+
+    @Mock
+    private RedisConnectionFactory connectionFactoryMock;
+
+    @Test
+    @Description("If Redis is not available the permits are taken from the node and Redis is not tried with every request.")
+    public void permitsAreTakenFromNodeIfRedisIsNotAvailable() {
+        when(connectionFactoryMock.getConnection()).thenThrow(new RedisConnectionFailureException("down"));
+        final RedisRequestRateLimiter limiter = new RedisRequestRateLimiter(connectionFactoryMock);
+
+        assertThat(limiter.acquire("key", 1)).isEqualTo(0);
+        assertThat(limiter.acquire("key", 1)).as("limit is kept by the node").isGreaterThan(0);
+        assertThat(limiter.acquire("other", 1)).isEqualTo(0);
+
+        verify(connectionFactoryMock, times(1)).getConnection();
+    }
+}
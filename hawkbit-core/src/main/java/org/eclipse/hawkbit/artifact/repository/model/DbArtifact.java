@@ -8,9 +8,12 @@
  */
 package org.eclipse.hawkbit.artifact.repository.model;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import com.google.common.io.ByteStreams;
+
 /**
  * Database representation of artifact.
  * 
@@ -69,6 +72,26 @@ public class DbArtifact {
         return fileInputStream;
     }
 
+    /**
+     * Opens a stream on the given byte range of the artifact. Stores which are
+     * able to seek within the artifact (e.g. chunk based stores) override this
+     * method to avoid reading the artifact from the start.
+     *
+     * @param start
+     *            the offset of the first byte of the range
+     * @param length
+     *            the number of bytes of the range
+     * @return a stream which ends after the range, has to be closed by the
+     *         caller
+     * @throws IOException
+     *             if the start of the range cannot be reached
+     */
+    public InputStream openRange(final long start, final long length) throws IOException {
+        final InputStream stream = getFileInputStream();
+        ByteStreams.skipFully(stream, start);
+        return ByteStreams.limit(stream, length);
+    }
+
     public OutputStream getFileOutputStream() {
         return fileOutputStream;
     }
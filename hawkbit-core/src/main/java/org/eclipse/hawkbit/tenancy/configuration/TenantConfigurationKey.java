@@ -13,6 +13,7 @@ import java.util.Optional;
 
 import org.eclipse.hawkbit.ControllerPollProperties;
 import org.eclipse.hawkbit.tenancy.configuration.validator.TenantConfigurationBooleanValidator;
+import org.eclipse.hawkbit.tenancy.configuration.validator.TenantConfigurationNonNegativeIntegerValidator;
 import org.eclipse.hawkbit.tenancy.configuration.validator.TenantConfigurationPollingDurationValidator;
 import org.eclipse.hawkbit.tenancy.configuration.validator.TenantConfigurationStringValidator;
 import org.eclipse.hawkbit.tenancy.configuration.validator.TenantConfigurationValidator;
@@ -68,7 +69,19 @@ public enum TenantConfigurationKey {
     /**
      * boolean value {@code true} {@code false}.
      */
-    ANONYMOUS_DOWNLOAD_MODE_ENABLED("anonymous.download.enabled", "hawkbit.server.download.anonymous.enabled", Boolean.class, Boolean.FALSE.toString(), TenantConfigurationBooleanValidator.class);
+    ANONYMOUS_DOWNLOAD_MODE_ENABLED("anonymous.download.enabled", "hawkbit.server.download.anonymous.enabled", Boolean.class, Boolean.FALSE.toString(), TenantConfigurationBooleanValidator.class),
+
+    /**
+     * integer value which holds the number of the latest status entries which
+     * are kept per action, {@code 0} keeps all.
+     */
+    ACTION_STATUS_RETENTION_COUNT("action.status.retention.count", "hawkbit.server.repository.actionStatusRetentionCount", Integer.class, "0", TenantConfigurationNonNegativeIntegerValidator.class),
+
+    /**
+     * integer value which holds the number of days after their last change
+     * after which closed actions are purged, {@code 0} keeps all.
+     */
+    ACTION_RETENTION_DAYS("action.retention.days", "hawkbit.server.repository.actionRetentionDays", Integer.class, "0", TenantConfigurationNonNegativeIntegerValidator.class);
 
     private final String keyName;
     private final String defaultKeyName;
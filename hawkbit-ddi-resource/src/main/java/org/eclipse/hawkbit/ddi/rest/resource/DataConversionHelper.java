@@ -13,7 +13,6 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletResponse;
@@ -34,6 +33,7 @@ import org.eclipse.hawkbit.repository.SystemManagement;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
 import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.springframework.hateoas.Link;
 
@@ -109,16 +109,16 @@ public final class DataConversionHelper {
 
     }
 
-    static DdiControllerBase fromTarget(final Target target, final Optional<Action> action,
-            final String defaultControllerPollTime, final TenantAware tenantAware) {
+    static DdiControllerBase fromTarget(final TargetPollView target, final String defaultControllerPollTime,
+            final TenantAware tenantAware) {
         final DdiControllerBase result = new DdiControllerBase(
                 new DdiConfig(new DdiPolling(defaultControllerPollTime)));
 
-        if (action.isPresent()) {
-            if (action.get().isCancelingOrCanceled()) {
+        if (target.hasActiveAction()) {
+            if (target.isActionCancelingOrCanceled()) {
                 result.add(linkTo(
                         methodOn(DdiRootController.class, tenantAware.getCurrentTenant()).getControllerCancelAction(
-                                tenantAware.getCurrentTenant(), target.getControllerId(), action.get().getId()))
+                                tenantAware.getCurrentTenant(), target.getControllerId(), target.getActionId()))
                                         .withRel(DdiRestConstants.CANCEL_ACTION));
             } else {
                 // we need to add the hashcode here of the actionWithStatus
@@ -128,12 +128,12 @@ public final class DataConversionHelper {
                 // response because of eTags.
                 result.add(linkTo(methodOn(DdiRootController.class, tenantAware.getCurrentTenant())
                         .getControllerBasedeploymentAction(tenantAware.getCurrentTenant(), target.getControllerId(),
-                                action.get().getId(), calculateEtag(action.get())))
+                                target.getActionId(), calculateEtag(target)))
                                         .withRel(DdiRestConstants.DEPLOYMENT_BASE_ACTION));
             }
         }
 
-        if (target.getTargetInfo().isRequestControllerAttributes()) {
+        if (target.isRequestControllerAttributes()) {
             result.add(linkTo(methodOn(DdiRootController.class, tenantAware.getCurrentTenant()).putConfigData(null,
                     tenantAware.getCurrentTenant(), target.getControllerId()))
                             .withRel(DdiRestConstants.CONFIG_DATA_ACTION));
@@ -142,21 +142,43 @@ public final class DataConversionHelper {
     }
 
     /**
-     * Calculates an etag for the given {@link Action} based on the entities
-     * hashcode and the {@link Action#isHitAutoForceTime(long)} to reflect a
-     * force switch.
+     * Calculates an etag for the active {@link Action} of the given target
+     * based on the ID and revision of the action and the
+     * {@link Action#isHitAutoForceTime(long)} to reflect a force switch.
      * 
-     * @param action
-     *            to calculate the etag for
+     * @param target
+     *            with the action to calculate the etag for
      * @return the etag
      */
-    private static int calculateEtag(final Action action) {
+    private static int calculateEtag(final TargetPollView target) {
         final int prime = 31;
-        int result = action.hashCode();
-        result = prime * result + (action.isHitAutoForceTime(System.currentTimeMillis()) ? 1231 : 1237);
+        int result = target.getActionId().hashCode();
+        result = prime * result + target.getActionOptLockRevision();
+        result = prime * result + (target.isActionHitAutoForceTime(System.currentTimeMillis()) ? 1231 : 1237);
         return result;
     }
 
+    /**
+     * Calculates an etag for the controller base of the given target based on
+     * the state that is served to the controller, i.e. the active
+     * {@link Action}, the request for the controller attributes and the
+     * polling time.
+     * 
+     * @param target
+     *            to calculate the etag for
+     * @param defaultControllerPollTime
+     *            the polling time served to the controller
+     * @return the quoted etag
+     */
+    static String calculateControllerBaseEtag(final TargetPollView target, final String defaultControllerPollTime) {
+        final int prime = 31;
+        int result = target.hasActiveAction() ? calculateEtag(target) : 0;
+        result = prime * result + (target.isActionCancelingOrCanceled() ? 1231 : 1237);
+        result = prime * result + (target.isRequestControllerAttributes() ? 1231 : 1237);
+        result = prime * result + (defaultControllerPollTime != null ? defaultControllerPollTime.hashCode() : 0);
+        return "\"" + Integer.toHexString(result) + "\"";
+    }
+
     static void writeMD5FileResponse(final String fileName, final HttpServletResponse response,
             final LocalArtifact artifact) throws IOException {
         final StringBuilder builder = new StringBuilder();
@@ -45,7 +45,7 @@ import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
-import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
 import org.eclipse.hawkbit.rest.util.RequestResponseContextHolder;
 import org.eclipse.hawkbit.rest.util.RestResourceConversionHelper;
 import org.eclipse.hawkbit.security.HawkbitSecurityProperties;
@@ -63,6 +63,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  * The {@link DdiRootController} of the hawkBit server DDI API that is queried
@@ -132,20 +133,18 @@ public class DdiRootController implements DdiRootControllerRestApi {
 			@PathVariable("controllerId") final String controllerId) {
 		LOG.debug("getControllerBase({})", controllerId);
 
-		final Target target = controllerManagement.findOrRegisterTargetIfItDoesNotexist(controllerId, IpUtil
-				.getClientIpFromRequest(requestResponseContextHolder.getHttpServletRequest(), securityProperties));
+		final HttpServletRequest request = requestResponseContextHolder.getHttpServletRequest();
+		final TargetPollView target = controllerManagement.findOrRegisterTargetPollView(controllerId,
+				IpUtil.getClientIpFromRequest(request, securityProperties));
+		final String pollingTime = controllerManagement.getPollingTime();
 
-		if (target.getTargetInfo().getUpdateStatus() == TargetUpdateStatus.UNKNOWN) {
-			LOG.debug("target with {} extsisted but was in status UNKNOWN -> REGISTERED)", controllerId);
-			controllerManagement.updateTargetStatus(target.getTargetInfo(), TargetUpdateStatus.REGISTERED,
-					System.currentTimeMillis(), IpUtil.getClientIpFromRequest(
-							requestResponseContextHolder.getHttpServletRequest(), securityProperties));
+		// answer unchanged polls without rendering the links
+		if (new ServletWebRequest(request, requestResponseContextHolder.getHttpServletResponse())
+				.checkNotModified(DataConversionHelper.calculateControllerBaseEtag(target, pollingTime))) {
+			return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
 		}
 
-		return new ResponseEntity<>(
-				DataConversionHelper.fromTarget(target, controllerManagement.findOldestActiveActionByTarget(target),
-						controllerManagement.getPollingTime(), tenantAware),
-				HttpStatus.OK);
+		return new ResponseEntity<>(DataConversionHelper.fromTarget(target, pollingTime, tenantAware), HttpStatus.OK);
 	}
 
 	@Override
@@ -9,11 +9,16 @@
 package org.eclipse.hawkbit.amqp;
 
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.hawkbit.api.HostnameResolver;
-import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
-import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.eclipse.hawkbit.cache.DownloadArtifactCache;
 import org.eclipse.hawkbit.cache.DownloadType;
 import org.eclipse.hawkbit.dmf.json.model.Artifact;
@@ -21,9 +26,13 @@ import org.eclipse.hawkbit.dmf.json.model.ArtifactHash;
 import org.eclipse.hawkbit.dmf.json.model.DownloadResponse;
 import org.eclipse.hawkbit.dmf.json.model.TenantSecurityToken;
 import org.eclipse.hawkbit.dmf.json.model.TenantSecurityToken.FileResource;
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
 import org.eclipse.hawkbit.repository.ArtifactManagement;
 import org.eclipse.hawkbit.repository.ControllerManagement;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetAssignDistributionSetEvent;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
+import org.eclipse.hawkbit.repository.exception.GridFSDBFileNotFoundException;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +50,9 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.Subscribe;
+
 /**
  *
  * {@link AmqpMessageHandlerService} handles all incoming target authentication
@@ -49,10 +61,22 @@ import org.springframework.web.util.UriComponentsBuilder;
  * is configured for the property
  * hawkbit.dmf.rabbitmq.authenticationReceiverQueue.
  *
+ * The granted authorizations are cached per target and file resource for a
+ * short time, so repeated requests of a target only need to be
+ * authenticated. The authorizations of a target are dropped when it gets a
+ * new assignment or its assignment is canceled. An authorization which has
+ * been checked while such an event arrived is not cached. The size and hashes
+ * of the artifacts are taken from the repository, the artifact storage is
+ * only checked for the existence of the binary, so a download URL is only
+ * returned for an artifact which can be downloaded.
+ *
  */
+@EventSubscriber
 public class AmqpAuthenticationMessageHandler extends BaseAmqpService {
     private static final Logger LOG = LoggerFactory.getLogger(AmqpAuthenticationMessageHandler.class);
 
+    private static final int MAX_AUTHORIZED_TARGETS = 10_000;
+
     private final AmqpControllerAuthentication authenticationManager;
 
     private final ArtifactManagement artifactManagement;
@@ -63,6 +87,18 @@ public class AmqpAuthenticationMessageHandler extends BaseAmqpService {
 
     private final ControllerManagement controllerManagement;
 
+    /**
+     * The granted authorizations by target and file resource, with the
+     * artifact of the response. <code>null</code> if they are not cached.
+     */
+    private final ConcurrentMap<List<Object>, Map<List<Object>, Artifact>> authorizations;
+
+    /**
+     * The generation of the authorizations by target, increased by the events
+     * which drop them. <code>null</code> if they are not cached.
+     */
+    private final ConcurrentMap<List<Object>, AtomicLong> generations;
+
     /**
      * @param rabbitTemplate
      *            the configured amqp template.
@@ -81,12 +117,47 @@ public class AmqpAuthenticationMessageHandler extends BaseAmqpService {
             final AmqpControllerAuthentication authenticationManager, final ArtifactManagement artifactManagement,
             final Cache cache, final HostnameResolver hostnameResolver,
             final ControllerManagement controllerManagement) {
+        this(rabbitTemplate, authenticationManager, artifactManagement, cache, hostnameResolver,
+                controllerManagement, 0);
+    }
+
+    /**
+     * @param rabbitTemplate
+     *            the configured amqp template.
+     * @param artifactManagement
+     *            for artifact URI generation
+     * @param cache
+     *            for download Ids
+     * @param hostnameResolver
+     *            for resolving the host for downloads
+     * @param authenticationManager
+     *            for target authentication
+     * @param controllerManagement
+     *            for target repo access
+     * @param authorizationTtl
+     *            milliseconds for which granted authorizations are cached, 0
+     *            to disable the cache
+     */
+    public AmqpAuthenticationMessageHandler(final RabbitTemplate rabbitTemplate,
+            final AmqpControllerAuthentication authenticationManager, final ArtifactManagement artifactManagement,
+            final Cache cache, final HostnameResolver hostnameResolver,
+            final ControllerManagement controllerManagement, final long authorizationTtl) {
         super(rabbitTemplate);
         this.authenticationManager = authenticationManager;
         this.artifactManagement = artifactManagement;
         this.cache = cache;
         this.hostnameResolver = hostnameResolver;
         this.controllerManagement = controllerManagement;
+        this.authorizations = authorizationTtl > 0
+                ? CacheBuilder.newBuilder().maximumSize(MAX_AUTHORIZED_TARGETS)
+                        .expireAfterWrite(authorizationTtl, TimeUnit.MILLISECONDS)
+                        .<List<Object>, Map<List<Object>, Artifact>> build().asMap()
+                : null;
+        this.generations = authorizationTtl > 0
+                ? CacheBuilder.newBuilder().maximumSize(MAX_AUTHORIZED_TARGETS)
+                        .expireAfterAccess(authorizationTtl, TimeUnit.MILLISECONDS)
+                        .<List<Object>, AtomicLong> build().asMap()
+                : null;
     }
 
     /**
@@ -109,6 +180,139 @@ public class AmqpAuthenticationMessageHandler extends BaseAmqpService {
         }
     }
 
+    /**
+     * Drops the cached authorizations of a target which gets a new
+     * assignment.
+     *
+     * @param targetAssignDistributionSetEvent
+     *            the assignment
+     */
+    @Subscribe
+    public void targetAssignDistributionSet(final TargetAssignDistributionSetEvent targetAssignDistributionSetEvent) {
+        if (authorizations == null) {
+            return;
+        }
+        invalidate(controllerKey(targetAssignDistributionSetEvent.getTenant(),
+                targetAssignDistributionSetEvent.getTarget().getControllerId()));
+        invalidate(targetKey(targetAssignDistributionSetEvent.getTarget().getId()));
+    }
+
+    /**
+     * Drops the cached authorizations of a target whose assignment is
+     * canceled. The authorizations requested by target ID expire by time as
+     * the event does not contain it.
+     *
+     * @param cancelTargetAssignmentEvent
+     *            the cancellation
+     */
+    @Subscribe
+    public void targetCancelAssignmentToDistributionSet(
+            final CancelTargetAssignmentEvent cancelTargetAssignmentEvent) {
+        if (authorizations == null) {
+            return;
+        }
+        invalidate(controllerKey(cancelTargetAssignmentEvent.getTenant(),
+                cancelTargetAssignmentEvent.getControllerId()));
+    }
+
+    private void invalidate(final List<Object> authorizationKey) {
+        generation(authorizationKey).incrementAndGet();
+        authorizations.remove(authorizationKey);
+    }
+
+    private AtomicLong generation(final List<Object> authorizationKey) {
+        return generations.computeIfAbsent(authorizationKey, key -> new AtomicLong());
+    }
+
+    private static List<Object> controllerKey(final String tenant, final String controllerId) {
+        return Arrays.asList(tenant.toUpperCase(), controllerId);
+    }
+
+    private static List<Object> targetKey(final Long targetId) {
+        return Arrays.asList(targetId);
+    }
+
+    private static List<Object> authorizationKey(final TenantSecurityToken secruityToken) {
+        if (secruityToken.getControllerId() != null) {
+            return controllerKey(secruityToken.getTenant(), secruityToken.getControllerId());
+        } else if (secruityToken.getTargetId() != null) {
+            return targetKey(secruityToken.getTargetId());
+        }
+        // anonymous download
+        return Arrays.asList(secruityToken.getTenant().toUpperCase(), null);
+    }
+
+    private static List<Object> resourceKey(final FileResource fileResource) {
+        final TenantSecurityToken.FileResource.SoftwareModuleFilenameResource moduleResource = fileResource
+                .getSoftwareModuleFilenameResource();
+        return Arrays.asList(fileResource.getSha1(), fileResource.getFilename(), fileResource.getArtifactId(),
+                moduleResource != null ? moduleResource.getSoftwareModuleId() : null,
+                moduleResource != null ? moduleResource.getFilename() : null);
+    }
+
+    /**
+     * Checks if the target of the token is allowed to download the file
+     * resource, if not cached.
+     *
+     * @return the artifact of the file resource
+     * @throws EntityNotFoundException
+     *             if the artifact does not exist, is not assigned to the
+     *             target or its binary is not in the artifact storage
+     */
+    private Artifact authorize(final TenantSecurityToken secruityToken, final FileResource fileResource) {
+        final List<Object> authorizationKey = authorizations != null ? authorizationKey(secruityToken) : null;
+        final List<Object> resourceKey = authorizations != null ? resourceKey(fileResource) : null;
+        AtomicLong generation = null;
+        long expectedGeneration = 0;
+        if (authorizations != null) {
+            // read before the repository check to detect an event in between
+            generation = generation(authorizationKey);
+            expectedGeneration = generation.get();
+            final Map<List<Object>, Artifact> authorized = authorizations.get(authorizationKey);
+            final Artifact artifact = authorized != null ? authorized.get(resourceKey) : null;
+            if (artifact != null) {
+                LOG.debug("download of file resource {} by {} authorized by cache", fileResource, authorizationKey);
+                return artifact;
+            }
+        }
+
+        final LocalArtifact localArtifact = findLocalArtifactByFileResource(fileResource);
+        if (localArtifact == null) {
+            LOG.info("target {} requested file resource {} which does not exists to download",
+                    secruityToken.getControllerId(), fileResource);
+            throw new EntityNotFoundException();
+        }
+
+        checkIfArtifactIsAssignedToTarget(secruityToken, localArtifact);
+        checkIfArtifactIsStored(localArtifact);
+
+        final Artifact artifact = convertLocalArtifact(localArtifact);
+        if (authorizations != null) {
+            final Map<List<Object>, Artifact> authorized = authorizations.computeIfAbsent(authorizationKey,
+                    key -> new ConcurrentHashMap<>());
+            authorized.put(resourceKey, artifact);
+            // an event increases the generation before it drops the
+            // authorizations, so either it drops this one or it is seen here
+            if (generations.get(authorizationKey) != generation || generation.get() != expectedGeneration) {
+                LOG.debug("authorizations of {} changed during the check, not cached", authorizationKey);
+                authorized.remove(resourceKey);
+            }
+        }
+        return artifact;
+    }
+
+    private void checkIfArtifactIsStored(final LocalArtifact localArtifact) {
+        try {
+            if (artifactManagement.loadLocalArtifactBinary(localArtifact) != null) {
+                return;
+            }
+        } catch (final GridFSDBFileNotFoundException e) {
+            LOG.debug("binary of artifact {} not found", localArtifact, e);
+        }
+        LOG.warn("artifact {} is not in the artifact storage", localArtifact);
+        throw new EntityNotFoundException();
+    }
+
     /**
      * check action for this download purposes, the method will throw an
      * EntityNotFoundException in case the controller is not allowed to download
@@ -174,11 +378,10 @@ public class AmqpAuthenticationMessageHandler extends BaseAmqpService {
         return null;
     }
 
-    private static Artifact convertDbArtifact(final DbArtifact dbArtifact) {
+    private static Artifact convertLocalArtifact(final LocalArtifact localArtifact) {
         final Artifact artifact = new Artifact();
-        artifact.setSize(dbArtifact.getSize());
-        final DbArtifactHash dbArtifactHash = dbArtifact.getHashes();
-        artifact.setHashes(new ArtifactHash(dbArtifactHash.getSha1(), dbArtifactHash.getMd5()));
+        artifact.setSize(localArtifact.getSize());
+        artifact.setHashes(new ArtifactHash(localArtifact.getSha1Hash(), localArtifact.getMd5Hash()));
         return artifact;
     }
 
@@ -191,25 +394,12 @@ public class AmqpAuthenticationMessageHandler extends BaseAmqpService {
         try {
             SecurityContextHolder.getContext().setAuthentication(authenticationManager.doAuthenticate(secruityToken));
 
-            final LocalArtifact localArtifact = findLocalArtifactByFileResource(fileResource);
-
-            if (localArtifact == null) {
-                LOG.info("target {} requested file resource {} which does not exists to download",
-                        secruityToken.getControllerId(), fileResource);
-                throw new EntityNotFoundException();
-            }
-
-            checkIfArtifactIsAssignedToTarget(secruityToken, localArtifact);
-
-            final Artifact artifact = convertDbArtifact(artifactManagement.loadLocalArtifactBinary(localArtifact));
-            if (artifact == null) {
-                throw new EntityNotFoundException();
-            }
+            final Artifact artifact = authorize(secruityToken, fileResource);
             authentificationResponse.setArtifact(artifact);
             final String downloadId = UUID.randomUUID().toString();
             // SHA1 key is set, download by SHA1
             final DownloadArtifactCache downloadCache = new DownloadArtifactCache(DownloadType.BY_SHA1,
-                    localArtifact.getSha1Hash());
+                    artifact.getHashes().getSha1());
             cache.put(downloadId, downloadCache);
             authentificationResponse
                     .setDownloadUrl(UriComponentsBuilder.fromUri(hostnameResolver.resolveHostname().toURI())
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
+import org.eclipse.hawkbit.dmf.json.model.ActionUpdateStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.ChannelAwareMessageListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.rabbitmq.client.Channel;
+
+/**
+ * Listener for the DMF receiver queue which handles the messages in batches
+ * instead of one by one. It has to be used with
+ * {@link AcknowledgeMode#MANUAL}.
+ *
+ * The delivered messages are partitioned over a fixed number of threads by
+ * tenant and the thing ID of thing messages or the action ID of action status
+ * messages. So the messages of a thing and the status updates of an action are
+ * handled in the order of their delivery, the status updates of different
+ * actions of a target may be handled concurrently. Every thread drains up to
+ * {@link AmqpProperties.Batch#getSize()} messages of its partition and handles
+ * them with one transaction per tenant. If a batch fails, it is rolled back
+ * and its messages are handled one by one again, so every message is
+ * acknowledged or rejected on its own.
+ */
+public class AmqpBatchMessageListener implements ChannelAwareMessageListener, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AmqpBatchMessageListener.class);
+
+    private final AmqpMessageHandlerService amqpMessageHandlerService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final List<BlockingQueue<Delivery>> partitions;
+
+    private final ExecutorService workers;
+
+    /**
+     * Constructor.
+     *
+     * @param amqpMessageHandlerService
+     *            which handles the single messages
+     * @param txManager
+     *            for the transaction of a batch
+     * @param amqpProperties
+     *            with the batch configuration
+     */
+    public AmqpBatchMessageListener(final AmqpMessageHandlerService amqpMessageHandlerService,
+            final PlatformTransactionManager txManager, final AmqpProperties amqpProperties) {
+        this.amqpMessageHandlerService = amqpMessageHandlerService;
+        this.transactionTemplate = new TransactionTemplate(txManager);
+        this.batchSize = amqpProperties.getBatch().getSize();
+
+        final int partitionCount = amqpProperties.getBatch().getPartitions();
+        this.partitions = new ArrayList<>(partitionCount);
+        this.workers = Executors.newFixedThreadPool(partitionCount,
+                new ThreadFactoryBuilder().setNameFormat("dmf-batch-%d").setDaemon(true).build());
+        for (int i = 0; i < partitionCount; i++) {
+            final BlockingQueue<Delivery> partition = new LinkedBlockingQueue<>();
+            partitions.add(partition);
+            workers.execute(() -> drain(partition));
+        }
+    }
+
+    @Override
+    public void onMessage(final Message message, final Channel channel) {
+        // the queues are bounded by the prefetch count as the messages are
+        // acknowledged manually
+        partitions.get(partition(message)).add(new Delivery(message, channel));
+    }
+
+    @Override
+    public void destroy() {
+        // messages which are not acknowledged yet are delivered again by the
+        // broker
+        workers.shutdownNow();
+    }
+
+    private int partition(final Message message) {
+        final Map<String, Object> headers = message.getMessageProperties().getHeaders();
+        Object key = headers.get(MessageHeaderKey.THING_ID);
+        if (key == null) {
+            key = actionId(message);
+        }
+        return Math.floorMod(Objects.hash(headers.get(MessageHeaderKey.TENANT), key), partitions.size());
+    }
+
+    private Long actionId(final Message message) {
+        try {
+            final ActionUpdateStatus actionUpdateStatus = amqpMessageHandlerService.convertMessage(message,
+                    ActionUpdateStatus.class);
+            return actionUpdateStatus != null ? actionUpdateStatus.getActionId() : null;
+        } catch (final RuntimeException e) {
+            LOG.trace("Message without action ID", e);
+            // the message is rejected by the handler
+            return null;
+        }
+    }
+
+    private void drain(final BlockingQueue<Delivery> partition) {
+        final List<Delivery> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(partition.take());
+                partition.drainTo(batch, batchSize - 1);
+                try {
+                    handleBatch(batch);
+                } catch (final RuntimeException e) {
+                    // the worker has to survive, e.g. a closed channel
+                    LOG.error("Failed to handle batch of {} messages, unacknowledged messages are delivered again.",
+                            batch.size(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleBatch(final List<Delivery> batch) {
+        final Map<String, List<Delivery>> byTenant = batch.stream().collect(
+                Collectors.groupingBy(Delivery::getTenant, LinkedHashMap::new, Collectors.toList()));
+
+        byTenant.forEach((tenant, deliveries) -> {
+            if (tenant.isEmpty()) {
+                LOG.warn("Rejecting {} messages without tenant.", deliveries.size());
+                deliveries.forEach(delivery -> delivery.reject(false));
+                return;
+            }
+
+            final SecurityContext oldContext = SecurityContextHolder.getContext();
+            try {
+                AmqpMessageHandlerService.setTenantSecurityContext(tenant);
+                handleTenantBatch(tenant, deliveries);
+            } finally {
+                SecurityContextHolder.setContext(oldContext);
+            }
+        });
+    }
+
+    private void handleTenantBatch(final String tenant, final List<Delivery> deliveries) {
+        final String virtualHost = amqpMessageHandlerService.getRabbitTemplate().getConnectionFactory()
+                .getVirtualHost();
+        final List<Runnable> dispatches = new ArrayList<>();
+        try {
+            transactionTemplate.execute(status -> {
+                deliveries.forEach(delivery -> amqpMessageHandlerService.handleMessage(delivery.message,
+                        delivery.getType(), virtualHost, dispatches::add));
+                return null;
+            });
+        } catch (final RuntimeException e) {
+            LOG.debug("Batch of {} messages of tenant {} failed, handling them one by one.", deliveries.size(),
+                    tenant, e);
+            deliveries.forEach(delivery -> handleSingle(tenant, virtualHost, delivery));
+            return;
+        }
+
+        dispatches.forEach(AmqpBatchMessageListener::dispatch);
+        deliveries.forEach(Delivery::acknowledge);
+    }
+
+    private void handleSingle(final String tenant, final String virtualHost, final Delivery delivery) {
+        try {
+            amqpMessageHandlerService.onMessage(delivery.message, delivery.getType(), tenant, virtualHost);
+        } catch (final AmqpRejectAndDontRequeueException e) {
+            LOG.debug("Rejecting message {}.", delivery.message, e);
+            delivery.reject(false);
+            return;
+        } catch (final RuntimeException e) {
+            LOG.warn("Failed to handle message {}, requeuing it.", delivery.message, e);
+            delivery.reject(true);
+            return;
+        }
+        delivery.acknowledge();
+    }
+
+    private static void dispatch(final Runnable dispatch) {
+        // the batch is committed already, a failed message to the DMF client
+        // must not cause the batch to be delivered again
+        try {
+            dispatch.run();
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to send message to DMF client.", e);
+        }
+    }
+
+    private static final class Delivery {
+        private final Message message;
+        private final Channel channel;
+
+        private Delivery(final Message message, final Channel channel) {
+            this.message = message;
+            this.channel = channel;
+        }
+
+        private String getTenant() {
+            final Object tenant = message.getMessageProperties().getHeaders().get(MessageHeaderKey.TENANT);
+            return tenant != null ? tenant.toString() : "";
+        }
+
+        private String getType() {
+            return String.valueOf(message.getMessageProperties().getHeaders().get(MessageHeaderKey.TYPE));
+        }
+
+        private void acknowledge() {
+            try {
+                channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+            } catch (final IOException | RuntimeException e) {
+                LOG.warn("Failed to acknowledge message {}, it is delivered again.", message, e);
+            }
+        }
+
+        private void reject(final boolean requeue) {
+            try {
+                channel.basicReject(message.getMessageProperties().getDeliveryTag(), requeue);
+            } catch (final IOException | RuntimeException e) {
+                LOG.warn("Failed to reject message {}, it is delivered again.", message, e);
+            }
+        }
+    }
+}
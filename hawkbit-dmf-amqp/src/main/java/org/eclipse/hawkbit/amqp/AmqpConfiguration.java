@@ -27,6 +27,7 @@ import org.eclipse.hawkbit.security.SystemSecurityContext;
 import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.FanoutExchange;
@@ -49,6 +50,7 @@ import org.springframework.cache.Cache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.ErrorHandler;
 
@@ -124,6 +126,89 @@ public class AmqpConfiguration {
         }
     }
 
+    @Configuration
+    @ConditionalOnProperty(prefix = "hawkbit.dmf.rabbitmq.batch", name = "enabled")
+    protected static class BatchListenerConfiguration {
+
+        @Autowired
+        private AmqpProperties amqpProperties;
+
+        @Autowired
+        private ConnectionFactory rabbitConnectionFactory;
+
+        /**
+         * @param amqpMessageHandlerService
+         *            which handles the single messages
+         * @param txManager
+         *            for the transaction of a batch
+         * @return listener which handles the messages of the DMF receiver
+         *         queue in batches
+         */
+        @Bean
+        public AmqpBatchMessageListener amqpBatchMessageListener(
+                final AmqpMessageHandlerService amqpMessageHandlerService,
+                final PlatformTransactionManager txManager) {
+            return new AmqpBatchMessageListener(amqpMessageHandlerService, txManager, amqpProperties);
+        }
+
+        /**
+         * The container consumes the DMF receiver queue instead of the
+         * {@link AmqpMessageHandlerService} if batch processing is enabled.
+         * The number of consumers is fixed as the messages which are not
+         * acknowledged yet are delivered again when a consumer is stopped.
+         *
+         * @param amqpBatchMessageListener
+         *            the listener
+         * @param errorHandler
+         *            the error handler which should be use
+         * @return the {@link SimpleMessageListenerContainer}
+         */
+        @Bean
+        public SimpleMessageListenerContainer dmfBatchListenerContainer(
+                final AmqpBatchMessageListener amqpBatchMessageListener, final ErrorHandler errorHandler) {
+            final SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(
+                    rabbitConnectionFactory);
+            container.setQueueNames(amqpProperties.getReceiverQueue());
+            container.setMessageListener(amqpBatchMessageListener);
+            container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+            container.setErrorHandler(errorHandler);
+            container.setMissingQueuesFatal(amqpProperties.isMissingQueuesFatal());
+            container.setDeclarationRetries(amqpProperties.getDeclarationRetries());
+            container.setConcurrentConsumers(amqpProperties.getInitialConcurrentConsumers());
+            container.setPrefetchCount(
+                    Math.max(amqpProperties.getPrefetchCount(), amqpProperties.getBatch().getSize()));
+            return container;
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "hawkbit.dmf.rabbitmq.sender", name = "async")
+    protected static class AsyncSenderConfiguration {
+
+        @Autowired
+        private AmqpProperties amqpProperties;
+
+        @Autowired
+        private ConnectionFactory rabbitConnectionFactory;
+
+        /**
+         * The sender service has a {@link RabbitTemplate} of its own to track
+         * the publisher confirms of its messages.
+         *
+         * @return amqp sender service which sends the messages by dedicated
+         *         threads
+         */
+        @Bean
+        @ConditionalOnMissingBean(AmqpSenderService.class)
+        public AsyncAmqpSenderService asyncAmqpSenderService() {
+            final RabbitTemplate rabbitTemplate = new RabbitTemplate(rabbitConnectionFactory);
+            final RetryTemplate retryTemplate = new RetryTemplate();
+            retryTemplate.setBackOffPolicy(new ExponentialBackOffPolicy());
+            rabbitTemplate.setRetryTemplate(retryTemplate);
+            return new AsyncAmqpSenderService(rabbitTemplate, amqpProperties.getSender());
+        }
+    }
+
     /**
      * Create a {@link RabbitAdmin} and ignore declaration exceptions.
      * {@link RabbitAdmin#setIgnoreDeclarationExceptions(boolean)}
@@ -302,7 +387,7 @@ public class AmqpConfiguration {
             @Qualifier(CacheConstants.DOWNLOAD_ID_CACHE) final Cache cache, final HostnameResolver hostnameResolver,
             final ControllerManagement controllerManagement) {
         return new AmqpAuthenticationMessageHandler(rabbitTemplate, authenticationManager, artifactManagement, cache,
-                hostnameResolver, controllerManagement);
+                hostnameResolver, controllerManagement, amqpProperties.getDownloadAuthorizationTtl());
     }
 
     /**
@@ -330,6 +415,25 @@ public class AmqpConfiguration {
         return new ConfigurableRabbitListenerContainerFactory(amqpProperties, rabbitConnectionFactory, errorHandler);
     }
 
+    /**
+     * Returns the listener factory of the DMF receiver queue. Its containers
+     * are not started if the queue is consumed by the
+     * {@link AmqpBatchMessageListener}.
+     * 
+     * @param errorHandler
+     *            the error hander
+     * @return the {@link SimpleMessageListenerContainer} that gets used receive
+     *         DMF messages
+     */
+    @Bean(name = { "dmfListenerContainerFactory" })
+    public RabbitListenerContainerFactory<SimpleMessageListenerContainer> dmfListenerContainerFactory(
+            final ErrorHandler errorHandler) {
+        final ConfigurableRabbitListenerContainerFactory factory = new ConfigurableRabbitListenerContainerFactory(
+                amqpProperties, rabbitConnectionFactory, errorHandler);
+        factory.setAutoStartup(!amqpProperties.getBatch().isEnabled());
+        return factory;
+    }
+
     @Bean
     @ConditionalOnMissingBean(AmqpControllerAuthentication.class)
     public AmqpControllerAuthentication amqpControllerAuthentication(final SystemManagement systemManagement,
@@ -344,9 +448,10 @@ public class AmqpConfiguration {
     @ConditionalOnMissingBean(AmqpMessageDispatcherService.class)
     public AmqpMessageDispatcherService amqpMessageDispatcherService(final RabbitTemplate rabbitTemplate,
             final AmqpSenderService amqpSenderService, final ArtifactUrlHandler artifactUrlHandler,
-            final SystemSecurityContext systemSecurityContext, final SystemManagement systemManagement) {
+            final SystemSecurityContext systemSecurityContext, final SystemManagement systemManagement,
+            final ScheduledExecutorService scheduledExecutorService) {
         return new AmqpMessageDispatcherService(rabbitTemplate, amqpSenderService, artifactUrlHandler,
-                systemSecurityContext, systemManagement);
+                systemSecurityContext, systemManagement, amqpProperties.getBulk(), scheduledExecutorService);
     }
 
     private static Map<String, Object> getTTLMaxArgsAuthenticationQueue() {
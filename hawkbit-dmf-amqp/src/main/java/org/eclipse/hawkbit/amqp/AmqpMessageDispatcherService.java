@@ -9,13 +9,20 @@
 package org.eclipse.hawkbit.amqp;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.hawkbit.api.ApiType;
 import org.eclipse.hawkbit.api.ArtifactUrlHandler;
+import org.eclipse.hawkbit.api.PropertyBasedArtifactUrlHandler;
 import org.eclipse.hawkbit.api.URLPlaceholder;
 import org.eclipse.hawkbit.api.URLPlaceholder.SoftwareData;
 import org.eclipse.hawkbit.dmf.amqp.api.EventTopic;
@@ -23,7 +30,9 @@ import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
 import org.eclipse.hawkbit.dmf.amqp.api.MessageType;
 import org.eclipse.hawkbit.dmf.json.model.Artifact;
 import org.eclipse.hawkbit.dmf.json.model.ArtifactHash;
+import org.eclipse.hawkbit.dmf.json.model.BulkDownloadAndUpdateRequest;
 import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateRequest;
+import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateTarget;
 import org.eclipse.hawkbit.dmf.json.model.SoftwareModule;
 import org.eclipse.hawkbit.eventbus.EventSubscriber;
 import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
@@ -31,13 +40,22 @@ import org.eclipse.hawkbit.repository.SystemManagement;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetAssignDistributionSetEvent;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TenantMetaData;
 import org.eclipse.hawkbit.security.SystemSecurityContext;
 import org.eclipse.hawkbit.util.IpUtil;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.DisposableBean;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * {@link AmqpMessageDispatcherService} create all outgoing AMQP messages and
@@ -46,15 +64,38 @@ import com.google.common.eventbus.Subscribe;
  * Additionally the dispatcher listener/subscribe for some target events e.g.
  * assignment.
  *
+ * If the artifact URLs are created by the
+ * {@link PropertyBasedArtifactUrlHandler}, which only replaces placeholders,
+ * the software modules of a {@link DownloadAndUpdateRequest} are serialized
+ * once per tenant and set of software modules into a
+ * {@link SoftwareModulesTemplate}, which is rendered for every target. If
+ * {@link AmqpProperties.Bulk} is enabled, the targets which share an address
+ * and software modules are collected by {@link BulkAssignments} and get one
+ * {@link BulkDownloadAndUpdateRequest}. Other {@link ArtifactUrlHandler}s may
+ * create URLs which cannot be rendered from a template, so the software modules
+ * are converted for every target.
+ *
  */
 @EventSubscriber
-public class AmqpMessageDispatcherService extends BaseAmqpService {
+public class AmqpMessageDispatcherService extends BaseAmqpService implements DisposableBean {
+
+    private static final int MAX_TEMPLATES = 1_000;
+
+    private static final int TEMPLATE_TTL_HOURS = 1;
 
     private final ArtifactUrlHandler artifactUrlHandler;
+    private final boolean templatesSupported;
     private final AmqpSenderService amqpSenderService;
     private final SystemSecurityContext systemSecurityContext;
     private final SystemManagement systemManagement;
 
+    private final BulkAssignments bulkAssignments;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Cache<List<Object>, SoftwareModulesTemplate> templates = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TEMPLATES).expireAfterAccess(TEMPLATE_TTL_HOURS, TimeUnit.HOURS).build();
+
     /**
      * Constructor.
      * 
@@ -72,11 +113,41 @@ public class AmqpMessageDispatcherService extends BaseAmqpService {
     public AmqpMessageDispatcherService(final RabbitTemplate rabbitTemplate, final AmqpSenderService amqpSenderService,
             final ArtifactUrlHandler artifactUrlHandler, final SystemSecurityContext systemSecurityContext,
             final SystemManagement systemManagement) {
+        this(rabbitTemplate, amqpSenderService, artifactUrlHandler, systemSecurityContext, systemManagement,
+                new AmqpProperties.Bulk(), null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param rabbitTemplate
+     *            the rabbitTemplate
+     * @param amqpSenderService
+     *            to send AMQP message
+     * @param artifactUrlHandler
+     *            for generating download URLs
+     * @param systemSecurityContext
+     *            for execution with system permissions
+     * @param systemManagement
+     *            to access to tenant metadata
+     * @param bulkProperties
+     *            the configuration of the bulk download and update requests
+     * @param scheduler
+     *            which sends the bulk download and update requests, required
+     *            if they are enabled
+     */
+    public AmqpMessageDispatcherService(final RabbitTemplate rabbitTemplate, final AmqpSenderService amqpSenderService,
+            final ArtifactUrlHandler artifactUrlHandler, final SystemSecurityContext systemSecurityContext,
+            final SystemManagement systemManagement, final AmqpProperties.Bulk bulkProperties,
+            final ScheduledExecutorService scheduler) {
         super(rabbitTemplate);
         this.artifactUrlHandler = artifactUrlHandler;
+        this.templatesSupported = artifactUrlHandler instanceof PropertyBasedArtifactUrlHandler;
         this.amqpSenderService = amqpSenderService;
         this.systemSecurityContext = systemSecurityContext;
         this.systemManagement = systemManagement;
+        this.bulkAssignments = bulkProperties.isEnabled()
+                ? new BulkAssignments(bulkProperties, scheduler, this::sendDownloadAndUpdate) : null;
     }
 
     /**
@@ -93,26 +164,153 @@ public class AmqpMessageDispatcherService extends BaseAmqpService {
             return;
         }
 
-        final String controllerId = targetAssignDistributionSetEvent.getTarget().getControllerId();
+        final String tenant = targetAssignDistributionSetEvent.getTenant();
+        final Target target = targetAssignDistributionSetEvent.getTarget();
         final Collection<org.eclipse.hawkbit.repository.model.SoftwareModule> modules = targetAssignDistributionSetEvent
                 .getSoftwareModules();
-        final DownloadAndUpdateRequest downloadAndUpdateRequest = new DownloadAndUpdateRequest();
-        downloadAndUpdateRequest.setActionId(targetAssignDistributionSetEvent.getActionId());
+        final String targetSecurityToken = systemSecurityContext.runAsSystem(target::getSecurityToken);
+
+        if (!templatesSupported || !(getMessageConverter() instanceof Jackson2JsonMessageConverter)) {
+            final DownloadAndUpdateRequest downloadAndUpdateRequest = new DownloadAndUpdateRequest();
+            downloadAndUpdateRequest.setActionId(targetAssignDistributionSetEvent.getActionId());
+            downloadAndUpdateRequest.setTargetSecurityToken(targetSecurityToken);
+            final TenantMetaData tenantMetaData = modules.isEmpty() ? null : systemManagement.getTenantMetadata();
+            for (final org.eclipse.hawkbit.repository.model.SoftwareModule softwareModule : modules) {
+                downloadAndUpdateRequest.addSoftwareModule(convertToAmqpSoftwareModule(tenantMetaData,
+                        target.getControllerId(), target.getId(), softwareModule));
+            }
+            amqpSenderService.sendMessage(getMessageConverter().toMessage(downloadAndUpdateRequest,
+                    createConnectorMessageProperties(tenant, target.getControllerId(),
+                            EventTopic.DOWNLOAD_AND_INSTALL)),
+                    targetAdress);
+            return;
+        }
+
+        final DownloadAndUpdateTarget downloadAndUpdateTarget = new DownloadAndUpdateTarget();
+        downloadAndUpdateTarget.setThingId(target.getControllerId());
+        downloadAndUpdateTarget.setTargetId(target.getId());
+        downloadAndUpdateTarget.setActionId(targetAssignDistributionSetEvent.getActionId());
+        downloadAndUpdateTarget.setTargetSecurityToken(targetSecurityToken);
+        final BulkAssignments.Key key = new BulkAssignments.Key(tenant, targetAdress,
+                modules.isEmpty() ? null : getTemplate(tenant, modules));
+
+        if (bulkAssignments != null) {
+            bulkAssignments.add(key, downloadAndUpdateTarget);
+        } else {
+            sendDownloadAndUpdate(key, Collections.singletonList(downloadAndUpdateTarget));
+        }
+    }
+
+    /**
+     * Sends the assignments which are collected for bulk messages.
+     */
+    @Override
+    public void destroy() {
+        if (bulkAssignments != null) {
+            bulkAssignments.destroy();
+        }
+    }
+
+    private void sendDownloadAndUpdate(final BulkAssignments.Key key, final List<DownloadAndUpdateTarget> targets) {
+        if (targets.size() == 1) {
+            final DownloadAndUpdateTarget target = targets.get(0);
+            amqpSenderService.sendMessage(createDownloadAndUpdateMessage(key.getTenant(), key.getTemplate(), target),
+                    key.getAddress());
+        } else {
+            amqpSenderService.sendMessage(createBulkDownloadAndUpdateMessage(key.getTenant(), key.getTemplate(),
+                    targets), key.getAddress());
+        }
+    }
+
+    /**
+     * Creates the message in the same format as the
+     * {@link Jackson2JsonMessageConverter} would do for the
+     * {@link DownloadAndUpdateRequest}, but with the software modules rendered
+     * from a template.
+     */
+    private Message createDownloadAndUpdateMessage(final String tenant, final SoftwareModulesTemplate template,
+            final DownloadAndUpdateTarget target) {
+        final StringBuilder json = new StringBuilder("{\"actionId\":").append(target.getActionId());
+        if (target.getTargetSecurityToken() != null) {
+            json.append(",\"targetSecurityToken\":").append(toJson(target.getTargetSecurityToken()));
+        }
+        json.append(",\"softwareModules\":");
+        if (template == null) {
+            json.append("[]");
+        } else {
+            final String controllerId = toJson(target.getThingId());
+            json.append(template.render(controllerId.substring(1, controllerId.length() - 1), target.getTargetId()));
+        }
+
+        return createJsonMessage(json.append('}').toString(), DownloadAndUpdateRequest.class,
+                createConnectorMessageProperties(tenant, target.getThingId(), EventTopic.DOWNLOAD_AND_INSTALL));
+    }
 
-        final String targetSecurityToken = systemSecurityContext
-                .runAsSystem(targetAssignDistributionSetEvent.getTarget()::getSecurityToken);
-        downloadAndUpdateRequest.setTargetSecurityToken(targetSecurityToken);
+    /**
+     * Creates the message in the same format as the
+     * {@link Jackson2JsonMessageConverter} would do for the
+     * {@link BulkDownloadAndUpdateRequest}, with the software modules
+     * rendered from a template with the placeholders of the request.
+     */
+    private Message createBulkDownloadAndUpdateMessage(final String tenant, final SoftwareModulesTemplate template,
+            final List<DownloadAndUpdateTarget> targets) {
+        final StringBuilder json = new StringBuilder("{\"softwareModules\":");
+        if (template == null) {
+            json.append("[]");
+        } else {
+            json.append(template.render(BulkDownloadAndUpdateRequest.CONTROLLER_ID_PLACEHOLDER,
+                    BulkDownloadAndUpdateRequest.TARGET_ID_PLACEHOLDER,
+                    BulkDownloadAndUpdateRequest.TARGET_ID_BASE62_PLACEHOLDER));
+        }
+        json.append(",\"targets\":").append(toJson(targets));
 
-        for (final org.eclipse.hawkbit.repository.model.SoftwareModule softwareModule : modules) {
-            final SoftwareModule amqpSoftwareModule = convertToAmqpSoftwareModule(
-                    targetAssignDistributionSetEvent.getTarget(), softwareModule);
-            downloadAndUpdateRequest.addSoftwareModule(amqpSoftwareModule);
+        final MessageProperties messageProperties = createMessageProperties();
+        messageProperties.setHeader(MessageHeaderKey.TOPIC, EventTopic.BULK_DOWNLOAD_AND_INSTALL);
+        messageProperties.setHeader(MessageHeaderKey.TENANT, tenant);
+        messageProperties.setHeader(MessageHeaderKey.TYPE, MessageType.EVENT);
+        return createJsonMessage(json.append('}').toString(), BulkDownloadAndUpdateRequest.class,
+                messageProperties);
+    }
+
+    private static Message createJsonMessage(final String json, final Class<?> type,
+            final MessageProperties messageProperties) {
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        messageProperties.setContentLength(body.length);
+        messageProperties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, type.getName());
+        return new Message(body, messageProperties);
+    }
+
+    private SoftwareModulesTemplate getTemplate(final String tenant,
+            final Collection<org.eclipse.hawkbit.repository.model.SoftwareModule> modules) {
+        // the artifacts of a module are part of the key as they can be added
+        // after the template has been created
+        final List<Object> key = new ArrayList<>(modules.size() + 1);
+        key.add(tenant);
+        modules.forEach(module -> key.add(Arrays.asList(module.getId(), module.getLocalArtifacts().stream()
+                .map(LocalArtifact::getId).collect(Collectors.toList()))));
+
+        try {
+            return templates.get(key, () -> {
+                final TenantMetaData tenantMetaData = systemManagement.getTenantMetadata();
+                final List<SoftwareModule> amqpSoftwareModules = modules.stream()
+                        .map(module -> convertToAmqpSoftwareModule(tenantMetaData,
+                                SoftwareModulesTemplate.CONTROLLER_ID_PLACEHOLDER,
+                                SoftwareModulesTemplate.TARGET_ID_PLACEHOLDER, module))
+                        .collect(Collectors.toList());
+                return new SoftwareModulesTemplate(objectMapper.writeValueAsString(amqpSoftwareModules));
+            });
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException("Failed to create template of software modules", e.getCause());
         }
+    }
 
-        final Message message = getMessageConverter().toMessage(downloadAndUpdateRequest,
-                createConnectorMessageProperties(targetAssignDistributionSetEvent.getTenant(), controllerId,
-                        EventTopic.DOWNLOAD_AND_INSTALL));
-        amqpSenderService.sendMessage(message, targetAdress);
+    private String toJson(final Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
     }
 
     /**
@@ -126,6 +324,11 @@ public class AmqpMessageDispatcherService extends BaseAmqpService {
     public void targetCancelAssignmentToDistributionSet(
             final CancelTargetAssignmentEvent cancelTargetAssignmentDistributionSetEvent) {
         final String controllerId = cancelTargetAssignmentDistributionSetEvent.getControllerId();
+        if (bulkAssignments != null) {
+            // the cancellation must not overtake the assignment
+            bulkAssignments.flush(cancelTargetAssignmentDistributionSetEvent.getTenant(),
+                    cancelTargetAssignmentDistributionSetEvent.getTargetAdress());
+        }
         final Long actionId = cancelTargetAssignmentDistributionSetEvent.getActionId();
         final Message message = getMessageConverter().toMessage(actionId, createConnectorMessageProperties(
                 cancelTargetAssignmentDistributionSetEvent.getTenant(), controllerId, EventTopic.CANCEL_DOWNLOAD));
@@ -151,35 +354,39 @@ public class AmqpMessageDispatcherService extends BaseAmqpService {
         return messageProperties;
     }
 
-    private SoftwareModule convertToAmqpSoftwareModule(final Target target,
+    private SoftwareModule convertToAmqpSoftwareModule(final TenantMetaData tenantMetaData,
+            final String controllerId, final Long targetId,
             final org.eclipse.hawkbit.repository.model.SoftwareModule softwareModule) {
         final SoftwareModule amqpSoftwareModule = new SoftwareModule();
         amqpSoftwareModule.setModuleId(softwareModule.getId());
         amqpSoftwareModule.setModuleType(softwareModule.getType().getKey());
         amqpSoftwareModule.setModuleVersion(softwareModule.getVersion());
 
-        final List<Artifact> artifacts = convertArtifacts(target, softwareModule.getLocalArtifacts());
+        final List<Artifact> artifacts = convertArtifacts(tenantMetaData, controllerId, targetId,
+                softwareModule.getLocalArtifacts());
         amqpSoftwareModule.setArtifacts(artifacts);
         return amqpSoftwareModule;
     }
 
-    private List<Artifact> convertArtifacts(final Target target, final List<LocalArtifact> localArtifacts) {
+    private List<Artifact> convertArtifacts(final TenantMetaData tenantMetaData, final String controllerId,
+            final Long targetId, final List<LocalArtifact> localArtifacts) {
         if (localArtifacts.isEmpty()) {
             return Collections.emptyList();
         }
 
-        return localArtifacts.stream().map(localArtifact -> convertArtifact(target, localArtifact))
+        return localArtifacts.stream()
+                .map(localArtifact -> convertArtifact(tenantMetaData, controllerId, targetId, localArtifact))
                 .collect(Collectors.toList());
     }
 
-    private Artifact convertArtifact(final Target target, final LocalArtifact localArtifact) {
+    private Artifact convertArtifact(final TenantMetaData tenantMetaData, final String controllerId,
+            final Long targetId, final LocalArtifact localArtifact) {
         final Artifact artifact = new Artifact();
 
         artifact.setUrls(artifactUrlHandler
-                .getUrls(new URLPlaceholder(systemManagement.getTenantMetadata().getTenant(),
-                        systemManagement.getTenantMetadata().getId(), target.getControllerId(), target.getId(),
-                        new SoftwareData(localArtifact.getSoftwareModule().getId(), localArtifact.getFilename(),
-                                localArtifact.getId(), localArtifact.getSha1Hash())),
+                .getUrls(new URLPlaceholder(tenantMetaData.getTenant(), tenantMetaData.getId(), controllerId,
+                        targetId, new SoftwareData(localArtifact.getSoftwareModule().getId(),
+                                localArtifact.getFilename(), localArtifact.getId(), localArtifact.getSha1Hash())),
                         ApiType.DMF)
                 .stream().collect(Collectors.toMap(e -> e.getProtocol(), e -> e.getRef())));
 
@@ -14,6 +14,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -101,7 +102,7 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
      * 
      * @return a message if <null> no message is send back to sender
      */
-    @RabbitListener(queues = "${hawkbit.dmf.rabbitmq.receiverQueue}", containerFactory = "listenerContainerFactory")
+    @RabbitListener(queues = "${hawkbit.dmf.rabbitmq.receiverQueue}", containerFactory = "dmfListenerContainerFactory")
     public Message onMessage(final Message message, @Header(MessageHeaderKey.TYPE) final String type,
             @Header(MessageHeaderKey.TENANT) final String tenant) {
         return onMessage(message, type, tenant, getRabbitTemplate().getConnectionFactory().getVirtualHost());
@@ -121,20 +122,44 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
      * @return the rpc message back to supplier.
      */
     public Message onMessage(final Message message, final String type, final String tenant, final String virtualHost) {
-        checkContentTypeJson(message);
         final SecurityContext oldContext = SecurityContextHolder.getContext();
+        try {
+            setTenantSecurityContext(tenant);
+            handleMessage(message, type, virtualHost, Runnable::run);
+        } finally {
+            SecurityContextHolder.setContext(oldContext);
+        }
+        return null;
+    }
+
+    /**
+     * Handles a message in the security context of its tenant which has to be
+     * set by the caller. Messages to the DMF client which result from the
+     * handling are passed to the given dispatcher, so a caller which handles
+     * several messages in one transaction can send them after the commit.
+     *
+     * @param message
+     *            the message
+     * @param type
+     *            the type
+     * @param virtualHost
+     *            the virtual host
+     * @param dispatcher
+     *            which sends the resulting messages to the DMF client
+     */
+    void handleMessage(final Message message, final String type, final String virtualHost,
+            final Executor dispatcher) {
+        checkContentTypeJson(message);
         try {
             final MessageType messageType = MessageType.valueOf(type);
             switch (messageType) {
             case THING_CREATED:
-                setTenantSecurityContext(tenant);
-                registerTarget(message, virtualHost);
+                registerTarget(message, virtualHost, dispatcher);
                 break;
             case EVENT:
-                setTenantSecurityContext(tenant);
                 final String topicValue = getStringHeaderKey(message, MessageHeaderKey.TOPIC, "EventTopic is null");
                 final EventTopic eventTopic = EventTopic.valueOf(topicValue);
-                handleIncomingEvent(message, eventTopic);
+                handleIncomingEvent(message, eventTopic, dispatcher);
                 break;
             default:
                 logAndThrowMessageError(message, "No handle method was found for the given message type.");
@@ -143,10 +168,7 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
             throw new AmqpRejectAndDontRequeueException("Invalid message!", ex);
         } catch (final TenantNotExistException | TooManyStatusEntriesException e) {
             throw new AmqpRejectAndDontRequeueException(e);
-        } finally {
-            SecurityContextHolder.setContext(oldContext);
         }
-        return null;
     }
 
     private static void setSecurityContext(final Authentication authentication) {
@@ -155,7 +177,7 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
         SecurityContextHolder.setContext(securityContextImpl);
     }
 
-    private static void setTenantSecurityContext(final String tenantId) {
+    static void setTenantSecurityContext(final String tenantId) {
         final AnonymousAuthenticationToken authenticationToken = new AnonymousAuthenticationToken(
                 UUID.randomUUID().toString(), "AMQP-Controller",
                 Collections.singletonList(new SimpleGrantedAuthority(SpringEvalExpressions.CONTROLLER_ROLE_ANONYMOUS)));
@@ -171,7 +193,7 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
      * @param ip
      *            the ip of the target/thing
      */
-    private void registerTarget(final Message message, final String virtualHost) {
+    private void registerTarget(final Message message, final String virtualHost, final Executor dispatcher) {
         final String thingId = getStringHeaderKey(message, MessageHeaderKey.THING_ID, "ThingId is null");
         final String replyTo = message.getMessageProperties().getReplyTo();
 
@@ -183,27 +205,29 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
         final Target target = controllerManagement.findOrRegisterTargetIfItDoesNotexist(thingId, amqpUri);
         LOG.debug("Target {} reported online state.", thingId);
 
-        lookIfUpdateAvailable(target);
+        lookIfUpdateAvailable(target, dispatcher);
     }
 
-    private void lookIfUpdateAvailable(final Target target) {
+    private void lookIfUpdateAvailable(final Target target, final Executor dispatcher) {
         final Optional<Action> action = controllerManagement.findOldestActiveActionByTarget(target);
         if (!action.isPresent()) {
             return;
         }
 
         if (action.get().isCancelingOrCanceled()) {
-            amqpMessageDispatcherService.targetCancelAssignmentToDistributionSet(
-                    new CancelTargetAssignmentEvent(target.getOptLockRevision(), target.getTenant(),
-                            target.getControllerId(), action.get().getId(), target.getTargetInfo().getAddress()));
+            final CancelTargetAssignmentEvent cancelEvent = new CancelTargetAssignmentEvent(
+                    target.getOptLockRevision(), target.getTenant(), target.getControllerId(), action.get().getId(),
+                    target.getTargetInfo().getAddress());
+            dispatcher.execute(() -> amqpMessageDispatcherService.targetCancelAssignmentToDistributionSet(cancelEvent));
             return;
         }
 
         final DistributionSet distributionSet = action.get().getDistributionSet();
         final List<SoftwareModule> softwareModuleList = controllerManagement
                 .findSoftwareModulesByDistributionSet(distributionSet);
-        amqpMessageDispatcherService.targetAssignDistributionSet(new TargetAssignDistributionSetEvent(
-                target.getOptLockRevision(), target.getTenant(), target, action.get().getId(), softwareModuleList));
+        final TargetAssignDistributionSetEvent assignEvent = new TargetAssignDistributionSetEvent(
+                target.getOptLockRevision(), target.getTenant(), target, action.get().getId(), softwareModuleList);
+        dispatcher.execute(() -> amqpMessageDispatcherService.targetAssignDistributionSet(assignEvent));
 
     }
 
@@ -214,23 +238,56 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
      *            the incoming event message.
      * @param topic
      *            the topic of the event.
+     * @param dispatcher
+     *            which sends the resulting messages to the DMF client
      */
-    private void handleIncomingEvent(final Message message, final EventTopic topic) {
+    private void handleIncomingEvent(final Message message, final EventTopic topic, final Executor dispatcher) {
         if (EventTopic.UPDATE_ACTION_STATUS.equals(topic)) {
-            updateActionStatus(message);
+            updateActionStatus(message, convertMessage(message, ActionUpdateStatus.class), dispatcher);
+            return;
+        }
+        if (EventTopic.BULK_UPDATE_ACTION_STATUS.equals(topic)) {
+            updateActionStatuses(message, dispatcher);
             return;
         }
         logAndThrowMessageError(message, "Got event without appropriate topic.");
     }
 
+    /**
+     * Method to update the action status of several actions through one
+     * event. An invalid update is skipped, so it does not prevent the updates
+     * of the other actions. The status entry limit is checked beforehand, as a
+     * rejected entry would roll back the transaction of a whole batch of
+     * messages.
+     *
+     * @param message
+     *            the ampq message with a list of {@link ActionUpdateStatus}
+     */
+    private void updateActionStatuses(final Message message, final Executor dispatcher) {
+        final List<ActionUpdateStatus> actionUpdateStatuses = convertMessageList(message, ActionUpdateStatus.class);
+        for (final ActionUpdateStatus actionUpdateStatus : actionUpdateStatuses) {
+            final Long actionId = actionUpdateStatus.getActionId();
+            if (actionId != null && controllerManagement.isStatusEntryLimitReached(actionId)) {
+                LOG.warn("Skipping status update of action {} of bulk message, it has too many status entries.",
+                        actionId);
+                continue;
+            }
+            try {
+                updateActionStatus(message, actionUpdateStatus, dispatcher);
+            } catch (final AmqpRejectAndDontRequeueException | TooManyStatusEntriesException e) {
+                LOG.warn("Skipping status update of action {} of bulk message.", actionUpdateStatus.getActionId(), e);
+            }
+        }
+    }
+
     /**
      * Method to update the action status of an action through the event.
      *
      * @param actionUpdateStatus
      *            the object form the ampq message
      */
-    private void updateActionStatus(final Message message) {
-        final ActionUpdateStatus actionUpdateStatus = convertMessage(message, ActionUpdateStatus.class);
+    private void updateActionStatus(final Message message, final ActionUpdateStatus actionUpdateStatus,
+            final Executor dispatcher) {
         final Action action = checkActionExist(message, actionUpdateStatus);
 
         final ActionStatus actionStatus = createActionStatus(message, actionUpdateStatus, action);
@@ -268,7 +325,7 @@ public class AmqpMessageHandlerService extends BaseAmqpService {
         final Action addUpdateActionStatus = getUpdateActionStatus(actionStatus);
 
         if (!addUpdateActionStatus.isActive()) {
-            lookIfUpdateAvailable(action.getTarget());
+            lookIfUpdateAvailable(action.getTarget(), dispatcher);
         }
     }
 
@@ -30,6 +30,8 @@ public class AmqpProperties {
 
     private static final int DEFAULT_MAX_CONSUMERS = 10;
 
+    private static final long DEFAULT_DOWNLOAD_AUTHORIZATION_TTL = TimeUnit.SECONDS.toMillis(30);
+
     /**
      * Enable DMF API based on AMQP 0.9
      */
@@ -91,6 +93,39 @@ public class AmqpProperties {
      */
     private int declarationRetries = DEFAULT_QUEUE_DECLARATION_RETRIES;
 
+    /**
+     * Milliseconds for which a granted download authorization of a target is
+     * cached, 0 disables the cache. The authorizations of a target are
+     * dropped when it gets a new assignment or its assignment is canceled.
+     */
+    private long downloadAuthorizationTtl = DEFAULT_DOWNLOAD_AUTHORIZATION_TTL;
+
+    private final Batch batch = new Batch();
+
+    private final Sender sender = new Sender();
+
+    private final Bulk bulk = new Bulk();
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Sender getSender() {
+        return sender;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public long getDownloadAuthorizationTtl() {
+        return downloadAuthorizationTtl;
+    }
+
+    public void setDownloadAuthorizationTtl(final long downloadAuthorizationTtl) {
+        this.downloadAuthorizationTtl = downloadAuthorizationTtl;
+    }
+
     public int getDeclarationRetries() {
         return declarationRetries;
     }
@@ -178,4 +213,197 @@ public class AmqpProperties {
     public void setEnabled(final boolean enabled) {
         this.enabled = enabled;
     }
+
+    /**
+     * Batch processing of the messages of the DMF receiver queue.
+     *
+     */
+    public static class Batch {
+
+        private static final int DEFAULT_SIZE = 100;
+
+        private static final int DEFAULT_PARTITIONS = 4;
+
+        /**
+         * Handles the messages of the receiver queue in batches, with one
+         * transaction per tenant and batch, instead of one by one.
+         */
+        private boolean enabled;
+
+        /**
+         * Maximum number of messages which are handled in one batch. The
+         * prefetch count is raised to this size if necessary.
+         */
+        private int size = DEFAULT_SIZE;
+
+        /**
+         * Number of threads which handle the batches. The messages of a target
+         * are always handled by the same thread in the order of their
+         * delivery.
+         */
+        private int partitions = DEFAULT_PARTITIONS;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(final int size) {
+            this.size = size;
+        }
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        public void setPartitions(final int partitions) {
+            this.partitions = partitions;
+        }
+    }
+
+    /**
+     * Asynchronous sending of the messages to the DMF clients.
+     *
+     */
+    public static class Sender {
+
+        private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+        private static final int DEFAULT_THREADS = 2;
+
+        private static final int DEFAULT_MAX_UNCONFIRMED = 1_000;
+
+        private static final long DEFAULT_CONFIRM_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+        /**
+         * Sends the messages by dedicated threads instead of the threads which
+         * create them.
+         */
+        private boolean async;
+
+        /**
+         * Maximum number of messages which wait for being sent. Callers block
+         * if the queue is full.
+         */
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+        /**
+         * Number of threads which send the messages. The messages to an
+         * exchange are always sent by the same thread in their order.
+         */
+        private int threads = DEFAULT_THREADS;
+
+        /**
+         * Maximum number of sent messages which are not confirmed by the
+         * broker yet.
+         */
+        private int maxUnconfirmed = DEFAULT_MAX_UNCONFIRMED;
+
+        /**
+         * Milliseconds after which a message which is not confirmed by the
+         * broker is considered as lost.
+         */
+        private long confirmTimeout = DEFAULT_CONFIRM_TIMEOUT;
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(final boolean async) {
+            this.async = async;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(final int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(final int threads) {
+            this.threads = threads;
+        }
+
+        public int getMaxUnconfirmed() {
+            return maxUnconfirmed;
+        }
+
+        public void setMaxUnconfirmed(final int maxUnconfirmed) {
+            this.maxUnconfirmed = maxUnconfirmed;
+        }
+
+        public long getConfirmTimeout() {
+            return confirmTimeout;
+        }
+
+        public void setConfirmTimeout(final long confirmTimeout) {
+            this.confirmTimeout = confirmTimeout;
+        }
+    }
+
+    /**
+     * Bulk download and update requests for targets which share the same
+     * address, e.g. the targets behind a gateway.
+     *
+     */
+    public static class Bulk {
+
+        private static final int DEFAULT_MAX_TARGETS = 500;
+
+        private static final long DEFAULT_LINGER = 100;
+
+        /**
+         * Sends one bulk message to the targets which are assigned to the
+         * same software modules within {@link #linger} instead of one message
+         * per target. The DMF clients have to support the bulk messages.
+         */
+        private boolean enabled;
+
+        /**
+         * Maximum number of targets of a bulk message.
+         */
+        private int maxTargets = DEFAULT_MAX_TARGETS;
+
+        /**
+         * Milliseconds an assignment waits for further assignments to the
+         * same address before it is sent.
+         */
+        private long linger = DEFAULT_LINGER;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxTargets() {
+            return maxTargets;
+        }
+
+        public void setMaxTargets(final int maxTargets) {
+            this.maxTargets = maxTargets;
+        }
+
+        public long getLinger() {
+            return linger;
+        }
+
+        public void setLinger(final long linger) {
+            this.linger = linger;
+        }
+    }
 }
@@ -0,0 +1,292 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.hawkbit.repository.TargetMessageCapacity;
+import org.eclipse.hawkbit.util.IpUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.PublisherCallbackChannelConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.CorrelationData;
+import org.springframework.beans.factory.DisposableBean;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Sender service which sends the messages asynchronously by dedicated threads,
+ * so a slow broker does not block the threads which create the messages.
+ *
+ * The messages are queued in bounded queues, one per sender thread, and the
+ * messages to an exchange are always sent by the same thread in their order.
+ * The publisher confirms of the broker are tracked asynchronously, a thread
+ * stops sending if {@link AmqpProperties.Sender#getMaxUnconfirmed()} messages
+ * are not confirmed yet. So the queues fill up if the broker slows down, which
+ * is signalled to mass operations by the {@link TargetMessageCapacity}, and
+ * callers block if the queues are full.
+ *
+ * The service requires a {@link RabbitTemplate} of its own as the template
+ * supports only one confirm callback.
+ */
+public class AsyncAmqpSenderService implements AmqpSenderService, TargetMessageCapacity, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncAmqpSenderService.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    private static final long SHUTDOWN_SECONDS = 10;
+
+    private final RabbitTemplate internalAmqpTemplate;
+
+    private final boolean publisherConfirms;
+
+    private final long confirmTimeout;
+
+    private final int maxUnconfirmed;
+
+    private final Semaphore unconfirmed;
+
+    private final List<BlockingQueue<Outbound>> queues;
+
+    private final ExecutorService senders;
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong confirmed = new AtomicLong();
+
+    private final AtomicLong nacked = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    /**
+     * Constructor.
+     *
+     * @param internalAmqpTemplate
+     *            the amqp template which is used by this service only
+     * @param properties
+     *            the sender configuration
+     */
+    public AsyncAmqpSenderService(final RabbitTemplate internalAmqpTemplate, final AmqpProperties.Sender properties) {
+        this.internalAmqpTemplate = internalAmqpTemplate;
+        final ConnectionFactory connectionFactory = internalAmqpTemplate.getConnectionFactory();
+        this.publisherConfirms = connectionFactory instanceof PublisherCallbackChannelConnectionFactory
+                && ((PublisherCallbackChannelConnectionFactory) connectionFactory).isPublisherConfirms();
+        if (publisherConfirms) {
+            internalAmqpTemplate.setConfirmCallback(this::confirm);
+        } else {
+            LOGGER.warn("Publisher confirms are disabled, the messages are not tracked until they are confirmed.");
+        }
+        this.confirmTimeout = properties.getConfirmTimeout();
+        this.maxUnconfirmed = properties.getMaxUnconfirmed();
+        this.unconfirmed = new Semaphore(maxUnconfirmed);
+
+        final int threads = properties.getThreads();
+        final int capacity = Math.max(1, properties.getQueueCapacity() / threads);
+        this.queues = new ArrayList<>(threads);
+        this.senders = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("dmf-sender-%d").setDaemon(true).build());
+        for (int i = 0; i < threads; i++) {
+            final BlockingQueue<Outbound> queue = new ArrayBlockingQueue<>(capacity);
+            queues.add(queue);
+            senders.execute(() -> send(queue));
+        }
+    }
+
+    @Override
+    public void sendMessage(final Message message, final URI replyTo) {
+        if (!IpUtil.isAmqpUri(replyTo)) {
+            return;
+        }
+
+        final String exchange = extractExchange(replyTo);
+        final BlockingQueue<Outbound> queue = queues.get(Math.floorMod(exchange.hashCode(), queues.size()));
+        final Outbound outbound = new Outbound(exchange, message);
+        if (queue.offer(outbound)) {
+            return;
+        }
+
+        LOGGER.debug("Send queue of exchange {} is full, waiting for the broker.", exchange);
+        try {
+            queue.put(outbound);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for sending a message to exchange " + exchange, e);
+        }
+    }
+
+    @Override
+    public int getRemainingCapacity() {
+        return queues.stream().mapToInt(BlockingQueue::remainingCapacity).sum();
+    }
+
+    /**
+     * @return the number of messages which wait for being sent
+     */
+    public int getQueued() {
+        return queues.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    /**
+     * @return the number of sent messages which are not confirmed by the
+     *         broker yet
+     */
+    public int getInFlight() {
+        return maxUnconfirmed - unconfirmed.availablePermits();
+    }
+
+    /**
+     * @return the number of messages which have been sent to the broker
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * @return the number of messages which have been confirmed by the broker
+     */
+    public long getConfirmed() {
+        return confirmed.get();
+    }
+
+    /**
+     * @return the number of messages which the broker has not been able to
+     *         handle or which have not been confirmed in time
+     */
+    public long getNacked() {
+        return nacked.get();
+    }
+
+    /**
+     * @return the number of messages which could not be sent at all
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        senders.shutdown();
+        if (!senders.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+            senders.shutdownNow();
+        }
+        LOGGER.info("Sender stopped with {} messages left, sent: {}, confirmed: {}, nacked: {}, failed: {}",
+                getQueued(), getSent(), getConfirmed(), getNacked(), getFailed());
+    }
+
+    private void send(final BlockingQueue<Outbound> queue) {
+        // the thread must not end before the service is stopped, otherwise
+        // callers block on its full queue forever
+        while (running || !queue.isEmpty()) {
+            try {
+                sendNext(queue);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final RuntimeException e) {
+                LOGGER.error("Unexpected failure of sender, continuing with the next message.", e);
+            }
+        }
+    }
+
+    private void sendNext(final BlockingQueue<Outbound> queue) throws InterruptedException {
+        final Outbound outbound = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (outbound == null) {
+            expireUnconfirmed();
+            return;
+        }
+        while (!unconfirmed.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            expireUnconfirmed();
+        }
+        send(outbound);
+    }
+
+    private void send(final Outbound outbound) {
+        final String correlationId = UUID.randomUUID().toString();
+        try {
+            outbound.message.getMessageProperties().setCorrelationId(correlationId.getBytes(StandardCharsets.UTF_8));
+
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("Sending message {} to exchange {} with correlationId {}", outbound.message,
+                        outbound.exchange, correlationId);
+            } else {
+                LOGGER.debug("Sending message to exchange {} with correlationId {}", outbound.exchange,
+                        correlationId);
+            }
+
+            internalAmqpTemplate.send(outbound.exchange, null, outbound.message, new CorrelationData(correlationId));
+        } catch (final RuntimeException e) {
+            unconfirmed.release();
+            failed.incrementAndGet();
+            LOGGER.error("Failed to send message to exchange {} with correlationId {}", outbound.exchange,
+                    correlationId, e);
+            return;
+        }
+
+        sent.incrementAndGet();
+        if (!publisherConfirms) {
+            unconfirmed.release();
+        }
+    }
+
+    private void confirm(final CorrelationData correlationData, final boolean ack, final String cause) {
+        unconfirmed.release();
+        if (ack) {
+            confirmed.incrementAndGet();
+            LOGGER.debug("Message with {} confirmed by broker.", correlationData);
+        } else {
+            nacked.incrementAndGet();
+            LOGGER.error("Broker is unable to handle message with {} : {}", correlationData, cause);
+        }
+    }
+
+    private void expireUnconfirmed() {
+        if (!publisherConfirms || getInFlight() == 0) {
+            return;
+        }
+        // removes the messages from the pending confirms, so they are not
+        // confirmed later on
+        final Collection<CorrelationData> expired = internalAmqpTemplate.getUnconfirmed(confirmTimeout);
+        if (expired == null || expired.isEmpty()) {
+            return;
+        }
+        unconfirmed.release(expired.size());
+        nacked.addAndGet(expired.size());
+        LOGGER.error("{} messages have not been confirmed by the broker within {} ms: {}", expired.size(),
+                confirmTimeout, expired);
+    }
+
+    private static final class Outbound {
+        private final String exchange;
+        private final Message message;
+
+        private Outbound(final String exchange, final Message message) {
+            this.exchange = exchange;
+            this.message = message;
+        }
+    }
+}
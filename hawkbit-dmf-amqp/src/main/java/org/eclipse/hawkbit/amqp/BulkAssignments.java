@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Collects the assigned targets which share an address and software modules
+ * for {@link AmqpProperties.Bulk#getLinger()}, so they can be sent as one bulk
+ * message. The targets are passed to the {@link Sender} when the linger time
+ * is over, the maximum number of targets is reached or the address is flushed.
+ * On shutdown all collected targets are sent, so no assignment is lost.
+ */
+final class BulkAssignments implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkAssignments.class);
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Sender sender;
+
+    private final int maxTargets;
+
+    private final long linger;
+
+    private final Map<Key, List<DownloadAndUpdateTarget>> pending = new HashMap<>();
+
+    private boolean stopped;
+
+    /**
+     * @param properties
+     *            the bulk configuration
+     * @param scheduler
+     *            which sends the targets after the linger time
+     * @param sender
+     *            which sends the collected targets
+     */
+    BulkAssignments(final AmqpProperties.Bulk properties, final ScheduledExecutorService scheduler,
+            final Sender sender) {
+        this.scheduler = scheduler;
+        this.sender = sender;
+        this.maxTargets = properties.getMaxTargets();
+        this.linger = properties.getLinger();
+    }
+
+    /**
+     * Adds an assigned target.
+     *
+     * @param key
+     *            the address and software modules of the target
+     * @param target
+     *            the target
+     */
+    void add(final Key key, final DownloadAndUpdateTarget target) {
+        final List<DownloadAndUpdateTarget> full;
+        synchronized (pending) {
+            if (stopped) {
+                full = Collections.singletonList(target);
+            } else {
+                List<DownloadAndUpdateTarget> targets = pending.get(key);
+                if (targets == null) {
+                    targets = new ArrayList<>();
+                    pending.put(key, targets);
+                    final List<DownloadAndUpdateTarget> scheduled = targets;
+                    scheduler.schedule(() -> flush(key, scheduled), linger, TimeUnit.MILLISECONDS);
+                }
+                targets.add(target);
+                if (targets.size() < maxTargets) {
+                    return;
+                }
+                pending.remove(key);
+                full = targets;
+            }
+        }
+        send(key, full);
+    }
+
+    /**
+     * Sends all collected targets. Targets which are added afterwards are sent
+     * at once.
+     */
+    @Override
+    public void destroy() {
+        final Map<Key, List<DownloadAndUpdateTarget>> flushed;
+        synchronized (pending) {
+            stopped = true;
+            flushed = new HashMap<>(pending);
+            pending.clear();
+        }
+        LOG.info("Sending the collected assignments of {} addresses before shutdown.", flushed.size());
+        flushed.forEach(this::send);
+    }
+
+    /**
+     * Sends the collected targets of an address at once, e.g. before a
+     * message to one of the targets which must not overtake its assignment.
+     *
+     * @param tenant
+     *            the tenant of the address
+     * @param address
+     *            the address
+     */
+    void flush(final String tenant, final URI address) {
+        final Map<Key, List<DownloadAndUpdateTarget>> flushed = new HashMap<>();
+        synchronized (pending) {
+            final Iterator<Entry<Key, List<DownloadAndUpdateTarget>>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Entry<Key, List<DownloadAndUpdateTarget>> entry = iterator.next();
+                if (entry.getKey().tenant.equals(tenant) && entry.getKey().address.equals(address)) {
+                    flushed.put(entry.getKey(), entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+        flushed.forEach(this::send);
+    }
+
+    private void flush(final Key key, final List<DownloadAndUpdateTarget> targets) {
+        synchronized (pending) {
+            // the targets have been sent already if the list has been replaced
+            if (pending.get(key) != targets) {
+                return;
+            }
+            pending.remove(key);
+        }
+        send(key, targets);
+    }
+
+    private void send(final Key key, final List<DownloadAndUpdateTarget> targets) {
+        try {
+            sender.send(key, targets);
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to send the assignment of {} targets to {}", targets.size(), key.address, e);
+        }
+    }
+
+    /**
+     * Sends the collected targets.
+     */
+    @FunctionalInterface
+    interface Sender {
+        /**
+         * @param key
+         *            the address and software modules of the targets
+         * @param targets
+         *            the targets
+         */
+        void send(Key key, List<DownloadAndUpdateTarget> targets);
+    }
+
+    /**
+     * The address and software modules of the targets which are sent in one
+     * message.
+     */
+    static final class Key {
+        private final String tenant;
+        private final URI address;
+        private final SoftwareModulesTemplate template;
+
+        /**
+         * @param tenant
+         *            the tenant of the targets
+         * @param address
+         *            the address of the targets
+         * @param template
+         *            the software modules of the targets or <code>null</code>
+         *            if none have been assigned
+         */
+        Key(final String tenant, final URI address, final SoftwareModulesTemplate template) {
+            this.tenant = tenant;
+            this.address = address;
+            this.template = template;
+        }
+
+        String getTenant() {
+            return tenant;
+        }
+
+        URI getAddress() {
+            return address;
+        }
+
+        SoftwareModulesTemplate getTemplate() {
+            return template;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            // the templates are cached, so they are compared by identity
+            return tenant.equals(other.tenant) && address.equals(other.address) && template == other.template;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenant, address, System.identityHashCode(template));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.eclipse.hawkbit.api.ArtifactUrlHandler;
+import org.eclipse.hawkbit.api.Base62Util;
+import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateRequest;
+
+/**
+ * The serialized software modules of a {@link DownloadAndUpdateRequest} which
+ * are identical for all targets except for the target specific parts of the
+ * artifact URLs. The URLs are generated once for the
+ * {@link #CONTROLLER_ID_PLACEHOLDER} and the {@link #TARGET_ID_PLACEHOLDER},
+ * which are replaced by the values of a target when the template is rendered.
+ * This requires an {@link ArtifactUrlHandler} which inserts them unchanged
+ * into the URLs.
+ */
+final class SoftwareModulesTemplate {
+
+    /**
+     * Controller ID for the URL generation of a template.
+     */
+    static final String CONTROLLER_ID_PLACEHOLDER = "controllerId" + UUID.randomUUID().toString().replace("-", "");
+
+    /**
+     * Target ID for the URL generation of a template, as large as possible to
+     * be distinguishable from other numbers in the URLs.
+     */
+    static final long TARGET_ID_PLACEHOLDER = Long.MAX_VALUE
+            - Math.abs(UUID.randomUUID().getMostSignificantBits() % 1_000_000_000L);
+
+    private static final String[] PLACEHOLDERS = { CONTROLLER_ID_PLACEHOLDER, String.valueOf(TARGET_ID_PLACEHOLDER),
+            Base62Util.fromBase10(TARGET_ID_PLACEHOLDER) };
+
+    private static final int CONTROLLER_ID = 0;
+    private static final int TARGET_ID = 1;
+    private static final int TARGET_ID_BASE62 = 2;
+
+    private final List<String> fragments = new ArrayList<>();
+    private final List<Integer> placeholders = new ArrayList<>();
+    private final int length;
+
+    /**
+     * @param json
+     *            the serialized software modules with the placeholders
+     */
+    SoftwareModulesTemplate(final String json) {
+        int start = 0;
+        while (true) {
+            int next = -1;
+            int placeholder = -1;
+            for (int i = 0; i < PLACEHOLDERS.length; i++) {
+                final int index = json.indexOf(PLACEHOLDERS[i], start);
+                if (index >= 0 && (next < 0 || index < next)) {
+                    next = index;
+                    placeholder = i;
+                }
+            }
+            if (next < 0) {
+                fragments.add(json.substring(start));
+                break;
+            }
+            fragments.add(json.substring(start, next));
+            placeholders.add(placeholder);
+            start = next + PLACEHOLDERS[placeholder].length();
+        }
+        length = json.length();
+    }
+
+    /**
+     * Renders the template for a target.
+     *
+     * @param controllerId
+     *            the controller ID of the target, escaped for JSON
+     * @param targetId
+     *            the ID of the target
+     * @return the serialized software modules
+     */
+    String render(final String controllerId, final Long targetId) {
+        return render(controllerId, String.valueOf(targetId),
+                targetId != null ? Base62Util.fromBase10(targetId) : null);
+    }
+
+    /**
+     * Renders the template with the given replacements of the placeholders,
+     * which have to be escaped for JSON.
+     *
+     * @param controllerId
+     *            the replacement of the controller ID
+     * @param targetId
+     *            the replacement of the target ID
+     * @param targetIdBase62
+     *            the replacement of the target ID in base 62
+     * @return the serialized software modules
+     */
+    String render(final String controllerId, final String targetId, final String targetIdBase62) {
+        final StringBuilder json = new StringBuilder(length + placeholders.size() * controllerId.length());
+        for (int i = 0; i < placeholders.size(); i++) {
+            json.append(fragments.get(i));
+            switch (placeholders.get(i)) {
+            case CONTROLLER_ID:
+                json.append(controllerId);
+                break;
+            case TARGET_ID:
+                json.append(targetId);
+                break;
+            case TARGET_ID_BASE62:
+                json.append(targetIdBase62);
+                break;
+            default:
+                throw new IllegalStateException("Unknown placeholder " + placeholders.get(i));
+            }
+        }
+        return json.append(fragments.get(placeholders.size())).toString();
+    }
+}
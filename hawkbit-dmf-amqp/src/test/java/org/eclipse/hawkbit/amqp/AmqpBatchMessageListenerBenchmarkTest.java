@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageType;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import com.rabbitmq.client.Channel;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Device Management Federation API")
+@Stories("AmqpMessage Batch Listener Test")
+public class AmqpBatchMessageListenerBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AmqpBatchMessageListenerBenchmarkTest.class);
+
+    @Mock
+    private AmqpMessageHandlerService amqpMessageHandlerServiceMock;
+
+    @Mock
+    private PlatformTransactionManager txManagerMock;
+
+    @Mock
+    private TransactionStatus transactionStatusMock;
+
+    @Mock
+    private RabbitTemplate rabbitTemplateMock;
+
+    @Mock
+    private ConnectionFactory connectionFactoryMock;
+
+    // stands in for the broker, records the acknowledgements
+    @Mock
+    private Channel channelMock;
+
+    private AmqpBatchMessageListener listener;
+
+    @After
+    public void after() {
+        if (listener != null) {
+            listener.destroy();
+        }
+    }
+
+    @Test
+    @Description("Measures the throughput of the batch processing without a database, the broker is replaced by a mock channel.")
+    public void throughputBenchmark() throws Exception {
+        when(amqpMessageHandlerServiceMock.getRabbitTemplate()).thenReturn(rabbitTemplateMock);
+        when(rabbitTemplateMock.getConnectionFactory()).thenReturn(connectionFactoryMock);
+        when(connectionFactoryMock.getVirtualHost()).thenReturn("vHost");
+        when(txManagerMock.getTransaction(any())).thenReturn(transactionStatusMock);
+
+        final int messages = 20_000;
+        listener = new AmqpBatchMessageListener(amqpMessageHandlerServiceMock, txManagerMock, new AmqpProperties());
+
+        final CountDownLatch acknowledged = new CountDownLatch(messages);
+        doAnswer(invocation -> {
+            acknowledged.countDown();
+            return null;
+        }).when(channelMock).basicAck(anyLong(), eq(false));
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            listener.onMessage(createMessage("tenant" + i % 5, "thing" + i % 1_000, i + 1), channelMock);
+        }
+        assertThat(acknowledged.await(30, TimeUnit.SECONDS)).isTrue();
+        final long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        LOG.info("Handled {} messages in {} ms ({} messages/s)", messages, millis, messages * 1_000L / millis);
+    }
+
+    private static Message createMessage(final String tenant, final String thingId, final long deliveryTag) {
+        final MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setHeader(MessageHeaderKey.TYPE, MessageType.THING_CREATED.name());
+        messageProperties.setHeader(MessageHeaderKey.TENANT, tenant);
+        messageProperties.setHeader(MessageHeaderKey.THING_ID, thingId);
+        messageProperties.setDeliveryTag(deliveryTag);
+        return new Message(new byte[0], messageProperties);
+    }
+}
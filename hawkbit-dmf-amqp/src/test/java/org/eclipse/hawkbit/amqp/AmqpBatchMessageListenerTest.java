@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Device Management Federation API")
+@Stories("AmqpMessage Batch Listener Test")
+public class AmqpBatchMessageListenerTest {
+
+    private static final String VIRTUAL_HOST = "vHost";
+
+    @Mock
+    private AmqpMessageHandlerService amqpMessageHandlerServiceMock;
+
+    @Mock
+    private PlatformTransactionManager txManagerMock;
+
+    @Mock
+    private TransactionStatus transactionStatusMock;
+
+    @Mock
+    private RabbitTemplate rabbitTemplateMock;
+
+    @Mock
+    private ConnectionFactory connectionFactoryMock;
+
+    // stands in for the broker, records the acknowledgements
+    @Mock
+    private Channel channelMock;
+
+    private final AmqpProperties amqpProperties = new AmqpProperties();
+
+    private AmqpBatchMessageListener listener;
+
+    private long deliveryTag;
+
+    @Before
+    public void before() {
+        when(amqpMessageHandlerServiceMock.getRabbitTemplate()).thenReturn(rabbitTemplateMock);
+        when(rabbitTemplateMock.getConnectionFactory()).thenReturn(connectionFactoryMock);
+        when(connectionFactoryMock.getVirtualHost()).thenReturn(VIRTUAL_HOST);
+        when(txManagerMock.getTransaction(any())).thenReturn(transactionStatusMock);
+    }
+
+    @After
+    public void after() {
+        if (listener != null) {
+            listener.destroy();
+        }
+    }
+
+    @Test
+    @Description("Verifies that the messages of a target are handled in order, acknowledged one by one and that the resulting messages are sent after the commit.")
+    public void messagesAreHandledInOrderAndAcknowledged() throws Exception {
+        amqpProperties.getBatch().setPartitions(1);
+        listener = new AmqpBatchMessageListener(amqpMessageHandlerServiceMock, txManagerMock, amqpProperties);
+
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            final Message message = (Message) invocation.getArguments()[0];
+            events.add(message.getMessageProperties().getHeaders().get(MessageHeaderKey.THING_ID) + "-"
+                    + message.getMessageProperties().getDeliveryTag());
+            ((Executor) invocation.getArguments()[3]).execute(() -> events.add("dispatch"));
+            return null;
+        }).when(amqpMessageHandlerServiceMock).handleMessage(any(Message.class), anyString(), eq(VIRTUAL_HOST),
+                any(Executor.class));
+        doAnswer(invocation -> events.add("commit")).when(txManagerMock).commit(transactionStatusMock);
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final String tenant = i % 2 == 0 ? "tenant1" : "tenant2";
+            final Message message = createMessage(tenant, tenant + "-thing" + i % 3);
+            expected.add(message.getMessageProperties().getHeaders().get(MessageHeaderKey.THING_ID) + "-"
+                    + message.getMessageProperties().getDeliveryTag());
+            listener.onMessage(message, channelMock);
+        }
+
+        for (long tag = 1; tag <= 10; tag++) {
+            verify(channelMock, timeout(5_000)).basicAck(tag, false);
+        }
+        final List<String> handled = new ArrayList<>(events);
+        final int firstCommit = handled.indexOf("commit");
+        assertThat(handled.subList(0, firstCommit)).doesNotContain("dispatch");
+        handled.removeIf(event -> "commit".equals(event) || "dispatch".equals(event));
+        assertThat(handled).containsOnly(expected.toArray(new String[expected.size()]));
+        for (int thing = 0; thing < 6; thing++) {
+            final String prefix = "tenant" + (thing / 3 + 1) + "-thing" + thing % 3 + "-";
+            assertThat(filter(handled, prefix)).isEqualTo(filter(expected, prefix));
+        }
+    }
+
+    @Test
+    @Description("Verifies that a failing message rolls its batch back and is rejected on its own while the other messages are acknowledged.")
+    public void failingMessageIsRejectedOnItsOwn() throws Exception {
+        amqpProperties.getBatch().setPartitions(1);
+        listener = new AmqpBatchMessageListener(amqpMessageHandlerServiceMock, txManagerMock, amqpProperties);
+
+        final Message invalid = createMessage("tenant1", "invalid");
+        doThrow(new AmqpRejectAndDontRequeueException("Invalid message!")).when(amqpMessageHandlerServiceMock)
+                .handleMessage(eq(invalid), anyString(), anyString(), any(Executor.class));
+        when(amqpMessageHandlerServiceMock.onMessage(invalid, MessageType.THING_CREATED.name(), "tenant1",
+                VIRTUAL_HOST)).thenThrow(new AmqpRejectAndDontRequeueException("Invalid message!"));
+
+        final Message valid = createMessage("tenant1", "valid");
+        listener.onMessage(valid, channelMock);
+        listener.onMessage(invalid, channelMock);
+
+        verify(channelMock, timeout(5_000)).basicReject(invalid.getMessageProperties().getDeliveryTag(), false);
+        verify(channelMock, timeout(5_000)).basicAck(valid.getMessageProperties().getDeliveryTag(), false);
+        verify(txManagerMock, timeout(5_000)).rollback(transactionStatusMock);
+    }
+
+    @Test
+    @Description("Verifies that the worker of a partition keeps handling messages after a closed channel failed a batch or an acknowledgement.")
+    public void workerSurvivesClosedChannel() throws Exception {
+        amqpProperties.getBatch().setPartitions(1);
+        listener = new AmqpBatchMessageListener(amqpMessageHandlerServiceMock, txManagerMock, amqpProperties);
+
+        final AlreadyClosedException closed = new AlreadyClosedException(
+                new ShutdownSignalException(false, false, null, channelMock));
+        when(amqpMessageHandlerServiceMock.getRabbitTemplate()).thenThrow(closed).thenReturn(rabbitTemplateMock);
+        doThrow(closed).doNothing().when(channelMock).basicAck(anyLong(), eq(false));
+
+        final Message failedBatch = createMessage("tenant1", "thing");
+        listener.onMessage(failedBatch, channelMock);
+        verify(amqpMessageHandlerServiceMock, timeout(5_000)).getRabbitTemplate();
+
+        final Message failedAck = createMessage("tenant1", "thing");
+        listener.onMessage(failedAck, channelMock);
+        verify(channelMock, timeout(5_000)).basicAck(failedAck.getMessageProperties().getDeliveryTag(), false);
+
+        final Message acknowledged = createMessage("tenant1", "thing");
+        listener.onMessage(acknowledged, channelMock);
+        verify(channelMock, timeout(5_000)).basicAck(acknowledged.getMessageProperties().getDeliveryTag(), false);
+        verify(channelMock, never()).basicAck(failedBatch.getMessageProperties().getDeliveryTag(), false);
+    }
+
+    private Message createMessage(final String tenant, final String thingId) {
+        final MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        messageProperties.setHeader(MessageHeaderKey.TYPE, MessageType.THING_CREATED.name());
+        messageProperties.setHeader(MessageHeaderKey.TENANT, tenant);
+        messageProperties.setHeader(MessageHeaderKey.THING_ID, thingId);
+        messageProperties.setDeliveryTag(++deliveryTag);
+        return new Message(new byte[0], messageProperties);
+    }
+
+    private static List<String> filter(final List<String> events, final String prefix) {
+        final List<String> filtered = new ArrayList<>();
+        events.stream().filter(event -> event.startsWith(prefix)).forEach(filtered::add);
+        return filtered;
+    }
+}
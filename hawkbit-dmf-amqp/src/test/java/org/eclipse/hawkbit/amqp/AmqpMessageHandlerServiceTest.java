@@ -13,6 +13,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -22,13 +23,13 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import org.eclipse.hawkbit.api.HostnameResolver;
 import org.eclipse.hawkbit.artifact.repository.ArtifactRepository;
 import org.eclipse.hawkbit.artifact.repository.model.DbArtifact;
-import org.eclipse.hawkbit.artifact.repository.model.DbArtifactHash;
 import org.eclipse.hawkbit.dmf.amqp.api.EventTopic;
 import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
 import org.eclipse.hawkbit.dmf.amqp.api.MessageType;
@@ -42,6 +43,7 @@ import org.eclipse.hawkbit.repository.ControllerManagement;
 import org.eclipse.hawkbit.repository.EntityFactory;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetAssignDistributionSetEvent;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
+import org.eclipse.hawkbit.repository.exception.GridFSDBFileNotFoundException;
 import org.eclipse.hawkbit.repository.jpa.model.JpaAction;
 import org.eclipse.hawkbit.repository.jpa.model.JpaActionStatus;
 import org.eclipse.hawkbit.repository.jpa.model.JpaSoftwareModule;
@@ -51,6 +53,7 @@ import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.Action.Status;
 import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetInfo;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
 import org.eclipse.hawkbit.security.SecurityTokenGenerator;
@@ -325,15 +328,9 @@ public class AmqpMessageHandlerServiceTest {
                 messageProperties);
 
         // mock
-        final LocalArtifact localArtifactMock = mock(LocalArtifact.class);
-        final DbArtifact dbArtifactMock = mock(DbArtifact.class);
-        when(artifactManagementMock.findFirstLocalArtifactsBySHA1(anyString())).thenReturn(localArtifactMock);
+        final LocalArtifact localArtifactMock = mockLocalArtifact();
         when(controllerManagementMock.hasTargetArtifactAssigned(securityToken.getControllerId(), localArtifactMock))
                 .thenReturn(true);
-        when(artifactManagementMock.loadLocalArtifactBinary(localArtifactMock)).thenReturn(dbArtifactMock);
-        when(dbArtifactMock.getArtifactId()).thenReturn("artifactId");
-        when(dbArtifactMock.getSize()).thenReturn(1L);
-        when(dbArtifactMock.getHashes()).thenReturn(new DbArtifactHash("sha1", "md5"));
         when(hostnameResolverMock.resolveHostname()).thenReturn(new URL("http://localhost"));
 
         // test
@@ -349,6 +346,172 @@ public class AmqpMessageHandlerServiceTest {
         assertThat(downloadResponse.getArtifact().getHashes().getMd5()).as("Wrong md5 hash").isEqualTo("md5");
         assertThat(downloadResponse.getDownloadUrl()).as("download url is wrong")
                 .startsWith("http://localhost/api/v1/downloadserver/downloadId/");
+        verify(artifactManagementMock, times(1)).loadLocalArtifactBinary(localArtifactMock);
+    }
+
+    @Test
+    @Description("Tests that an download request is denied for an artifact whose binary is not in the artifact storage")
+    public void authenticationRequestDeniedForArtifactWhichIsNotStored() throws MalformedURLException {
+        final MessageProperties messageProperties = createMessageProperties(null);
+        final TenantSecurityToken securityToken = new TenantSecurityToken(TENANT, TENANT_ID, CONTROLLLER_ID, TARGET_ID,
+                FileResource.createFileResourceBySha1("12345"));
+        final Message message = amqpMessageHandlerService.getMessageConverter().toMessage(securityToken,
+                messageProperties);
+
+        // mock
+        final LocalArtifact localArtifactMock = mockLocalArtifact();
+        when(controllerManagementMock.hasTargetArtifactAssigned(CONTROLLLER_ID, localArtifactMock)).thenReturn(true);
+        when(artifactManagementMock.loadLocalArtifactBinary(localArtifactMock))
+                .thenThrow(new GridFSDBFileNotFoundException("sha1"));
+        when(hostnameResolverMock.resolveHostname()).thenReturn(new URL("http://localhost"));
+
+        // test
+        final Message onMessage = amqpAuthenticationMessageHandlerService.onAuthenticationRequest(message);
+
+        // verify
+        final DownloadResponse downloadResponse = (DownloadResponse) messageConverter.fromMessage(onMessage);
+        assertThat(downloadResponse.getResponseCode()).as("Message body response code is wrong")
+                .isEqualTo(HttpStatus.NOT_FOUND.value());
+        assertThat(downloadResponse.getDownloadUrl()).as("download url is set").isNull();
+    }
+
+    @Test
+    @Description("Tests that a granted download authorization is cached until the target gets a new assignment")
+    public void authenticationRequestIsAuthorizedByCacheUntilAssignment() throws MalformedURLException {
+        amqpAuthenticationMessageHandlerService = new AmqpAuthenticationMessageHandler(rabbitTemplate,
+                authenticationManagerMock, artifactManagementMock, cacheMock, hostnameResolverMock,
+                controllerManagementMock, 60_000);
+        final MessageProperties messageProperties = createMessageProperties(null);
+        final TenantSecurityToken securityToken = new TenantSecurityToken(TENANT, TENANT_ID, CONTROLLLER_ID, TARGET_ID,
+                FileResource.createFileResourceBySha1("12345"));
+        final Message message = amqpMessageHandlerService.getMessageConverter().toMessage(securityToken,
+                messageProperties);
+
+        // mock
+        final LocalArtifact localArtifactMock = mockLocalArtifact();
+        when(controllerManagementMock.hasTargetArtifactAssigned(CONTROLLLER_ID, localArtifactMock)).thenReturn(true);
+        when(hostnameResolverMock.resolveHostname()).thenReturn(new URL("http://localhost"));
+        final Target targetMock = mock(Target.class);
+        when(targetMock.getId()).thenReturn(TARGET_ID);
+        when(targetMock.getControllerId()).thenReturn(CONTROLLLER_ID);
+
+        // test
+        assertAuthorized(amqpAuthenticationMessageHandlerService.onAuthenticationRequest(message));
+        assertAuthorized(amqpAuthenticationMessageHandlerService.onAuthenticationRequest(message));
+        verify(controllerManagementMock, times(1)).hasTargetArtifactAssigned(CONTROLLLER_ID, localArtifactMock);
+
+        amqpAuthenticationMessageHandlerService.targetAssignDistributionSet(new TargetAssignDistributionSetEvent(1L,
+                TENANT, targetMock, 1L, Collections.<SoftwareModule> emptyList()));
+        assertAuthorized(amqpAuthenticationMessageHandlerService.onAuthenticationRequest(message));
+
+        // verify
+        verify(controllerManagementMock, times(2)).hasTargetArtifactAssigned(CONTROLLLER_ID, localArtifactMock);
+    }
+
+    @Test
+    @Description("Tests that a download authorization is not cached if the target gets a new assignment during its check")
+    public void authenticationRequestCheckedDuringAssignmentIsNotCached() throws MalformedURLException {
+        amqpAuthenticationMessageHandlerService = new AmqpAuthenticationMessageHandler(rabbitTemplate,
+                authenticationManagerMock, artifactManagementMock, cacheMock, hostnameResolverMock,
+                controllerManagementMock, 60_000);
+        final MessageProperties messageProperties = createMessageProperties(null);
+        final TenantSecurityToken securityToken = new TenantSecurityToken(TENANT, TENANT_ID, CONTROLLLER_ID, TARGET_ID,
+                FileResource.createFileResourceBySha1("12345"));
+        final Message message = amqpMessageHandlerService.getMessageConverter().toMessage(securityToken,
+                messageProperties);
+
+        // mock
+        final LocalArtifact localArtifactMock = mockLocalArtifact();
+        final Target targetMock = mock(Target.class);
+        when(targetMock.getId()).thenReturn(TARGET_ID);
+        when(targetMock.getControllerId()).thenReturn(CONTROLLLER_ID);
+        // the assignment arrives while the first request is checked
+        when(controllerManagementMock.hasTargetArtifactAssigned(CONTROLLLER_ID, localArtifactMock))
+                .thenAnswer(invocation -> {
+                    amqpAuthenticationMessageHandlerService.targetAssignDistributionSet(
+                            new TargetAssignDistributionSetEvent(1L, TENANT, targetMock, 1L,
+                                    Collections.<SoftwareModule> emptyList()));
+                    return true;
+                }).thenReturn(true);
+        when(hostnameResolverMock.resolveHostname()).thenReturn(new URL("http://localhost"));
+
+        // test
+        assertAuthorized(amqpAuthenticationMessageHandlerService.onAuthenticationRequest(message));
+        assertAuthorized(amqpAuthenticationMessageHandlerService.onAuthenticationRequest(message));
+        assertAuthorized(amqpAuthenticationMessageHandlerService.onAuthenticationRequest(message));
+
+        // verify
+        verify(controllerManagementMock, times(2)).hasTargetArtifactAssigned(CONTROLLLER_ID, localArtifactMock);
+    }
+
+    private LocalArtifact mockLocalArtifact() {
+        final LocalArtifact localArtifactMock = mock(LocalArtifact.class);
+        when(artifactManagementMock.findFirstLocalArtifactsBySHA1(anyString())).thenReturn(localArtifactMock);
+        when(localArtifactMock.getSize()).thenReturn(1L);
+        when(localArtifactMock.getSha1Hash()).thenReturn("sha1");
+        when(localArtifactMock.getMd5Hash()).thenReturn("md5");
+        when(artifactManagementMock.loadLocalArtifactBinary(localArtifactMock)).thenReturn(mock(DbArtifact.class));
+        return localArtifactMock;
+    }
+
+    private void assertAuthorized(final Message onMessage) {
+        final DownloadResponse downloadResponse = (DownloadResponse) messageConverter.fromMessage(onMessage);
+        assertThat(downloadResponse.getResponseCode()).as("Message body response code is wrong")
+                .isEqualTo(HttpStatus.OK.value());
+        assertThat(downloadResponse.getArtifact().getHashes().getSha1()).as("Wrong sha1 hash").isEqualTo("sha1");
+    }
+
+    @Test
+    @Description("Tests that the updates of a bulk status message are applied one by one and an update of an action which does not exist is skipped.")
+    public void bulkUpdateActionStatusSkipsInvalidUpdates() throws IllegalAccessException {
+        final Action action = createActionWithTarget(22L, Status.RUNNING);
+        when(controllerManagementMock.findActionWithDetails(22L)).thenReturn(action);
+        when(controllerManagementMock.addUpdateActionStatus(Matchers.any())).thenReturn(action);
+        when(action.isActive()).thenReturn(true);
+        when(entityFactoryMock.generateActionStatus()).thenReturn(new JpaActionStatus());
+
+        final MessageProperties messageProperties = createMessageProperties(MessageType.EVENT);
+        messageProperties.setHeader(MessageHeaderKey.TOPIC, EventTopic.BULK_UPDATE_ACTION_STATUS.name());
+        final List<ActionUpdateStatus> actionUpdateStatuses = new ArrayList<>();
+        actionUpdateStatuses.add(createActionUpdateStatus(ActionStatus.DOWNLOAD, 99L));
+        actionUpdateStatuses.add(createActionUpdateStatus(ActionStatus.RUNNING, 22L));
+        final Message message = amqpMessageHandlerService.getMessageConverter().toMessage(actionUpdateStatuses,
+                messageProperties);
+
+        amqpMessageHandlerService.onMessage(message, MessageType.EVENT.name(), TENANT, "vHost");
+
+        final ArgumentCaptor<org.eclipse.hawkbit.repository.model.ActionStatus> actionStatus = ArgumentCaptor
+                .forClass(org.eclipse.hawkbit.repository.model.ActionStatus.class);
+        verify(controllerManagementMock).addUpdateActionStatus(actionStatus.capture());
+        assertThat(actionStatus.getValue().getAction()).isEqualTo(action);
+        assertThat(actionStatus.getValue().getStatus()).isEqualTo(Status.RUNNING);
+    }
+
+    @Test
+    @Description("Tests that an update of a bulk status message is skipped without calling the repository if its action has too many status entries.")
+    public void bulkUpdateActionStatusSkipsActionsOverLimit() throws IllegalAccessException {
+        final Action action = createActionWithTarget(22L, Status.RUNNING);
+        when(controllerManagementMock.findActionWithDetails(22L)).thenReturn(action);
+        when(controllerManagementMock.isStatusEntryLimitReached(23L)).thenReturn(true);
+        when(controllerManagementMock.addUpdateActionStatus(Matchers.any())).thenReturn(action);
+        when(action.isActive()).thenReturn(true);
+        when(entityFactoryMock.generateActionStatus()).thenReturn(new JpaActionStatus());
+
+        final MessageProperties messageProperties = createMessageProperties(MessageType.EVENT);
+        messageProperties.setHeader(MessageHeaderKey.TOPIC, EventTopic.BULK_UPDATE_ACTION_STATUS.name());
+        final List<ActionUpdateStatus> actionUpdateStatuses = new ArrayList<>();
+        actionUpdateStatuses.add(createActionUpdateStatus(ActionStatus.RUNNING, 23L));
+        actionUpdateStatuses.add(createActionUpdateStatus(ActionStatus.RUNNING, 22L));
+        final Message message = amqpMessageHandlerService.getMessageConverter().toMessage(actionUpdateStatuses,
+                messageProperties);
+
+        amqpMessageHandlerService.onMessage(message, MessageType.EVENT.name(), TENANT, "vHost");
+
+        verify(controllerManagementMock, never()).findActionWithDetails(23L);
+        final ArgumentCaptor<org.eclipse.hawkbit.repository.model.ActionStatus> actionStatus = ArgumentCaptor
+                .forClass(org.eclipse.hawkbit.repository.model.ActionStatus.class);
+        verify(controllerManagementMock).addUpdateActionStatus(actionStatus.capture());
+        assertThat(actionStatus.getValue().getAction()).isEqualTo(action);
     }
 
     @Test
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate.ConfirmCallback;
+import org.springframework.amqp.rabbit.support.CorrelationData;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Device Management Federation API")
+@Stories("Async Amqp Sender Service Test")
+public class AsyncAmqpSenderServiceTest {
+
+    private static final URI AMQP_URI = URI.create("amqp://vHost/exchange");
+
+    @Mock
+    private RabbitTemplate rabbitTemplateMock;
+
+    @Mock
+    private CachingConnectionFactory connectionFactoryMock;
+
+    private final AmqpProperties.Sender properties = new AmqpProperties.Sender();
+
+    private final List<String> sentMessages = Collections.synchronizedList(new ArrayList<>());
+
+    private AsyncAmqpSenderService senderService;
+
+    @Before
+    public void before() {
+        when(rabbitTemplateMock.getConnectionFactory()).thenReturn(connectionFactoryMock);
+        when(connectionFactoryMock.isPublisherConfirms()).thenReturn(true);
+        doAnswer(invocation -> sentMessages.add(
+                new String(((Message) invocation.getArguments()[2]).getBody(), StandardCharsets.UTF_8)))
+                        .when(rabbitTemplateMock)
+                        .send(eq("exchange"), isNull(String.class), any(Message.class), any(CorrelationData.class));
+    }
+
+    @After
+    public void after() throws InterruptedException {
+        if (senderService != null) {
+            senderService.destroy();
+        }
+    }
+
+    @Test
+    @Description("Verifies that the messages to an exchange are sent in order and the confirms of the broker are counted.")
+    public void messagesAreSentInOrderAndConfirmed() {
+        senderService = new AsyncAmqpSenderService(rabbitTemplateMock, properties);
+        final ConfirmCallback confirmCallback = captureConfirmCallback();
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add("message" + i);
+            senderService.sendMessage(createMessage("message" + i), AMQP_URI);
+        }
+        final ArgumentCaptor<CorrelationData> correlationData = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplateMock, timeout(5_000).times(100)).send(eq("exchange"), isNull(String.class),
+                any(Message.class), correlationData.capture());
+        assertThat(sentMessages).isEqualTo(expected);
+        assertThat(senderService.getInFlight()).isEqualTo(100);
+
+        correlationData.getAllValues().subList(0, 99).forEach(data -> confirmCallback.confirm(data, true, null));
+        confirmCallback.confirm(correlationData.getAllValues().get(99), false, "nack");
+
+        assertThat(senderService.getSent()).isEqualTo(100L);
+        assertThat(senderService.getConfirmed()).isEqualTo(99L);
+        assertThat(senderService.getNacked()).isEqualTo(1L);
+        assertThat(senderService.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    @Description("Verifies that no further messages are sent while the maximum of unconfirmed messages is reached and that the remaining capacity is reduced by the waiting messages.")
+    public void unconfirmedMessagesBlockSending() throws InterruptedException {
+        properties.setThreads(1);
+        properties.setQueueCapacity(10);
+        properties.setMaxUnconfirmed(2);
+        senderService = new AsyncAmqpSenderService(rabbitTemplateMock, properties);
+        final ConfirmCallback confirmCallback = captureConfirmCallback();
+
+        for (int i = 0; i < 5; i++) {
+            senderService.sendMessage(createMessage("message" + i), AMQP_URI);
+        }
+        final ArgumentCaptor<CorrelationData> correlationData = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplateMock, timeout(5_000).times(2)).send(eq("exchange"), isNull(String.class),
+                any(Message.class), correlationData.capture());
+        verify(rabbitTemplateMock, times(2)).send(eq("exchange"), isNull(String.class), any(Message.class),
+                any(CorrelationData.class));
+        // the third message waits for a confirm outside of the queue
+        awaitQueued(2);
+        assertThat(senderService.getRemainingCapacity()).isEqualTo(8);
+
+        confirmCallback.confirm(correlationData.getAllValues().get(0), true, null);
+        verify(rabbitTemplateMock, timeout(5_000).times(3)).send(eq("exchange"), isNull(String.class),
+                any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @Description("Verifies that messages which are not confirmed in time are counted as nacked and release their slots.")
+    public void unconfirmedMessagesExpire() {
+        properties.setMaxUnconfirmed(1);
+        properties.setConfirmTimeout(0);
+        when(rabbitTemplateMock.getUnconfirmed(anyLong()))
+                .thenReturn(Collections.singletonList(new CorrelationData("expired"))).thenReturn(null);
+        senderService = new AsyncAmqpSenderService(rabbitTemplateMock, properties);
+
+        senderService.sendMessage(createMessage("message0"), AMQP_URI);
+        senderService.sendMessage(createMessage("message1"), AMQP_URI);
+
+        verify(rabbitTemplateMock, timeout(5_000).times(2)).send(eq("exchange"), isNull(String.class),
+                any(Message.class), any(CorrelationData.class));
+        assertThat(senderService.getNacked()).isEqualTo(1L);
+    }
+
+    @Test
+    @Description("Verifies that a sender thread keeps sending after an unexpected runtime exception, so callers do not block on its queue.")
+    public void senderSurvivesRuntimeException() {
+        properties.setThreads(1);
+        doThrow(new IllegalStateException("Unexpected failure!")).doAnswer(invocation -> sentMessages.add(
+                new String(((Message) invocation.getArguments()[2]).getBody(), StandardCharsets.UTF_8)))
+                .when(rabbitTemplateMock)
+                .send(eq("exchange"), isNull(String.class), any(Message.class), any(CorrelationData.class));
+        senderService = new AsyncAmqpSenderService(rabbitTemplateMock, properties);
+
+        senderService.sendMessage(createMessage("message0"), AMQP_URI);
+        senderService.sendMessage(createMessage("message1"), AMQP_URI);
+
+        verify(rabbitTemplateMock, timeout(5_000).times(2)).send(eq("exchange"), isNull(String.class),
+                any(Message.class), any(CorrelationData.class));
+        assertThat(sentMessages).containsExactly("message1");
+        assertThat(senderService.getFailed()).isEqualTo(1L);
+        assertThat(senderService.getInFlight()).isEqualTo(1);
+    }
+
+    private void awaitQueued(final int queued) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (senderService.getQueued() != queued && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(senderService.getQueued()).isEqualTo(queued);
+    }
+
+    private ConfirmCallback captureConfirmCallback() {
+        final ArgumentCaptor<ConfirmCallback> confirmCallback = ArgumentCaptor.forClass(ConfirmCallback.class);
+        verify(rabbitTemplateMock).setConfirmCallback(confirmCallback.capture());
+        return confirmCallback.getValue();
+    }
+
+    private static Message createMessage(final String body) {
+        return new Message(body.getBytes(StandardCharsets.UTF_8), new MessageProperties());
+    }
+}
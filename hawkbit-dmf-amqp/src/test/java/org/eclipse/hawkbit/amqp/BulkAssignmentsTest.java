@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.hawkbit.api.ArtifactUrlHandlerProperties;
+import org.eclipse.hawkbit.api.ArtifactUrlHandlerProperties.UrlProtocol;
+import org.eclipse.hawkbit.api.PropertyBasedArtifactUrlHandler;
+import org.eclipse.hawkbit.dmf.amqp.api.EventTopic;
+import org.eclipse.hawkbit.dmf.amqp.api.MessageHeaderKey;
+import org.eclipse.hawkbit.dmf.json.model.BulkDownloadAndUpdateRequest;
+import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateRequest;
+import org.eclipse.hawkbit.dmf.json.model.DownloadAndUpdateTarget;
+import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
+import org.eclipse.hawkbit.repository.SystemManagement;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.repository.model.LocalArtifact;
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.SoftwareModuleType;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.eclipse.hawkbit.repository.model.TenantMetaData;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Device Management Federation API")
+@Stories("AmqpMessage Dispatcher Service Test")
+public class BulkAssignmentsTest {
+
+    private static final String TENANT = "DEFAULT";
+
+    private static final URI GATEWAY_URI = URI.create("amqp://vHost/gateway");
+
+    private static final URI DEVICE_URI = URI.create("amqp://vHost/device");
+
+    @Mock
+    private SystemManagement systemManagementMock;
+
+    @Mock
+    private SystemSecurityContext systemSecurityContextMock;
+
+    @Mock
+    private RabbitTemplate rabbitTemplateMock;
+
+    @Mock
+    private AmqpSenderService senderServiceMock;
+
+    private final Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+
+    private final AmqpProperties.Bulk bulkProperties = new AmqpProperties.Bulk();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private PropertyBasedArtifactUrlHandler artifactUrlHandler;
+
+    private AmqpMessageDispatcherService dispatcher;
+
+    private List<SoftwareModule> modules;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() throws Exception {
+        final TenantMetaData tenantMetaData = mock(TenantMetaData.class);
+        when(tenantMetaData.getTenant()).thenReturn(TENANT);
+        when(tenantMetaData.getId()).thenReturn(1L);
+        when(systemManagementMock.getTenantMetadata()).thenReturn(tenantMetaData);
+        when(systemSecurityContextMock.runAsSystem(any(Callable.class)))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArguments()[0]).call());
+        when(rabbitTemplateMock.getMessageConverter()).thenReturn(jsonConverter);
+
+        final ArtifactUrlHandlerProperties properties = new ArtifactUrlHandlerProperties();
+        final UrlProtocol protocol = new UrlProtocol();
+        protocol.setRef("{protocol}://{hostname}:{port}/{tenant}/controller/v1/{controllerId}/{targetIdBase62}/"
+                + "softwaremodules/{softwareModuleId}/artifacts/{artifactFileName}");
+        properties.getProtocols().put("download-http", protocol);
+
+        artifactUrlHandler = new PropertyBasedArtifactUrlHandler(properties);
+
+        bulkProperties.setEnabled(true);
+        bulkProperties.setLinger(50);
+        dispatcher = createDispatcher();
+
+        modules = Collections.singletonList(createModule(10L));
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    @Description("Verifies that the targets behind the same address get one bulk message and a single target gets the usual message.")
+    public void targetsWithSameAddressGetOneBulkMessage() {
+        for (long i = 1; i <= 3; i++) {
+            assign(createTarget(i, "gateway-device" + i, GATEWAY_URI), modules);
+        }
+        assign(createTarget(4L, "device4", DEVICE_URI), modules);
+
+        final BulkDownloadAndUpdateRequest bulkRequest = (BulkDownloadAndUpdateRequest) jsonConverter
+                .fromMessage(captureMessage(GATEWAY_URI));
+        assertThat(extract(bulkRequest.getTargets())).isEqualTo(Arrays.asList("gateway-device1:1:101:token1",
+                "gateway-device2:2:102:token2", "gateway-device3:3:103:token3"));
+        assertThat(bulkRequest.getSoftwareModules()).hasSize(1);
+        assertThat(bulkRequest.getSoftwareModules().get(0).getArtifacts().get(0).getUrls().get("HTTP"))
+                .contains("/controller/v1/" + BulkDownloadAndUpdateRequest.CONTROLLER_ID_PLACEHOLDER + "/"
+                        + BulkDownloadAndUpdateRequest.TARGET_ID_BASE62_PLACEHOLDER + "/");
+
+        final Message single = captureMessage(DEVICE_URI);
+        assertThat(single.getMessageProperties().getHeaders().get(MessageHeaderKey.TOPIC))
+                .isEqualTo(EventTopic.DOWNLOAD_AND_INSTALL);
+        assertThat(((DownloadAndUpdateRequest) jsonConverter.fromMessage(single)).getActionId()).isEqualTo(104L);
+    }
+
+    @Test
+    @Description("Verifies that the targets of an address are sent at once if the maximum number of targets is reached.")
+    public void fullBulkMessageIsSentAtOnce() {
+        bulkProperties.setMaxTargets(2);
+        bulkProperties.setLinger(60_000);
+        dispatcher = createDispatcher();
+
+        assign(createTarget(1L, "gateway-device1", GATEWAY_URI), modules);
+        verify(senderServiceMock, never()).sendMessage(any(Message.class), any(URI.class));
+        assign(createTarget(2L, "gateway-device2", GATEWAY_URI), modules);
+
+        final BulkDownloadAndUpdateRequest bulkRequest = (BulkDownloadAndUpdateRequest) jsonConverter
+                .fromMessage(captureMessage(GATEWAY_URI));
+        assertThat(bulkRequest.getTargets()).hasSize(2);
+    }
+
+    @Test
+    @Description("Verifies that a cancellation sends the collected assignments of its address first.")
+    public void cancellationDoesNotOvertakeAssignment() {
+        bulkProperties.setLinger(60_000);
+        dispatcher = createDispatcher();
+        assign(createTarget(1L, "gateway-device1", GATEWAY_URI), modules);
+        assign(createTarget(2L, "gateway-device2", GATEWAY_URI), Collections.emptyList());
+
+        dispatcher.targetCancelAssignmentToDistributionSet(
+                new CancelTargetAssignmentEvent(1L, TENANT, "gateway-device1", 101L, GATEWAY_URI));
+
+        final ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(senderServiceMock, times(3)).sendMessage(messages.capture(), eq(GATEWAY_URI));
+        final List<Object> topics = new ArrayList<>();
+        messages.getAllValues().forEach(
+                message -> topics.add(message.getMessageProperties().getHeaders().get(MessageHeaderKey.TOPIC)));
+        // the assignments with and without software modules are sent apart
+        assertThat(topics).containsOnly(EventTopic.DOWNLOAD_AND_INSTALL, EventTopic.CANCEL_DOWNLOAD);
+        assertThat(topics.get(2)).isEqualTo(EventTopic.CANCEL_DOWNLOAD);
+    }
+
+    @Test
+    @Description("Verifies that the collected assignments are sent on shutdown and later assignments are sent at once.")
+    public void collectedAssignmentsAreSentOnShutdown() {
+        bulkProperties.setLinger(60_000);
+        dispatcher = createDispatcher();
+        assign(createTarget(1L, "gateway-device1", GATEWAY_URI), modules);
+        assign(createTarget(2L, "gateway-device2", GATEWAY_URI), modules);
+        verify(senderServiceMock, never()).sendMessage(any(Message.class), any(URI.class));
+
+        dispatcher.destroy();
+        final BulkDownloadAndUpdateRequest bulkRequest = (BulkDownloadAndUpdateRequest) jsonConverter
+                .fromMessage(captureMessage(GATEWAY_URI));
+        assertThat(bulkRequest.getTargets()).hasSize(2);
+
+        assign(createTarget(3L, "device3", DEVICE_URI), modules);
+        assertThat(((DownloadAndUpdateRequest) jsonConverter.fromMessage(captureMessage(DEVICE_URI))).getActionId())
+                .isEqualTo(103L);
+    }
+
+    private AmqpMessageDispatcherService createDispatcher() {
+        return new AmqpMessageDispatcherService(rabbitTemplateMock, senderServiceMock, artifactUrlHandler,
+                systemSecurityContextMock, systemManagementMock, bulkProperties, scheduler);
+    }
+
+    private void assign(final Target target, final List<SoftwareModule> softwareModules) {
+        dispatcher.targetAssignDistributionSet(
+                new TargetAssignDistributionSetEvent(1L, TENANT, target, target.getId() + 100, softwareModules));
+    }
+
+    private Message captureMessage(final URI address) {
+        final ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(senderServiceMock, timeout(5_000)).sendMessage(message.capture(), eq(address));
+        return message.getValue();
+    }
+
+    private static List<String> extract(final List<DownloadAndUpdateTarget> targets) {
+        final List<String> extracted = new ArrayList<>();
+        targets.forEach(target -> extracted.add(target.getThingId() + ":" + target.getTargetId() + ":"
+                + target.getActionId() + ":" + target.getTargetSecurityToken()));
+        return extracted;
+    }
+
+    private static Target createTarget(final Long id, final String controllerId, final URI address) {
+        final TargetInfo targetInfo = mock(TargetInfo.class);
+        when(targetInfo.getAddress()).thenReturn(address);
+        final Target target = mock(Target.class);
+        when(target.getId()).thenReturn(id);
+        when(target.getControllerId()).thenReturn(controllerId);
+        when(target.getSecurityToken()).thenReturn("token" + id);
+        when(target.getTargetInfo()).thenReturn(targetInfo);
+        return target;
+    }
+
+    private static SoftwareModule createModule(final Long id) {
+        final SoftwareModuleType moduleType = mock(SoftwareModuleType.class);
+        when(moduleType.getKey()).thenReturn("os");
+        final SoftwareModule module = mock(SoftwareModule.class);
+        when(module.getId()).thenReturn(id);
+        when(module.getType()).thenReturn(moduleType);
+        when(module.getVersion()).thenReturn("1.0");
+
+        final LocalArtifact artifact = mock(LocalArtifact.class);
+        when(artifact.getId()).thenReturn(id * 100);
+        when(artifact.getFilename()).thenReturn("file.bin");
+        when(artifact.getSha1Hash()).thenReturn("sha1");
+        when(artifact.getMd5Hash()).thenReturn("md5");
+        when(artifact.getSoftwareModule()).thenReturn(module);
+        when(module.getLocalArtifacts()).thenReturn(Collections.singletonList(artifact));
+        return module;
+    }
+}
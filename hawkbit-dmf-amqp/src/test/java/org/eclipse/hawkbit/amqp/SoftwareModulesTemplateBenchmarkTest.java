@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.eclipse.hawkbit.amqp.SoftwareModulesTemplateTest.createArtifactUrlHandler;
+import static org.eclipse.hawkbit.amqp.SoftwareModulesTemplateTest.createModules;
+import static org.eclipse.hawkbit.amqp.SoftwareModulesTemplateTest.createRabbitTemplate;
+import static org.eclipse.hawkbit.amqp.SoftwareModulesTemplateTest.createTarget;
+import static org.eclipse.hawkbit.amqp.SoftwareModulesTemplateTest.stub;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hawkbit.amqp.SoftwareModulesTemplateTest.DelegatingMessageConverter;
+import org.eclipse.hawkbit.api.PropertyBasedArtifactUrlHandler;
+import org.eclipse.hawkbit.repository.SystemManagement;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TenantMetaData;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Device Management Federation API")
+@Stories("AmqpMessage Dispatcher Service Test")
+public class SoftwareModulesTemplateBenchmarkTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SoftwareModulesTemplateBenchmarkTest.class);
+
+    private static final String TENANT = "DEFAULT";
+
+    @Mock
+    private SystemManagement systemManagementMock;
+
+    @Mock
+    private SystemSecurityContext systemSecurityContextMock;
+
+    private final Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+
+    private final PropertyBasedArtifactUrlHandler artifactUrlHandler = createArtifactUrlHandler();
+
+    private final List<SoftwareModule> modules = createModules();
+
+    @Test
+    @Description("Measures the messages per second of the assignment of a distribution set with and without templates.")
+    @SuppressWarnings("unchecked")
+    public void throughputBenchmark() throws Exception {
+        final TenantMetaData tenantMetaData = stub(TenantMetaData.class);
+        when(tenantMetaData.getTenant()).thenReturn(TENANT);
+        when(tenantMetaData.getId()).thenReturn(1L);
+        when(systemManagementMock.getTenantMetadata()).thenReturn(tenantMetaData);
+        when(systemSecurityContextMock.runAsSystem(any(Callable.class)))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArguments()[0]).call());
+
+        final int messages = 20_000;
+        final List<Target> targets = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            targets.add(createTarget(i, "device-" + i, "token-" + i));
+        }
+
+        final long baseline = measure(new DelegatingMessageConverter(jsonConverter), targets, messages);
+        final long templates = measure(jsonConverter, targets, messages);
+        LOG.info("Assignment messages per second without templates: {}, with templates: {}", baseline, templates);
+
+        // once for the baseline per message, once for the template
+        verify(systemManagementMock, times(messages + 1)).getTenantMetadata();
+    }
+
+    private long measure(final MessageConverter converter, final List<Target> targets, final int messages) {
+        final AmqpMessageDispatcherService dispatcher = new AmqpMessageDispatcherService(
+                createRabbitTemplate(converter), (message, uri) -> {
+                }, artifactUrlHandler, systemSecurityContextMock, systemManagementMock);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            dispatcher.targetAssignDistributionSet(new TargetAssignDistributionSetEvent(1L, TENANT,
+                    targets.get(i % targets.size()), (long) i, modules));
+        }
+        final long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return messages * 1_000L / millis;
+    }
+}
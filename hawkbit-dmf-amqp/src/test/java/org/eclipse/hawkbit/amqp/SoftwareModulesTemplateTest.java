@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.amqp;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.eclipse.hawkbit.api.ArtifactUrl;
+import org.eclipse.hawkbit.api.ArtifactUrlHandler;
+import org.eclipse.hawkbit.api.ArtifactUrlHandlerProperties;
+import org.eclipse.hawkbit.api.ArtifactUrlHandlerProperties.UrlProtocol;
+import org.eclipse.hawkbit.api.PropertyBasedArtifactUrlHandler;
+import org.eclipse.hawkbit.repository.SystemManagement;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetAssignDistributionSetEvent;
+import org.eclipse.hawkbit.repository.model.LocalArtifact;
+import org.eclipse.hawkbit.repository.model.SoftwareModule;
+import org.eclipse.hawkbit.repository.model.SoftwareModuleType;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.eclipse.hawkbit.repository.model.TenantMetaData;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@RunWith(MockitoJUnitRunner.class)
+@Features("Component Tests - Device Management Federation API")
+@Stories("AmqpMessage Dispatcher Service Test")
+public class SoftwareModulesTemplateTest {
+
+    private static final String TENANT = "DEFAULT";
+
+    private static final URI AMQP_URI = URI.create("amqp://vHost/exchange");
+
+    @Mock
+    private SystemManagement systemManagementMock;
+
+    @Mock
+    private SystemSecurityContext systemSecurityContextMock;
+
+    private final Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+
+    private PropertyBasedArtifactUrlHandler artifactUrlHandler;
+
+    private List<SoftwareModule> modules;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() throws Exception {
+        final TenantMetaData tenantMetaData = stub(TenantMetaData.class);
+        when(tenantMetaData.getTenant()).thenReturn(TENANT);
+        when(tenantMetaData.getId()).thenReturn(1L);
+        when(systemManagementMock.getTenantMetadata()).thenReturn(tenantMetaData);
+        when(systemSecurityContextMock.runAsSystem(any(Callable.class)))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArguments()[0]).call());
+
+        artifactUrlHandler = createArtifactUrlHandler();
+        modules = createModules();
+    }
+
+    static PropertyBasedArtifactUrlHandler createArtifactUrlHandler() {
+        final ArtifactUrlHandlerProperties properties = new ArtifactUrlHandlerProperties();
+        final UrlProtocol protocol = new UrlProtocol();
+        protocol.setRef("{protocol}://{hostname}:{port}/{tenant}/controller/v1/{controllerId}/{targetId}/"
+                + "{targetIdBase62}/softwaremodules/{softwareModuleId}/artifacts/{artifactFileName}");
+        properties.getProtocols().put("download-http", protocol);
+        return new PropertyBasedArtifactUrlHandler(properties);
+    }
+
+    static List<SoftwareModule> createModules() {
+        return Arrays.asList(createModule(10L, "os", 2), createModule(11L, "app", 1), createModule(12L, "app", 0));
+    }
+
+    @Test
+    @Description("Verifies that the message rendered from a template is identical to the serialized request.")
+    public void templateIsRenderedLikeSerializedRequest() {
+        final RabbitTemplate templateRabbit = createRabbitTemplate(jsonConverter);
+        final RabbitTemplate baselineRabbit = createRabbitTemplate(new DelegatingMessageConverter(jsonConverter));
+
+        for (final Target target : Arrays.asList(createTarget(123L, "dev\"ice/1", "token"),
+                createTarget(124L, "device-2", null))) {
+            final Message rendered = send(templateRabbit, target, modules);
+            final Message serialized = send(baselineRabbit, target, modules);
+
+            assertThat(new String(rendered.getBody(), StandardCharsets.UTF_8))
+                    .isEqualTo(new String(serialized.getBody(), StandardCharsets.UTF_8))
+                    .contains("/controller/v1/" + target.getControllerId().replace("\"", "\\\"") + "/");
+            assertThat(rendered.getMessageProperties().getHeaders())
+                    .isEqualTo(serialized.getMessageProperties().getHeaders());
+            assertThat(rendered.getMessageProperties().getContentLength())
+                    .isEqualTo(serialized.getMessageProperties().getContentLength());
+        }
+
+        final Target target = createTarget(125L, "device-4", "token");
+        assertThat(new String(send(templateRabbit, target, new ArrayList<>()).getBody(), StandardCharsets.UTF_8))
+                .isEqualTo(new String(send(baselineRabbit, target, new ArrayList<>()).getBody(),
+                        StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @Description("Verifies that the software modules are converted for every target if the artifact URLs are not created from placeholders.")
+    public void customArtifactUrlHandlerIsCalledForEveryTarget() {
+        final ArtifactUrlHandler signingHandler = (placeholder, api) -> Collections.singletonList(new ArtifactUrl(
+                "http", "download", "http://download/" + Math.abs(placeholder.getControllerId().hashCode()) + "/"
+                        + placeholder.getSoftwareData().getFilename()));
+
+        for (final Target target : Arrays.asList(createTarget(123L, "device-1", "token"),
+                createTarget(124L, "device-2", null))) {
+            final Message message = send(createRabbitTemplate(jsonConverter), signingHandler, target, modules);
+            assertThat(new String(message.getBody(), StandardCharsets.UTF_8))
+                    .contains("http://download/" + Math.abs(target.getControllerId().hashCode()) + "/file 0.bin");
+        }
+    }
+
+    private Message send(final RabbitTemplate rabbitTemplate, final Target target,
+            final List<SoftwareModule> softwareModules) {
+        return send(rabbitTemplate, artifactUrlHandler, target, softwareModules);
+    }
+
+    private Message send(final RabbitTemplate rabbitTemplate, final ArtifactUrlHandler urlHandler,
+            final Target target, final List<SoftwareModule> softwareModules) {
+        final AmqpSenderService senderService = mock(AmqpSenderService.class);
+        new AmqpMessageDispatcherService(rabbitTemplate, senderService, urlHandler,
+                systemSecurityContextMock, systemManagementMock).targetAssignDistributionSet(
+                        new TargetAssignDistributionSetEvent(1L, TENANT, target, 1L, softwareModules));
+
+        final ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(senderService).sendMessage(message.capture(), any(URI.class));
+        return message.getValue();
+    }
+
+    static RabbitTemplate createRabbitTemplate(final MessageConverter converter) {
+        final RabbitTemplate rabbitTemplate = stub(RabbitTemplate.class);
+        when(rabbitTemplate.getMessageConverter()).thenReturn(converter);
+        return rabbitTemplate;
+    }
+
+    static Target createTarget(final Long id, final String controllerId, final String securityToken) {
+        final TargetInfo targetInfo = stub(TargetInfo.class);
+        when(targetInfo.getAddress()).thenReturn(AMQP_URI);
+        final Target target = stub(Target.class);
+        when(target.getId()).thenReturn(id);
+        when(target.getControllerId()).thenReturn(controllerId);
+        when(target.getSecurityToken()).thenReturn(securityToken);
+        when(target.getTargetInfo()).thenReturn(targetInfo);
+        return target;
+    }
+
+    static SoftwareModule createModule(final Long id, final String type, final int artifactCount) {
+        final SoftwareModuleType moduleType = stub(SoftwareModuleType.class);
+        when(moduleType.getKey()).thenReturn(type);
+        final SoftwareModule module = stub(SoftwareModule.class);
+        when(module.getId()).thenReturn(id);
+        when(module.getType()).thenReturn(moduleType);
+        when(module.getVersion()).thenReturn("1.0." + id);
+
+        final List<LocalArtifact> artifacts = new ArrayList<>();
+        for (long i = 0; i < artifactCount; i++) {
+            final LocalArtifact artifact = stub(LocalArtifact.class);
+            when(artifact.getId()).thenReturn(id * 100 + i);
+            when(artifact.getFilename()).thenReturn("file " + i + ".bin");
+            when(artifact.getSha1Hash()).thenReturn("sha1-" + i);
+            when(artifact.getMd5Hash()).thenReturn("md5-" + i);
+            when(artifact.getSize()).thenReturn(1024L * i);
+            when(artifact.getSoftwareModule()).thenReturn(module);
+            artifacts.add(artifact);
+        }
+        when(module.getLocalArtifacts()).thenReturn(artifacts);
+        return module;
+    }
+
+    // the benchmark calls the stubs too often to record the invocations
+    static <T> T stub(final Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    /**
+     * Hides the {@link Jackson2JsonMessageConverter} from the dispatcher, so it
+     * serializes the whole request.
+     */
+    static final class DelegatingMessageConverter implements MessageConverter {
+        private final MessageConverter delegate;
+
+        DelegatingMessageConverter(final MessageConverter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Message toMessage(final Object object, final MessageProperties messageProperties) {
+            return delegate.toMessage(object, messageProperties);
+        }
+
+        @Override
+        public Object fromMessage(final Message message) throws MessageConversionException {
+            return delegate.fromMessage(message);
+        }
+    }
+}
@@ -27,6 +27,15 @@ public enum EventTopic {
     /**
      * Topic when sending and receiving a cancel download task.
      */
-    CANCEL_DOWNLOAD;
+    CANCEL_DOWNLOAD,
+    /**
+     * Topic when sending a download and install task for several targets
+     * behind the same address.
+     */
+    BULK_DOWNLOAD_AND_INSTALL,
+    /**
+     * Topic when receiving the update status of several actions.
+     */
+    BULK_UPDATE_ACTION_STATUS;
 
 }
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.dmf.json.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * JSON representation of a download and update request for several targets
+ * which share the same software modules. The artifact URLs of the software
+ * modules may contain the placeholders {@link #CONTROLLER_ID_PLACEHOLDER},
+ * {@link #TARGET_ID_PLACEHOLDER} and {@link #TARGET_ID_BASE62_PLACEHOLDER},
+ * which have to be replaced by the values of a {@link DownloadAndUpdateTarget}
+ * to get its URLs.
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkDownloadAndUpdateRequest {
+
+    /**
+     * Placeholder for the {@link DownloadAndUpdateTarget#getThingId()}.
+     */
+    public static final String CONTROLLER_ID_PLACEHOLDER = "{controllerId}";
+
+    /**
+     * Placeholder for the {@link DownloadAndUpdateTarget#getTargetId()}.
+     */
+    public static final String TARGET_ID_PLACEHOLDER = "{targetId}";
+
+    /**
+     * Placeholder for the {@link DownloadAndUpdateTarget#getTargetId()} in
+     * base 62.
+     */
+    public static final String TARGET_ID_BASE62_PLACEHOLDER = "{targetIdBase62}";
+
+    @JsonProperty
+    private List<SoftwareModule> softwareModules;
+
+    @JsonProperty
+    private List<DownloadAndUpdateTarget> targets;
+
+    public List<SoftwareModule> getSoftwareModules() {
+        if (softwareModules == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(softwareModules);
+    }
+
+    /**
+     * Add a Software module.
+     *
+     * @param createSoftwareModule
+     *            the module
+     */
+    public void addSoftwareModule(final SoftwareModule createSoftwareModule) {
+        if (softwareModules == null) {
+            softwareModules = new ArrayList<>();
+        }
+
+        softwareModules.add(createSoftwareModule);
+    }
+
+    public List<DownloadAndUpdateTarget> getTargets() {
+        if (targets == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Add a target.
+     *
+     * @param target
+     *            the target
+     */
+    public void addTarget(final DownloadAndUpdateTarget target) {
+        if (targets == null) {
+            targets = new ArrayList<>();
+        }
+
+        targets.add(target);
+    }
+}
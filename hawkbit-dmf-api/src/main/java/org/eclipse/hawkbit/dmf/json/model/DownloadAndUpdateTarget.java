@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.dmf.json.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * JSON representation of a target of a bulk download and update request.
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DownloadAndUpdateTarget {
+    @JsonProperty
+    private String thingId;
+
+    @JsonProperty
+    private Long targetId;
+
+    @JsonProperty
+    private Long actionId;
+
+    @JsonProperty
+    private String targetSecurityToken;
+
+    public String getThingId() {
+        return thingId;
+    }
+
+    public void setThingId(final String thingId) {
+        this.thingId = thingId;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(final Long targetId) {
+        this.targetId = targetId;
+    }
+
+    public Long getActionId() {
+        return actionId;
+    }
+
+    public void setActionId(final Long actionId) {
+        this.actionId = actionId;
+    }
+
+    public String getTargetSecurityToken() {
+        return targetSecurityToken;
+    }
+
+    public void setTargetSecurityToken(final String targetSecurityToken) {
+        this.targetSecurityToken = targetSecurityToken;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.mgmt.json.model.rollout;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * The plan of a rollout which has not been created yet.
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MgmtRolloutPlanResponseBody {
+
+    private String targetFilterQuery;
+    private long totalTargets;
+    private List<MgmtRolloutGroupPlan> groups;
+    private long queryDurationMillis;
+    private int queryStatements;
+
+    /**
+     * @return the targetFilterQuery
+     */
+    public String getTargetFilterQuery() {
+        return targetFilterQuery;
+    }
+
+    /**
+     * @param targetFilterQuery
+     *            the targetFilterQuery to set
+     */
+    public void setTargetFilterQuery(final String targetFilterQuery) {
+        this.targetFilterQuery = targetFilterQuery;
+    }
+
+    /**
+     * @return the totalTargets
+     */
+    public long getTotalTargets() {
+        return totalTargets;
+    }
+
+    /**
+     * @param totalTargets
+     *            the totalTargets to set
+     */
+    public void setTotalTargets(final long totalTargets) {
+        this.totalTargets = totalTargets;
+    }
+
+    /**
+     * @return the groups
+     */
+    public List<MgmtRolloutGroupPlan> getGroups() {
+        return groups;
+    }
+
+    /**
+     * @param groups
+     *            the groups to set
+     */
+    public void setGroups(final List<MgmtRolloutGroupPlan> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * @return the time in milliseconds the targets have been resolved in
+     */
+    public long getQueryDurationMillis() {
+        return queryDurationMillis;
+    }
+
+    /**
+     * @param queryDurationMillis
+     *            the queryDurationMillis to set
+     */
+    public void setQueryDurationMillis(final long queryDurationMillis) {
+        this.queryDurationMillis = queryDurationMillis;
+    }
+
+    /**
+     * @return the number of statements the targets have been resolved with
+     */
+    public int getQueryStatements() {
+        return queryStatements;
+    }
+
+    /**
+     * @param queryStatements
+     *            the queryStatements to set
+     */
+    public void setQueryStatements(final int queryStatements) {
+        this.queryStatements = queryStatements;
+    }
+}
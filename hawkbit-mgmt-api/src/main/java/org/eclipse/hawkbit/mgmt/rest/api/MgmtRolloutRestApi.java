@@ -9,6 +9,7 @@
 package org.eclipse.hawkbit.mgmt.rest.api;
 
 import org.eclipse.hawkbit.mgmt.json.model.PagedList;
+import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutPlanResponseBody;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutResponseBody;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutRestRequestBody;
 import org.eclipse.hawkbit.mgmt.json.model.rolloutgroup.MgmtRolloutGroupResponseBody;
@@ -78,6 +79,21 @@ public interface MgmtRolloutRestApi {
             MediaType.APPLICATION_JSON_VALUE }, produces = { "application/hal+json", MediaType.APPLICATION_JSON_VALUE })
     ResponseEntity<MgmtRolloutResponseBody> create(final MgmtRolloutRestRequestBody rolloutRequestBody);
 
+    /**
+     * Handles the POST request for planning a rollout without creating it.
+     * The targets resolved by the plan are reused by a rollout with the same
+     * target filter query which is created right after the plan.
+     *
+     * @param rolloutRequestBody
+     *            the rollout body to be planned, only the target filter query
+     *            and the amount of groups are considered.
+     * @return the planned rollout groups with status OK. In any failure the
+     *         JsonResponseExceptionHandler is handling the response.
+     */
+    @RequestMapping(method = RequestMethod.POST, value = "/plan", consumes = { "application/hal+json",
+            MediaType.APPLICATION_JSON_VALUE }, produces = { "application/hal+json", MediaType.APPLICATION_JSON_VALUE })
+    ResponseEntity<MgmtRolloutPlanResponseBody> plan(final MgmtRolloutRestRequestBody rolloutRequestBody);
+
     /**
      * Handles the POST request for starting a rollout.
      *
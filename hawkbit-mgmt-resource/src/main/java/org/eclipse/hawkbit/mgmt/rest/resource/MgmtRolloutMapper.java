@@ -17,6 +17,8 @@ import java.util.stream.Collectors;
 
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutCondition.Condition;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutErrorAction.ErrorAction;
+import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutGroupPlan;
+import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutPlanResponseBody;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutResponseBody;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutRestRequestBody;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutSuccessAction.SuccessAction;
@@ -32,6 +34,7 @@ import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupErrorAction
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupErrorCondition;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessAction;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessCondition;
+import org.eclipse.hawkbit.repository.model.RolloutPlan;
 import org.eclipse.hawkbit.repository.model.TotalTargetCountStatus;
 
 /**
@@ -56,6 +59,22 @@ final class MgmtRolloutMapper {
         return rollouts.stream().map(MgmtRolloutMapper::toResponseRollout).collect(Collectors.toList());
     }
 
+    static MgmtRolloutPlanResponseBody toResponsePlan(final RolloutPlan plan) {
+        final MgmtRolloutPlanResponseBody body = new MgmtRolloutPlanResponseBody();
+        body.setTargetFilterQuery(plan.getTargetFilterQuery());
+        body.setTotalTargets(plan.getTotalTargets());
+        body.setQueryDurationMillis(plan.getQueryDurationMillis());
+        body.setQueryStatements(plan.getQueryStatements());
+        body.setGroups(plan.getGroups().stream().map(group -> {
+            final MgmtRolloutGroupPlan groupBody = new MgmtRolloutGroupPlan();
+            groupBody.setName(group.getName());
+            groupBody.setTotalTargets(group.getTotalTargets());
+            groupBody.setSampleTargets(group.getSampleTargets());
+            return groupBody;
+        }).collect(Collectors.toList()));
+        return body;
+    }
+
     static MgmtRolloutResponseBody toResponseRollout(final Rollout rollout) {
         final MgmtRolloutResponseBody body = new MgmtRolloutResponseBody();
         body.setCreatedAt(rollout.getCreatedAt());
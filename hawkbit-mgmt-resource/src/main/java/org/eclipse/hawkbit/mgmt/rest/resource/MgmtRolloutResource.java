@@ -11,6 +11,7 @@ package org.eclipse.hawkbit.mgmt.rest.resource;
 import java.util.List;
 
 import org.eclipse.hawkbit.mgmt.json.model.PagedList;
+import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutPlanResponseBody;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutResponseBody;
 import org.eclipse.hawkbit.mgmt.json.model.rollout.MgmtRolloutRestRequestBody;
 import org.eclipse.hawkbit.mgmt.json.model.rolloutgroup.MgmtRolloutGroupResponseBody;
@@ -33,6 +34,7 @@ import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessActi
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessCondition;
 import org.eclipse.hawkbit.repository.model.RolloutGroupConditionBuilder;
 import org.eclipse.hawkbit.repository.model.RolloutGroupConditions;
+import org.eclipse.hawkbit.repository.model.RolloutPlan;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -151,6 +153,14 @@ public class MgmtRolloutResource implements MgmtRolloutRestApi {
         return ResponseEntity.status(HttpStatus.CREATED).body(MgmtRolloutMapper.toResponseRollout(rollout));
     }
 
+    @Override
+    public ResponseEntity<MgmtRolloutPlanResponseBody> plan(
+            @RequestBody final MgmtRolloutRestRequestBody rolloutRequestBody) {
+        final RolloutPlan plan = rolloutManagement.planRollout(rolloutRequestBody.getTargetFilterQuery(),
+                rolloutRequestBody.getAmountGroups());
+        return new ResponseEntity<>(MgmtRolloutMapper.toResponsePlan(plan), HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<Void> start(@PathVariable("rolloutId") final Long rolloutId,
             @RequestParam(value = MgmtRestConstants.REQUEST_PARAMETER_ASYNC, defaultValue = "false") final boolean startAsync) {
@@ -121,6 +121,25 @@ public class MgmtRolloutResourceTest extends AbstractRestIntegrationTest {
         postRollout("rollout1", 10, dsA.getId(), "name==target1");
     }
 
+    @Test
+    @Description("Testing that a rollout can be planned without creating it")
+    public void planRollout() throws Exception {
+        targetManagement.createTargets(testdataFactory.generateTargets(20, "rollout", "rollout"));
+        final DistributionSet dsA = testdataFactory.createDistributionSet("");
+
+        mvc.perform(post("/rest/v1/rollouts/plan")
+                .content(JsonBuilder.rollout("rollout1", "desc", 4, dsA.getId(), "controllerId==rollout*", null))
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultPrinter.print()).andExpect(status().isOk())
+                .andExpect(jsonPath("totalTargets", equalTo(20))).andExpect(jsonPath("groups", hasSize(4)))
+                .andExpect(jsonPath("groups[0].name", equalTo("group-1")))
+                .andExpect(jsonPath("groups[0].totalTargets", equalTo(5)))
+                .andExpect(jsonPath("groups[0].sampleTargets", hasSize(5)))
+                .andExpect(jsonPath("queryStatements", equalTo(1)));
+
+        assertThat(rolloutManagement.findRolloutByName("rollout1")).isNull();
+    }
+
     @Test
     @Description("Testing the empty list is returned if no rollout exists")
     public void noRolloutReturnsEmptyList() throws Exception {
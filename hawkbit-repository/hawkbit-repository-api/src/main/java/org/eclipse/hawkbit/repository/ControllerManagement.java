@@ -29,6 +29,7 @@ import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
 import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
 import org.hibernate.validator.constraints.NotEmpty;
@@ -103,6 +104,20 @@ public interface ControllerManagement {
     @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
     Action addUpdateActionStatus(@NotNull ActionStatus actionStatus);
 
+    /**
+     * Checks if an {@link Action} has reached the permitted number of status
+     * entries, so a further entry would be rejected with a
+     * {@link TooManyStatusEntriesException}. The exception marks a surrounding
+     * transaction for rollback, so callers which add the status entries of
+     * several actions in one transaction check the limit beforehand.
+     *
+     * @param actionId
+     *            of the action
+     * @return <code>true</code> if no further status entry is permitted
+     */
+    @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
+    boolean isStatusEntryLimitReached(@NotNull Long actionId);
+
     /**
      * Retrieves all {@link Action}s which are active and assigned to a
      * {@link Target}.
@@ -148,6 +163,20 @@ public interface ControllerManagement {
     @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
     Target findOrRegisterTargetIfItDoesNotexist(@NotEmpty String controllerId, URI address);
 
+    /**
+     * Retrieves the compact poll state of a target and its oldest active
+     * {@link Action} with a single query, registers the target if it does not
+     * exist yet (plug-and-play) and records the poll of the controller.
+     *
+     * @param controllerId
+     *            reference
+     * @param address
+     *            the client IP address of the target, might be {@code null}
+     * @return the {@link TargetPollView} of the target
+     */
+    @PreAuthorize(SpringEvalExpressions.IS_CONTROLLER)
+    TargetPollView findOrRegisterTargetPollView(@NotEmpty String controllerId, URI address);
+
     /**
      * Retrieves all {@link SoftwareModule}s which are assigned to the given
      * {@link DistributionSet}.
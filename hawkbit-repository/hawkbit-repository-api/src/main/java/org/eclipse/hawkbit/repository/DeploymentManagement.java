@@ -213,10 +213,11 @@ public interface DeploymentManagement {
     /**
      * Creates an action entry into the action repository. In case of existing
      * scheduled actions the scheduled actions gets canceled. A scheduled action
-     * is created in-active.
+     * is created in-active. The actions are inserted in bulk, so no events are
+     * published for the created actions.
      *
-     * @param targets
-     *            the targets to create scheduled actions for
+     * @param targetIds
+     *            the IDs of the targets to create scheduled actions for
      * @param distributionSet
      *            the distribution set for the actions
      * @param actionType
@@ -229,7 +230,7 @@ public interface DeploymentManagement {
      *            the roll out group for this action
      */
     @PreAuthorize(SpringEvalExpressions.HAS_AUTH_UPDATE_TARGET)
-    void createScheduledAction(@NotEmpty Collection<Target> targets, @NotNull DistributionSet distributionSet,
+    void createScheduledAction(@NotEmpty Collection<Long> targetIds, @NotNull DistributionSet distributionSet,
             @NotNull ActionType actionType, Long forcedTime, @NotNull Rollout rollout,
             @NotNull RolloutGroup rolloutGroup);
 
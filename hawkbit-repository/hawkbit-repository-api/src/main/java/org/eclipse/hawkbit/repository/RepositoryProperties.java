@@ -18,6 +18,18 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties("hawkbit.server.repository")
 public class RepositoryProperties {
 
+    // used by @Scheduled annotation which needs constant
+    public static final String PROP_POLL_PERSISTENCE_FLUSH_TIME_PLACEHOLDER = "${hawkbit.server.repository.pollPersistenceFlushTime:10000}";
+
+    // used by @Scheduled annotation which needs constant
+    public static final String PROP_DOWNLOAD_PROGRESS_FLUSH_TIME_PLACEHOLDER = "${hawkbit.server.repository.downloadProgressFlushTime:2000}";
+
+    // used by @Scheduled annotation which needs constant
+    public static final String PROP_ACTION_STATUS_FLUSH_TIME_PLACEHOLDER = "${hawkbit.server.repository.actionStatusFlushTime:500}";
+
+    // used by @Scheduled annotation which needs constant
+    public static final String PROP_ACTION_RETENTION_TIME_PLACEHOLDER = "${hawkbit.server.repository.actionRetentionTime:3600000}";
+
     /**
      * Set to <code>true</code> if the repository has to reject
      * {@link ActionStatus} entries for actions that are closed. Note: if this
@@ -26,6 +38,146 @@ public class RepositoryProperties {
      */
     private boolean rejectActionStatusForClosedAction = false;
 
+    /**
+     * Set to <code>true</code> if the last poll time and address of a
+     * controller are written to the database with every single poll. If
+     * <code>false</code> the polls are collected in memory, coalesced per
+     * target and written in batches every
+     * {@link #pollPersistenceFlushTime}.
+     */
+    private boolean eagerPollPersistence = false;
+
+    /**
+     * Interval in milliseconds in which the collected controller polls are
+     * written to the database.
+     */
+    private long pollPersistenceFlushTime = 10_000L;
+
+    /**
+     * Age in milliseconds the persisted last poll time of a target may have
+     * before a new poll is recorded again. Polls of targets which have been
+     * persisted more recently (and did not change their address) are not
+     * collected at all. <code>0</code> records every poll.
+     */
+    private long pollPersistenceMaxStaleness = 0L;
+
+    /**
+     * Maximum number of targets whose polls are kept in memory. If the limit
+     * is reached further polls are written synchronously.
+     */
+    private int pollPersistenceQueueSize = 100_000;
+
+    /**
+     * Set to <code>true</code> to serve controller polls from an in-memory
+     * cache of the target poll views, which is evicted on changes of the
+     * targets and their actions.
+     */
+    private boolean pollViewCache = true;
+
+    /**
+     * Maximum number of target poll views kept in memory.
+     */
+    private int pollViewCacheSize = 100_000;
+
+    /**
+     * Maximum time in milliseconds a target poll view is served from the
+     * cache after it has been loaded from the database, as a backstop for
+     * missed evictions.
+     */
+    private long pollViewCacheTtl = 60_000L;
+
+    /**
+     * Set to <code>true</code> if every download progress report is written
+     * to the cache and published as event immediately. If <code>false</code>
+     * the reports are collected in memory and published as coalesced
+     * snapshots every {@link #downloadProgressFlushTime}.
+     */
+    private boolean eagerDownloadProgress = false;
+
+    /**
+     * Interval in milliseconds in which the collected download progress is
+     * published.
+     */
+    private long downloadProgressFlushTime = 2_000L;
+
+    /**
+     * Minimum progress in percent of a download since its last published
+     * snapshot before a new snapshot is published. The completion of a
+     * download is always published.
+     */
+    private int downloadProgressGranularity = 10;
+
+    /**
+     * Set to <code>true</code> if every {@link ActionStatus} is written to the
+     * database with the feedback of the controller. If <code>false</code>
+     * informational status entries (e.g. RUNNING, WARNING) are queued and
+     * written in batches every {@link #actionStatusFlushTime}, only entries
+     * which change the state of the action are written immediately.
+     */
+    private boolean eagerActionStatusPersistence = false;
+
+    /**
+     * Interval in milliseconds in which the queued {@link ActionStatus}
+     * entries are written to the database.
+     */
+    private long actionStatusFlushTime = 500L;
+
+    /**
+     * Maximum number of {@link ActionStatus} entries written in one batch
+     * and transaction.
+     */
+    private int actionStatusBatchSize = 500;
+
+    /**
+     * Maximum number of {@link ActionStatus} entries kept in memory. If the
+     * limit is reached further entries are written synchronously.
+     */
+    private int actionStatusQueueSize = 20_000;
+
+    /**
+     * Maximum number of targets deleted in one chunk and transaction by an
+     * asynchronous target deletion.
+     */
+    private int targetDeletionChunkSize = 500;
+
+    /**
+     * Pause in milliseconds between two chunks of an asynchronous target
+     * deletion, so other transactions get access to the tables in between.
+     */
+    private long targetDeletionPause = 100L;
+
+    /**
+     * Default of the tenant configuration of the number of the latest
+     * {@link ActionStatus} entries which are kept per action, <code>0</code>
+     * keeps all entries.
+     */
+    private int actionStatusRetentionCount = 0;
+
+    /**
+     * Default of the tenant configuration of the number of days after their
+     * last change after which closed actions are purged with their status
+     * entries, <code>0</code> keeps all actions.
+     */
+    private int actionRetentionDays = 0;
+
+    /**
+     * Interval in milliseconds in which the action history of the tenants is
+     * purged according to their retention configuration.
+     */
+    private long actionRetentionTime = 3_600_000L;
+
+    /**
+     * Maximum number of actions or {@link ActionStatus} entries purged in one
+     * batch and transaction.
+     */
+    private int actionRetentionBatchSize = 500;
+
+    /**
+     * Directory on the local disk the purged action history is exported to
+     * as compressed CSV files, nothing is exported if not set.
+     */
+    private String actionHistoryExportDirectory;
+
     public boolean isRejectActionStatusForClosedAction() {
         return rejectActionStatusForClosedAction;
     }
@@ -34,4 +186,172 @@ public class RepositoryProperties {
         this.rejectActionStatusForClosedAction = rejectActionStatusForClosedAction;
     }
 
+    public boolean isEagerPollPersistence() {
+        return eagerPollPersistence;
+    }
+
+    public void setEagerPollPersistence(final boolean eagerPollPersistence) {
+        this.eagerPollPersistence = eagerPollPersistence;
+    }
+
+    public long getPollPersistenceFlushTime() {
+        return pollPersistenceFlushTime;
+    }
+
+    public void setPollPersistenceFlushTime(final long pollPersistenceFlushTime) {
+        this.pollPersistenceFlushTime = pollPersistenceFlushTime;
+    }
+
+    public long getPollPersistenceMaxStaleness() {
+        return pollPersistenceMaxStaleness;
+    }
+
+    public void setPollPersistenceMaxStaleness(final long pollPersistenceMaxStaleness) {
+        this.pollPersistenceMaxStaleness = pollPersistenceMaxStaleness;
+    }
+
+    public int getPollPersistenceQueueSize() {
+        return pollPersistenceQueueSize;
+    }
+
+    public void setPollPersistenceQueueSize(final int pollPersistenceQueueSize) {
+        this.pollPersistenceQueueSize = pollPersistenceQueueSize;
+    }
+
+    public boolean isPollViewCache() {
+        return pollViewCache;
+    }
+
+    public void setPollViewCache(final boolean pollViewCache) {
+        this.pollViewCache = pollViewCache;
+    }
+
+    public int getPollViewCacheSize() {
+        return pollViewCacheSize;
+    }
+
+    public void setPollViewCacheSize(final int pollViewCacheSize) {
+        this.pollViewCacheSize = pollViewCacheSize;
+    }
+
+    public long getPollViewCacheTtl() {
+        return pollViewCacheTtl;
+    }
+
+    public void setPollViewCacheTtl(final long pollViewCacheTtl) {
+        this.pollViewCacheTtl = pollViewCacheTtl;
+    }
+
+    public boolean isEagerDownloadProgress() {
+        return eagerDownloadProgress;
+    }
+
+    public void setEagerDownloadProgress(final boolean eagerDownloadProgress) {
+        this.eagerDownloadProgress = eagerDownloadProgress;
+    }
+
+    public long getDownloadProgressFlushTime() {
+        return downloadProgressFlushTime;
+    }
+
+    public void setDownloadProgressFlushTime(final long downloadProgressFlushTime) {
+        this.downloadProgressFlushTime = downloadProgressFlushTime;
+    }
+
+    public int getDownloadProgressGranularity() {
+        return downloadProgressGranularity;
+    }
+
+    public void setDownloadProgressGranularity(final int downloadProgressGranularity) {
+        this.downloadProgressGranularity = downloadProgressGranularity;
+    }
+
+    public boolean isEagerActionStatusPersistence() {
+        return eagerActionStatusPersistence;
+    }
+
+    public void setEagerActionStatusPersistence(final boolean eagerActionStatusPersistence) {
+        this.eagerActionStatusPersistence = eagerActionStatusPersistence;
+    }
+
+    public long getActionStatusFlushTime() {
+        return actionStatusFlushTime;
+    }
+
+    public void setActionStatusFlushTime(final long actionStatusFlushTime) {
+        this.actionStatusFlushTime = actionStatusFlushTime;
+    }
+
+    public int getActionStatusBatchSize() {
+        return actionStatusBatchSize;
+    }
+
+    public void setActionStatusBatchSize(final int actionStatusBatchSize) {
+        this.actionStatusBatchSize = actionStatusBatchSize;
+    }
+
+    public int getActionStatusQueueSize() {
+        return actionStatusQueueSize;
+    }
+
+    public void setActionStatusQueueSize(final int actionStatusQueueSize) {
+        this.actionStatusQueueSize = actionStatusQueueSize;
+    }
+
+    public int getTargetDeletionChunkSize() {
+        return targetDeletionChunkSize;
+    }
+
+    public void setTargetDeletionChunkSize(final int targetDeletionChunkSize) {
+        this.targetDeletionChunkSize = targetDeletionChunkSize;
+    }
+
+    public long getTargetDeletionPause() {
+        return targetDeletionPause;
+    }
+
+    public void setTargetDeletionPause(final long targetDeletionPause) {
+        this.targetDeletionPause = targetDeletionPause;
+    }
+
+    public int getActionStatusRetentionCount() {
+        return actionStatusRetentionCount;
+    }
+
+    public void setActionStatusRetentionCount(final int actionStatusRetentionCount) {
+        this.actionStatusRetentionCount = actionStatusRetentionCount;
+    }
+
+    public int getActionRetentionDays() {
+        return actionRetentionDays;
+    }
+
+    public void setActionRetentionDays(final int actionRetentionDays) {
+        this.actionRetentionDays = actionRetentionDays;
+    }
+
+    public long getActionRetentionTime() {
+        return actionRetentionTime;
+    }
+
+    public void setActionRetentionTime(final long actionRetentionTime) {
+        this.actionRetentionTime = actionRetentionTime;
+    }
+
+    public int getActionRetentionBatchSize() {
+        return actionRetentionBatchSize;
+    }
+
+    public void setActionRetentionBatchSize(final int actionRetentionBatchSize) {
+        this.actionRetentionBatchSize = actionRetentionBatchSize;
+    }
+
+    public String getActionHistoryExportDirectory() {
+        return actionHistoryExportDirectory;
+    }
+
+    public void setActionHistoryExportDirectory(final String actionHistoryExportDirectory) {
+        this.actionHistoryExportDirectory = actionHistoryExportDirectory;
+    }
+
 }
@@ -8,6 +8,9 @@
  */
 package org.eclipse.hawkbit.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import javax.validation.constraints.NotNull;
 
 import org.eclipse.hawkbit.im.authentication.SpPermission.SpringEvalExpressions;
@@ -20,6 +23,8 @@ import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
 import org.eclipse.hawkbit.repository.model.RolloutGroup;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupStatus;
 import org.eclipse.hawkbit.repository.model.RolloutGroupConditions;
+import org.eclipse.hawkbit.repository.model.RolloutPlan;
+import org.eclipse.hawkbit.repository.model.TotalTargetCountStatus;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -64,6 +69,40 @@ public interface RolloutManagement {
     @PreAuthorize(SpringEvalExpressions.HAS_AUTH_ROLLOUT_MANAGEMENT_WRITE)
     void checkRunningRollouts(long delayBetweenChecks);
 
+    /**
+     * Checks the given {@link RolloutGroup}s, e.g. after actions of these
+     * groups have been finished, canceled or failed. The error- and finish
+     * condition of the groups which are still
+     * {@link RolloutGroupStatus#RUNNING} in a running rollout are evaluated
+     * like by {@link #checkRunningRollouts(long)}, without investigating any
+     * other rollout.
+     *
+     * @param rolloutGroupIds
+     *            the IDs of the rollout groups to check
+     * @return the IDs of the groups which have not been checked because their
+     *         rollout has been checked at the same time, e.g. by another
+     *         instance, and which have to be checked again
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_ROLLOUT_MANAGEMENT_WRITE)
+    List<Long> checkRolloutGroups(@NotNull Collection<Long> rolloutGroupIds);
+
+    /**
+     * Recounts the actions per status of the rollout groups of all rollouts
+     * which are starting, running or paused. The counts of the
+     * {@link TotalTargetCountStatus} are maintained with every change of an
+     * action and adjusted by the bulk changes of actions, so this repairs
+     * counts which drifted, e.g. by changes which bypassed the maintenance or
+     * by bulk changes which raced with single changes of the same actions.
+     *
+     * The recount scans all actions of the rollout groups and is therefore
+     * only run rarely, see
+     * {@link RolloutProperties.Reconciliation#getFixedDelay()}.
+     *
+     * This method is attend to be called by a scheduler.
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_ROLLOUT_MANAGEMENT_WRITE)
+    void reconcileRolloutStatusCounts();
+
     /**
      * Counts all {@link Rollout}s in the repository.
      *
@@ -147,6 +186,31 @@ public interface RolloutManagement {
     @PreAuthorize(SpringEvalExpressions.HAS_AUTH_ROLLOUT_MANAGEMENT_WRITE)
     Rollout createRolloutAsync(@NotNull Rollout rollout, int amountGroup, @NotNull RolloutGroupConditions conditions);
 
+    /**
+     * Plans a rollout without creating it. The targets of the filter query are
+     * resolved once in the order of their IDs and split up into groups like by
+     * {@link #createRollout(Rollout, int, RolloutGroupConditions)}. The
+     * resolved targets are kept for a short time, so a rollout with the same
+     * filter query which is created right after the plan reuses them instead
+     * of resolving them again.
+     *
+     * @param targetFilterQuery
+     *            the filter query of the targets of the rollout
+     * @param amountGroup
+     *            the amount of groups to split the rollout into
+     * @return the planned groups with their sizes and sample targets and the
+     *         costs of the filter query
+     *
+     * @throws IllegalArgumentException
+     *             in case the given amountGroup is zero or lower.
+     * @throws RSQLParameterUnsupportedFieldException
+     *             if a field in the RSQL string is not a field of targets
+     * @throws RSQLParameterSyntaxException
+     *             if the RSQL syntax is wrong
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_ROLLOUT_MANAGEMENT_WRITE)
+    RolloutPlan planRollout(@NotEmpty String targetFilterQuery, int amountGroup);
+
     /**
      * Retrieves all rollouts.
      *
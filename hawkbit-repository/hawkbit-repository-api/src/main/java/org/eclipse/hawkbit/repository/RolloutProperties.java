@@ -19,7 +19,9 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties("hawkbit.rollout")
 public class RolloutProperties {
     /**
-     * Rollout scheduler configuration.
+     * Rollout scheduler configuration. The scheduler checks all running
+     * rollouts as a safety net for the changes of rollout groups which have
+     * not been checked by the {@link Evaluation}, e.g. after a restart.
      */
     public static class Scheduler {
         // used by @Scheduled annotation which needs constant
@@ -31,6 +33,71 @@ public class RolloutProperties {
          */
         private long fixedDelay = 30000L;
 
+        /**
+         * Maximum number of tenants whose rollouts are checked in parallel
+         * by one instance.
+         */
+        private int poolSize = 4;
+
+        public long getFixedDelay() {
+            return fixedDelay;
+        }
+
+        public void setFixedDelay(final long fixedDelay) {
+            this.fixedDelay = fixedDelay;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(final int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+    }
+
+    /**
+     * Configuration of the evaluation of rollout groups whose actions have
+     * been finished, canceled or failed.
+     */
+    public static class Evaluation {
+        // used by @Scheduled annotation which needs constant
+        public static final String PROP_EVALUATION_DELAY_PLACEHOLDER = "${hawkbit.rollout.evaluation.fixedDelay:1000}";
+
+        /**
+         * Schedule in milliseconds where the changed rollout groups are
+         * checked.
+         */
+        private long fixedDelay = 1000L;
+
+        public long getFixedDelay() {
+            return fixedDelay;
+        }
+
+        public void setFixedDelay(final long fixedDelay) {
+            this.fixedDelay = fixedDelay;
+        }
+
+    }
+
+    /**
+     * Configuration of the reconciliation of the action counts of rollouts
+     * and rollout groups. The counts are maintained with every change of an
+     * action, the reconciliation recounts the actions of the active rollouts
+     * to repair counts which drifted nevertheless, see
+     * {@link RolloutManagement#reconcileRolloutStatusCounts()}.
+     */
+    public static class Reconciliation {
+        // used by @Scheduled annotation which needs constant
+        public static final String PROP_RECONCILIATION_DELAY_PLACEHOLDER = "${hawkbit.rollout.reconciliation.fixedDelay:3600000}";
+
+        /**
+         * Schedule in milliseconds where the action counts of the active
+         * rollouts are recounted.
+         */
+        private long fixedDelay = 3600000L;
+
         public long getFixedDelay() {
             return fixedDelay;
         }
@@ -41,10 +108,128 @@ public class RolloutProperties {
 
     }
 
+    /**
+     * Configuration of the paced activation of the scheduled actions of a
+     * running rollout group, so the targets of a group do not start their
+     * downloads all at once.
+     */
+    public static class Pacing {
+        // used by @Scheduled annotation which needs constant
+        public static final String PROP_PACING_DELAY_PLACEHOLDER = "${hawkbit.rollout.pacing.fixedDelay:1000}";
+
+        /**
+         * Schedule in milliseconds where the next scheduled actions of the
+         * running rollout groups are activated.
+         */
+        private long fixedDelay = 1000L;
+
+        /**
+         * Maximum number of actions which are activated per second and
+         * tenant, <code>0</code> activates all actions of a group as soon as
+         * the group is started.
+         */
+        private int targetsPerSecond;
+
+        /**
+         * Maximum number of actions of a rollout which have been activated and
+         * are not finished, failed or canceled yet, <code>0</code> for no
+         * limit. Only applies if {@link #targetsPerSecond} is set. The status
+         * of an action does not tell whether its download is completed, so
+         * this limits the installations in progress, including those of
+         * targets which went offline after the activation.
+         */
+        private int maxActiveActions;
+
+        public long getFixedDelay() {
+            return fixedDelay;
+        }
+
+        public void setFixedDelay(final long fixedDelay) {
+            this.fixedDelay = fixedDelay;
+        }
+
+        public int getTargetsPerSecond() {
+            return targetsPerSecond;
+        }
+
+        public void setTargetsPerSecond(final int targetsPerSecond) {
+            this.targetsPerSecond = targetsPerSecond;
+        }
+
+        public int getMaxActiveActions() {
+            return maxActiveActions;
+        }
+
+        public void setMaxActiveActions(final int maxActiveActions) {
+            this.maxActiveActions = maxActiveActions;
+        }
+
+    }
+
+    /**
+     * Rollout creation configuration.
+     */
+    public static class Creation {
+
+        /**
+         * Time in milliseconds after the last checkpoint of the asynchronous
+         * creation or start of a rollout after which it is considered to be
+         * interrupted and is resumed by another instance.
+         */
+        private long timeout = 300000L;
+
+        /**
+         * Time in milliseconds the targets resolved by a rollout plan are
+         * kept for the creation of the planned rollout.
+         */
+        private long planTtl = 60000L;
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(final long timeout) {
+            this.timeout = timeout;
+        }
+
+        public long getPlanTtl() {
+            return planTtl;
+        }
+
+        public void setPlanTtl(final long planTtl) {
+            this.planTtl = planTtl;
+        }
+
+    }
+
     private final Scheduler scheduler = new Scheduler();
 
+    private final Evaluation evaluation = new Evaluation();
+
+    private final Reconciliation reconciliation = new Reconciliation();
+
+    private final Creation creation = new Creation();
+
+    private final Pacing pacing = new Pacing();
+
     public Scheduler getScheduler() {
         return scheduler;
     }
 
+    public Evaluation getEvaluation() {
+        return evaluation;
+    }
+
+    public Reconciliation getReconciliation() {
+        return reconciliation;
+    }
+
+    public Creation getCreation() {
+        return creation;
+    }
+
+    public Pacing getPacing() {
+        return pacing;
+    }
+
 }
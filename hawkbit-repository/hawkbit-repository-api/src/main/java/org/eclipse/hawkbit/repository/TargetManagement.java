@@ -21,6 +21,7 @@ import org.eclipse.hawkbit.repository.exception.RSQLParameterUnsupportedFieldExc
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.Tag;
 import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetDeletion;
 import org.eclipse.hawkbit.repository.model.TargetFilterQuery;
 import org.eclipse.hawkbit.repository.model.TargetIdName;
 import org.eclipse.hawkbit.repository.model.TargetInfo;
@@ -188,6 +189,32 @@ public interface TargetManagement {
     @PreAuthorize(SpringEvalExpressions.HAS_AUTH_DELETE_TARGET)
     void deleteTargets(@NotEmpty Long... targetIDs);
 
+    /**
+     * Deletes all targets with the given IDs asynchronously. The targets and
+     * their actions, action status entries, attributes and rollout group
+     * memberships are removed in chunks, every chunk in its own transaction,
+     * so the deletion of many targets does not lock the tables for long.
+     *
+     * @param targetIDs
+     *            the technical IDs of the targets to be deleted
+     * @return the progress of the deletion
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_DELETE_TARGET)
+    TargetDeletion deleteTargetsAsync(@NotEmpty Collection<Long> targetIDs);
+
+    /**
+     * Retrieves the progress of an asynchronous target deletion.
+     *
+     * @param deletionId
+     *            the ID of the deletion
+     * @return the progress of the deletion or <code>null</code> if the
+     *         deletion is unknown to this instance or has expired
+     *
+     * @see #deleteTargetsAsync(Collection)
+     */
+    @PreAuthorize(SpringEvalExpressions.HAS_AUTH_READ_TARGET)
+    TargetDeletion findTargetDeletion(@NotEmpty String deletionId);
+
     /**
      * finds all {@link Target#getControllerId()} which are currently in the
      * database.
@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository;
+
+/**
+ * Capacity of a channel which delivers the messages to the targets, e.g. the
+ * DMF API. Mass operations like the paced activation of rollout groups are
+ * slowed down as long as the channel has not delivered the messages of the
+ * previous operations.
+ *
+ */
+@FunctionalInterface
+public interface TargetMessageCapacity {
+
+    /**
+     * @return the number of further messages the channel accepts without
+     *         blocking the sender
+     */
+    int getRemainingCapacity();
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.eventbus.event;
+
+import org.eclipse.hawkbit.eventbus.event.DefaultEvent;
+
+/**
+ * Event which is published if the poll of a target has been written. The
+ * poll is written with bulk statements which do not trigger a
+ * {@link TargetInfoUpdateEvent}, so the event carries the written poll
+ * instead of the target info entity.
+ *
+ */
+public class TargetPollEvent extends DefaultEvent {
+
+    private final Long targetId;
+    private final long lastTargetQuery;
+    private final String address;
+
+    /**
+     * Constructor.
+     *
+     * @param tenant
+     *            the tenant for this event
+     * @param targetId
+     *            the ID of the target which polled
+     * @param lastTargetQuery
+     *            the written poll time
+     * @param address
+     *            the written address of the target or <code>null</code> if
+     *            it has not changed
+     */
+    public TargetPollEvent(final String tenant, final Long targetId, final long lastTargetQuery,
+            final String address) {
+        super(-1, tenant);
+        this.targetId = targetId;
+        this.lastTargetQuery = lastTargetQuery;
+        this.address = address;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public long getLastTargetQuery() {
+        return lastTargetQuery;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+}
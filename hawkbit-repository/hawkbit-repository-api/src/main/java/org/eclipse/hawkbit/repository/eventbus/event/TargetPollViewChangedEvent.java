@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.eventbus.event;
+
+import org.eclipse.hawkbit.eventbus.event.AbstractDistributedEvent;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
+
+/**
+ * Event which is published if the state of a target that is served to its
+ * controller changed and no other distributed event covers the change, so
+ * that all nodes drop their cached {@link TargetPollView} of the target.
+ *
+ */
+public class TargetPollViewChangedEvent extends AbstractDistributedEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long targetId;
+
+    /**
+     * Constructor.
+     *
+     * @param tenant
+     *            the tenant for this event
+     * @param targetId
+     *            the ID of the changed target
+     */
+    public TargetPollViewChangedEvent(final String tenant, final Long targetId) {
+        super(-1, tenant);
+        this.targetId = targetId;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+}
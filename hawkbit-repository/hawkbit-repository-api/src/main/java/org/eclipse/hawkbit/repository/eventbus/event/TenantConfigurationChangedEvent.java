@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.eventbus.event;
+
+import org.eclipse.hawkbit.eventbus.event.AbstractDistributedEvent;
+
+/**
+ * Event which is published after a tenant configuration value has been
+ * created, updated or deleted, so that all nodes can drop their cached
+ * configuration of the tenant.
+ *
+ */
+public class TenantConfigurationChangedEvent extends AbstractDistributedEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String keyName;
+
+    /**
+     * Constructor.
+     *
+     * @param tenant
+     *            the tenant for this event
+     * @param keyName
+     *            the name of the changed configuration key, {@code null} if
+     *            the whole configuration of the tenant has been changed
+     */
+    public TenantConfigurationChangedEvent(final String tenant, final String keyName) {
+        super(-1, tenant);
+        this.keyName = keyName;
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+}
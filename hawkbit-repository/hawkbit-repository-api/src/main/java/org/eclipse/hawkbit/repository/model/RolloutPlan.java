@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The plan of a {@link Rollout} which has not been created yet, i.e. the
+ * {@link RolloutGroup}s the targets of a target filter query would be split
+ * into, together with the costs of resolving the targets.
+ *
+ */
+public class RolloutPlan {
+    private final String targetFilterQuery;
+    private final long totalTargets;
+    private final List<GroupPlan> groups;
+    private final long queryDurationMillis;
+    private final int queryStatements;
+
+    public RolloutPlan(final String targetFilterQuery, final long totalTargets, final List<GroupPlan> groups,
+            final long queryDurationMillis, final int queryStatements) {
+        this.targetFilterQuery = targetFilterQuery;
+        this.totalTargets = totalTargets;
+        this.groups = Collections.unmodifiableList(groups);
+        this.queryDurationMillis = queryDurationMillis;
+        this.queryStatements = queryStatements;
+    }
+
+    public String getTargetFilterQuery() {
+        return targetFilterQuery;
+    }
+
+    public long getTotalTargets() {
+        return totalTargets;
+    }
+
+    public List<GroupPlan> getGroups() {
+        return groups;
+    }
+
+    /**
+     * @return the time in milliseconds the targets of the filter query have
+     *         been resolved in
+     */
+    public long getQueryDurationMillis() {
+        return queryDurationMillis;
+    }
+
+    /**
+     * @return the number of statements which have been executed to resolve
+     *         the targets of the filter query
+     */
+    public int getQueryStatements() {
+        return queryStatements;
+    }
+
+    @Override
+    public String toString() {
+        return "RolloutPlan [targetFilterQuery=" + targetFilterQuery + ", totalTargets=" + totalTargets
+                + ", groups=" + groups.size() + ", queryDurationMillis=" + queryDurationMillis
+                + ", queryStatements=" + queryStatements + "]";
+    }
+
+    /**
+     * A planned {@link RolloutGroup} with its size and the controller IDs of
+     * its first targets as sample.
+     *
+     */
+    public static class GroupPlan {
+        private final String name;
+        private final long totalTargets;
+        private final List<String> sampleTargets;
+
+        public GroupPlan(final String name, final long totalTargets, final List<String> sampleTargets) {
+            this.name = name;
+            this.totalTargets = totalTargets;
+            this.sampleTargets = Collections.unmodifiableList(sampleTargets);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getTotalTargets() {
+            return totalTargets;
+        }
+
+        public List<String> getSampleTargets() {
+            return sampleTargets;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.model;
+
+/**
+ * The progress of an asynchronous deletion of {@link Target}s, which are
+ * deleted in chunks.
+ *
+ */
+public class TargetDeletion {
+    private final String id;
+    private final Status status;
+    private final long totalTargets;
+    private final long deletedTargets;
+    private final long createdAt;
+    private final long lastModifiedAt;
+
+    public TargetDeletion(final String id, final Status status, final long totalTargets, final long deletedTargets,
+            final long createdAt, final long lastModifiedAt) {
+        this.id = id;
+        this.status = status;
+        this.totalTargets = totalTargets;
+        this.deletedTargets = deletedTargets;
+        this.createdAt = createdAt;
+        this.lastModifiedAt = lastModifiedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the number of target IDs the deletion has been requested for
+     */
+    public long getTotalTargets() {
+        return totalTargets;
+    }
+
+    /**
+     * @return the number of targets which have been deleted so far, IDs of
+     *         unknown targets are not counted
+     */
+    public long getDeletedTargets() {
+        return deletedTargets;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastModifiedAt() {
+        return lastModifiedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TargetDeletion [id=" + id + ", status=" + status + ", totalTargets=" + totalTargets
+                + ", deletedTargets=" + deletedTargets + "]";
+    }
+
+    /**
+     * The status of a target deletion.
+     *
+     */
+    public enum Status {
+        /**
+         * Deletion is in progress.
+         */
+        RUNNING,
+
+        /**
+         * All chunks have been processed.
+         */
+        FINISHED,
+
+        /**
+         * Deletion has been aborted because of an error, the chunks
+         * processed before remain deleted.
+         */
+        FAILED;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.model;
+
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+
+/**
+ * Immutable and compact view on a {@link Target} which holds all the
+ * information a controller poll needs, i.e. the state of the target and its
+ * oldest active {@link Action}, without loading the entities themselves.
+ *
+ */
+public final class TargetPollView {
+
+    private final Long targetId;
+    private final String controllerId;
+    private final TargetUpdateStatus updateStatus;
+    private final boolean requestControllerAttributes;
+    private final String address;
+    private final Long lastTargetQuery;
+
+    private final Long actionId;
+    private final Status actionStatus;
+    private final ActionType actionType;
+    private final long actionForcedTime;
+    private final int actionOptLockRevision;
+
+    /**
+     * Constructor.
+     *
+     * @param targetId
+     *            the ID of the target
+     * @param controllerId
+     *            the controller ID of the target
+     * @param updateStatus
+     *            the update status of the target
+     * @param requestControllerAttributes
+     *            {@code true} if the controller attributes have to be
+     *            requested from the controller
+     * @param address
+     *            the persisted address of the target, might be {@code null}
+     * @param lastTargetQuery
+     *            the persisted last poll time of the target, might be
+     *            {@code null}
+     * @param actionId
+     *            the ID of the oldest active action, {@code null} if the
+     *            target has no active action
+     * @param actionStatus
+     *            status of the oldest active action
+     * @param actionType
+     *            type of the oldest active action
+     * @param actionForcedTime
+     *            forced time of the oldest active action
+     * @param actionOptLockRevision
+     *            revision of the oldest active action
+     */
+    public TargetPollView(final Long targetId, final String controllerId, final TargetUpdateStatus updateStatus,
+            final boolean requestControllerAttributes, final String address, final Long lastTargetQuery,
+            final Long actionId, final Status actionStatus, final ActionType actionType, final long actionForcedTime,
+            final int actionOptLockRevision) {
+        this.targetId = targetId;
+        this.controllerId = controllerId;
+        this.updateStatus = updateStatus;
+        this.requestControllerAttributes = requestControllerAttributes;
+        this.address = address;
+        this.lastTargetQuery = lastTargetQuery;
+        this.actionId = actionId;
+        this.actionStatus = actionStatus;
+        this.actionType = actionType;
+        this.actionForcedTime = actionForcedTime;
+        this.actionOptLockRevision = actionOptLockRevision;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public String getControllerId() {
+        return controllerId;
+    }
+
+    public TargetUpdateStatus getUpdateStatus() {
+        return updateStatus;
+    }
+
+    public boolean isRequestControllerAttributes() {
+        return requestControllerAttributes;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public Long getLastTargetQuery() {
+        return lastTargetQuery;
+    }
+
+    /**
+     * @return {@code true} if the target has an active action
+     */
+    public boolean hasActiveAction() {
+        return actionId != null;
+    }
+
+    public Long getActionId() {
+        return actionId;
+    }
+
+    public Status getActionStatus() {
+        return actionStatus;
+    }
+
+    public ActionType getActionType() {
+        return actionType;
+    }
+
+    public long getActionForcedTime() {
+        return actionForcedTime;
+    }
+
+    public int getActionOptLockRevision() {
+        return actionOptLockRevision;
+    }
+
+    /**
+     * @return {@code true} if the active action is in
+     *         {@link Status#CANCELING} or {@link Status#CANCELED}
+     * @see Action#isCancelingOrCanceled()
+     */
+    public boolean isActionCancelingOrCanceled() {
+        return Status.CANCELING.equals(actionStatus) || Status.CANCELED.equals(actionStatus);
+    }
+
+    /**
+     * @param hitTimeMillis
+     *            the time to check
+     * @return {@code true} if the active action is
+     *         {@link ActionType#TIMEFORCED} and the given time is past the
+     *         forced time
+     * @see Action#isHitAutoForceTime(long)
+     */
+    public boolean isActionHitAutoForceTime(final long hitTimeMillis) {
+        if (ActionType.TIMEFORCED.equals(actionType)) {
+            return hitTimeMillis >= actionForcedTime;
+        }
+        return false;
+    }
+
+    /**
+     * @param newAddress
+     *            the address the target polled from
+     * @param pollTime
+     *            the time of the poll
+     * @return a copy of this view reflecting the given poll
+     */
+    public TargetPollView withPoll(final String newAddress, final long pollTime) {
+        return new TargetPollView(targetId, controllerId, updateStatus, requestControllerAttributes,
+                newAddress != null ? newAddress : address, pollTime, actionId, actionStatus, actionType,
+                actionForcedTime, actionOptLockRevision);
+    }
+
+    @Override
+    public String toString() {
+        return "TargetPollView [targetId=" + targetId + ", controllerId=" + controllerId + ", updateStatus="
+                + updateStatus + ", actionId=" + actionId + ", actionStatus=" + actionStatus + "]";
+    }
+}
@@ -0,0 +1,322 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.TenantConfigurationManagement;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.base.Strings;
+
+/**
+ * Purges the history of the {@link Action}s of a tenant according to its
+ * retention configuration:
+ * <ul>
+ * <li>{@link TenantConfigurationKey#ACTION_RETENTION_DAYS} deletes closed
+ * actions which have not been changed (or, if they were inserted without
+ * modification time, created) for the given number of days, together
+ * with their {@link ActionStatus} entries. Actions of rollouts which are not
+ * completed yet are kept, as the rollout evaluates them.</li>
+ * <li>{@link TenantConfigurationKey#ACTION_STATUS_RETENTION_COUNT} deletes all
+ * but the given number of latest status entries of every action and lowers
+ * the status count of the action by the deleted entries the controller
+ * reported, as the entries the server writes are not counted.</li>
+ * </ul>
+ * The history is purged in batches of
+ * {@link RepositoryProperties#getActionRetentionBatchSize()}, every batch in
+ * its own transaction. If
+ * {@link RepositoryProperties#getActionHistoryExportDirectory()} is set the
+ * purged rows are written to a compressed CSV file per tenant and run, before
+ * the batch is committed, so a failed batch may be exported but is never
+ * lost.
+ */
+@Service
+public class ActionHistoryRetention {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActionHistoryRetention.class);
+
+    private static final List<RolloutStatus> COMPLETED_ROLLOUT_STATUS = Arrays.asList(RolloutStatus.STOPPED,
+            RolloutStatus.FINISHED, RolloutStatus.ERROR_CREATING, RolloutStatus.ERROR_STARTING);
+
+    private static final String FIND_CLOSED_ACTIONS = "SELECT a.id FROM JpaAction a LEFT JOIN a.rollout r WHERE a.active = false AND COALESCE(a.lastModifiedAt, a.createdAt) < :before AND (r IS NULL OR r.status IN :rolloutStatus) ORDER BY a.id";
+
+    private static final String FIND_ACTIONS_WITH_STATUS_COUNT = "SELECT a.id FROM JpaAction a WHERE a.id > :lastId AND a.statusCount > :keep ORDER BY a.id";
+
+    private static final String FIND_STATUS_ENTRIES = "SELECT s.id, s.counted FROM JpaActionStatus s WHERE s.action.id = :actionId ORDER BY s.id DESC";
+
+    private static final String EXPORT_ACTIONS = "SELECT a.id, t.controller_id, a.distribution_set, a.status, a.created_at, a.last_modified_at"
+            + " FROM sp_action a INNER JOIN sp_target t ON t.id = a.target WHERE a.id IN (%s) ORDER BY a.id";
+
+    private static final String EXPORT_STATUS_ENTRIES_OF_ACTIONS = "SELECT s.id, s.action, s.status, s.target_occurred_at, m.detail_message FROM sp_action_status s"
+            + " LEFT JOIN sp_action_status_messages m ON m.action_status_id = s.id WHERE s.action IN (%s) ORDER BY s.id";
+
+    private static final String EXPORT_STATUS_ENTRIES = "SELECT s.id, s.action, s.status, s.target_occurred_at, m.detail_message FROM sp_action_status s"
+            + " LEFT JOIN sp_action_status_messages m ON m.action_status_id = s.id WHERE s.id IN (%s) ORDER BY s.id";
+
+    private static final String DELETE_MESSAGES_OF_ACTIONS = "DELETE FROM sp_action_status_messages WHERE action_status_id IN"
+            + " (SELECT s.id FROM sp_action_status s WHERE s.action IN (%s))";
+
+    private static final String DELETE_STATUS_ENTRIES_OF_ACTIONS = "DELETE FROM sp_action_status WHERE action IN (%s)";
+
+    private static final String DELETE_ACTIONS = "DELETE FROM sp_action WHERE id IN (%s)";
+
+    private static final String DELETE_MESSAGES = "DELETE FROM sp_action_status_messages WHERE action_status_id IN (%s)";
+
+    private static final String DELETE_STATUS_ENTRIES = "DELETE FROM sp_action_status WHERE id IN (%s)";
+
+    private static final String DECREMENT_STATUS_COUNT = "UPDATE sp_action SET status_count = GREATEST(status_count - ?1, 0) WHERE id = ?2";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TenantConfigurationManagement tenantConfigurationManagement;
+
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    /**
+     * Purges the action history of the current tenant according to its
+     * retention configuration.
+     */
+    public void purge() {
+        final int retentionDays = tenantConfigurationManagement
+                .getConfigurationValue(TenantConfigurationKey.ACTION_RETENTION_DAYS, Integer.class).getValue();
+        final int retentionCount = tenantConfigurationManagement
+                .getConfigurationValue(TenantConfigurationKey.ACTION_STATUS_RETENTION_COUNT, Integer.class)
+                .getValue();
+        if (retentionDays <= 0 && retentionCount <= 0) {
+            return;
+        }
+
+        try (final Export export = new Export(repositoryProperties.getActionHistoryExportDirectory(),
+                tenantAware.getCurrentTenant())) {
+            // closed actions first, their status entries are not trimmed
+            // before they are deleted anyway
+            final long actions = retentionDays > 0 ? purgeClosedActions(retentionDays, export) : 0;
+            final long statusEntries = retentionCount > 0 ? trimStatusEntries(retentionCount, export) : 0;
+            LOGGER.info("Purged {} closed actions and {} status entries of tenant {}", actions, statusEntries,
+                    tenantAware.getCurrentTenant());
+        } catch (final IOException e) {
+            LOGGER.error("Failed to close the action history export of tenant {}", tenantAware.getCurrentTenant(),
+                    e);
+        }
+    }
+
+    private long purgeClosedActions(final int retentionDays, final Export export) {
+        final long before = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays);
+        long purged = 0;
+        int batch;
+        do {
+            batch = runInNewTransaction(status -> purgeClosedActions(before, export));
+            purged += batch;
+        } while (batch > 0);
+        return purged;
+    }
+
+    private int purgeClosedActions(final long before, final Export export) {
+        final List<Long> actionIds = entityManager.createQuery(FIND_CLOSED_ACTIONS, Long.class)
+                .setParameter("before", before).setParameter("rolloutStatus", COMPLETED_ROLLOUT_STATUS)
+                .setMaxResults(repositoryProperties.getActionRetentionBatchSize()).getResultList();
+        if (actionIds.isEmpty()) {
+            return 0;
+        }
+
+        rolloutGroupStatusCounter.decrementByActionIds(actionIds);
+        export.write("action", createNativeQuery(EXPORT_ACTIONS, actionIds));
+        export.write("status", createNativeQuery(EXPORT_STATUS_ENTRIES_OF_ACTIONS, actionIds));
+        createNativeQuery(DELETE_MESSAGES_OF_ACTIONS, actionIds).executeUpdate();
+        createNativeQuery(DELETE_STATUS_ENTRIES_OF_ACTIONS, actionIds).executeUpdate();
+        createNativeQuery(DELETE_ACTIONS, actionIds).executeUpdate();
+        return actionIds.size();
+    }
+
+    private long trimStatusEntries(final int retentionCount, final Export export) {
+        long purged = 0;
+        long lastActionId = 0;
+        while (true) {
+            final long from = lastActionId;
+            final long[] batch = runInNewTransaction(status -> trimStatusEntries(retentionCount, from, export));
+            if (batch == null) {
+                return purged;
+            }
+            lastActionId = batch[0];
+            purged += batch[1];
+        }
+    }
+
+    /**
+     * @return the ID of the last completely trimmed action and the number of
+     *         deleted status entries or <code>null</code> if there are no
+     *         actions with too many status entries after the given one
+     */
+    private long[] trimStatusEntries(final int retentionCount, final long lastActionId, final Export export) {
+        final int batchSize = repositoryProperties.getActionRetentionBatchSize();
+        final List<Long> actionIds = entityManager.createQuery(FIND_ACTIONS_WITH_STATUS_COUNT, Long.class)
+                .setParameter("lastId", lastActionId).setParameter("keep", (long) retentionCount)
+                .setMaxResults(batchSize).getResultList();
+        if (actionIds.isEmpty()) {
+            return null;
+        }
+
+        long trimmedActionId = lastActionId;
+        int purged = 0;
+        for (final Long actionId : actionIds) {
+            final List<Object[]> statusEntries = entityManager.createQuery(FIND_STATUS_ENTRIES, Object[].class)
+                    .setParameter("actionId", actionId).setFirstResult(retentionCount)
+                    .setMaxResults(batchSize - purged).getResultList();
+            if (!statusEntries.isEmpty()) {
+                final List<Long> statusIds = statusEntries.stream().map(entry -> (Long) entry[0])
+                        .collect(Collectors.toList());
+                final long counted = statusEntries.stream().filter(entry -> Boolean.TRUE.equals(entry[1])).count();
+                export.write("status", createNativeQuery(EXPORT_STATUS_ENTRIES, statusIds));
+                createNativeQuery(DELETE_MESSAGES, statusIds).executeUpdate();
+                createNativeQuery(DELETE_STATUS_ENTRIES, statusIds).executeUpdate();
+                if (counted > 0) {
+                    entityManager.createNativeQuery(DECREMENT_STATUS_COUNT).setParameter(1, counted)
+                            .setParameter(2, actionId).executeUpdate();
+                }
+                purged += statusIds.size();
+            }
+            if (purged >= batchSize) {
+                // the action may have further entries, it is continued by
+                // the next batch
+                return new long[] { actionId - 1, purged };
+            }
+            trimmedActionId = actionId;
+        }
+        return new long[] { trimmedActionId, purged };
+    }
+
+    /**
+     * Creates a native query of the given SQL whose <code>%s</code> is
+     * replaced by the positional parameters of the given IDs.
+     */
+    private Query createNativeQuery(final String sql, final List<Long> ids) {
+        final String parameters = IntStream.rangeClosed(1, ids.size()).mapToObj(i -> "?" + i)
+                .collect(Collectors.joining(", "));
+        final Query query = entityManager.createNativeQuery(String.format(sql, parameters));
+        for (int i = 0; i < ids.size(); i++) {
+            query.setParameter(i + 1, ids.get(i));
+        }
+        return query;
+    }
+
+    private <T> T runInNewTransaction(final TransactionCallback<T> action) {
+        final DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName("purgeActionHistory");
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return new TransactionTemplate(txManager, def).execute(action);
+    }
+
+    /**
+     * Compressed CSV file of the purged rows of a tenant, which is created
+     * with the first written row. Every row starts with its type, i.e.
+     * <code>action</code> or <code>status</code>, followed by the columns of
+     * the row; a status entry has a row per message.
+     */
+    private static final class Export implements Closeable {
+        private final Path file;
+        private Writer writer;
+
+        private Export(final String directory, final String tenant) {
+            file = Strings.isNullOrEmpty(directory) ? null
+                    : Paths.get(directory, tenant.toLowerCase(),
+                            "action-history-" + System.currentTimeMillis() + ".csv.gz");
+        }
+
+        @SuppressWarnings("unchecked")
+        private void write(final String type, final Query query) {
+            if (file == null) {
+                return;
+            }
+            try {
+                if (writer == null) {
+                    Files.createDirectories(file.getParent());
+                    // sync flush, so the rows of a batch are on the disk
+                    // before the batch is committed
+                    writer = new BufferedWriter(new OutputStreamWriter(
+                            new GZIPOutputStream(Files.newOutputStream(file), true), StandardCharsets.UTF_8));
+                }
+                for (final Object row : (List<Object>) query.getResultList()) {
+                    writer.write(type);
+                    for (final Object column : (Object[]) row) {
+                        writer.write(';');
+                        writer.write(escape(column));
+                    }
+                    writer.write('\n');
+                }
+                writer.flush();
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to export the action history to " + file, e);
+            }
+        }
+
+        private static String escape(final Object column) {
+            if (column == null) {
+                return "";
+            }
+            final String value = column.toString();
+            if (value.indexOf(';') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -195,6 +195,35 @@ public interface ActionRepository extends BaseEntityRepository<JpaAction, Long>,
     @Query("UPDATE JpaAction a SET a.active = false WHERE a IN :keySet AND a.target IN :targetsIds")
     void setToInactive(@Param("keySet") List<JpaAction> keySet, @Param("targetsIds") List<Long> targetsIds);
 
+    /**
+     * Increments the number of status entries of the given action if the
+     * result does not exceed the given limit. This is an atomar operation.
+     *
+     * @param actionId
+     *            of the action
+     * @param count
+     *            of new status entries
+     * @param limit
+     *            maximum number of status entries of the action
+     * @return <code>1</code> if the counter has been incremented,
+     *         <code>0</code> if the limit would be exceeded
+     */
+    @Modifying
+    @Transactional(isolation = Isolation.READ_UNCOMMITTED)
+    @Query(value = "UPDATE sp_action SET status_count = status_count + ?2 WHERE id = ?1 AND status_count + ?2 <= ?3", nativeQuery = true)
+    int incrementStatusCount(Long actionId, long count, long limit);
+
+    /**
+     * Retrieves the current number of status entries of the given action.
+     *
+     * @param actionId
+     *            of the action
+     * @return the number of status entries or <code>null</code> if the action
+     *         does not exist
+     */
+    @Query("SELECT a.statusCount FROM JpaAction a WHERE a.id = ?1")
+    Long findStatusCountById(Long actionId);
+
     /**
      * Switches the status of actions from one specific status into another,
      * only if the actions are in a specific status. This should be a atomar
@@ -350,6 +379,20 @@ public interface ActionRepository extends BaseEntityRepository<JpaAction, Long>,
     List<Action> findByRolloutAndRolloutGroupParentAndStatus(JpaRollout rollout, JpaRolloutGroup rolloutGroupParent,
             Status actionStatus);
 
+    /**
+     * Retrieves a page of the actions of a rollout group in a specific
+     * status.
+     *
+     * @param pageable
+     *            the page request, e.g. sorted by ID
+     * @param rolloutGroup
+     *            the rolloutgroup the actions belong to
+     * @param actionStatus
+     *            the status the actions have
+     * @return the actions of the rolloutgroup in the status
+     */
+    List<Action> findByRolloutGroupAndStatus(Pageable pageable, JpaRolloutGroup rolloutGroup, Status actionStatus);
+
     /**
      * Retrieves all actions for a specific rollout and in a specific status.
      *
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.SystemManagement;
+import org.eclipse.hawkbit.repository.jpa.rollout.LeaseRegistry;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purges the action history of all tenants with the
+ * {@link ActionHistoryRetention} in the interval of
+ * {@link RepositoryProperties#getActionRetentionTime()}. A tenant is purged
+ * by only one instance of a cluster at a time.
+ */
+@Component
+// don't active the scheduler in test, otherwise it is hard to test the
+// retention and leads weird side-effects maybe.
+@Profile("!test")
+public class ActionRetentionScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActionRetentionScheduler.class);
+
+    private static final String RETENTION_LEASE = "action-retention:";
+
+    @Autowired
+    private SystemManagement systemManagement;
+
+    @Autowired
+    private SystemSecurityContext systemSecurityContext;
+
+    @Autowired
+    private ActionHistoryRetention actionHistoryRetention;
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private LeaseRegistry leaseRegistry;
+
+    /**
+     * Scheduler method called by the spring-async mechanism. Purges the
+     * action history of every tenant which is not leased by another instance
+     * in the {@link SystemSecurityContext}.
+     */
+    @Scheduled(initialDelayString = RepositoryProperties.PROP_ACTION_RETENTION_TIME_PLACEHOLDER, fixedDelayString = RepositoryProperties.PROP_ACTION_RETENTION_TIME_PLACEHOLDER)
+    public void purgeActionHistory() {
+        final long fixedDelay = repositoryProperties.getActionRetentionTime();
+        final List<String> tenants = new ArrayList<>(systemSecurityContext.runAsSystem(systemManagement::findTenants));
+        Collections.shuffle(tenants);
+        for (final String tenant : tenants) {
+            if (!leaseRegistry.tryAcquire(RETENTION_LEASE + tenant, fixedDelay)) {
+                continue;
+            }
+            try {
+                systemSecurityContext.runAsSystemAsTenant(() -> {
+                    actionHistoryRetention.purge();
+                    return null;
+                }, tenant);
+            } catch (final RuntimeException e) {
+                LOGGER.error("Failed to purge the action history of tenant {}", tenant, e);
+            }
+        }
+    }
+}
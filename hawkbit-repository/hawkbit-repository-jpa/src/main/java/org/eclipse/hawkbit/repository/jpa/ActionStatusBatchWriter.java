@@ -0,0 +1,529 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.jpa.model.JpaActionStatus;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.security.HawkbitSecurityProperties;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Queues informational {@link JpaActionStatus} entries (e.g.
+ * {@link Status#RUNNING}, {@link Status#WARNING}) in memory and writes them to
+ * the database in a fixed delay with JDBC batch inserts, one transaction per
+ * batch, instead of one transaction per feedback of a controller.
+ *
+ * Entries which change the state of an action are not queued. Before such an
+ * entry is written the queued entries of the same action have to be taken
+ * with {@link #drain(Long)} and written first, so the entries of an action
+ * stay in order. If entries of the action are being written by a flush at
+ * that time, {@link #drain(Long)} waits until they are committed.
+ *
+ * Within a transaction an entry is only queued after the commit, so entries
+ * of a rolled back transaction are never written. Entries which are taken
+ * with {@link #drain(Long)} within a transaction are queued again if it is
+ * rolled back.
+ *
+ * The entries of a batch which cannot be written are queued again and
+ * dropped after {@value #MAX_WRITE_ATTEMPTS} attempts.
+ *
+ * The status entries are inserted with one batch statement and the messages
+ * with another one, which needs a JDBC driver that returns the generated keys
+ * of a batch (e.g. the MySQL or MariaDB Connector/J, ideally with
+ * {@code rewriteBatchedStatements=true}). With other drivers the batches are
+ * written through JPA.
+ *
+ * If the configured {@link RepositoryProperties#getActionStatusQueueSize()}
+ * is reached the caller has to write the entry on its own.
+ */
+@Service
+public class ActionStatusBatchWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActionStatusBatchWriter.class);
+    private static final Logger LOG_DOS = LoggerFactory.getLogger("server-security.dos");
+
+    private static final String INSERT_STATUS = "INSERT INTO sp_action_status (created_at, created_by, last_modified_at, last_modified_by, optlock_revision, counted, tenant, target_occurred_at, status, action) VALUES (?, ?, ?, ?, 1, true, ?, ?, ?, ?)";
+
+    private static final String INSERT_MESSAGE = "INSERT INTO sp_action_status_messages (action_status_id, detail_message) VALUES (?, ?)";
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    /**
+     * Maximum time in seconds {@link #drain(Long)} waits for a flush which
+     * writes entries of the action.
+     */
+    private static final long DRAIN_TIMEOUT = 10;
+
+    /**
+     * Queued entries by action ID in the order of their arrival, guarded by
+     * itself together with {@link #writing}.
+     */
+    private final Map<Long, List<QueuedActionStatus>> queued = new HashMap<>();
+
+    /**
+     * Flushes which are writing entries, by action ID.
+     */
+    private final Map<Long, CountDownLatch> writing = new HashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Set to <code>false</code> with the first batch for which the JDBC driver
+     * does not return all generated keys.
+     */
+    private volatile boolean jdbcBatchSupported = true;
+
+    @Autowired
+    private ActionRepository actionRepository;
+
+    @Autowired
+    private ActionStatusRepository actionStatusRepository;
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private HawkbitSecurityProperties securityProperties;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private AuditorAware<String> auditorProvider;
+
+    @Autowired
+    private SystemSecurityContext systemSecurityContext;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Queues an informational status entry of the current tenant.
+     *
+     * @param actionStatus
+     *            to write
+     * @return <code>true</code> if the entry has been queued,
+     *         <code>false</code> if the queue is full and the caller has to
+     *         write the entry on its own
+     */
+    public boolean offer(final JpaActionStatus actionStatus) {
+        if (size.incrementAndGet() > repositoryProperties.getActionStatusQueueSize()) {
+            size.decrementAndGet();
+            LOG.debug("Action status queue limit of {} reached, status of action {} has to be written synchronously",
+                    repositoryProperties.getActionStatusQueueSize(), actionStatus.getAction().getId());
+            return false;
+        }
+
+        // queued entries are reported by the controller and counted with
+        // their write
+        actionStatus.setCounted(true);
+        final QueuedActionStatus entry = new QueuedActionStatus(tenantAware.getCurrentTenant(),
+                auditorProvider.getCurrentAuditor(), System.currentTimeMillis(), actionStatus);
+        final TransactionEntries transactionEntries = transactionEntries();
+        if (transactionEntries != null) {
+            transactionEntries.offered.computeIfAbsent(entry.getActionId(), actionId -> new ArrayList<>()).add(entry);
+            return true;
+        }
+        synchronized (queued) {
+            queued.computeIfAbsent(entry.getActionId(), actionId -> new ArrayList<>()).add(entry);
+        }
+        return true;
+    }
+
+    /**
+     * @return the entries of the current transaction, <code>null</code> if
+     *         there is no transaction synchronization
+     */
+    private TransactionEntries transactionEntries() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager
+                .getSynchronizations()) {
+            if (synchronization instanceof TransactionEntries && ((TransactionEntries) synchronization).owner == this) {
+                return (TransactionEntries) synchronization;
+            }
+        }
+        final TransactionEntries transactionEntries = new TransactionEntries(this);
+        TransactionSynchronizationManager.registerSynchronization(transactionEntries);
+        return transactionEntries;
+    }
+
+    /**
+     * @param actionId
+     *            of the action
+     * @return number of queued entries of the given action
+     */
+    public int size(final Long actionId) {
+        int size = 0;
+        final TransactionEntries transactionEntries = transactionEntries();
+        if (transactionEntries != null) {
+            size += transactionEntries.offered.getOrDefault(actionId, Collections.emptyList()).size();
+        }
+        synchronized (queued) {
+            final List<QueuedActionStatus> entries = queued.get(actionId);
+            return size + (entries != null ? entries.size() : 0);
+        }
+    }
+
+    /**
+     * Takes the queued entries of the given action out of the queue, e.g. to
+     * write them before an entry which changes the state of the action. Waits
+     * until a flush which is writing entries of the action has committed
+     * them. Within a transaction the entries offered by it are taken as well
+     * and the queued entries are queued again if it is rolled back.
+     *
+     * @param actionId
+     *            of the action
+     * @return the queued entries in order of their arrival
+     */
+    public List<JpaActionStatus> drain(final Long actionId) {
+        final CountDownLatch flush;
+        synchronized (queued) {
+            flush = writing.get(actionId);
+        }
+        if (flush != null) {
+            awaitFlush(actionId, flush);
+        }
+
+        final List<QueuedActionStatus> entries = new ArrayList<>();
+        synchronized (queued) {
+            final List<QueuedActionStatus> taken = queued.remove(actionId);
+            if (taken != null) {
+                entries.addAll(taken);
+            }
+        }
+        final TransactionEntries transactionEntries = transactionEntries();
+        if (transactionEntries != null) {
+            transactionEntries.drained.computeIfAbsent(actionId, id -> new ArrayList<>()).addAll(entries);
+            final List<QueuedActionStatus> offered = transactionEntries.offered.remove(actionId);
+            if (offered != null) {
+                entries.addAll(offered);
+            }
+        }
+        size.addAndGet(-entries.size());
+        return entries.stream().map(entry -> entry.actionStatus).collect(Collectors.toList());
+    }
+
+    /**
+     * Queues the entries offered by a committed transaction, or queues the
+     * entries drained by a rolled back transaction again ahead of the entries
+     * which have been queued in the meantime.
+     */
+    private void complete(final TransactionEntries transactionEntries, final boolean committed) {
+        synchronized (queued) {
+            if (committed) {
+                transactionEntries.offered.forEach((actionId, entries) -> queued
+                        .computeIfAbsent(actionId, id -> new ArrayList<>()).addAll(entries));
+                return;
+            }
+            transactionEntries.offered.values().forEach(entries -> size.addAndGet(-entries.size()));
+            transactionEntries.drained.forEach((actionId, entries) -> {
+                if (entries.isEmpty()) {
+                    return;
+                }
+                final List<QueuedActionStatus> newer = queued.get(actionId);
+                final List<QueuedActionStatus> requeued = new ArrayList<>(entries);
+                if (newer != null) {
+                    requeued.addAll(newer);
+                }
+                queued.put(actionId, requeued);
+                size.addAndGet(entries.size());
+            });
+        }
+    }
+
+    private static void awaitFlush(final Long actionId, final CountDownLatch flush) {
+        try {
+            if (!flush.await(DRAIN_TIMEOUT, TimeUnit.SECONDS)) {
+                LOG.warn("Status entries of action {} are still written after {} seconds, entries may be out of order",
+                        actionId, DRAIN_TIMEOUT);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes all queued entries to the database. Called by the
+     * spring-scheduling mechanism in the configured
+     * {@link RepositoryProperties#getActionStatusFlushTime()}.
+     */
+    @Scheduled(initialDelayString = RepositoryProperties.PROP_ACTION_STATUS_FLUSH_TIME_PLACEHOLDER, fixedDelayString = RepositoryProperties.PROP_ACTION_STATUS_FLUSH_TIME_PLACEHOLDER)
+    public void flush() {
+        final CountDownLatch flush = new CountDownLatch(1);
+        final Map<String, List<QueuedActionStatus>> entriesByTenant = new HashMap<>();
+        synchronized (queued) {
+            if (queued.isEmpty()) {
+                return;
+            }
+            final Iterator<Map.Entry<Long, List<QueuedActionStatus>>> iterator = queued.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Long, List<QueuedActionStatus>> entries = iterator.next();
+                iterator.remove();
+                writing.put(entries.getKey(), flush);
+                size.addAndGet(-entries.getValue().size());
+                entriesByTenant.computeIfAbsent(entries.getValue().get(0).tenant, tenant -> new ArrayList<>())
+                        .addAll(entries.getValue());
+            }
+        }
+
+        final List<QueuedActionStatus> failed = new ArrayList<>();
+        try {
+            entriesByTenant.forEach((tenant, entries) -> {
+                for (final List<QueuedActionStatus> batch : Lists.partition(entries,
+                        repositoryProperties.getActionStatusBatchSize())) {
+                    try {
+                        systemSecurityContext.runAsSystemAsTenant(() -> {
+                            write(tenant, batch);
+                            return null;
+                        }, tenant);
+                    } catch (final RuntimeException e) {
+                        LOG.error("Failed to write {} action status entries of tenant {}", batch.size(), tenant, e);
+                        failed.addAll(batch);
+                    }
+                }
+            });
+        } finally {
+            synchronized (queued) {
+                requeue(failed);
+                writing.values().removeIf(latch -> latch == flush);
+            }
+            flush.countDown();
+        }
+    }
+
+    /**
+     * Queues the entries of failed batches again ahead of the entries which
+     * have been queued in the meantime.
+     */
+    private void requeue(final List<QueuedActionStatus> failed) {
+        final Map<Long, List<QueuedActionStatus>> retries = new LinkedHashMap<>();
+        for (final QueuedActionStatus entry : failed) {
+            if (++entry.attempts < MAX_WRITE_ATTEMPTS) {
+                retries.computeIfAbsent(entry.getActionId(), actionId -> new ArrayList<>()).add(entry);
+            } else {
+                LOG.error("Status entry of action {} dropped after {} failed attempts to write it",
+                        entry.getActionId(), entry.attempts);
+            }
+        }
+        retries.forEach((actionId, entries) -> {
+            final List<QueuedActionStatus> newer = queued.get(actionId);
+            if (newer != null) {
+                entries.addAll(newer);
+            }
+            queued.put(actionId, entries);
+            size.addAndGet(entries.size() - (newer != null ? newer.size() : 0));
+        });
+    }
+
+    private void write(final String tenant, final List<QueuedActionStatus> batch) {
+        try {
+            newTransaction().execute(status -> persist(tenant, batch));
+        } catch (final BatchKeysNotSupportedException e) {
+            LOG.info("JDBC driver does not return the generated keys of batches, action status entries are written through JPA");
+            jdbcBatchSupported = false;
+            newTransaction().execute(status -> persist(tenant, batch));
+        }
+    }
+
+    private Void persist(final String tenant, final List<QueuedActionStatus> batch) {
+        final List<QueuedActionStatus> permitted = filterTooManyStatusEntries(batch);
+        LOG.debug("Writing {} action status entries", permitted.size());
+
+        if (permitted.isEmpty()) {
+            return null;
+        }
+
+        if (jdbcBatchSupported) {
+            insertBatch(tenant.toUpperCase(), permitted);
+        } else {
+            actionStatusRepository
+                    .save(permitted.stream().map(entry -> entry.actionStatus).collect(Collectors.toList()));
+        }
+        return null;
+    }
+
+    /**
+     * Increments the status counters of the actions in the batch with one
+     * update per action and drops the entries of actions which would exceed
+     * the configured
+     * {@link HawkbitSecurityProperties.Dos#getMaxStatusEntriesPerAction()}.
+     * The limit is already checked when an entry is queued, this only catches
+     * entries queued concurrently beyond it.
+     */
+    private List<QueuedActionStatus> filterTooManyStatusEntries(final List<QueuedActionStatus> batch) {
+        final int maxStatusEntries = securityProperties.getDos().getMaxStatusEntriesPerAction();
+        final long limit = maxStatusEntries > 0 ? maxStatusEntries : Long.MAX_VALUE;
+
+        final Map<Long, List<QueuedActionStatus>> entriesByAction = batch.stream().collect(
+                Collectors.groupingBy(QueuedActionStatus::getActionId, LinkedHashMap::new, Collectors.toList()));
+        final List<QueuedActionStatus> permitted = new ArrayList<>(batch.size());
+        entriesByAction.forEach((actionId, entries) -> {
+            if (actionRepository.incrementStatusCount(actionId, entries.size(), limit) > 0) {
+                permitted.addAll(entries);
+            } else {
+                LOG_DOS.error(
+                        "Potential denial of service (DOS) attack identfied. {} queued status entries of action {} dropped as more than permitted ({})!",
+                        entries.size(), actionId, maxStatusEntries);
+            }
+        });
+        return permitted;
+    }
+
+    /**
+     * @throws BatchKeysNotSupportedException
+     *             if the JDBC driver does not return the generated keys of
+     *             the batch
+     */
+    private void insertBatch(final String tenant, final List<QueuedActionStatus> batch) {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        final List<Long> ids = jdbcTemplate.execute((final Connection connection) -> {
+            try (final PreparedStatement statement = connection.prepareStatement(INSERT_STATUS,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (final QueuedActionStatus entry : batch) {
+                    statement.setLong(1, entry.createdAt);
+                    statement.setString(2, entry.createdBy);
+                    statement.setLong(3, entry.createdAt);
+                    statement.setString(4, entry.createdBy);
+                    statement.setString(5, tenant);
+                    statement.setObject(6, entry.actionStatus.getOccurredAt());
+                    statement.setInt(7, entry.actionStatus.getStatus().ordinal());
+                    statement.setLong(8, entry.getActionId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                final List<Long> generated = new ArrayList<>(batch.size());
+                try (final ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generated.add(keys.getLong(1));
+                    }
+                }
+                if (generated.size() != batch.size()) {
+                    // the messages cannot be assigned, roll back
+                    throw new BatchKeysNotSupportedException();
+                }
+                return generated;
+            }
+        });
+
+        final List<Object[]> messages = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final Long id = ids.get(i);
+            batch.get(i).actionStatus.getMessages().forEach(message -> messages.add(new Object[] { id, message }));
+        }
+        if (!messages.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MESSAGE, messages);
+        }
+    }
+
+    private TransactionTemplate newTransaction() {
+        final DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName("writeActionStatus");
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        def.setIsolationLevel(TransactionDefinition.ISOLATION_READ_UNCOMMITTED);
+        return new TransactionTemplate(txManager, def);
+    }
+
+    @PreDestroy
+    void destroy() {
+        flush();
+    }
+
+    /**
+     * @return number of queued entries which have not been written yet
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private static final class BatchKeysNotSupportedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * The entries offered and drained within a transaction.
+     */
+    private static final class TransactionEntries extends TransactionSynchronizationAdapter {
+        private final ActionStatusBatchWriter owner;
+        private final Map<Long, List<QueuedActionStatus>> offered = new LinkedHashMap<>();
+        private final Map<Long, List<QueuedActionStatus>> drained = new LinkedHashMap<>();
+
+        private TransactionEntries(final ActionStatusBatchWriter owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            owner.complete(this, status == STATUS_COMMITTED);
+        }
+    }
+
+    private static final class QueuedActionStatus {
+        private final String tenant;
+        private final String createdBy;
+        private final long createdAt;
+        private final JpaActionStatus actionStatus;
+        private int attempts;
+
+        private QueuedActionStatus(final String tenant, final String createdBy, final long createdAt,
+                final JpaActionStatus actionStatus) {
+            this.tenant = tenant;
+            this.createdBy = createdBy;
+            this.createdAt = createdAt;
+            this.actionStatus = actionStatus;
+        }
+
+        private Long getActionId() {
+            return actionStatus.getAction().getId();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.eventbus.event.DownloadProgressEvent;
+import org.eclipse.hawkbit.repository.jpa.cache.CacheWriteNotify;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Collects the download progress reports in memory and publishes coalesced
+ * snapshots per action status in a fixed delay through the
+ * {@link CacheWriteNotify}, instead of writing the cache and distributing a
+ * {@link DownloadProgressEvent} with every single report. A snapshot carries
+ * the bytes shipped since the last published snapshot and is only published
+ * if the download progressed by at least the configured
+ * {@link RepositoryProperties#getDownloadProgressGranularity()} or has been
+ * completed.
+ *
+ * A report and the snapshot or removal of the same download are serialized
+ * by the entry of the download in the map, so a report which arrives during
+ * a flush is either part of the snapshot or recorded for the next one.
+ */
+@Service
+public class DownloadProgressAggregator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadProgressAggregator.class);
+
+    /**
+     * Time in milliseconds after which the progress of a download without any
+     * report is dropped, e.g. if the download has been aborted.
+     */
+    private static final long IDLE_TIMEOUT = 60_000L;
+
+    private final Map<Long, DownloadProgress> progresses = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CacheWriteNotify cacheWriteNotify;
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private SystemSecurityContext systemSecurityContext;
+
+    /**
+     * Collects a download progress report of the current tenant.
+     *
+     * @param statusId
+     *            the ID of the action status of the download
+     * @param requestedBytes
+     *            requested bytes of the request
+     * @param shippedBytesSinceLast
+     *            since last report
+     * @param shippedBytesOverall
+     *            for the download request
+     */
+    public void offer(final Long statusId, final long requestedBytes, final long shippedBytesSinceLast,
+            final long shippedBytesOverall) {
+        progresses.compute(statusId, (id, known) -> {
+            final DownloadProgress progress = known != null ? known
+                    : new DownloadProgress(tenantAware.getCurrentTenant(), id, requestedBytes);
+            progress.shippedSinceLastSnapshot.addAndGet(shippedBytesSinceLast);
+            progress.shippedOverall.accumulateAndGet(shippedBytesOverall, Math::max);
+            progress.lastReport = System.currentTimeMillis();
+            return progress;
+        });
+    }
+
+    /**
+     * Publishes the snapshots of all downloads which progressed enough.
+     * Called by the spring-scheduling mechanism in the configured
+     * {@link RepositoryProperties#getDownloadProgressFlushTime()}.
+     */
+    @Scheduled(initialDelayString = RepositoryProperties.PROP_DOWNLOAD_PROGRESS_FLUSH_TIME_PLACEHOLDER, fixedDelayString = RepositoryProperties.PROP_DOWNLOAD_PROGRESS_FLUSH_TIME_PLACEHOLDER)
+    public void flush() {
+        if (progresses.isEmpty()) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final int granularity = repositoryProperties.getDownloadProgressGranularity();
+        final Map<String, List<Snapshot>> dueByTenant = new HashMap<>();
+        for (final Long statusId : progresses.keySet()) {
+            progresses.computeIfPresent(statusId, (id, progress) -> {
+                final boolean complete = progress.isComplete();
+                if (complete || progress.isSnapshotDue(granularity)) {
+                    dueByTenant.computeIfAbsent(progress.tenant, tenant -> new ArrayList<>())
+                            .add(progress.snapshot());
+                }
+                return complete || now - progress.lastReport > IDLE_TIMEOUT ? null : progress;
+            });
+        }
+
+        dueByTenant.forEach((tenant, due) -> {
+            try {
+                systemSecurityContext.runAsSystemAsTenant(() -> {
+                    due.forEach(this::publish);
+                    return null;
+                }, tenant);
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to publish the progress of {} downloads of tenant {}", due.size(), tenant, e);
+            }
+        });
+    }
+
+    private void publish(final Snapshot snapshot) {
+        cacheWriteNotify.downloadProgress(snapshot.statusId, snapshot.requestedBytes, snapshot.shippedSinceLast,
+                snapshot.shippedOverall);
+    }
+
+    @PreDestroy
+    void destroy() {
+        flush();
+    }
+
+    /**
+     * @return number of downloads whose progress is collected
+     */
+    public int size() {
+        return progresses.size();
+    }
+
+    private static final class DownloadProgress {
+        private final String tenant;
+        private final Long statusId;
+        private final long requestedBytes;
+        private final AtomicLong shippedSinceLastSnapshot = new AtomicLong();
+        private final AtomicLong shippedOverall = new AtomicLong();
+        private volatile long lastReport;
+        private volatile int publishedPercent;
+
+        private DownloadProgress(final String tenant, final Long statusId, final long requestedBytes) {
+            this.tenant = tenant;
+            this.statusId = statusId;
+            this.requestedBytes = requestedBytes;
+        }
+
+        private int percent(final long shipped) {
+            return requestedBytes > 0 ? (int) (shipped * 100 / requestedBytes) : 100;
+        }
+
+        private boolean isComplete() {
+            return shippedOverall.get() >= requestedBytes;
+        }
+
+        private boolean isSnapshotDue(final int granularity) {
+            return shippedSinceLastSnapshot.get() > 0
+                    && percent(shippedOverall.get()) - publishedPercent >= granularity;
+        }
+
+        /**
+         * Takes the bytes shipped since the last snapshot, called while the
+         * entry of the download is locked.
+         */
+        private Snapshot snapshot() {
+            final long shippedSinceLast = shippedSinceLastSnapshot.getAndSet(0);
+            final long shipped = shippedOverall.get();
+            publishedPercent = percent(shipped);
+            return new Snapshot(statusId, requestedBytes, shippedSinceLast, shipped);
+        }
+    }
+
+    private static final class Snapshot {
+        private final Long statusId;
+        private final long requestedBytes;
+        private final long shippedSinceLast;
+        private final long shippedOverall;
+
+        private Snapshot(final Long statusId, final long requestedBytes, final long shippedSinceLast,
+                final long shippedOverall) {
+            this.statusId = statusId;
+            this.requestedBytes = requestedBytes;
+            this.shippedSinceLast = shippedSinceLast;
+            this.shippedOverall = shippedOverall;
+        }
+    }
+}
@@ -46,6 +46,31 @@ public class EclipseLinkTargetInfoRepository implements TargetInfoRepository {
 
     }
 
+    @Override
+    @Modifying
+    @Transactional(isolation = Isolation.READ_UNCOMMITTED)
+    @CacheEvict(value = { "targetsLastPoll" }, allEntries = true)
+    public int setLastTargetQuery(final long lastTargetQuery, final Collection<Long> targets) {
+        final Query query = entityManager.createQuery(
+                "update JpaTargetInfo ti set ti.lastTargetQuery = :lastTargetQuery where ti.targetId in :targets and (ti.lastTargetQuery is null or ti.lastTargetQuery < :lastTargetQuery)");
+        query.setParameter("targets", targets);
+        query.setParameter("lastTargetQuery", lastTargetQuery);
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Modifying
+    @Transactional(isolation = Isolation.READ_UNCOMMITTED)
+    @CacheEvict(value = { "targetsLastPoll" }, allEntries = true)
+    public int setLastTargetQueryAndAddress(final long lastTargetQuery, final String address, final Long target) {
+        final Query query = entityManager.createQuery(
+                "update JpaTargetInfo ti set ti.lastTargetQuery = :lastTargetQuery, ti.address = :address where ti.targetId = :target and (ti.lastTargetQuery is null or ti.lastTargetQuery < :lastTargetQuery)");
+        query.setParameter("target", target);
+        query.setParameter("address", address);
+        query.setParameter("lastTargetQuery", lastTargetQuery);
+        return query.executeUpdate();
+    }
+
     @Override
     @Modifying
     @Transactional(isolation = Isolation.READ_UNCOMMITTED)
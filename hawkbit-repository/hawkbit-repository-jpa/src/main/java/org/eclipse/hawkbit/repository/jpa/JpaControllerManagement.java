@@ -26,7 +26,6 @@ import org.eclipse.hawkbit.repository.EntityFactory;
 import org.eclipse.hawkbit.repository.RepositoryConstants;
 import org.eclipse.hawkbit.repository.RepositoryProperties;
 import org.eclipse.hawkbit.repository.TargetManagement;
-import org.eclipse.hawkbit.repository.TenantConfigurationManagement;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
 import org.eclipse.hawkbit.repository.exception.ToManyAttributeEntriesException;
 import org.eclipse.hawkbit.repository.exception.TooManyStatusEntriesException;
@@ -42,6 +41,7 @@ import org.eclipse.hawkbit.repository.jpa.model.JpaTargetInfo;
 import org.eclipse.hawkbit.repository.jpa.model.JpaTarget_;
 import org.eclipse.hawkbit.repository.jpa.specifications.ActionSpecifications;
 import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.ActionType;
 import org.eclipse.hawkbit.repository.model.Action.Status;
 import org.eclipse.hawkbit.repository.model.ActionStatus;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
@@ -50,10 +50,10 @@ import org.eclipse.hawkbit.repository.model.LocalArtifact;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
-import org.eclipse.hawkbit.repository.model.TenantConfiguration;
 import org.eclipse.hawkbit.security.HawkbitSecurityProperties;
-import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,8 +62,13 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -76,6 +81,12 @@ public class JpaControllerManagement implements ControllerManagement {
 	private static final Logger LOG = LoggerFactory.getLogger(ControllerManagement.class);
 	private static final Logger LOG_DOS = LoggerFactory.getLogger("server-security.dos");
 
+	private static final String TARGET_POLL_VIEW_QUERY = "SELECT t.id, t.controllerId, ti.updateStatus, "
+			+ "ti.requestControllerAttributes, ti.address, ti.lastTargetQuery, a.id, a.status, a.actionType, "
+			+ "a.forcedTime, a.optLockRevision FROM JpaTarget t JOIN t.targetInfo ti "
+			+ "LEFT JOIN t.actions a ON a.active = true WHERE t.controllerId = :controllerId "
+			+ "AND (a.id IS NULL OR a.id = (SELECT MIN(a2.id) FROM JpaAction a2 WHERE a2.target = t AND a2.active = true))";
+
 	@Autowired
 	private EntityManager entityManager;
 
@@ -104,27 +115,33 @@ public class JpaControllerManagement implements ControllerManagement {
 	private RepositoryProperties repositoryProperties;
 
 	@Autowired
-	private TenantConfigurationRepository tenantConfigurationRepository;
+	private CacheWriteNotify cacheWriteNotify;
 
 	@Autowired
-	private TenantConfigurationManagement tenantConfigurationManagement;
+	private TargetPollAggregator targetPollAggregator;
 
 	@Autowired
-	private CacheWriteNotify cacheWriteNotify;
+	private TenantConfigurationSnapshotCache tenantConfigurationSnapshotCache;
+
+	@Autowired
+	private TargetPollViewCache targetPollViewCache;
+
+	@Autowired
+	private DownloadProgressAggregator downloadProgressAggregator;
+
+	@Autowired
+	private ActionStatusBatchWriter actionStatusBatchWriter;
+
+	@Autowired
+	private PlatformTransactionManager txManager;
 
 	@Autowired
-	private SystemSecurityContext systemSecurityContext;
+	private TenantAware tenantAware;
 
 	@Override
 	public String getPollingTime() {
-		final TenantConfigurationKey configurationKey = TenantConfigurationKey.POLLING_TIME_INTERVAL;
-		final Class<String> propertyType = String.class;
-		JpaTenantConfigurationManagement.validateTenantConfigurationDataType(configurationKey, propertyType);
-		final TenantConfiguration tenantConfiguration = tenantConfigurationRepository
-				.findByKey(configurationKey.getKeyName());
-
-		return systemSecurityContext.runAsSystem(() -> tenantConfigurationManagement
-				.buildTenantConfigurationValueByKey(configurationKey, propertyType, tenantConfiguration).getValue());
+		return tenantConfigurationSnapshotCache.getConfigurationValue(TenantConfigurationKey.POLLING_TIME_INTERVAL,
+				String.class);
 	}
 
 	@Override
@@ -139,6 +156,102 @@ public class JpaControllerManagement implements ControllerManagement {
 		return updateLastTargetQuery(target.getTargetInfo(), address).getTarget();
 	}
 
+	@Override
+	@Modifying
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public TargetPollView findOrRegisterTargetPollView(final String controllerId, final URI address) {
+		final TargetPollView cached = targetPollViewCache.get(controllerId);
+		if (cached != null) {
+			final TargetPollView polled = recordPoll(cached, address);
+			targetPollViewCache.update(cached, polled);
+			return polled;
+		}
+
+		final long evictionCountBeforeLoad = targetPollViewCache.getEvictionCount();
+		final TargetPollView view = newPollTransaction()
+				.execute(status -> loadOrRegisterTargetPollView(controllerId, address));
+		targetPollViewCache.put(view, evictionCountBeforeLoad);
+		return view;
+	}
+
+	private TargetPollView loadOrRegisterTargetPollView(final String controllerId, final URI address) {
+		final TargetPollView view = findTargetPollView(controllerId);
+
+		if (view == null) {
+			findOrRegisterTargetIfItDoesNotexist(controllerId, address);
+			return findTargetPollView(controllerId);
+		}
+
+		if (TargetUpdateStatus.UNKNOWN.equals(view.getUpdateStatus())) {
+			updateTargetStatus(targetRepository.findOne(view.getTargetId()).getTargetInfo(),
+					TargetUpdateStatus.REGISTERED, System.currentTimeMillis(), address);
+			return findTargetPollView(controllerId);
+		}
+
+		return recordPoll(view, address);
+	}
+
+	/**
+	 * Records the poll of the target either in the {@link TargetPollAggregator}
+	 * or, if not possible, directly in the database.
+	 *
+	 * @return the view reflecting the recorded poll
+	 */
+	private TargetPollView recordPoll(final TargetPollView view, final URI address) {
+		final long pollTime = System.currentTimeMillis();
+		final boolean eager = repositoryProperties.isEagerPollPersistence();
+		if (eager || !targetPollAggregator.offer(view.getTargetId(), view.getAddress(), view.getLastTargetQuery(),
+				address, pollTime)) {
+			final String changedAddress = address != null && !address.toString().equals(view.getAddress())
+					? address.toString() : null;
+			newPollTransaction().execute(status -> {
+				if (changedAddress != null) {
+					targetInfoRepository.setLastTargetQueryAndAddress(pollTime, changedAddress, view.getTargetId());
+				} else {
+					targetInfoRepository.setLastTargetQuery(pollTime, Collections.singletonList(view.getTargetId()));
+				}
+				return null;
+			});
+			// the bulk statements do not trigger the entity events
+			targetPollAggregator.publishPollEvent(tenantAware.getCurrentTenant(), view.getTargetId(), pollTime,
+					changedAddress);
+		}
+
+		// the aggregator skips polls as long as the persisted one is recent
+		// enough, so the view keeps the persisted poll time in that case
+		final long recordedPollTime = eager
+				|| !targetPollAggregator.isPersistedPollRecentEnough(view.getLastTargetQuery(), pollTime) ? pollTime
+						: view.getLastTargetQuery();
+		return view.withPoll(address != null ? address.toString() : null, recordedPollTime);
+	}
+
+	private TransactionTemplate newPollTransaction() {
+		final DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+		def.setName("targetPoll");
+		def.setIsolationLevel(TransactionDefinition.ISOLATION_READ_UNCOMMITTED);
+		return new TransactionTemplate(txManager, def);
+	}
+
+	/**
+	 * Loads the target and its oldest active action with one query. The
+	 * action is joined with an outer join so that targets without an active
+	 * action are found as well.
+	 */
+	private TargetPollView findTargetPollView(final String controllerId) {
+		final List<Object[]> result = entityManager.createQuery(TARGET_POLL_VIEW_QUERY, Object[].class)
+				.setParameter("controllerId", controllerId).setMaxResults(1).getResultList();
+
+		if (result.isEmpty()) {
+			return null;
+		}
+
+		final Object[] row = result.get(0);
+		final Long actionId = (Long) row[6];
+		return new TargetPollView((Long) row[0], (String) row[1], (TargetUpdateStatus) row[2], (Boolean) row[3],
+				(String) row[4], (Long) row[5], actionId, (Status) row[7], (ActionType) row[8],
+				actionId != null ? (Long) row[9] : 0L, actionId != null ? (Integer) row[10] : 0);
+	}
+
 	@Override
 	public Action getActionForDownloadByTargetAndSoftwareModule(final String controllerId,
 			final SoftwareModule module) {
@@ -238,6 +351,7 @@ public class JpaControllerManagement implements ControllerManagement {
 	public Action addCancelActionStatus(final ActionStatus actionStatus) {
 		final JpaAction action = (JpaAction) actionStatus.getAction();
 
+		writeQueuedActionStatus(action);
 		checkForToManyStatusEntries(action);
 		action.setStatus(actionStatus.getStatus());
 
@@ -257,7 +371,7 @@ public class JpaControllerManagement implements ControllerManagement {
 			// do nothing
 		}
 		actionRepository.save(action);
-		actionStatusRepository.save((JpaActionStatus) actionStatus);
+		saveCountedActionStatus((JpaActionStatus) actionStatus);
 
 		return action;
 	}
@@ -287,9 +401,77 @@ public class JpaControllerManagement implements ControllerManagement {
 					actionStatus.getId(), action.getId());
 			return action;
 		}
+
+		// informational status entries do not change the action and are
+		// written in batches
+		if (!repositoryProperties.isEagerActionStatusPersistence() && isInformational(actionStatus.getStatus())) {
+			checkForToManyQueuedStatusEntries(action);
+			if (actionStatusBatchWriter.offer((JpaActionStatus) actionStatus)) {
+				return action;
+			}
+		}
 		return handleAddUpdateActionStatus((JpaActionStatus) actionStatus, action);
 	}
 
+	@Override
+	public boolean isStatusEntryLimitReached(final Long actionId) {
+		final int maxStatusEntries = securityProperties.getDos().getMaxStatusEntriesPerAction();
+		if (maxStatusEntries <= 0) {
+			return false;
+		}
+		// queried, as the counter is incremented in the database
+		final Long statusCount = actionRepository.findStatusCountById(actionId);
+		return statusCount != null && statusCount + actionStatusBatchWriter.size(actionId) >= maxStatusEntries;
+	}
+
+	/**
+	 * Rejects a further queued status entry if the written and the queued
+	 * entries of the action reach the permitted number, like
+	 * {@link #checkForToManyStatusEntries(JpaAction)} does for entries which
+	 * are written immediately. The written entries are counted in the
+	 * database as the loaded action misses the entries which have been
+	 * flushed since it has been read.
+	 */
+	private void checkForToManyQueuedStatusEntries(final JpaAction action) {
+		if (isStatusEntryLimitReached(action.getId())) {
+			final int maxStatusEntries = securityProperties.getDos().getMaxStatusEntriesPerAction();
+			LOG_DOS.error(
+					"Potential denial of service (DOS) attack identfied. More status entries in the system than permitted ({})!",
+					maxStatusEntries);
+			throw new TooManyStatusEntriesException(String.valueOf(maxStatusEntries));
+		}
+	}
+
+	private static boolean isInformational(final Status status) {
+		switch (status) {
+		case RUNNING:
+		case DOWNLOAD:
+		case WARNING:
+		case RETRIEVED:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the queued informational status entries of the given action
+	 * before a further entry is written, so the entries stay in order.
+	 */
+	private void writeQueuedActionStatus(final JpaAction action) {
+		final List<JpaActionStatus> queued = actionStatusBatchWriter.drain(action.getId());
+		if (queued.isEmpty()) {
+			return;
+		}
+		if (incrementStatusCount(action, queued.size(), securityProperties.getDos().getMaxStatusEntriesPerAction())) {
+			actionStatusRepository.save(queued);
+		} else {
+			LOG_DOS.error(
+					"Potential denial of service (DOS) attack identfied. {} queued status entries of action {} dropped as more than permitted ({})!",
+					queued.size(), action.getId(), securityProperties.getDos().getMaxStatusEntriesPerAction());
+		}
+	}
+
 	private boolean actionIsNotActiveButIntermediateFeedbackStillAllowed(final ActionStatus actionStatus,
 			final JpaAction action) {
 		return !action.isActive() && (repositoryProperties.isRejectActionStatusForClosedAction()
@@ -308,6 +490,7 @@ public class JpaControllerManagement implements ControllerManagement {
 
 		final JpaAction mergedAction = entityManager.merge(action);
 		JpaTarget mergedTarget = (JpaTarget) mergedAction.getTarget();
+		writeQueuedActionStatus(action);
 		// check for a potential DOS attack
 		checkForToManyStatusEntries(action);
 
@@ -327,7 +510,7 @@ public class JpaControllerManagement implements ControllerManagement {
 			break;
 		}
 
-		actionStatusRepository.save(actionStatus);
+		saveCountedActionStatus(actionStatus);
 
 		LOG.debug("addUpdateActionStatus {} for target {} is finished.", action.getId(), mergedTarget.getId());
 
@@ -342,18 +525,40 @@ public class JpaControllerManagement implements ControllerManagement {
 	}
 
 	private void checkForToManyStatusEntries(final JpaAction action) {
-		if (securityProperties.getDos().getMaxStatusEntriesPerAction() > 0) {
+		if (!incrementStatusCount(action, 1, securityProperties.getDos().getMaxStatusEntriesPerAction())) {
+			LOG_DOS.error(
+					"Potential denial of service (DOS) attack identfied. More status entries in the system than permitted ({})!",
+					securityProperties.getDos().getMaxStatusEntriesPerAction());
+			throw new TooManyStatusEntriesException(
+					String.valueOf(securityProperties.getDos().getMaxStatusEntriesPerAction()));
+		}
+	}
 
-			final Long statusCount = actionStatusRepository.countByAction(action);
+	/**
+	 * Increments the status counter of the given action, which replaces a
+	 * count of the status entries with every status update.
+	 *
+	 * @param action
+	 *            to increment the counter for
+	 * @param count
+	 *            of new status entries
+	 * @param maxStatusEntries
+	 *            limit of the counter or <code>0</code> for no limit
+	 * @return <code>false</code> if the limit would be exceeded and the counter
+	 *         has not been incremented
+	 */
+	private boolean incrementStatusCount(final JpaAction action, final int count, final int maxStatusEntries) {
+		return actionRepository.incrementStatusCount(action.getId(), count,
+				maxStatusEntries > 0 ? maxStatusEntries : Long.MAX_VALUE) > 0;
+	}
 
-			if (statusCount >= securityProperties.getDos().getMaxStatusEntriesPerAction()) {
-				LOG_DOS.error(
-						"Potential denial of service (DOS) attack identfied. More status entries in the system than permitted ({})!",
-						securityProperties.getDos().getMaxStatusEntriesPerAction());
-				throw new TooManyStatusEntriesException(
-						String.valueOf(securityProperties.getDos().getMaxStatusEntriesPerAction()));
-			}
-		}
+	/**
+	 * Saves a status entry reported by the controller, which is counted in
+	 * {@link JpaAction#getStatusCount()}.
+	 */
+	private JpaActionStatus saveCountedActionStatus(final JpaActionStatus actionStatus) {
+		actionStatus.setCounted(true);
+		return actionStatusRepository.save(actionStatus);
 	}
 
 	private void handleFinishedAndStoreInTargetStatus(final JpaTarget target, final JpaAction action) {
@@ -446,8 +651,9 @@ public class JpaControllerManagement implements ControllerManagement {
 		// case controller retrieves a action multiple times.
 		if (resultList.isEmpty() || !Status.RETRIEVED.equals(resultList.get(0)[1])) {
 			// document that the status has been retrieved
-			actionStatusRepository
-					.save(new JpaActionStatus(action, Status.RETRIEVED, System.currentTimeMillis(), message));
+			saveCountedActionStatus(
+					new JpaActionStatus(action, Status.RETRIEVED, System.currentTimeMillis(), message));
+			incrementStatusCount(action, 1, 0);
 
 			// don't change the action status itself in case the action is in
 			// canceling state otherwise
@@ -466,20 +672,30 @@ public class JpaControllerManagement implements ControllerManagement {
 	@Modifying
 	@Transactional(isolation = Isolation.READ_UNCOMMITTED)
 	public ActionStatus addInformationalActionStatus(final ActionStatus statusMessage) {
-		return actionStatusRepository.save((JpaActionStatus) statusMessage);
+		writeQueuedActionStatus((JpaAction) statusMessage.getAction());
+		incrementStatusCount((JpaAction) statusMessage.getAction(), 1, 0);
+		return saveCountedActionStatus((JpaActionStatus) statusMessage);
 	}
 
 	@Override
 	@Modifying
 	@Transactional(isolation = Isolation.READ_UNCOMMITTED)
 	public TargetInfo updateLastTargetQuery(final TargetInfo target, final URI address) {
-		return updateTargetStatus(target, null, System.currentTimeMillis(), address);
+		final long pollTime = System.currentTimeMillis();
+		if (!repositoryProperties.isEagerPollPersistence() && targetPollAggregator.offer(target, address, pollTime)) {
+			return target;
+		}
+		return updateTargetStatus(target, null, pollTime, address);
 	}
 
 	@Override
 	public void downloadProgress(final Long statusId, final Long requestedBytes, final Long shippedBytesSinceLast,
 			final Long shippedBytesOverall) {
-		cacheWriteNotify.downloadProgress(statusId, requestedBytes, shippedBytesSinceLast, shippedBytesOverall);
+		if (repositoryProperties.isEagerDownloadProgress()) {
+			cacheWriteNotify.downloadProgress(statusId, requestedBytes, shippedBytesSinceLast, shippedBytesOverall);
+		} else {
+			downloadProgressAggregator.offer(statusId, requestedBytes, shippedBytesSinceLast, shippedBytesOverall);
+		}
 	}
 
 	@Override
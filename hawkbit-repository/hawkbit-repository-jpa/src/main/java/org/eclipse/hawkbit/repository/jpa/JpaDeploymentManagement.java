@@ -26,6 +26,7 @@ import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.ListJoin;
 import javax.persistence.criteria.Root;
+import javax.sql.DataSource;
 import javax.validation.constraints.NotNull;
 
 import org.eclipse.hawkbit.eventbus.event.CancelTargetAssignmentEvent;
@@ -71,6 +72,7 @@ import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
 import org.eclipse.hawkbit.repository.model.TargetWithActionType;
 import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,6 +85,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
@@ -99,6 +102,10 @@ import com.google.common.eventbus.EventBus;
 public class JpaDeploymentManagement implements DeploymentManagement {
     private static final Logger LOG = LoggerFactory.getLogger(JpaDeploymentManagement.class);
 
+    private static final String INSERT_SCHEDULED_ACTION = "INSERT INTO sp_action (created_at, created_by, last_modified_at, last_modified_by, optlock_revision, tenant, action_type, forced_time, status, active, distribution_set, target, rollout, rolloutgroup) VALUES (?, ?, ?, ?, 1, ?, ?, ?, ?, false, ?, ?, ?, ?)";
+
+    private static final String INSERT_ACTION_STATUS = "INSERT INTO sp_action_status (created_at, created_by, last_modified_at, last_modified_by, optlock_revision, tenant, target_occurred_at, status, action) VALUES (?, ?, ?, ?, 1, ?, ?, ?, ?)";
+
     @Autowired
     private EntityManager entityManager;
 
@@ -135,6 +142,15 @@ public class JpaDeploymentManagement implements DeploymentManagement {
     @Autowired
     private SystemSecurityContext systemSecurityContext;
 
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
     @Modifying
@@ -266,15 +282,10 @@ public class JpaDeploymentManagement implements DeploymentManagement {
         // cancel all scheduled actions which are in-active, these actions were
         // not active before and the manual assignment which has been done
         // cancels the
-        targetIds.forEach(tIds -> actionRepository.switchStatus(Status.CANCELED, tIds, false, Status.SCHEDULED));
+        targetIds.forEach(this::cancelScheduledActions);
 
         // set assigned distribution set and TargetUpdateStatus
-        final String currentUser;
-        if (auditorProvider != null) {
-            currentUser = auditorProvider.getCurrentAuditor();
-        } else {
-            currentUser = null;
-        }
+        final String currentUser = getCurrentAuditor();
 
         targetIds.forEach(tIds -> targetRepository.setAssignedDistributionSet(set, System.currentTimeMillis(),
                 currentUser, tIds));
@@ -284,20 +295,15 @@ public class JpaDeploymentManagement implements DeploymentManagement {
                         .collect(Collectors.toList()))
                 .stream().collect(Collectors.toMap(a -> a.getTarget().getControllerId(), Function.identity()));
 
+        // flush to get action IDs
+        entityManager.flush();
+
         // create initial action status when action is created so we remember
         // the initial running status because we will change the status
         // of the action itself and with this action status we have a nicer
         // action history.
-        targetIdsToActions.values().forEach(action -> {
-            final JpaActionStatus actionStatus = new JpaActionStatus();
-            actionStatus.setAction(action);
-            actionStatus.setOccurredAt(action.getCreatedAt());
-            actionStatus.setStatus(Status.RUNNING);
-            actionStatusRepository.save(actionStatus);
-        });
+        insertInitialActionStatus(targetIdsToActions.values(), currentUser);
 
-        // flush to get action IDs
-        entityManager.flush();
         // collect updated target and actions IDs in order to return them
         final DistributionSetAssignmentResult result = new DistributionSetAssignmentResult(
                 targets.stream().map(target -> target.getControllerId()).collect(Collectors.toList()), targets.size(),
@@ -487,27 +493,60 @@ public class JpaDeploymentManagement implements DeploymentManagement {
     @Override
     @Modifying
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public void createScheduledAction(final Collection<Target> targets, final DistributionSet distributionSet,
+    public void createScheduledAction(final Collection<Long> targetIds, final DistributionSet distributionSet,
             final ActionType actionType, final Long forcedTime, final Rollout rollout,
             final RolloutGroup rolloutGroup) {
         // cancel all current scheduled actions for this target. E.g. an action
         // is already scheduled and a next action is created then cancel the
         // current scheduled action to cancel. E.g. a new scheduled action is
         // created.
-        final List<Long> targetIds = targets.stream().map(t -> t.getId()).collect(Collectors.toList());
-        actionRepository.switchStatus(Action.Status.CANCELED, targetIds, false, Action.Status.SCHEDULED);
-        targets.forEach(target -> {
-            final JpaAction action = new JpaAction();
-            action.setTarget(target);
-            action.setActive(false);
-            action.setDistributionSet(distributionSet);
-            action.setActionType(actionType);
-            action.setForcedTime(forcedTime);
-            action.setStatus(Status.SCHEDULED);
-            action.setRollout(rollout);
-            action.setRolloutGroup(rolloutGroup);
-            actionRepository.save(action);
-        });
+        Lists.partition(new ArrayList<>(targetIds), Constants.MAX_ENTRIES_IN_STATEMENT)
+                .forEach(this::cancelScheduledActions);
+        // the referenced entities have to exist in the database for the JDBC
+        // inserts
+        entityManager.flush();
+
+        final String tenant = tenantAware.getCurrentTenant().toUpperCase();
+        final String currentUser = getCurrentAuditor();
+        final long now = System.currentTimeMillis();
+        final Long rolloutId = rollout != null ? rollout.getId() : null;
+        final Long rolloutGroupId = rolloutGroup != null ? rolloutGroup.getId() : null;
+        new JdbcTemplate(dataSource).batchUpdate(INSERT_SCHEDULED_ACTION,
+                targetIds.stream()
+                        .map(targetId -> new Object[] { now, currentUser, now, currentUser, tenant,
+                                actionType.name(), forcedTime, Status.SCHEDULED.ordinal(), distributionSet.getId(),
+                                targetId, rolloutId, rolloutGroupId })
+                        .collect(Collectors.toList()));
+        if (rolloutGroupId != null) {
+            rolloutGroupStatusCounter.increment(rolloutGroupId, Status.SCHEDULED, targetIds.size());
+        }
+    }
+
+    /**
+     * Cancels the inactive {@link Status#SCHEDULED} actions of the given
+     * targets with one bulk update, which bypasses the counters of the
+     * rollout groups, so the canceled actions are moved in the counters
+     * before.
+     */
+    private void cancelScheduledActions(final List<Long> targetIds) {
+        rolloutGroupStatusCounter.moveByTargetIds(targetIds, Status.SCHEDULED, Status.CANCELED);
+        actionRepository.switchStatus(Status.CANCELED, targetIds, false, Status.SCHEDULED);
+    }
+
+    /**
+     * Inserts the initial {@link Status#RUNNING} status entries of the given
+     * actions with one JDBC batch.
+     */
+    private void insertInitialActionStatus(final Collection<JpaAction> actions, final String currentUser) {
+        final String tenant = tenantAware.getCurrentTenant().toUpperCase();
+        final long now = System.currentTimeMillis();
+        new JdbcTemplate(dataSource).batchUpdate(INSERT_ACTION_STATUS,
+                actions.stream().map(action -> new Object[] { now, currentUser, now, currentUser, tenant,
+                        action.getCreatedAt(), Status.RUNNING.ordinal(), action.getId() }).collect(Collectors.toList()));
+    }
+
+    private String getCurrentAuditor() {
+        return auditorProvider != null ? auditorProvider.getCurrentAuditor() : null;
     }
 
     @Override
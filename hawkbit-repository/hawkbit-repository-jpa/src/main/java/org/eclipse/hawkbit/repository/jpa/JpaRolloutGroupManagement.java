@@ -61,15 +61,15 @@ public class JpaRolloutGroupManagement implements RolloutGroupManagement {
     @Autowired
     private RolloutGroupRepository rolloutGroupRepository;
 
-    @Autowired
-    private ActionRepository actionRepository;
-
     @Autowired
     private TargetRepository targetRepository;
 
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
     @Override
     public RolloutGroup findRolloutGroupById(final Long rolloutGroupId) {
         return rolloutGroupRepository.findOne(rolloutGroupId);
@@ -124,8 +124,8 @@ public class JpaRolloutGroupManagement implements RolloutGroupManagement {
     @Override
     public RolloutGroup findRolloutGroupWithDetailedStatus(final Long rolloutGroupId) {
         final RolloutGroup rolloutGroup = findRolloutGroupById(rolloutGroupId);
-        final List<TotalTargetCountActionStatus> rolloutStatusCountItems = actionRepository
-                .getStatusCountByRolloutGroupId(rolloutGroupId);
+        final List<TotalTargetCountActionStatus> rolloutStatusCountItems = rolloutGroupStatusCounter
+                .countByRolloutGroupIds(Collections.singletonList(rolloutGroupId));
 
         final TotalTargetCountStatus totalTargetCountStatus = new TotalTargetCountStatus(rolloutStatusCountItems,
                 Long.valueOf(rolloutGroup.getTotalTargets()));
@@ -136,8 +136,8 @@ public class JpaRolloutGroupManagement implements RolloutGroupManagement {
 
     private Map<Long, List<TotalTargetCountActionStatus>> getStatusCountItemForRolloutGroup(
             final List<Long> rolloutGroupIds) {
-        final List<TotalTargetCountActionStatus> resultList = actionRepository
-                .getStatusCountByRolloutGroupId(rolloutGroupIds);
+        final List<TotalTargetCountActionStatus> resultList = rolloutGroupStatusCounter
+                .countByRolloutGroupIds(rolloutGroupIds);
         return resultList.stream().collect(Collectors.groupingBy(TotalTargetCountActionStatus::getId));
     }
 
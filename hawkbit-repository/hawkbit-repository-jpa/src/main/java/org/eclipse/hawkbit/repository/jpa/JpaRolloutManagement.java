@@ -8,45 +8,67 @@
  */
 package org.eclipse.hawkbit.repository.jpa;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.sql.DataSource;
 
 import org.eclipse.hawkbit.repository.DeploymentManagement;
-import org.eclipse.hawkbit.repository.OffsetBasedPageRequest;
 import org.eclipse.hawkbit.repository.RolloutFields;
 import org.eclipse.hawkbit.repository.RolloutManagement;
+import org.eclipse.hawkbit.repository.RolloutProperties;
+import org.eclipse.hawkbit.repository.TargetFields;
 import org.eclipse.hawkbit.repository.TargetManagement;
 import org.eclipse.hawkbit.repository.exception.RolloutIllegalStateException;
+import org.eclipse.hawkbit.repository.jpa.RolloutJobStore.Checkpoint;
 import org.eclipse.hawkbit.repository.jpa.cache.CacheWriteNotify;
+import org.eclipse.hawkbit.repository.jpa.configuration.Constants;
+import org.eclipse.hawkbit.repository.jpa.executor.AfterTransactionCommitExecutor;
 import org.eclipse.hawkbit.repository.jpa.model.JpaRollout;
 import org.eclipse.hawkbit.repository.jpa.model.JpaRolloutGroup;
 import org.eclipse.hawkbit.repository.jpa.model.JpaRollout_;
-import org.eclipse.hawkbit.repository.jpa.model.RolloutTargetGroup;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget_;
+import org.eclipse.hawkbit.repository.jpa.rollout.RolloutGroupActivator;
 import org.eclipse.hawkbit.repository.jpa.rollout.condition.RolloutGroupActionEvaluator;
 import org.eclipse.hawkbit.repository.jpa.rollout.condition.RolloutGroupConditionEvaluator;
 import org.eclipse.hawkbit.repository.jpa.rsql.RSQLUtility;
 import org.eclipse.hawkbit.repository.model.Action;
-import org.eclipse.hawkbit.repository.model.Action.ActionType;
 import org.eclipse.hawkbit.repository.model.Action.UpdateType;
-import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.Rollout;
 import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
 import org.eclipse.hawkbit.repository.model.RolloutGroup;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupErrorCondition;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupStatus;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessCondition;
+import org.eclipse.hawkbit.repository.model.RolloutGroupConditionBuilder;
 import org.eclipse.hawkbit.repository.model.RolloutGroupConditions;
+import org.eclipse.hawkbit.repository.model.RolloutPlan;
+import org.eclipse.hawkbit.repository.model.RolloutPlan.GroupPlan;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetWithActionType;
 import org.eclipse.hawkbit.repository.model.TotalTargetCountActionStatus;
 import org.eclipse.hawkbit.repository.model.TotalTargetCountStatus;
+import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -55,22 +77,28 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 import org.springframework.validation.annotation.Validated;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
+
 /**
  * JPA implementation of {@link RolloutManagement}.
  */
@@ -79,6 +107,26 @@ import org.springframework.validation.annotation.Validated;
 public class JpaRolloutManagement implements RolloutManagement {
     private static final Logger LOGGER = LoggerFactory.getLogger(RolloutManagement.class);
 
+    private static final String INSERT_ROLLOUT_TARGET_GROUP = "INSERT INTO sp_rollouttargetgroup (target_Id, rolloutGroup_Id) VALUES (?, ?)";
+
+    /**
+     * Maximum number of target IDs read and inserted at once while creating a
+     * rollout group.
+     */
+    private static final int TARGET_ID_CHUNK_SIZE = 1000;
+
+    /**
+     * Number of targets per group which are returned as sample by a rollout
+     * plan.
+     */
+    private static final int PLAN_SAMPLE_SIZE = 5;
+
+    /**
+     * Maximum number of target IDs of all rollout plans which are kept, about
+     * 8 bytes each.
+     */
+    private static final int PLAN_CACHE_WEIGHT = 4_000_000;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -100,9 +148,6 @@ public class JpaRolloutManagement implements RolloutManagement {
     @Autowired
     private RolloutTargetGroupRepository rolloutTargetGroupRepository;
 
-    @Autowired
-    private ActionRepository actionRepository;
-
     @Autowired
     private ApplicationContext context;
 
@@ -115,25 +160,44 @@ public class JpaRolloutManagement implements RolloutManagement {
     @Autowired
     private CacheWriteNotify cacheWriteNotify;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RolloutProperties rolloutProperties;
+
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
+    @Autowired
+    private RolloutJobStore rolloutJobStore;
+
+    @Autowired
+    private AfterTransactionCommitExecutor afterCommit;
+
     @Autowired
     @Qualifier("asyncExecutor")
     private Executor executor;
 
-    /*
-     * set which stores the rollouts which are asynchronously creating. This is
-     * necessary to verify rollouts which maybe stuck during creationg e.g.
-     * because of database interruption, failures or even application crash.
-     * !This is not cluster aware!
-     */
-    private static final Set<String> creatingRollouts = ConcurrentHashMap.newKeySet();
+    @Autowired
+    private TenantAware tenantAware;
 
-    /*
-     * set which stores the rollouts which are asynchronously starting. This is
-     * necessary to verify rollouts which maybe stuck during starting e.g.
-     * because of database interruption, failures or even application crash.
-     * !This is not cluster aware!
+    @Autowired
+    private RolloutGroupActivator rolloutGroupActivator;
+
+    /**
+     * the IDs of the targets resolved by the last rollout plans per tenant and
+     * filter query in ascending order, reused by the creation of the planned
+     * rollout.
      */
-    private static final Set<String> startingRollouts = ConcurrentHashMap.newKeySet();
+    private Cache<String, long[]> plannedTargetIds;
+
+    @PostConstruct
+    void initPlannedTargetIds() {
+        plannedTargetIds = CacheBuilder.newBuilder().maximumWeight(PLAN_CACHE_WEIGHT)
+                .weigher((final String key, final long[] targetIds) -> targetIds.length)
+                .expireAfterWrite(rolloutProperties.getCreation().getPlanTtl(), TimeUnit.MILLISECONDS).build();
+    }
 
     @Override
     public Page<Rollout> findAll(final Pageable pageable) {
@@ -168,8 +232,9 @@ public class JpaRolloutManagement implements RolloutManagement {
     @Modifying
     public Rollout createRollout(final Rollout rollout, final int amountGroup,
             final RolloutGroupConditions conditions) {
-        final JpaRollout savedRollout = createRollout((JpaRollout) rollout, amountGroup);
-        return createRolloutGroups(amountGroup, conditions, savedRollout);
+        final long[] targetIds = takePlannedTargetIds(rollout.getTargetFilterQuery());
+        final JpaRollout savedRollout = createRollout((JpaRollout) rollout, amountGroup, targetIds);
+        return createRolloutGroups(amountGroup, conditions, savedRollout, targetIds);
     }
 
     @Override
@@ -177,8 +242,8 @@ public class JpaRolloutManagement implements RolloutManagement {
     @Modifying
     public Rollout createRolloutAsync(final Rollout rollout, final int amountGroup,
             final RolloutGroupConditions conditions) {
-        final JpaRollout savedRollout = createRollout((JpaRollout) rollout, amountGroup);
-        creatingRollouts.add(savedRollout.getName());
+        final long[] targetIds = takePlannedTargetIds(rollout.getTargetFilterQuery());
+        final JpaRollout savedRollout = createRollout((JpaRollout) rollout, amountGroup, targetIds);
         // need to flush the entity manager here to get the ID of the rollout,
         // because entity manager is set to FlushMode#Auto, entitymanager will
         // flush the Target entity, due the indirect relationship to the Rollout
@@ -187,23 +252,105 @@ public class JpaRolloutManagement implements RolloutManagement {
         // synchronization aect was found through a relationship that was not
         // marked cascade PERSIST'
         entityManager.flush();
-        executor.execute(() -> {
-            try {
-                createRolloutGroupsInNewTransaction(amountGroup, conditions, savedRollout);
-            } finally {
-                creatingRollouts.remove(savedRollout.getName());
-            }
-        });
+
+        // the first group is created with the rollout, so the conditions of
+        // the groups are persisted and an interrupted creation can be resumed
+        // by any instance
+        final GroupCreation creation = new GroupCreation(savedRollout, amountGroup, conditions);
+        creation.plannedTargetIds = targetIds;
+        if (!creation.hasNext() || !createNextRolloutGroup(creation) || !creation.hasNext()) {
+            return finishRolloutGroups(creation);
+        }
+        rolloutJobStore.create(savedRollout.getId(), creation.checkpoint());
+        createRolloutGroupsAsync(creation);
         return savedRollout;
     }
 
-    private JpaRollout createRollout(final JpaRollout rollout, final int amountGroup) {
+    /**
+     * Saves the rollout with the number of targets which the groups are sized
+     * by. The number is corrected to the number of targets in the groups when
+     * the groups have been created, see
+     * {@link #finishRolloutGroups(GroupCreation)}.
+     */
+    private JpaRollout createRollout(final JpaRollout rollout, final int amountGroup, final long[] targetIds) {
         verifyRolloutGroupParameter(amountGroup);
-        final Long totalTargets = targetManagement.countTargetByTargetFilterQuery(rollout.getTargetFilterQuery());
-        rollout.setTotalTargets(totalTargets.longValue());
+        rollout.setTotalTargets(targetIds != null ? targetIds.length
+                : targetManagement.countTargetByTargetFilterQuery(rollout.getTargetFilterQuery()));
         return rolloutRepository.save(rollout);
     }
 
+    @Override
+    public RolloutPlan planRollout(final String targetFilterQuery, final int amountGroup) {
+        verifyRolloutGroupParameter(amountGroup);
+        final Specification<JpaTarget> targetSpec = RSQLUtility.parse(targetFilterQuery, TargetFields.class);
+
+        // one keyset scan over the target IDs instead of a count and a query
+        // per group
+        final long start = System.nanoTime();
+        long[] ids = new long[TARGET_ID_CHUNK_SIZE];
+        int size = 0;
+        int statements = 0;
+        List<Long> chunk;
+        do {
+            chunk = findTargetIdsAfter(targetSpec, size == 0 ? 0 : ids[size - 1], TARGET_ID_CHUNK_SIZE);
+            statements++;
+            if (size + chunk.size() > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + chunk.size()));
+            }
+            for (final Long id : chunk) {
+                ids[size++] = id;
+            }
+        } while (chunk.size() == TARGET_ID_CHUNK_SIZE);
+        final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final long[] plannedIds = Arrays.copyOf(ids, size);
+        plannedTargetIds.put(planKey(targetFilterQuery), plannedIds);
+        final List<Long> targetIds = Longs.asList(plannedIds);
+
+        // same group sizes as the creation, see GroupCreation
+        final int groupSize = (int) Math.ceil((double) targetIds.size() / (double) amountGroup);
+        final List<Long> sampleIds = new ArrayList<>();
+        for (int from = 0; from < targetIds.size(); from += groupSize) {
+            sampleIds.addAll(targetIds.subList(from, Math.min(from + PLAN_SAMPLE_SIZE, targetIds.size())));
+        }
+        final Map<Long, String> controllerIds = new HashMap<>(sampleIds.size());
+        Lists.partition(sampleIds, Constants.MAX_ENTRIES_IN_STATEMENT)
+                .forEach(chunkIds -> targetRepository.findTargetIdNamesByIdIn(chunkIds)
+                        .forEach(target -> controllerIds.put(target.getTargetId(), target.getControllerId())));
+
+        final List<GroupPlan> groups = new ArrayList<>();
+        for (int from = 0; from < targetIds.size(); from += groupSize) {
+            final int to = Math.min(from + groupSize, targetIds.size());
+            final List<String> sampleTargets = targetIds.subList(from, Math.min(from + PLAN_SAMPLE_SIZE, to))
+                    .stream().map(controllerIds::get).filter(Objects::nonNull).collect(Collectors.toList());
+            groups.add(new GroupPlan("group-" + (groups.size() + 1), to - from, sampleTargets));
+        }
+        return new RolloutPlan(targetFilterQuery, targetIds.size(), groups, duration, statements);
+    }
+
+    /**
+     * Removes the IDs of the targets of a rollout plan with the given filter
+     * query of the current tenant from the cache, so they are used by one
+     * rollout only.
+     *
+     * @param targetFilterQuery
+     *            the filter query of the rollout
+     * @return the IDs of the targets in ascending order or <code>null</code>
+     *         if the filter query has not been planned recently
+     */
+    private long[] takePlannedTargetIds(final String targetFilterQuery) {
+        if (targetFilterQuery == null) {
+            return null;
+        }
+        final String key = planKey(targetFilterQuery);
+        final long[] targetIds = plannedTargetIds.getIfPresent(key);
+        plannedTargetIds.invalidate(key);
+        return targetIds;
+    }
+
+    private String planKey(final String targetFilterQuery) {
+        return tenantAware.getCurrentTenant() + ":" + targetFilterQuery;
+    }
+
     private static void verifyRolloutGroupParameter(final int amountGroup) {
         if (amountGroup <= 0) {
             throw new IllegalArgumentException("the amountGroup must be greater than zero");
@@ -212,13 +359,82 @@ public class JpaRolloutManagement implements RolloutManagement {
         }
     }
 
-    private Rollout createRolloutGroupsInNewTransaction(final int amountOfGroups,
-            final RolloutGroupConditions conditions, final JpaRollout savedRollout) {
+    /**
+     * Creates the remaining rollout groups on the executor, every group in its
+     * own transaction, so a large rollout does not hold one long transaction
+     * and the creation can be resumed from the last created group.
+     *
+     * @param creation
+     *            the state of the group creation
+     */
+    private void createRolloutGroupsAsync(final GroupCreation creation) {
+        creation.job = true;
+        runJobAsync(creation.rolloutId, "creatingRolloutGroup", () -> {
+            if (creation.hasNext() && createNextRolloutGroup(creation)) {
+                return true;
+            }
+            finishRolloutGroups(creation);
+            return false;
+        }, creation::checkpoint, RolloutStatus.ERROR_CREATING);
+    }
+
+    /**
+     * Runs the job of a rollout on the executor after the current transaction
+     * has been committed. Every step of the job runs in its own transaction,
+     * which stores the checkpoint of the job or removes the completed job. The
+     * step is rolled back and the job stops if it has been taken over by
+     * another instance in the meantime.
+     *
+     * @param rolloutId
+     *            the ID of the rollout
+     * @param name
+     *            the name of the transactions of the steps
+     * @param step
+     *            executes the next step of the job and returns
+     *            <code>false</code> if it has been the last one
+     * @param checkpoint
+     *            the checkpoint reached by the last step
+     * @param errorStatus
+     *            the status of the rollout if a step fails
+     */
+    private void runJobAsync(final Long rolloutId, final String name, final BooleanSupplier step,
+            final Supplier<Checkpoint> checkpoint, final RolloutStatus errorStatus) {
+        afterCommit.afterCommit(() -> executor.execute(() -> {
+            try {
+                while (runInNewTransaction(name, status -> {
+                    final boolean next = step.getAsBoolean();
+                    final boolean owned = next ? rolloutJobStore.checkpoint(rolloutId, checkpoint.get())
+                            : rolloutJobStore.delete(rolloutId);
+                    if (!owned) {
+                        LOGGER.warn("Job of rollout {} has been taken over by another instance", rolloutId);
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    return next;
+                })) {
+                    LOGGER.debug("Job of rollout {} reached checkpoint", rolloutId);
+                }
+            } catch (final JobTakenOverException e) {
+                LOGGER.warn("Job of rollout {} has been taken over by another instance", rolloutId);
+            } catch (final RuntimeException e) {
+                LOGGER.error("Job of rollout {} failed", rolloutId, e);
+                runInNewTransaction(name + "Failed", status -> {
+                    if (rolloutJobStore.delete(rolloutId)) {
+                        final JpaRollout rollout = rolloutRepository.findOne(rolloutId);
+                        rollout.setStatus(errorStatus);
+                        rolloutRepository.save(rollout);
+                    }
+                    return null;
+                });
+            }
+        }));
+    }
+
+    private <T> T runInNewTransaction(final String name, final TransactionCallback<T> action) {
         final DefaultTransactionDefinition def = new DefaultTransactionDefinition();
-        def.setName("creatingRollout");
+        def.setName(name);
         def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-        return new TransactionTemplate(txManager, def)
-                .execute(status -> createRolloutGroups(amountOfGroups, conditions, savedRollout));
+        return new TransactionTemplate(txManager, def).execute(action);
     }
 
     /**
@@ -236,51 +452,228 @@ public class JpaRolloutManagement implements RolloutManagement {
      * @return the rollout with created groups
      */
     private Rollout createRolloutGroups(final int amountOfGroups, final RolloutGroupConditions conditions,
-            final JpaRollout savedRollout) {
-        int pageIndex = 0;
-        int groupIndex = 0;
-        final Long totalCount = savedRollout.getTotalTargets();
-        final int groupSize = (int) Math.ceil((double) totalCount / (double) amountOfGroups);
-        // validate if the amount of groups that will be created are the amount
-        // of groups that the client what's to have created.
-        int amountGroupValidated = amountOfGroups;
-        final int amountGroupCreation = (int) (Math.ceil((double) totalCount / (double) groupSize));
-        if (amountGroupCreation == (amountOfGroups - 1)) {
-            amountGroupValidated--;
-        }
-        RolloutGroup lastSavedGroup = null;
-        while (pageIndex < totalCount) {
-            groupIndex++;
-            final String nameAndDesc = "group-" + groupIndex;
-            final JpaRolloutGroup group = new JpaRolloutGroup();
-            group.setName(nameAndDesc);
-            group.setDescription(nameAndDesc);
-            group.setRollout(savedRollout);
-            group.setParent(lastSavedGroup);
-            group.setSuccessCondition(conditions.getSuccessCondition());
-            group.setSuccessConditionExp(conditions.getSuccessConditionExp());
-            group.setErrorCondition(conditions.getErrorCondition());
-            group.setErrorConditionExp(conditions.getErrorConditionExp());
-            group.setErrorAction(conditions.getErrorAction());
-            group.setErrorActionExp(conditions.getErrorActionExp());
-
-            final JpaRolloutGroup savedGroup = rolloutGroupRepository.save(group);
-
-            final Slice<Target> targetGroup = targetManagement.findTargetsAll(savedRollout.getTargetFilterQuery(),
-                    new OffsetBasedPageRequest(pageIndex, groupSize, new Sort(Direction.ASC, "id")));
-            savedGroup.setTotalTargets(targetGroup.getContent().size());
-
-            lastSavedGroup = savedGroup;
-
-            targetGroup
-                    .forEach(target -> rolloutTargetGroupRepository.save(new RolloutTargetGroup(savedGroup, target)));
-            cacheWriteNotify.rolloutGroupCreated(groupIndex, savedRollout.getId(), savedGroup.getId(),
-                    amountGroupValidated, groupIndex);
-            pageIndex += groupSize;
-        }
-
-        savedRollout.setStatus(RolloutStatus.READY);
-        return rolloutRepository.save(savedRollout);
+            final JpaRollout savedRollout, final long[] targetIds) {
+        final GroupCreation creation = new GroupCreation(savedRollout, amountOfGroups, conditions);
+        creation.plannedTargetIds = targetIds;
+        while (creation.hasNext() && createNextRolloutGroup(creation)) {
+            // next group
+        }
+        return finishRolloutGroups(creation);
+    }
+
+    /**
+     * Creates the next rollout group with the targets following the targets
+     * of the previous group in the order of their IDs. The targets are
+     * selected by their ID after the last target of the previous group
+     * (keyset pagination) instead of an offset, so every group is selected
+     * with the same costs, and only their IDs are read and inserted with JDBC
+     * batches.
+     *
+     * @param creation
+     *            the state of the group creation which is moved to the
+     *            created group
+     * @return <code>true</code> if a group has been created,
+     *         <code>false</code> if there are no targets left
+     */
+    private boolean createNextRolloutGroup(final GroupCreation creation) {
+        final JpaRollout rollout = rolloutRepository.findOne(creation.rolloutId);
+        final Specification<JpaTarget> targetSpec = RSQLUtility.parse(rollout.getTargetFilterQuery(),
+                TargetFields.class);
+
+        List<Long> targetIds = nextTargetIds(creation, targetSpec, creation.lastTargetId,
+                Math.min(creation.groupSize, TARGET_ID_CHUNK_SIZE));
+        if (targetIds.isEmpty()) {
+            return false;
+        }
+
+        final int groupIndex = creation.groupIndex + 1;
+        final String nameAndDesc = "group-" + groupIndex;
+        final JpaRolloutGroup group = new JpaRolloutGroup();
+        group.setName(nameAndDesc);
+        group.setDescription(nameAndDesc);
+        group.setRollout(rollout);
+        group.setParent(creation.parentGroupId == null ? null : rolloutGroupRepository.findOne(creation.parentGroupId));
+        group.setSuccessCondition(creation.conditions.getSuccessCondition());
+        group.setSuccessConditionExp(creation.conditions.getSuccessConditionExp());
+        group.setErrorCondition(creation.conditions.getErrorCondition());
+        group.setErrorConditionExp(creation.conditions.getErrorConditionExp());
+        group.setErrorAction(creation.conditions.getErrorAction());
+        group.setErrorActionExp(creation.conditions.getErrorActionExp());
+        final JpaRolloutGroup savedGroup = rolloutGroupRepository.save(group);
+        // the group has to exist in the database for the JDBC inserts
+        entityManager.flush();
+        rolloutGroupStatusCounter.createCounters(savedGroup.getId());
+
+        int groupTargets = 0;
+        long lastTargetId = creation.lastTargetId;
+        while (!targetIds.isEmpty()) {
+            insertRolloutTargetGroups(savedGroup.getId(), targetIds);
+            groupTargets += targetIds.size();
+            lastTargetId = targetIds.get(targetIds.size() - 1);
+            renewJobHeartbeat(creation);
+            final int remaining = creation.groupSize - groupTargets;
+            targetIds = remaining > 0
+                    ? nextTargetIds(creation, targetSpec, lastTargetId, Math.min(remaining, TARGET_ID_CHUNK_SIZE))
+                    : Collections.emptyList();
+        }
+
+        savedGroup.setTotalTargets(groupTargets);
+        rolloutGroupRepository.save(savedGroup);
+
+        creation.groupIndex = groupIndex;
+        creation.parentGroupId = savedGroup.getId();
+        creation.lastTargetId = lastTargetId;
+        cacheWriteNotify.rolloutGroupCreated(groupIndex, rollout.getId(), savedGroup.getId(), creation.groupCount,
+                groupIndex);
+        return true;
+    }
+
+    /**
+     * Renews the heartbeat of the job which creates the groups with every
+     * chunk of targets, so the job is not taken over while it creates a large
+     * group.
+     *
+     * @throws JobTakenOverException
+     *             if the job has been taken over by another instance
+     */
+    private void renewJobHeartbeat(final GroupCreation creation) {
+        if (creation.job && !runInNewTransaction("renewRolloutJobHeartbeat",
+                status -> rolloutJobStore.heartbeat(creation.rolloutId))) {
+            throw new JobTakenOverException();
+        }
+    }
+
+    private Rollout finishRolloutGroups(final GroupCreation creation) {
+        final JpaRollout rollout = rolloutRepository.findOne(creation.rolloutId);
+        // planned targets may have been deleted or may not match the filter
+        // anymore
+        rollout.setTotalTargets(rolloutGroupRepository.findByRolloutOrderByIdAsc(rollout).stream()
+                .mapToLong(JpaRolloutGroup::getTotalTargets).sum());
+        rollout.setStatus(RolloutStatus.READY);
+        return rolloutRepository.save(rollout);
+    }
+
+    /**
+     * Retrieves the IDs of the next targets of a rollout in creation, taken
+     * from the targets of its plan if it has been planned. Planned targets
+     * which have been deleted or do not match the filter query anymore are
+     * skipped.
+     */
+    private List<Long> nextTargetIds(final GroupCreation creation, final Specification<JpaTarget> targetSpec,
+            final long lastTargetId, final int maxResults) {
+        if (creation.plannedTargetIds == null) {
+            return findTargetIdsAfter(targetSpec, lastTargetId, maxResults);
+        }
+
+        final List<Long> planned = Longs.asList(creation.plannedTargetIds);
+        final int position = Arrays.binarySearch(creation.plannedTargetIds, lastTargetId);
+        int from = position >= 0 ? position + 1 : -position - 1;
+        while (from < planned.size()) {
+            final List<Long> chunk = planned.subList(from, Math.min(from + maxResults, planned.size()));
+            final List<Long> matching = findTargetIdsIn(targetSpec, chunk);
+            if (!matching.isEmpty()) {
+                return matching;
+            }
+            from += chunk.size();
+        }
+        return Collections.emptyList();
+    }
+
+    private List<Long> findTargetIdsAfter(final Specification<JpaTarget> targetSpec, final long lastTargetId,
+            final int maxResults) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        final Root<JpaTarget> targetRoot = query.from(JpaTarget.class);
+        final Path<Long> id = targetRoot.get(JpaTarget_.id);
+        query.select(id).where(cb.and(targetSpec.toPredicate(targetRoot, query, cb), cb.greaterThan(id, lastTargetId)))
+                .orderBy(cb.asc(id));
+        return entityManager.createQuery(query).setMaxResults(maxResults).getResultList();
+    }
+
+    private List<Long> findTargetIdsIn(final Specification<JpaTarget> targetSpec, final List<Long> targetIds) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        final Root<JpaTarget> targetRoot = query.from(JpaTarget.class);
+        final Path<Long> id = targetRoot.get(JpaTarget_.id);
+        query.select(id).where(cb.and(targetSpec.toPredicate(targetRoot, query, cb), id.in(targetIds)))
+                .orderBy(cb.asc(id));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private void insertRolloutTargetGroups(final Long rolloutGroupId, final List<Long> targetIds) {
+        new JdbcTemplate(dataSource).batchUpdate(INSERT_ROLLOUT_TARGET_GROUP,
+                targetIds.stream().map(targetId -> new Object[] { targetId, rolloutGroupId })
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Loads the state of a group creation which has been interrupted from the
+     * created groups and the checkpoint of its job. The size and conditions of
+     * the groups are taken from the first group.
+     *
+     * @param rollout
+     *            in creation
+     * @param checkpoint
+     *            the checkpoint of the job
+     * @return the state of the creation or <code>null</code> if no group has
+     *         been created yet
+     */
+    private GroupCreation loadGroupCreation(final JpaRollout rollout, final Checkpoint checkpoint) {
+        final List<JpaRolloutGroup> groups = rolloutGroupRepository.findByRolloutOrderByIdAsc(rollout);
+        if (groups.isEmpty() || checkpoint.getRolloutGroupId() == null) {
+            return null;
+        }
+
+        final JpaRolloutGroup first = groups.get(0);
+        final RolloutGroupConditions conditions = new RolloutGroupConditionBuilder()
+                .successCondition(first.getSuccessCondition(), first.getSuccessConditionExp())
+                .errorCondition(first.getErrorCondition(), first.getErrorConditionExp())
+                .errorAction(first.getErrorAction(), first.getErrorActionExp()).build();
+        final GroupCreation creation = new GroupCreation(rollout.getId(), conditions, first.getTotalTargets(),
+                rollout.getTotalTargets());
+        creation.groupIndex = groups.size();
+        creation.parentGroupId = checkpoint.getRolloutGroupId();
+        creation.lastTargetId = checkpoint.getTargetId();
+        return creation;
+    }
+
+    /**
+     * State of the creation of the groups of a rollout, moved forward with
+     * every created group.
+     */
+    private static final class GroupCreation {
+        private final Long rolloutId;
+        private final RolloutGroupConditions conditions;
+        private final int groupSize;
+        private final int groupCount;
+        private int groupIndex;
+        private Long parentGroupId;
+        private long lastTargetId;
+        private long[] plannedTargetIds;
+        private boolean job;
+
+        private GroupCreation(final JpaRollout rollout, final int amountOfGroups,
+                final RolloutGroupConditions conditions) {
+            this(rollout.getId(), conditions,
+                    (int) Math.ceil((double) rollout.getTotalTargets() / (double) amountOfGroups),
+                    rollout.getTotalTargets());
+        }
+
+        private GroupCreation(final Long rolloutId, final RolloutGroupConditions conditions, final int groupSize,
+                final long totalTargets) {
+            this.rolloutId = rolloutId;
+            this.conditions = conditions;
+            this.groupSize = groupSize;
+            this.groupCount = groupSize > 0 ? (int) Math.ceil((double) totalTargets / (double) groupSize) : 0;
+        }
+
+        private boolean hasNext() {
+            return groupIndex < groupCount;
+        }
+
+        private Checkpoint checkpoint() {
+            return new Checkpoint(parentGroupId, lastTargetId);
+        }
     }
 
     @Override
@@ -289,7 +682,15 @@ public class JpaRolloutManagement implements RolloutManagement {
     public Rollout startRollout(final Rollout rollout) {
         final JpaRollout mergedRollout = entityManager.merge((JpaRollout) rollout);
         checkIfRolloutCanStarted(rollout, mergedRollout);
-        return doStartRollout(mergedRollout);
+        final RolloutStart start = new RolloutStart(mergedRollout.getId(), null, 0);
+        while (startNextChunk(start)) {
+            // the start runs in one transaction, so the actions of the written
+            // chunk are removed from the persistence context before the next
+            // chunk
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return rolloutRepository.findOne(mergedRollout.getId());
     }
 
     @Override
@@ -300,51 +701,111 @@ public class JpaRolloutManagement implements RolloutManagement {
         checkIfRolloutCanStarted(rollout, mergedRollout);
         mergedRollout.setStatus(RolloutStatus.STARTING);
         final JpaRollout updatedRollout = rolloutRepository.save(mergedRollout);
-        startingRollouts.add(updatedRollout.getName());
-        executor.execute(() -> {
-            try {
-                final DefaultTransactionDefinition def = new DefaultTransactionDefinition();
-                def.setName("startingRollout");
-                def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-                new TransactionTemplate(txManager, def).execute(status -> {
-                    doStartRollout(updatedRollout);
-                    return null;
-                });
-            } finally {
-                startingRollouts.remove(updatedRollout.getName());
-            }
-        });
+        final RolloutStart start = new RolloutStart(updatedRollout.getId(), null, 0);
+        rolloutJobStore.create(updatedRollout.getId(), start.checkpoint());
+        startRolloutAsync(start);
         return updatedRollout;
+    }
 
+    /**
+     * Starts the rollout on the executor, every chunk of targets in its own
+     * transaction, so the start can be resumed from the last chunk.
+     *
+     * @param start
+     *            the state of the start
+     */
+    private void startRolloutAsync(final RolloutStart start) {
+        runJobAsync(start.rolloutId, "startingRollout", () -> startNextChunk(start), start::checkpoint,
+                RolloutStatus.ERROR_STARTING);
     }
 
-    private Rollout doStartRollout(final JpaRollout rollout) {
-        final DistributionSet distributionSet = rollout.getDistributionSet();
-        final ActionType actionType = rollout.getActionType();
-        final long forceTime = rollout.getForcedTime();
+    /**
+     * Creates the actions of the next chunk of targets of the rollout. The
+     * targets of a group are processed in chunks in the order of their IDs, so
+     * a group is never loaded into memory at once. The first group gets
+     * running actions, the actions of the other groups are inserted in bulk in
+     * scheduled state. If the activation is paced, the actions of the first
+     * group are scheduled as well and are activated by the
+     * {@link RolloutGroupActivator}. The status of a group is set after its
+     * last chunk, the rollout is running after the last group.
+     *
+     * @param start
+     *            the state of the start which is moved to the processed chunk
+     * @return <code>true</code> if a chunk or group has been processed,
+     *         <code>false</code> if the rollout is running now
+     */
+    private boolean startNextChunk(final RolloutStart start) {
+        final JpaRollout rollout = rolloutRepository.findOne(start.rolloutId);
         final List<JpaRolloutGroup> rolloutGroups = rolloutGroupRepository.findByRolloutOrderByIdAsc(rollout);
-        for (int iGroup = 0; iGroup < rolloutGroups.size(); iGroup++) {
-            final JpaRolloutGroup rolloutGroup = rolloutGroups.get(iGroup);
-            final List<Target> targetGroup = targetRepository.findByRolloutTargetGroupRolloutGroup(rolloutGroup);
+        int iGroup = 0;
+        if (start.rolloutGroupId != null) {
+            while (iGroup < rolloutGroups.size() && !rolloutGroups.get(iGroup).getId().equals(start.rolloutGroupId)) {
+                iGroup++;
+            }
+        }
+        if (iGroup >= rolloutGroups.size()) {
+            rollout.setStatus(RolloutStatus.RUNNING);
+            rolloutRepository.save(rollout);
+            return false;
+        }
+
+        final JpaRolloutGroup rolloutGroup = rolloutGroups.get(iGroup);
+        final List<Long> targetIds = rolloutTargetGroupRepository.findTargetIdsByRolloutGroup(rolloutGroup,
+                start.lastTargetId, new PageRequest(0, Constants.MAX_ENTRIES_IN_STATEMENT));
+        if (!targetIds.isEmpty()) {
             // firstgroup can already be started
-            if (iGroup == 0) {
-                final List<TargetWithActionType> targetsWithActionType = targetGroup.stream()
-                        .map(t -> new TargetWithActionType(t.getControllerId(), actionType, forceTime, UpdateType.COMBINED))
+            if (iGroup == 0 && !rolloutGroupActivator.isPaced()) {
+                final List<TargetWithActionType> targetsWithActionType = targetRepository
+                        .findControllerIdsByIdIn(targetIds).stream()
+                        .map(controllerId -> new TargetWithActionType(controllerId, rollout.getActionType(),
+                                rollout.getForcedTime(), UpdateType.COMBINED))
                         .collect(Collectors.toList());
-                deploymentManagement.assignDistributionSet(distributionSet.getId(), targetsWithActionType, rollout,
-                        rolloutGroup);
-                rolloutGroup.setStatus(RolloutGroupStatus.RUNNING);
+                deploymentManagement.assignDistributionSet(rollout.getDistributionSet().getId(),
+                        targetsWithActionType, rollout, rolloutGroup);
             } else {
-                // create only not active actions with status scheduled so they
-                // can be activated later
-                deploymentManagement.createScheduledAction(targetGroup, distributionSet, actionType, forceTime, rollout,
-                        rolloutGroup);
-                rolloutGroup.setStatus(RolloutGroupStatus.SCHEDULED);
+                // create only not active actions with status scheduled so
+                // they can be activated later
+                deploymentManagement.createScheduledAction(targetIds, rollout.getDistributionSet(),
+                        rollout.getActionType(), rollout.getForcedTime(), rollout, rolloutGroup);
             }
-            rolloutGroupRepository.save(rolloutGroup);
+            start.rolloutGroupId = rolloutGroup.getId();
+            start.lastTargetId = targetIds.get(targetIds.size() - 1);
+            return true;
+        }
+
+        rolloutGroup.setStatus(iGroup == 0 ? RolloutGroupStatus.RUNNING : RolloutGroupStatus.SCHEDULED);
+        rolloutGroupRepository.save(rolloutGroup);
+        if (iGroup == 0 && rolloutGroupActivator.isPaced()) {
+            rolloutGroupActivator.activate(rolloutGroup);
+        }
+        if (iGroup + 1 < rolloutGroups.size()) {
+            start.rolloutGroupId = rolloutGroups.get(iGroup + 1).getId();
+            start.lastTargetId = 0;
+            return true;
         }
         rollout.setStatus(RolloutStatus.RUNNING);
-        return rolloutRepository.save(rollout);
+        rolloutRepository.save(rollout);
+        return false;
+    }
+
+    /**
+     * State of the start of a rollout, moved forward with every processed
+     * chunk of targets.
+     */
+    private static final class RolloutStart {
+        private final Long rolloutId;
+        private Long rolloutGroupId;
+        private long lastTargetId;
+
+        private RolloutStart(final Long rolloutId, final Long rolloutGroupId, final long lastTargetId) {
+            this.rolloutId = rolloutId;
+            this.rolloutGroupId = rolloutGroupId;
+            this.lastTargetId = lastTargetId;
+        }
+
+        private Checkpoint checkpoint() {
+            return new Checkpoint(rolloutGroupId, lastTargetId);
+        }
     }
 
     @Override
@@ -400,25 +861,73 @@ public class JpaRolloutManagement implements RolloutManagement {
 
         for (final JpaRollout rollout : rolloutsToCheck) {
             LOGGER.debug("Checking rollout {}", rollout);
-            final List<JpaRolloutGroup> rolloutGroups = rolloutGroupRepository.findByRolloutAndStatus(rollout,
-                    RolloutGroupStatus.RUNNING);
-
-            if (rolloutGroups.isEmpty()) {
-                // no running rollouts, probably there was an error
-                // somewhere at the latest group. And the latest group has
-                // been switched from running into error state. So we need
-                // to find the latest group which
-                executeLatestRolloutGroup(rollout);
-            } else {
-                LOGGER.debug("Rollout {} has {} running groups", rollout.getId(), rolloutGroups.size());
-                executeRolloutGroups(rollout, rolloutGroups);
+            checkRollout(rollout,
+                    rolloutGroupRepository.findByRolloutAndStatus(rollout, RolloutGroupStatus.RUNNING));
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_UNCOMMITTED)
+    @Modifying
+    public List<Long> checkRolloutGroups(final Collection<Long> rolloutGroupIds) {
+        if (rolloutGroupIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final Map<Long, List<JpaRolloutGroup>> groupsByRollout = new LinkedHashMap<>();
+        Lists.partition(new ArrayList<>(rolloutGroupIds), Constants.MAX_ENTRIES_IN_STATEMENT)
+                .forEach(ids -> rolloutGroupRepository
+                        .findByIdInAndStatusOrderByIdAsc(ids, RolloutGroupStatus.RUNNING).stream()
+                        .filter(group -> group.getRollout().getStatus() == RolloutStatus.RUNNING)
+                        .forEach(group -> groupsByRollout
+                                .computeIfAbsent(group.getRollout().getId(), id -> new ArrayList<>()).add(group)));
+
+        // touching the last check serializes this check with the checks of
+        // the same rollout on other instances and lets the scheduled check
+        // skip the rollout
+        final long lastCheck = System.currentTimeMillis();
+        final List<Long> unchecked = new ArrayList<>();
+        groupsByRollout.forEach((rolloutId, groups) -> {
+            if (rolloutRepository.updateLastCheck(rolloutId, lastCheck, 0, RolloutStatus.RUNNING) == 0) {
+                groups.forEach(group -> unchecked.add(group.getId()));
+                return;
             }
+            final JpaRollout rollout = (JpaRollout) groups.get(0).getRollout();
+            LOGGER.debug("Checking {} changed groups of rollout {}", groups.size(), rollout);
+            checkRollout(rollout, groups);
+        });
+        return unchecked;
+    }
 
-            if (isRolloutComplete(rollout)) {
-                LOGGER.info("Rollout {} is finished, setting finished status", rollout);
-                rollout.setStatus(RolloutStatus.FINISHED);
-                rolloutRepository.save(rollout);
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    @Modifying
+    public void reconcileRolloutStatusCounts() {
+        final List<Long> rolloutGroupIds = rolloutGroupRepository.findIdsByRolloutStatusIn(
+                EnumSet.of(RolloutStatus.STARTING, RolloutStatus.RUNNING, RolloutStatus.PAUSED));
+        LOGGER.debug("Reconciling the status counts of {} rollout groups", rolloutGroupIds.size());
+        rolloutGroupStatusCounter.reconcile(rolloutGroupIds);
+    }
+
+    private void checkRollout(final JpaRollout rollout, final List<JpaRolloutGroup> runningGroups) {
+        if (runningGroups.isEmpty()) {
+            // no running rollouts, probably there was an error
+            // somewhere at the latest group. And the latest group has
+            // been switched from running into error state. So we need
+            // to find the latest group which
+            executeLatestRolloutGroup(rollout);
+        } else {
+            LOGGER.debug("Rollout {} has {} running groups", rollout.getId(), runningGroups.size());
+            if (rolloutGroupActivator.isPaced()) {
+                activateScheduledActions(runningGroups);
             }
+            executeRolloutGroups(rollout, runningGroups);
+        }
+
+        if (isRolloutComplete(rollout)) {
+            LOGGER.info("Rollout {} is finished, setting finished status", rollout);
+            rollout.setStatus(RolloutStatus.FINISHED);
+            rolloutRepository.save(rollout);
         }
     }
 
@@ -427,29 +936,62 @@ public class JpaRolloutManagement implements RolloutManagement {
      * starting state. If rollouts are created or started asynchronously it
      * might be that they keep in state {@link RolloutStatus#CREATING} or
      * {@link RolloutStatus#STARTING} due database or application interruption.
-     * In case this happens, set the rollout to error state.
+     * The job of a rollout whose heartbeat is older than the configured
+     * timeout is taken over by this instance and resumed from its checkpoint.
+     * A creation which has not created any group yet is set to error state.
      */
     private void verifyStuckedRollouts() {
-        final List<JpaRollout> rolloutsInCreatingState = rolloutRepository.findByStatus(RolloutStatus.CREATING);
-        rolloutsInCreatingState.stream().filter(rollout -> !creatingRollouts.contains(rollout.getName()))
-                .forEach(rollout -> {
-                    LOGGER.warn(
-                            "Determined error during rollout creation of rollout {}, stucking in creating state, setting to status",
-                            rollout, RolloutStatus.ERROR_CREATING);
-                    rollout.setStatus(RolloutStatus.ERROR_CREATING);
-                    rolloutRepository.save(rollout);
-                });
+        final long timeout = rolloutProperties.getCreation().getTimeout();
+        for (final JpaRollout rollout : rolloutRepository.findByStatus(RolloutStatus.CREATING)) {
+            final Checkpoint checkpoint = takeOverJob(rollout, timeout);
+            if (checkpoint == null) {
+                continue;
+            }
 
-        final List<JpaRollout> rolloutsInStartingState = rolloutRepository.findByStatus(RolloutStatus.STARTING);
-        rolloutsInStartingState.stream().filter(rollout -> !startingRollouts.contains(rollout.getName()))
-                .forEach(rollout -> {
-                    LOGGER.warn(
-                            "Determined error during rollout starting of rollout {}, stucking in starting state, setting to status",
-                            rollout, RolloutStatus.ERROR_STARTING);
-                    rollout.setStatus(RolloutStatus.ERROR_STARTING);
-                    rolloutRepository.save(rollout);
-                });
+            final GroupCreation creation = loadGroupCreation(rollout, checkpoint);
+            if (creation == null) {
+                LOGGER.warn(
+                        "Determined error during rollout creation of rollout {}, stucking in creating state, setting to status {}",
+                        rollout, RolloutStatus.ERROR_CREATING);
+                rolloutJobStore.delete(rollout.getId());
+                rollout.setStatus(RolloutStatus.ERROR_CREATING);
+                rolloutRepository.save(rollout);
+            } else {
+                LOGGER.warn("Determined interrupted creation of rollout {}, resuming after group {}", rollout,
+                        creation.groupIndex);
+                createRolloutGroupsAsync(creation);
+            }
+        }
+
+        for (final JpaRollout rollout : rolloutRepository.findByStatus(RolloutStatus.STARTING)) {
+            final Checkpoint checkpoint = takeOverJob(rollout, timeout);
+            if (checkpoint != null) {
+                LOGGER.warn("Determined interrupted start of rollout {}, resuming after target {} of group {}",
+                        rollout, checkpoint.getTargetId(), checkpoint.getRolloutGroupId());
+                startRolloutAsync(
+                        new RolloutStart(rollout.getId(), checkpoint.getRolloutGroupId(), checkpoint.getTargetId()));
+            }
+        }
+    }
+
+    /**
+     * Takes over the job of a rollout in its own transaction, so the owner is
+     * known to the other instances before the job is resumed.
+     */
+    private Checkpoint takeOverJob(final JpaRollout rollout, final long timeout) {
+        return runInNewTransaction("takeOverRolloutJob",
+                status -> rolloutJobStore.takeOver(rollout.getId(), timeout));
+    }
 
+    /**
+     * Registers the running groups which still have scheduled actions at the
+     * {@link RolloutGroupActivator}, e.g. if the groups have been paced by an
+     * instance which has been restarted since.
+     */
+    private void activateScheduledActions(final List<JpaRolloutGroup> runningGroups) {
+        runningGroups.stream().filter(rolloutGroup -> rolloutGroupStatusCounter
+                .countByRolloutGroupIdAndStatus(rolloutGroup.getId(), Action.Status.SCHEDULED) > 0)
+                .forEach(rolloutGroupActivator::activate);
     }
 
     private void executeRolloutGroups(final JpaRollout rollout, final List<JpaRolloutGroup> rolloutGroups) {
@@ -500,9 +1042,9 @@ public class JpaRolloutManagement implements RolloutManagement {
     }
 
     private boolean isRolloutGroupComplete(final JpaRollout rollout, final JpaRolloutGroup rolloutGroup) {
-        final Long actionsLeftForRollout = actionRepository
-                .countByRolloutAndRolloutGroupAndStatusNotAndStatusNotAndStatusNot(rollout, rolloutGroup,
-                        Action.Status.ERROR, Action.Status.FINISHED, Action.Status.CANCELED);
+        final long actionsLeftForRollout = rolloutGroupStatusCounter.countByRolloutGroupIdAndStatus(
+                rolloutGroup.getId(), EnumSet.complementOf(EnumSet.of(Action.Status.ERROR, Action.Status.FINISHED,
+                        Action.Status.CANCELED)).toArray(new Action.Status[0]));
         return actionsLeftForRollout == 0;
     }
 
@@ -617,8 +1159,8 @@ public class JpaRolloutManagement implements RolloutManagement {
     @Override
     public Rollout findRolloutWithDetailedStatus(final Long rolloutId) {
         final Rollout rollout = findRolloutById(rolloutId);
-        final List<TotalTargetCountActionStatus> rolloutStatusCountItems = actionRepository
-                .getStatusCountByRolloutId(rolloutId);
+        final List<TotalTargetCountActionStatus> rolloutStatusCountItems = rolloutGroupStatusCounter
+                .countByRolloutIds(Collections.singletonList(rolloutId));
         final TotalTargetCountStatus totalTargetCountStatus = new TotalTargetCountStatus(rolloutStatusCountItems,
                 rollout.getTotalTargets());
         ((JpaRollout) rollout).setTotalTargetCountStatus(totalTargetCountStatus);
@@ -626,7 +1168,7 @@ public class JpaRolloutManagement implements RolloutManagement {
     }
 
     private Map<Long, List<TotalTargetCountActionStatus>> getStatusCountItemForRollout(final List<Long> rolloutIds) {
-        final List<TotalTargetCountActionStatus> resultList = actionRepository.getStatusCountByRolloutId(rolloutIds);
+        final List<TotalTargetCountActionStatus> resultList = rolloutGroupStatusCounter.countByRolloutIds(rolloutIds);
         return resultList.stream().collect(Collectors.groupingBy(TotalTargetCountActionStatus::getId));
     }
 
@@ -653,8 +1195,8 @@ public class JpaRolloutManagement implements RolloutManagement {
     @Override
     public float getFinishedPercentForRunningGroup(final Long rolloutId, final RolloutGroup rolloutGroup) {
         final int totalGroup = rolloutGroup.getTotalTargets();
-        final Long finished = actionRepository.countByRolloutIdAndRolloutGroupIdAndStatus(rolloutId,
-                rolloutGroup.getId(), Action.Status.FINISHED);
+        final long finished = rolloutGroupStatusCounter.countByRolloutGroupIdAndStatus(rolloutGroup.getId(),
+                Action.Status.FINISHED);
         if (totalGroup == 0) {
             // in case e.g. targets has been deleted we don't have any actions
             // left for this group, so the group is finished
@@ -664,4 +1206,11 @@ public class JpaRolloutManagement implements RolloutManagement {
         return ((float) finished / (float) totalGroup) * 100;
     }
 
+    /**
+     * Stops a step of a job which has been taken over by another instance,
+     * the step is rolled back.
+     */
+    private static final class JobTakenOverException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
 }
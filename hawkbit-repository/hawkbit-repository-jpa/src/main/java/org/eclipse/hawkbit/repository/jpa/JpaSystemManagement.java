@@ -18,8 +18,10 @@ import org.eclipse.hawkbit.cache.TenancyCacheManager;
 import org.eclipse.hawkbit.repository.Constants;
 import org.eclipse.hawkbit.repository.SystemManagement;
 import org.eclipse.hawkbit.repository.TenantStatsManagement;
+import org.eclipse.hawkbit.repository.eventbus.event.TenantConfigurationChangedEvent;
 import org.eclipse.hawkbit.repository.exception.EntityNotFoundException;
 import org.eclipse.hawkbit.repository.jpa.configuration.MultiTenantJpaTransactionManager;
+import org.eclipse.hawkbit.repository.jpa.executor.AfterTransactionCommitExecutor;
 import org.eclipse.hawkbit.repository.jpa.model.JpaDistributionSetType;
 import org.eclipse.hawkbit.repository.jpa.model.JpaSoftwareModuleType;
 import org.eclipse.hawkbit.repository.jpa.model.JpaTenantMetaData;
@@ -43,6 +45,8 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
+import com.google.common.eventbus.EventBus;
+
 /**
  * JPA implementation of {@link SystemManagement}.
  *
@@ -107,6 +111,15 @@ public class JpaSystemManagement implements CurrentTenantCacheKeyGenerator, Syst
     @Autowired
     private TenancyCacheManager cacheManager;
 
+    @Autowired
+    private TenantConfigurationSnapshotCache tenantConfigurationSnapshotCache;
+
+    @Autowired
+    private AfterTransactionCommitExecutor afterCommit;
+
+    @Autowired
+    private EventBus eventBus;
+
     @Autowired
     private SystemManagementCacheKeyGenerator currentTenantCacheKeyGenerator;
 
@@ -235,6 +248,10 @@ public class JpaSystemManagement implements CurrentTenantCacheKeyGenerator, Syst
             softwareModuleTypeRepository.deleteByTenantIgnoreCase(tenant);
             return null;
         });
+        afterCommit.afterCommit(() -> {
+            tenantConfigurationSnapshotCache.evict(tenant);
+            eventBus.post(new TenantConfigurationChangedEvent(tenant, null));
+        });
     }
 
     @Override
@@ -45,6 +45,7 @@ import org.eclipse.hawkbit.repository.jpa.rsql.RSQLUtility;
 import org.eclipse.hawkbit.repository.jpa.specifications.SpecificationsBuilder;
 import org.eclipse.hawkbit.repository.jpa.specifications.TargetSpecifications;
 import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetDeletion;
 import org.eclipse.hawkbit.repository.model.TargetFilterQuery;
 import org.eclipse.hawkbit.repository.model.TargetIdName;
 import org.eclipse.hawkbit.repository.model.TargetTag;
@@ -103,6 +104,12 @@ public class JpaTargetManagement implements TargetManagement {
     @Autowired
     private AfterTransactionCommitExecutor afterCommit;
 
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
+    @Autowired
+    private TargetBulkDeleter targetBulkDeleter;
+
     @Override
     public Target findTargetByControllerID(final String controllerId) {
         return targetRepository.findByControllerId(controllerId);
@@ -209,6 +216,8 @@ public class JpaTargetManagement implements TargetManagement {
         final List<Long> targetsForCurrentTenant = targetRepository.findAll(Lists.newArrayList(targetIDs)).stream()
                 .map(Target::getId).collect(Collectors.toList());
         if (!targetsForCurrentTenant.isEmpty()) {
+            // the actions are deleted by the database
+            rolloutGroupStatusCounter.decrementByTargetIds(targetsForCurrentTenant);
             targetInfoRepository.deleteByTargetIdIn(targetsForCurrentTenant);
             targetRepository.deleteByIdIn(targetsForCurrentTenant);
         }
@@ -216,6 +225,16 @@ public class JpaTargetManagement implements TargetManagement {
                 .forEach(targetId -> eventBus.post(new TargetDeletedEvent(tenantAware.getCurrentTenant(), targetId)));
     }
 
+    @Override
+    public TargetDeletion deleteTargetsAsync(final Collection<Long> targetIDs) {
+        return targetBulkDeleter.delete(targetIDs);
+    }
+
+    @Override
+    public TargetDeletion findTargetDeletion(final String deletionId) {
+        return targetBulkDeleter.find(deletionId);
+    }
+
     @Override
     public Page<Target> findTargetByAssignedDistributionSet(final Long distributionSetID, final Pageable pageReq) {
         return targetRepository.findByAssignedDistributionSetId(pageReq, distributionSetID);
@@ -9,14 +9,15 @@
 package org.eclipse.hawkbit.repository.jpa;
 
 import org.eclipse.hawkbit.repository.TenantConfigurationManagement;
+import org.eclipse.hawkbit.repository.eventbus.event.TenantConfigurationChangedEvent;
+import org.eclipse.hawkbit.repository.jpa.executor.AfterTransactionCommitExecutor;
 import org.eclipse.hawkbit.repository.jpa.model.JpaTenantConfiguration;
 import org.eclipse.hawkbit.repository.model.TenantConfiguration;
 import org.eclipse.hawkbit.repository.model.TenantConfigurationValue;
+import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
 import org.eclipse.hawkbit.tenancy.configuration.validator.TenantConfigurationValidatorException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.core.convert.support.ConfigurableConversionService;
@@ -27,6 +28,8 @@ import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import com.google.common.eventbus.EventBus;
+
 /**
  * Central tenant configuration management operations of the SP server.
  */
@@ -40,18 +43,29 @@ public class JpaTenantConfigurationManagement implements EnvironmentAware, Tenan
     @Autowired
     private ApplicationContext applicationContext;
 
+    @Autowired
+    private TenantConfigurationSnapshotCache snapshotCache;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private AfterTransactionCommitExecutor afterCommit;
+
+    @Autowired
+    private EventBus eventBus;
+
     private static final ConfigurableConversionService conversionService = new DefaultConversionService();
 
     private Environment environment;
 
     @Override
-    @Cacheable(value = "tenantConfiguration", key = "#configurationKey.getKeyName()")
     public <T> TenantConfigurationValue<T> getConfigurationValue(final TenantConfigurationKey configurationKey,
             final Class<T> propertyType) {
         validateTenantConfigurationDataType(configurationKey, propertyType);
 
-        final TenantConfiguration tenantConfiguration = tenantConfigurationRepository
-                .findByKey(configurationKey.getKeyName());
+        final TenantConfiguration tenantConfiguration = snapshotCache.getConfigurations()
+                .get(configurationKey.getKeyName());
 
         return buildTenantConfigurationValueByKey(configurationKey, propertyType, tenantConfiguration);
     }
@@ -119,7 +133,6 @@ public class JpaTenantConfigurationManagement implements EnvironmentAware, Tenan
     }
 
     @Override
-    @CacheEvict(value = "tenantConfiguration", key = "#configurationKey.getKeyName()")
     @Transactional(isolation = Isolation.READ_UNCOMMITTED)
     @Modifying
     public <T> TenantConfigurationValue<T> addOrUpdateConfiguration(final TenantConfigurationKey configurationKey,
@@ -144,6 +157,7 @@ public class JpaTenantConfigurationManagement implements EnvironmentAware, Tenan
 
         final JpaTenantConfiguration updatedTenantConfiguration = tenantConfigurationRepository
                 .save(tenantConfiguration);
+        notifyConfigurationChanged(configurationKey);
 
         @SuppressWarnings("unchecked")
         final Class<T> clazzT = (Class<T>) value.getClass();
@@ -156,11 +170,23 @@ public class JpaTenantConfigurationManagement implements EnvironmentAware, Tenan
     }
 
     @Override
-    @CacheEvict(value = "tenantConfiguration", key = "#configurationKey.getKeyName()")
     @Transactional(isolation = Isolation.READ_UNCOMMITTED)
     @Modifying
     public void deleteConfiguration(final TenantConfigurationKey configurationKey) {
         tenantConfigurationRepository.deleteByKey(configurationKey.getKeyName());
+        notifyConfigurationChanged(configurationKey);
+    }
+
+    /**
+     * Drops the configuration snapshot of the current tenant on this node
+     * after the commit and notifies the other nodes of the cluster.
+     */
+    private void notifyConfigurationChanged(final TenantConfigurationKey configurationKey) {
+        final String tenant = tenantAware.getCurrentTenant();
+        afterCommit.afterCommit(() -> {
+            snapshotCache.evict(tenant);
+            eventBus.post(new TenantConfigurationChangedEvent(tenant, configurationKey.getKeyName()));
+        });
     }
 
     @Override
@@ -8,11 +8,13 @@
  */
 package org.eclipse.hawkbit.repository.jpa;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.hawkbit.repository.jpa.model.JpaRollout;
 import org.eclipse.hawkbit.repository.jpa.model.JpaRolloutGroup;
 import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
 import org.eclipse.hawkbit.repository.model.RolloutGroup;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupStatus;
 import org.springframework.data.domain.Page;
@@ -131,4 +133,28 @@ public interface RolloutGroupRepository
      */
     Page<JpaRolloutGroup> findByRolloutId(final Long rolloutId, Pageable page);
 
+    /**
+     * Retrieves the {@link RolloutGroup}s with the given IDs which are in the
+     * given status.
+     *
+     * @param rolloutGroupIds
+     *            the IDs of the rollout groups
+     * @param status
+     *            the status of the rollout groups
+     * @return the found {@link RolloutGroup}s ordered by their ID
+     */
+    List<JpaRolloutGroup> findByIdInAndStatusOrderByIdAsc(final Collection<Long> rolloutGroupIds,
+            final RolloutGroupStatus status);
+
+    /**
+     * Retrieves the IDs of the {@link RolloutGroup}s of the rollouts in the
+     * given status.
+     *
+     * @param rolloutStatus
+     *            the status of the rollouts
+     * @return the IDs of the rollout groups
+     */
+    @Query("SELECT g.id FROM JpaRolloutGroup g WHERE g.rollout.status IN :rolloutStatus")
+    List<Long> findIdsByRolloutStatusIn(@Param("rolloutStatus") Collection<RolloutStatus> rolloutStatus);
+
 }
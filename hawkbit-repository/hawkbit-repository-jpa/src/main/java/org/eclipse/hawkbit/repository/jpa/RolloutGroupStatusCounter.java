@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.eclipse.hawkbit.repository.jpa.configuration.Constants;
+import org.eclipse.hawkbit.repository.jpa.model.RolloutGroupStatusCountListener;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.RolloutGroup;
+import org.eclipse.hawkbit.repository.model.TotalTargetCountActionStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Reads and maintains the materialized counters of the {@link Action}s per
+ * {@link RolloutGroup} and {@link Action.Status} in the table
+ * {@value #TABLE}, so the status of rollouts and rollout groups is known
+ * without counting their actions. The counters of a rollout are the sums of
+ * the counters of its groups.
+ *
+ * The counters are updated by the {@link RolloutGroupStatusCountListener}
+ * within the transaction which inserts an action or changes its status
+ * through JPA. Every counter is split into
+ * {@link RolloutGroupStatusCountListener#SHARDS} rows which are summed up on
+ * read. Code which inserts, changes or deletes actions with JDBC or bulk
+ * statements has to {@link #increment(Long, Status, long)} the counters of the
+ * affected groups on its own, e.g. with {@link #decrementByTargetIds(Collection)}
+ * before it deletes the actions.
+ */
+@Service
+public class RolloutGroupStatusCounter {
+
+    static final String TABLE = "sp_rolloutgroup_status_count";
+
+    private static final String COUNT_BY_ROLLOUT = "SELECT g.rollout, c.status, SUM(c.action_count) FROM " + TABLE
+            + " c INNER JOIN sp_rolloutgroup g ON g.id = c.rolloutgroup WHERE g.rollout IN (%s) GROUP BY g.rollout, c.status HAVING SUM(c.action_count) > 0";
+
+    private static final String COUNT_BY_ROLLOUTGROUP = "SELECT c.rolloutgroup, c.status, SUM(c.action_count) FROM "
+            + TABLE
+            + " c WHERE c.rolloutgroup IN (%s) GROUP BY c.rolloutgroup, c.status HAVING SUM(c.action_count) > 0";
+
+    private static final String COUNT_BY_ROLLOUTGROUP_AND_STATUS = "SELECT SUM(c.action_count) FROM " + TABLE
+            + " c WHERE c.rolloutgroup = ?1 AND c.status IN (%s)";
+
+    private static final String COUNT_ACTIONS_BY_TARGET = "SELECT a.rolloutgroup, a.status, COUNT(*) FROM sp_action a"
+            + " WHERE a.target IN (%s) AND a.rolloutgroup IS NOT NULL GROUP BY a.rolloutgroup, a.status";
+
+    private static final String COUNT_ACTIONS_BY_ID = "SELECT a.rolloutgroup, a.status, COUNT(*) FROM sp_action a"
+            + " WHERE a.id IN (%s) AND a.rolloutgroup IS NOT NULL GROUP BY a.rolloutgroup, a.status";
+
+    private static final String INCREMENT = "UPDATE " + TABLE
+            + " SET action_count = action_count + ?1 WHERE rolloutgroup = ?2 AND status = ?3 AND shard = ?4";
+
+    // the actions are counted into the first shard of a counter
+    private static final String RECONCILE = "UPDATE " + TABLE
+            + " SET action_count = CASE WHEN shard = 0 THEN (SELECT COUNT(*) FROM sp_action a WHERE a.rolloutgroup = "
+            + TABLE + ".rolloutgroup AND a.status = " + TABLE + ".status) ELSE 0 END WHERE rolloutgroup IN (%s)";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Creates the counters of a new rollout group, which has no actions yet.
+     *
+     * @param rolloutGroupId
+     *            the ID of the rollout group
+     */
+    public void createCounters(final Long rolloutGroupId) {
+        final Status[] statuses = Status.values();
+        final int rows = statuses.length * RolloutGroupStatusCountListener.SHARDS;
+        final String values = IntStream.range(0, rows)
+                .mapToObj(i -> "(?" + (3 * i + 1) + ", ?" + (3 * i + 2) + ", ?" + (3 * i + 3) + ", 0)")
+                .collect(Collectors.joining(", "));
+        final Query query = entityManager.createNativeQuery(
+                "INSERT INTO " + TABLE + " (rolloutgroup, status, shard, action_count) VALUES " + values);
+        for (int i = 0; i < rows; i++) {
+            query.setParameter(3 * i + 1, rolloutGroupId);
+            query.setParameter(3 * i + 2, statuses[i / RolloutGroupStatusCountListener.SHARDS].ordinal());
+            query.setParameter(3 * i + 3, i % RolloutGroupStatusCountListener.SHARDS);
+        }
+        query.executeUpdate();
+    }
+
+    /**
+     * Adds the given delta to the counter of a rollout group and status.
+     *
+     * @param rolloutGroupId
+     *            the ID of the rollout group
+     * @param status
+     *            the status of the actions
+     * @param delta
+     *            number of actions which got the status, negative if actions
+     *            left the status
+     */
+    public void increment(final Long rolloutGroupId, final Status status, final long delta) {
+        entityManager.createNativeQuery(INCREMENT).setParameter(1, delta).setParameter(2, rolloutGroupId)
+                .setParameter(3, status.ordinal())
+                .setParameter(4, ThreadLocalRandom.current().nextInt(RolloutGroupStatusCountListener.SHARDS))
+                .executeUpdate();
+    }
+
+    /**
+     * Subtracts the actions of the given targets from the counters of their
+     * groups, before the actions are deleted in bulk.
+     *
+     * @param targetIds
+     *            the IDs of the targets
+     */
+    public void decrementByTargetIds(final Collection<Long> targetIds) {
+        count(COUNT_ACTIONS_BY_TARGET, targetIds)
+                .forEach(count -> increment(count.getId(), count.getStatus(), -count.getCount()));
+    }
+
+    /**
+     * Subtracts the given actions from the counters of their groups, before
+     * the actions are deleted in bulk.
+     *
+     * @param actionIds
+     *            the IDs of the actions
+     */
+    public void decrementByActionIds(final Collection<Long> actionIds) {
+        count(COUNT_ACTIONS_BY_ID, actionIds)
+                .forEach(count -> increment(count.getId(), count.getStatus(), -count.getCount()));
+    }
+
+    /**
+     * Moves the actions of the given targets in one status to another status
+     * in the counters of their groups, before the status of the actions is
+     * changed in bulk.
+     *
+     * @param targetIds
+     *            the IDs of the targets
+     * @param from
+     *            the current status of the actions
+     * @param to
+     *            the new status of the actions
+     */
+    public void moveByTargetIds(final Collection<Long> targetIds, final Status from, final Status to) {
+        count(COUNT_ACTIONS_BY_TARGET, targetIds).stream().filter(count -> count.getStatus() == from)
+                .forEach(count -> {
+                    increment(count.getId(), from, -count.getCount());
+                    increment(count.getId(), to, count.getCount());
+                });
+    }
+
+    /**
+     * Recounts all actions of the given rollout groups, which repairs counters
+     * which drifted.
+     *
+     * @param rolloutGroupIds
+     *            the IDs of the rollout groups
+     */
+    public void reconcile(final Collection<Long> rolloutGroupIds) {
+        Lists.partition(new ArrayList<>(rolloutGroupIds), Constants.MAX_ENTRIES_IN_STATEMENT)
+                .forEach(ids -> createNativeQuery(RECONCILE, ids, 0).executeUpdate());
+    }
+
+    /**
+     * Counts the actions of the given rollouts per status.
+     *
+     * @param rolloutIds
+     *            the IDs of the rollouts
+     * @return the number of actions per rollout and status, statuses without
+     *         actions are omitted
+     */
+    public List<TotalTargetCountActionStatus> countByRolloutIds(final Collection<Long> rolloutIds) {
+        return count(COUNT_BY_ROLLOUT, rolloutIds);
+    }
+
+    /**
+     * Counts the actions of the given rollout groups per status.
+     *
+     * @param rolloutGroupIds
+     *            the IDs of the rollout groups
+     * @return the number of actions per rollout group and status, statuses
+     *         without actions are omitted
+     */
+    public List<TotalTargetCountActionStatus> countByRolloutGroupIds(final Collection<Long> rolloutGroupIds) {
+        return count(COUNT_BY_ROLLOUTGROUP, rolloutGroupIds);
+    }
+
+    /**
+     * Counts the actions of a rollout group in the given statuses.
+     *
+     * @param rolloutGroupId
+     *            the ID of the rollout group
+     * @param statuses
+     *            the statuses of the actions to count
+     * @return the number of actions of the group in one of the statuses
+     */
+    public long countByRolloutGroupIdAndStatus(final Long rolloutGroupId, final Status... statuses) {
+        final Object count = createNativeQuery(COUNT_BY_ROLLOUTGROUP_AND_STATUS,
+                Arrays.stream(statuses).map(Status::ordinal).collect(Collectors.toList()), 1)
+                        .setParameter(1, rolloutGroupId).getSingleResult();
+        return count != null ? ((Number) count).longValue() : 0;
+    }
+
+    /**
+     * Counts all actions of a rollout group.
+     *
+     * @param rolloutGroupId
+     *            the ID of the rollout group
+     * @return the number of actions of the group
+     */
+    public long countByRolloutGroupId(final Long rolloutGroupId) {
+        return countByRolloutGroupIdAndStatus(rolloutGroupId, Status.values());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TotalTargetCountActionStatus> count(final String sql, final Collection<Long> ids) {
+        final List<TotalTargetCountActionStatus> result = new ArrayList<>();
+        for (final List<Long> partition : Lists.partition(new ArrayList<>(ids), Constants.MAX_ENTRIES_IN_STATEMENT)) {
+            final List<Object[]> rows = createNativeQuery(sql, partition, 0).getResultList();
+            rows.forEach(row -> result.add(new TotalTargetCountActionStatus(((Number) row[0]).longValue(),
+                    Status.values()[((Number) row[1]).intValue()], ((Number) row[2]).longValue())));
+        }
+        return result;
+    }
+
+    /**
+     * Creates a native query of the given SQL whose <code>%s</code> is
+     * replaced by the positional parameters of the given values, starting
+     * after the given number of other parameters.
+     */
+    private Query createNativeQuery(final String sql, final List<?> values, final int offset) {
+        final String parameters = IntStream.rangeClosed(offset + 1, offset + values.size()).mapToObj(i -> "?" + i)
+                .collect(Collectors.joining(", "));
+        final Query query = entityManager.createNativeQuery(String.format(sql, parameters));
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter(offset + i + 1, values.get(i));
+        }
+        return query;
+    }
+}
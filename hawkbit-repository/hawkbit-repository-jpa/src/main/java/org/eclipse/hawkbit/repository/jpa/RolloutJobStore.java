@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the asynchronous creation and start of {@link Rollout}s as jobs in
+ * the table <code>sp_rollout_job</code>, so an interrupted job is resumed
+ * by any instance of the cluster instead of being failed.
+ *
+ * A job is owned by the instance which executes it and is moved forward in
+ * chunks. The checkpoint of a chunk, i.e. the last rollout group and target
+ * which have been written, is stored within the transaction of the chunk and
+ * renews the heartbeat of the job. A chunk which takes longer, e.g. a large
+ * rollout group, renews the heartbeat with {@link #heartbeat(Long)} in
+ * between. A job whose heartbeat is older than the
+ * configured timeout is taken over by another instance, the former owner
+ * detects the take over with its next checkpoint and stops.
+ *
+ * The phase of a job is the {@link RolloutStatus#CREATING} or
+ * {@link RolloutStatus#STARTING} of its rollout.
+ */
+@Service
+public class RolloutJobStore {
+
+    private static final String INSERT = "INSERT INTO sp_rollout_job (rollout, owner, heartbeat, checkpoint_group, checkpoint_target) VALUES (?1, ?2, ?3, ?4, ?5)";
+
+    private static final String CHECKPOINT = "UPDATE sp_rollout_job SET heartbeat = ?1, checkpoint_group = ?2, checkpoint_target = ?3 WHERE rollout = ?4 AND owner = ?5";
+
+    private static final String HEARTBEAT = "UPDATE sp_rollout_job SET heartbeat = ?1 WHERE rollout = ?2 AND owner = ?3";
+
+    private static final String TAKE_OVER = "UPDATE sp_rollout_job SET owner = ?1, heartbeat = ?2 WHERE rollout = ?3 AND heartbeat < ?4";
+
+    private static final String FIND_CHECKPOINT = "SELECT checkpoint_group, checkpoint_target FROM sp_rollout_job WHERE rollout = ?1";
+
+    private static final String DELETE = "DELETE FROM sp_rollout_job WHERE rollout = ?1 AND owner = ?2";
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Creates the job of a rollout owned by this instance.
+     *
+     * @param rolloutId
+     *            the ID of the rollout
+     * @param checkpoint
+     *            the initial checkpoint of the job
+     */
+    public void create(final Long rolloutId, final Checkpoint checkpoint) {
+        entityManager.createNativeQuery(INSERT).setParameter(1, rolloutId).setParameter(2, owner)
+                .setParameter(3, System.currentTimeMillis()).setParameter(4, checkpoint.getRolloutGroupId())
+                .setParameter(5, checkpoint.getTargetId()).executeUpdate();
+    }
+
+    /**
+     * Stores the checkpoint of a job owned by this instance and renews its
+     * heartbeat.
+     *
+     * @param rolloutId
+     *            the ID of the rollout
+     * @param checkpoint
+     *            the checkpoint reached by the current transaction
+     * @return <code>true</code> if the checkpoint has been stored,
+     *         <code>false</code> if the job has been taken over by another
+     *         instance or has been removed
+     */
+    public boolean checkpoint(final Long rolloutId, final Checkpoint checkpoint) {
+        return entityManager.createNativeQuery(CHECKPOINT).setParameter(1, System.currentTimeMillis())
+                .setParameter(2, checkpoint.getRolloutGroupId()).setParameter(3, checkpoint.getTargetId())
+                .setParameter(4, rolloutId).setParameter(5, owner).executeUpdate() > 0;
+    }
+
+    /**
+     * Renews the heartbeat of a job owned by this instance without moving its
+     * checkpoint. Has to be called in a transaction of its own, so the other
+     * instances see the heartbeat before the chunk is committed.
+     *
+     * @param rolloutId
+     *            the ID of the rollout
+     * @return <code>true</code> if the heartbeat has been renewed,
+     *         <code>false</code> if the job has been taken over by another
+     *         instance or has been removed
+     */
+    public boolean heartbeat(final Long rolloutId) {
+        return entityManager.createNativeQuery(HEARTBEAT).setParameter(1, System.currentTimeMillis())
+                .setParameter(2, rolloutId).setParameter(3, owner).executeUpdate() > 0;
+    }
+
+    /**
+     * Takes over the job of a rollout if its heartbeat has timed out.
+     *
+     * @param rolloutId
+     *            the ID of the rollout
+     * @param timeout
+     *            time in milliseconds after the last heartbeat after which
+     *            the job is considered as interrupted
+     * @return the checkpoint to resume the job from or <code>null</code> if
+     *         the job is alive or does not exist
+     */
+    public Checkpoint takeOver(final Long rolloutId, final long timeout) {
+        final long now = System.currentTimeMillis();
+        if (entityManager.createNativeQuery(TAKE_OVER).setParameter(1, owner).setParameter(2, now)
+                .setParameter(3, rolloutId).setParameter(4, now - timeout).executeUpdate() == 0) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<Object[]> rows = entityManager.createNativeQuery(FIND_CHECKPOINT).setParameter(1, rolloutId)
+                .getResultList();
+        final Object[] row = rows.get(0);
+        return new Checkpoint(row[0] == null ? null : ((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+    }
+
+    /**
+     * Removes the job of a rollout owned by this instance, e.g. when it is
+     * completed or failed.
+     *
+     * @param rolloutId
+     *            the ID of the rollout
+     * @return <code>true</code> if the job has been removed,
+     *         <code>false</code> if the job has been taken over by another
+     *         instance or has been removed before
+     */
+    public boolean delete(final Long rolloutId) {
+        return entityManager.createNativeQuery(DELETE).setParameter(1, rolloutId).setParameter(2, owner)
+                .executeUpdate() > 0;
+    }
+
+    /**
+     * Position of a job, the last rollout group and the last target of this
+     * group which have been written.
+     */
+    public static final class Checkpoint {
+        private final Long rolloutGroupId;
+        private final long targetId;
+
+        /**
+         * @param rolloutGroupId
+         *            the ID of the last written rollout group or
+         *            <code>null</code> if the job has not written any group
+         *            yet
+         * @param targetId
+         *            the ID of the last written target of the group or
+         *            <code>0</code> if the group has no written targets yet
+         */
+        public Checkpoint(final Long rolloutGroupId, final long targetId) {
+            this.rolloutGroupId = rolloutGroupId;
+            this.targetId = targetId;
+        }
+
+        public Long getRolloutGroupId() {
+            return rolloutGroupId;
+        }
+
+        public long getTargetId() {
+            return targetId;
+        }
+    }
+}
@@ -48,6 +48,29 @@ public interface RolloutRepository
     int updateLastCheck(@Param("lastCheck") final long lastCheck, @Param("delay") final long delay,
             @Param("status") final RolloutStatus status);
 
+    /**
+     * Updates the {@code lastCheck} field of a single {@link Rollout} in a
+     * specific status and only if the {@code lastCheck} is overdue, e.g. to
+     * take over a rollout from another instance.
+     *
+     * @param rolloutId
+     *            the ID of the rollout to update
+     * @param lastCheck
+     *            the time in milliseconds to set to the lastCheck column
+     * @param delay
+     *            the delay after which the lastCheck is overdue
+     * @param status
+     *            the status which the rollout should have to update the last
+     *            check field
+     * @return <code>1</code> if the rollout has been updated, otherwise
+     *         <code>0</code>
+     */
+    @Modifying
+    @Transactional(isolation = Isolation.READ_UNCOMMITTED)
+    @Query("UPDATE JpaRollout r SET r.lastCheck = :lastCheck WHERE r.id = :rolloutId AND r.lastCheck < (:lastCheck - :delay) AND r.status=:status")
+    int updateLastCheck(@Param("rolloutId") final Long rolloutId, @Param("lastCheck") final long lastCheck,
+            @Param("delay") final long delay, @Param("status") final RolloutStatus status);
+
     /**
      * Retrieves all {@link Rollout} for a specific {@code lastCheck} time and
      * for a specific status.
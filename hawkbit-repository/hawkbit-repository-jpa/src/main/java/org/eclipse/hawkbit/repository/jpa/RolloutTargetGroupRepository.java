@@ -8,10 +8,16 @@
  */
 package org.eclipse.hawkbit.repository.jpa;
 
+import java.util.List;
+
 import org.eclipse.hawkbit.repository.jpa.model.RolloutTargetGroup;
 import org.eclipse.hawkbit.repository.jpa.model.RolloutTargetGroupId;
+import org.eclipse.hawkbit.repository.model.RolloutGroup;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,4 +28,22 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional(readOnly = true, isolation = Isolation.READ_UNCOMMITTED)
 public interface RolloutTargetGroupRepository
         extends CrudRepository<RolloutTargetGroup, RolloutTargetGroupId>, JpaSpecificationExecutor<RolloutTargetGroup> {
+
+    /**
+     * Retrieves the IDs of the targets of a rollout group in ascending order
+     * after the given target ID, so the targets can be processed in chunks
+     * without offset.
+     *
+     * @param rolloutGroup
+     *            the rollout group
+     * @param lastTargetId
+     *            the ID of the last target of the previous chunk or
+     *            <code>0</code> for the first chunk
+     * @param pageable
+     *            the size of the chunk
+     * @return the target IDs of the chunk
+     */
+    @Query("SELECT t.target.id FROM RolloutTargetGroup t WHERE t.rolloutGroup = :rolloutGroup AND t.target.id > :lastTargetId ORDER BY t.target.id")
+    List<Long> findTargetIdsByRolloutGroup(@Param("rolloutGroup") RolloutGroup rolloutGroup,
+            @Param("lastTargetId") Long lastTargetId, Pageable pageable);
 }
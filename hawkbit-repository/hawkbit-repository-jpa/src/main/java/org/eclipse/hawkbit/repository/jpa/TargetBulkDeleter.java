@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetDeletedEvent;
+import org.eclipse.hawkbit.repository.jpa.configuration.Constants;
+import org.eclipse.hawkbit.repository.jpa.executor.AfterTransactionCommitExecutor;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetDeletion;
+import org.eclipse.hawkbit.repository.model.TargetDeletion.Status;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.concurrent.DelegatingSecurityContextScheduledExecutorService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Deletes {@link Target}s asynchronously in chunks of
+ * {@link RepositoryProperties#getTargetDeletionChunkSize()}, every chunk in
+ * its own transaction and with a pause of
+ * {@link RepositoryProperties#getTargetDeletionPause()} in between. The
+ * dependent rows are deleted explicitly from the children to the parents
+ * instead of by the cascades of the database, so every statement of a chunk
+ * touches a bounded number of rows. The chunks are executed on an own
+ * executor, the next chunk is scheduled after the pause instead of blocking a
+ * thread in between.
+ *
+ * The progress of a deletion is kept in memory of the instance which
+ * executes it for {@value #PROGRESS_TTL_HOURS} hour after its last change.
+ */
+@Service
+public class TargetBulkDeleter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TargetBulkDeleter.class);
+
+    private static final int PROGRESS_TTL_HOURS = 1;
+
+    private static final String DELETE_ACTION_STATUS_MESSAGES = "DELETE FROM sp_action_status_messages WHERE action_status_id IN"
+            + " (SELECT s.id FROM sp_action_status s INNER JOIN sp_action a ON a.id = s.action WHERE a.target IN (%s))";
+
+    private static final String DELETE_ACTION_STATUS = "DELETE FROM sp_action_status WHERE action IN"
+            + " (SELECT a.id FROM sp_action a WHERE a.target IN (%s))";
+
+    private static final String DELETE_ACTIONS = "DELETE FROM sp_action WHERE target IN (%s)";
+
+    private static final String DELETE_TARGET_ATTRIBUTES = "DELETE FROM sp_target_attributes WHERE target_id IN (%s)";
+
+    private static final String DELETE_TARGET_TAGS = "DELETE FROM sp_target_target_tag WHERE target IN (%s)";
+
+    private static final String DELETE_ROLLOUT_TARGET_GROUPS = "DELETE FROM sp_rollouttargetgroup WHERE target_id IN (%s)";
+
+    private final Cache<String, Progress> deletions = CacheBuilder.newBuilder()
+            .expireAfterAccess(PROGRESS_TTL_HOURS, TimeUnit.HOURS).build();
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TargetRepository targetRepository;
+
+    @Autowired
+    private TargetInfoRepository targetInfoRepository;
+
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    private AfterTransactionCommitExecutor afterCommit;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    /**
+     * Runs the chunks of the deletions in the security context of the tenant
+     * which started them.
+     */
+    private final ScheduledExecutorService executor = new DelegatingSecurityContextScheduledExecutorService(
+            Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("target-deletion-%d").setDaemon(true).build()));
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts the deletion of the given targets of the current tenant on the
+     * executor.
+     *
+     * @param targetIds
+     *            the IDs of the targets to delete
+     * @return the progress of the deletion
+     */
+    public TargetDeletion delete(final Collection<Long> targetIds) {
+        final List<Long> ids = new ArrayList<>(new LinkedHashSet<>(targetIds));
+        final Progress progress = new Progress(UUID.randomUUID().toString(), ids.size());
+        deletions.put(key(progress.id), progress);
+
+        final List<List<Long>> chunks = Lists.partition(ids,
+                Math.min(repositoryProperties.getTargetDeletionChunkSize(), Constants.MAX_ENTRIES_IN_STATEMENT));
+        executor.execute(() -> deleteChunks(progress, chunks, 0));
+
+        return progress.toTargetDeletion();
+    }
+
+    private void deleteChunks(final Progress progress, final List<List<Long>> chunks, final int index) {
+        try {
+            if (index < chunks.size()) {
+                final List<Long> chunk = chunks.get(index);
+                progress.deleted.addAndGet(runInNewTransaction(status -> deleteChunk(chunk)));
+                progress.lastModifiedAt = System.currentTimeMillis();
+            }
+            if (index + 1 < chunks.size()) {
+                executor.schedule(() -> deleteChunks(progress, chunks, index + 1),
+                        repositoryProperties.getTargetDeletionPause(), TimeUnit.MILLISECONDS);
+                return;
+            }
+            progress.finish(Status.FINISHED);
+            LOGGER.debug("Deleted {} of {} targets", progress.deleted.get(), progress.total);
+        } catch (final RuntimeException e) {
+            LOGGER.error("Failed to delete targets after {} of {} targets", progress.deleted.get(), progress.total,
+                    e);
+            progress.finish(Status.FAILED);
+        }
+    }
+
+    /**
+     * @param deletionId
+     *            the ID of the deletion
+     * @return the progress of the deletion of the current tenant or
+     *         <code>null</code> if it is unknown
+     */
+    public TargetDeletion find(final String deletionId) {
+        final Progress progress = deletions.getIfPresent(key(deletionId));
+        return progress != null ? progress.toTargetDeletion() : null;
+    }
+
+    private String key(final String deletionId) {
+        return tenantAware.getCurrentTenant() + ":" + deletionId;
+    }
+
+    private int deleteChunk(final List<Long> chunk) {
+        // selecting the targets first ensures that they belong to the tenant,
+        // native statements are not enhanced with the tenant
+        final List<Long> targetIds = targetRepository.findAll(chunk).stream().map(Target::getId)
+                .collect(Collectors.toList());
+        if (targetIds.isEmpty()) {
+            return 0;
+        }
+
+        rolloutGroupStatusCounter.decrementByTargetIds(targetIds);
+        executeNativeUpdate(DELETE_ACTION_STATUS_MESSAGES, targetIds);
+        executeNativeUpdate(DELETE_ACTION_STATUS, targetIds);
+        executeNativeUpdate(DELETE_ACTIONS, targetIds);
+        executeNativeUpdate(DELETE_TARGET_ATTRIBUTES, targetIds);
+        executeNativeUpdate(DELETE_TARGET_TAGS, targetIds);
+        executeNativeUpdate(DELETE_ROLLOUT_TARGET_GROUPS, targetIds);
+        targetInfoRepository.deleteByTargetIdIn(targetIds);
+        targetRepository.deleteByIdIn(targetIds);
+
+        final String tenant = tenantAware.getCurrentTenant();
+        afterCommit.afterCommit(
+                () -> targetIds.forEach(targetId -> eventBus.post(new TargetDeletedEvent(tenant, targetId))));
+        return targetIds.size();
+    }
+
+    private void executeNativeUpdate(final String sql, final List<Long> ids) {
+        final String parameters = IntStream.rangeClosed(1, ids.size()).mapToObj(i -> "?" + i)
+                .collect(Collectors.joining(", "));
+        final Query query = entityManager.createNativeQuery(String.format(sql, parameters));
+        for (int i = 0; i < ids.size(); i++) {
+            query.setParameter(i + 1, ids.get(i));
+        }
+        query.executeUpdate();
+    }
+
+    private <T> T runInNewTransaction(final TransactionCallback<T> action) {
+        final DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName("deleteTargets");
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return new TransactionTemplate(txManager, def).execute(action);
+    }
+
+    private static final class Progress {
+        private final String id;
+        private final long total;
+        private final AtomicLong deleted = new AtomicLong();
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastModifiedAt = createdAt;
+        private volatile Status status = Status.RUNNING;
+
+        private Progress(final String id, final long total) {
+            this.id = id;
+            this.total = total;
+        }
+
+        private void finish(final Status status) {
+            lastModifiedAt = System.currentTimeMillis();
+            this.status = status;
+        }
+
+        private TargetDeletion toTargetDeletion() {
+            return new TargetDeletion(id, status, total, deleted.get(), createdAt, lastModifiedAt);
+        }
+    }
+}
@@ -46,6 +46,38 @@ public interface TargetInfoRepository {
     @Query("update JpaTargetInfo ti set ti.updateStatus = :status where ti.targetId in :targets and ti.updateStatus != :status")
     void setTargetUpdateStatus(@Param("status") TargetUpdateStatus status, @Param("targets") List<Long> targets);
 
+    /**
+     * Sets the last target query of the given targets in one statement if it
+     * is not already newer.
+     *
+     * @param lastTargetQuery
+     *            to set
+     * @param targets
+     *            IDs of the targets to set it for
+     * @return number of updated targets
+     */
+    @Modifying
+    @Transactional(isolation = Isolation.READ_UNCOMMITTED)
+    @CacheEvict(value = { "targetsLastPoll" }, allEntries = true)
+    int setLastTargetQuery(long lastTargetQuery, Collection<Long> targets);
+
+    /**
+     * Sets the last target query and the address of the given target if the
+     * last target query is not already newer.
+     *
+     * @param lastTargetQuery
+     *            to set
+     * @param address
+     *            to set
+     * @param target
+     *            ID of the target to set it for
+     * @return number of updated targets
+     */
+    @Modifying
+    @Transactional(isolation = Isolation.READ_UNCOMMITTED)
+    @CacheEvict(value = { "targetsLastPoll" }, allEntries = true)
+    int setLastTargetQueryAndAddress(long lastTargetQuery, String address, Long target);
+
     /**
      * Save entity and evict cache with it.
      *
@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetInfoUpdateEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetPollEvent;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+
+/**
+ * Collects the polls of the controllers in memory and writes them to the
+ * database in a fixed delay instead of updating the {@link TargetInfo} with
+ * every single poll. Multiple polls of the same target between two flushes are
+ * coalesced into one. The last poll times are written in chunks with one
+ * update statement each, only targets which changed their address are
+ * updated separately. The bulk statements do not trigger a
+ * {@link TargetInfoUpdateEvent}, so a {@link TargetPollEvent} is published
+ * for every written target from the collected poll.
+ *
+ * If the configured
+ * {@link RepositoryProperties#getPollPersistenceQueueSize()} is reached the
+ * caller has to write the poll on its own.
+ */
+@Service
+public class TargetPollAggregator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TargetPollAggregator.class);
+
+    /**
+     * Maximum number of target IDs in the IN clause of one update statement.
+     */
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
+    /**
+     * Resolution in milliseconds of the last poll times which are written
+     * with one update statement. The polls of one period are written with the
+     * oldest poll time of the period.
+     */
+    private static final long POLL_TIME_RESOLUTION = 1000L;
+
+    private final Map<Long, TargetPoll> polls = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TargetInfoRepository targetInfoRepository;
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private SystemSecurityContext systemSecurityContext;
+
+    @Autowired
+    private EventBus eventBus;
+
+    /**
+     * Collects a poll of the given target for the current tenant.
+     *
+     * @param targetInfo
+     *            of the target which polled
+     * @param address
+     *            the client address of the target, might be {@code null}
+     * @param pollTime
+     *            time of the poll
+     * @return <code>true</code> if the poll has been collected or does not
+     *         need to be recorded at all, <code>false</code> if the queue is
+     *         full and the caller has to persist the poll on its own
+     */
+    public boolean offer(final TargetInfo targetInfo, final URI address, final long pollTime) {
+        final URI persistedAddress = targetInfo.getAddress();
+        return offer(targetInfo.getTarget().getId(), persistedAddress != null ? persistedAddress.toString() : null,
+                targetInfo.getLastTargetQuery(), address, pollTime);
+    }
+
+    /**
+     * Collects a poll of the given target for the current tenant based on the
+     * persisted poll state of the target, e.g. taken from a
+     * {@link org.eclipse.hawkbit.repository.model.TargetPollView}.
+     *
+     * @param targetId
+     *            of the target which polled
+     * @param persistedAddress
+     *            the currently persisted address of the target, might be
+     *            {@code null}
+     * @param persistedLastTargetQuery
+     *            the currently persisted last poll time of the target, might
+     *            be {@code null}
+     * @param address
+     *            the client address of the target, might be {@code null}
+     * @param pollTime
+     *            time of the poll
+     * @return <code>true</code> if the poll has been collected or does not
+     *         need to be recorded at all, <code>false</code> if the queue is
+     *         full and the caller has to persist the poll on its own
+     */
+    public boolean offer(final Long targetId, final String persistedAddress, final Long persistedLastTargetQuery,
+            final URI address, final long pollTime) {
+        final String newAddress = address != null ? address.toString() : null;
+        final boolean addressChanged = newAddress != null && !newAddress.equals(persistedAddress);
+
+        if (!addressChanged && isPersistedPollRecentEnough(persistedLastTargetQuery, pollTime)
+                && !polls.containsKey(targetId)) {
+            return true;
+        }
+
+        if (!polls.containsKey(targetId) && polls.size() >= repositoryProperties.getPollPersistenceQueueSize()) {
+            LOG.debug("Poll queue limit of {} reached, target {} has to be updated synchronously",
+                    repositoryProperties.getPollPersistenceQueueSize(), targetId);
+            return false;
+        }
+
+        final TargetPoll poll = new TargetPoll(tenantAware.getCurrentTenant(), targetId, pollTime, newAddress,
+                addressChanged);
+        polls.merge(targetId, poll, TargetPoll::merge);
+        return true;
+    }
+
+    /**
+     * @param lastTargetQuery
+     *            the persisted last poll time of a target, might be
+     *            {@code null}
+     * @param pollTime
+     *            time of the current poll
+     * @return <code>true</code> if the persisted poll time is within the
+     *         configured staleness and the current poll is not recorded
+     */
+    boolean isPersistedPollRecentEnough(final Long lastTargetQuery, final long pollTime) {
+        return lastTargetQuery != null
+                && pollTime - lastTargetQuery < repositoryProperties.getPollPersistenceMaxStaleness();
+    }
+
+    /**
+     * Writes all collected polls to the database. Called by the
+     * spring-scheduling mechanism in the configured
+     * {@link RepositoryProperties#getPollPersistenceFlushTime()}.
+     */
+    @Scheduled(initialDelayString = RepositoryProperties.PROP_POLL_PERSISTENCE_FLUSH_TIME_PLACEHOLDER, fixedDelayString = RepositoryProperties.PROP_POLL_PERSISTENCE_FLUSH_TIME_PLACEHOLDER)
+    public void flush() {
+        if (polls.isEmpty()) {
+            return;
+        }
+
+        final Map<String, List<TargetPoll>> pollsByTenant = new HashMap<>();
+        final Iterator<Long> iterator = polls.keySet().iterator();
+        while (iterator.hasNext()) {
+            final TargetPoll poll = polls.remove(iterator.next());
+            if (poll != null) {
+                pollsByTenant.computeIfAbsent(poll.tenant, tenant -> new ArrayList<>()).add(poll);
+            }
+        }
+
+        pollsByTenant.forEach((tenant, tenantPolls) -> {
+            try {
+                systemSecurityContext.runAsSystemAsTenant(() -> {
+                    persist(tenantPolls);
+                    return null;
+                }, tenant);
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to persist {} target polls of tenant {}", tenantPolls.size(), tenant, e);
+            }
+        });
+    }
+
+    private void persist(final List<TargetPoll> tenantPolls) {
+        LOG.debug("Persisting {} target polls", tenantPolls.size());
+
+        tenantPolls.stream().filter(poll -> poll.addressChanged).forEach(poll -> {
+            targetInfoRepository.setLastTargetQueryAndAddress(poll.lastTargetQuery, poll.address, poll.targetId);
+            publishPollEvent(poll.tenant, poll.targetId, poll.lastTargetQuery, poll.address);
+        });
+
+        // the poll time of a target is never overstated, so the oldest poll
+        // time of a period is written for all targets of the period
+        final Map<Long, List<TargetPoll>> pollsByPeriod = tenantPolls.stream().filter(poll -> !poll.addressChanged)
+                .collect(Collectors.groupingBy(poll -> poll.lastTargetQuery / POLL_TIME_RESOLUTION));
+        for (final List<TargetPoll> periodPolls : pollsByPeriod.values()) {
+            final long lastTargetQuery = periodPolls.stream().mapToLong(poll -> poll.lastTargetQuery).min()
+                    .getAsLong();
+            for (final List<TargetPoll> chunk : Lists.partition(periodPolls, UPDATE_CHUNK_SIZE)) {
+                final List<Long> targetIds = chunk.stream().map(poll -> poll.targetId).collect(Collectors.toList());
+                targetInfoRepository.setLastTargetQuery(lastTargetQuery, targetIds);
+                chunk.forEach(poll -> publishPollEvent(poll.tenant, poll.targetId, lastTargetQuery, null));
+            }
+        }
+    }
+
+    /**
+     * Publishes a {@link TargetPollEvent} for a written poll. Has to be
+     * called after the poll has been committed.
+     *
+     * @param tenant
+     *            of the target
+     * @param targetId
+     *            of the target whose poll has been written
+     * @param lastTargetQuery
+     *            the written poll time
+     * @param address
+     *            the written address or <code>null</code> if it has not
+     *            changed
+     */
+    void publishPollEvent(final String tenant, final Long targetId, final long lastTargetQuery,
+            final String address) {
+        eventBus.post(new TargetPollEvent(tenant, targetId, lastTargetQuery, address));
+    }
+
+    @PreDestroy
+    void destroy() {
+        flush();
+    }
+
+    /**
+     * @return number of targets with polls which have not been persisted yet
+     */
+    public int size() {
+        return polls.size();
+    }
+
+    private static final class TargetPoll {
+        private final String tenant;
+        private final Long targetId;
+        private final long lastTargetQuery;
+        private final String address;
+        private final boolean addressChanged;
+
+        private TargetPoll(final String tenant, final Long targetId, final long lastTargetQuery,
+                final String address, final boolean addressChanged) {
+            this.tenant = tenant;
+            this.targetId = targetId;
+            this.lastTargetQuery = lastTargetQuery;
+            this.address = address;
+            this.addressChanged = addressChanged;
+        }
+
+        private TargetPoll merge(final TargetPoll newer) {
+            return new TargetPoll(tenant, targetId, Math.max(lastTargetQuery, newer.lastTargetQuery),
+                    newer.address != null ? newer.address : address, addressChanged || newer.addressChanged);
+        }
+    }
+}
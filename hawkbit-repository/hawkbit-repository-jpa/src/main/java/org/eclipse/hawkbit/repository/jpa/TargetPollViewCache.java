@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.eventbus.event.AbstractPropertyChangeEvent.PropertyChange;
+import org.eclipse.hawkbit.repository.eventbus.event.ActionCreatedEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.ActionPropertyChangeEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetDeletedEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetInfoUpdateEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetPollViewChangedEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.TenantConfigurationChangedEvent;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.TargetInfo;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * In-memory index of the {@link TargetPollView}s of the polling controllers,
+ * so that a poll of a controller whose deployment state did not change can be
+ * answered without any database query.
+ *
+ * A view is evicted with every event that changes the state served to the
+ * controller, i.e. creation or update of an action, update of the target info
+ * (e.g. controller attributes requested) and deletion of the target. Views
+ * which are loaded concurrently to an eviction are not cached at all. As a
+ * backstop a view is loaded again from the database after
+ * {@link RepositoryProperties#getPollViewCacheTtl()}, even if it has been
+ * updated by polls in between.
+ */
+@EventSubscriber
+@Service
+public class TargetPollViewCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TargetPollViewCache.class);
+
+    /**
+     * Properties of an {@link Action} which are part of a
+     * {@link TargetPollView}.
+     */
+    private static final Collection<String> POLL_VIEW_ACTION_PROPERTIES = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList("active", "status", "actionType", "forcedTime")));
+
+    private Cache<String, Long> targetIds;
+
+    private Cache<Long, CachedView> views;
+
+    /**
+     * Incremented with every eviction to avoid that a view which has been
+     * loaded concurrently to a change is cached.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @PostConstruct
+    void init() {
+        targetIds = CacheBuilder.newBuilder().maximumSize(repositoryProperties.getPollViewCacheSize()).build();
+        views = CacheBuilder.newBuilder().maximumSize(repositoryProperties.getPollViewCacheSize()).build();
+    }
+
+    /**
+     * @param controllerId
+     *            of the target
+     * @return the cached view of the target of the current tenant or
+     *         {@code null} if no view is cached
+     */
+    public TargetPollView get(final String controllerId) {
+        if (!repositoryProperties.isPollViewCache()) {
+            return null;
+        }
+
+        final Long targetId = targetIds.getIfPresent(key(controllerId));
+        final CachedView cached = targetId != null ? views.getIfPresent(targetId) : null;
+        if (cached == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cached.loadedAt > repositoryProperties.getPollViewCacheTtl()) {
+            views.asMap().remove(targetId, cached);
+            return null;
+        }
+        return cached.view;
+    }
+
+    /**
+     * @return the current eviction count which has to be passed to
+     *         {@link #put(TargetPollView, long)} for a view loaded afterwards
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Caches the given view of the current tenant unless a view has been
+     * evicted since the given eviction count has been retrieved.
+     *
+     * @param view
+     *            to cache
+     * @param evictionCountBeforeLoad
+     *            the {@link #getEvictionCount()} before the view has been
+     *            loaded
+     */
+    public void put(final TargetPollView view, final long evictionCountBeforeLoad) {
+        if (!repositoryProperties.isPollViewCache() || evictions.get() != evictionCountBeforeLoad) {
+            return;
+        }
+
+        targetIds.put(key(view.getControllerId()), view.getTargetId());
+        views.put(view.getTargetId(), new CachedView(view, System.currentTimeMillis()));
+    }
+
+    /**
+     * Replaces a cached view after a poll of the target, unless the cached
+     * view has been evicted or replaced since it has been read.
+     *
+     * @param expected
+     *            the view which has been read from the cache
+     * @param view
+     *            the updated view
+     */
+    public void update(final TargetPollView expected, final TargetPollView view) {
+        final Map<Long, CachedView> cachedViews = views.asMap();
+        final CachedView cached = cachedViews.get(view.getTargetId());
+        if (cached != null && cached.view == expected) {
+            // the load time is kept, so polls do not extend the lifetime
+            cachedViews.replace(view.getTargetId(), cached, new CachedView(view, cached.loadedAt));
+        }
+    }
+
+    /**
+     * Drops the cached view of the given target.
+     *
+     * @param targetId
+     *            of the target
+     */
+    public void evict(final Long targetId) {
+        evictions.incrementAndGet();
+        views.invalidate(targetId);
+    }
+
+    /**
+     * Drops all cached views.
+     */
+    public void evictAll() {
+        evictions.incrementAndGet();
+        views.invalidateAll();
+        targetIds.invalidateAll();
+    }
+
+    /**
+     * @return number of cached views
+     */
+    public long size() {
+        return views.size();
+    }
+
+    private String key(final String controllerId) {
+        return tenantAware.getCurrentTenant().toUpperCase() + "|" + controllerId;
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final ActionCreatedEvent event) {
+        evict(event.getEntity().getTarget().getId());
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final ActionPropertyChangeEvent event) {
+        final Map<String, PropertyChange> changeSet = event.getChangeSet();
+        if (changeSet == null || changeSet.keySet().stream().anyMatch(POLL_VIEW_ACTION_PROPERTIES::contains)) {
+            evict(event.getEntity().getTarget().getId());
+        }
+    }
+
+    /**
+     * The {@link TargetInfoUpdateEvent} is not distributed, so the other nodes
+     * are notified with a {@link TargetPollViewChangedEvent}.
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final TargetInfoUpdateEvent event) {
+        final TargetInfo targetInfo = event.getEntity();
+        final Long targetId = targetInfo.getTarget().getId();
+        evict(targetId);
+        eventBus.post(new TargetPollViewChangedEvent(event.getTenant(), targetId));
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final TargetPollViewChangedEvent event) {
+        evict(event.getTargetId());
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final TargetDeletedEvent event) {
+        evict(event.getTargetId());
+    }
+
+    /**
+     * A change of the whole configuration of a tenant, i.e. the deletion of
+     * the tenant, is not reflected by events per target.
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final TenantConfigurationChangedEvent event) {
+        if (event.getKeyName() == null) {
+            LOG.debug("Configuration of tenant {} changed, evicting all poll views", event.getTenant());
+            evictAll();
+        }
+    }
+
+    private static final class CachedView {
+        private final TargetPollView view;
+        private final long loadedAt;
+
+        private CachedView(final TargetPollView view, final long loadedAt) {
+            this.view = view;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
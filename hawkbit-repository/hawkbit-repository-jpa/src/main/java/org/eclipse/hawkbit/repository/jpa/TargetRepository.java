@@ -18,6 +18,7 @@ import org.eclipse.hawkbit.repository.jpa.model.JpaTargetTag;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.Tag;
 import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetIdName;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
 import org.eclipse.hawkbit.repository.model.TargetWithActionStatus;
 import org.springframework.cache.annotation.CacheEvict;
@@ -264,6 +265,28 @@ public interface TargetRepository extends BaseEntityRepository<JpaTarget, Long>,
     @Query("SELECT t FROM JpaTarget t WHERE t.id IN ?1")
     List<JpaTarget> findAll(Iterable<Long> ids);
 
+    /**
+     * Retrieves the controller IDs of the given targets without loading the
+     * targets.
+     *
+     * @param ids
+     *            the IDs of the targets
+     * @return the controller IDs of the found targets
+     */
+    @Query("SELECT t.controllerId FROM JpaTarget t WHERE t.id IN ?1")
+    List<String> findControllerIdsByIdIn(Collection<Long> ids);
+
+    /**
+     * Retrieves the IDs and controller IDs of the given targets without
+     * loading the targets.
+     *
+     * @param ids
+     *            the IDs of the targets
+     * @return the IDs and controller IDs of the found targets
+     */
+    @Query("SELECT NEW org.eclipse.hawkbit.repository.model.TargetIdName(t.id, t.controllerId, t.name) FROM JpaTarget t WHERE t.id IN ?1")
+    List<TargetIdName> findTargetIdNamesByIdIn(Collection<Long> ids);
+
     /**
      * Sets {@link Target#getAssignedDistributionSet()}.
      *
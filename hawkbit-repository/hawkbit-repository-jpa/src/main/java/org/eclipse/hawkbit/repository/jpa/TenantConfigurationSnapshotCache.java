@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.repository.eventbus.event.TenantConfigurationChangedEvent;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTenantConfiguration;
+import org.eclipse.hawkbit.repository.model.TenantConfiguration;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.convert.support.ConfigurableConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Holds a snapshot of all persisted {@link TenantConfiguration}s per tenant in
+ * memory, so that the configuration values which are read with every
+ * controller request (e.g. polling time and authentication modes) do not need
+ * a database query. The snapshot of a tenant is loaded with one query on first
+ * access and dropped with every {@link TenantConfigurationChangedEvent}, which
+ * is distributed to all nodes of the cluster.
+ */
+@EventSubscriber
+@Service
+public class TenantConfigurationSnapshotCache implements EnvironmentAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TenantConfigurationSnapshotCache.class);
+
+    private static final ConfigurableConversionService conversionService = new DefaultConversionService();
+
+    private final Map<String, Map<String, TenantConfiguration>> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented with every eviction to avoid that a snapshot which has been
+     * loaded concurrently to a change is cached.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    private TenantConfigurationRepository tenantConfigurationRepository;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    private Environment environment;
+
+    /**
+     * @return the persisted configurations of the current tenant by key name
+     */
+    public Map<String, TenantConfiguration> getConfigurations() {
+        final String tenant = tenantAware.getCurrentTenant().toUpperCase();
+        final Map<String, TenantConfiguration> snapshot = snapshots.get(tenant);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        final long evictionsBeforeLoad = evictions.get();
+        final Map<String, TenantConfiguration> loaded = new HashMap<>();
+        for (final JpaTenantConfiguration configuration : tenantConfigurationRepository.findAll()) {
+            loaded.put(configuration.getKey(), configuration);
+        }
+        final Map<String, TenantConfiguration> unmodifiable = Collections.unmodifiableMap(loaded);
+
+        if (evictions.get() == evictionsBeforeLoad) {
+            snapshots.putIfAbsent(tenant, unmodifiable);
+        }
+        return unmodifiable;
+    }
+
+    /**
+     * Retrieves the value of the given configuration key for the current
+     * tenant without any permission check. Falls back to the global
+     * configuration in case the tenant has no own value.
+     *
+     * @param configurationKey
+     *            the key
+     * @param propertyType
+     *            the type of the value
+     * @return the configured value
+     */
+    public <T> T getConfigurationValue(final TenantConfigurationKey configurationKey, final Class<T> propertyType) {
+        JpaTenantConfigurationManagement.validateTenantConfigurationDataType(configurationKey, propertyType);
+
+        final TenantConfiguration tenantConfiguration = getConfigurations().get(configurationKey.getKeyName());
+        if (tenantConfiguration != null) {
+            return conversionService.convert(tenantConfiguration.getValue(), propertyType);
+        } else if (configurationKey.getDefaultKeyName() == null) {
+            return null;
+        }
+
+        final T valueInProperties = environment.getProperty(configurationKey.getDefaultKeyName(), propertyType);
+        if (valueInProperties == null) {
+            return conversionService.convert(configurationKey.getDefaultValue(), propertyType);
+        }
+        return valueInProperties;
+    }
+
+    /**
+     * Drops the snapshot of the given tenant.
+     *
+     * @param tenant
+     *            the tenant to evict
+     */
+    public void evict(final String tenant) {
+        evictions.incrementAndGet();
+        snapshots.remove(tenant.toUpperCase());
+    }
+
+    /**
+     * Drops the snapshot of the tenant of the event, independent of the node
+     * the configuration has been changed on.
+     *
+     * @param event
+     *            the change event
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final TenantConfigurationChangedEvent event) {
+        LOG.debug("Configuration {} of tenant {} changed, evicting snapshot", event.getKeyName(), event.getTenant());
+        evict(event.getTenant());
+    }
+
+    @Override
+    public void setEnvironment(final Environment environment) {
+        this.environment = environment;
+    }
+}
@@ -15,6 +15,7 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.ConstraintMode;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
@@ -53,6 +54,7 @@ import org.eclipse.persistence.descriptors.DescriptorEvent;
         @NamedEntityGraph(name = "Action.all", attributeNodes = { @NamedAttributeNode("distributionSet"),
                 @NamedAttributeNode(value = "target", subgraph = "target.ds") }, subgraphs = @NamedSubgraph(name = "target.ds", attributeNodes = @NamedAttributeNode("assignedDistributionSet"))) })
 @Entity
+@EntityListeners(RolloutGroupStatusCountListener.class)
 // exception squid:S2160 - BaseEntity equals/hashcode is handling correctly for
 // sub entities
 @SuppressWarnings("squid:S2160")
@@ -86,6 +88,14 @@ public class JpaAction extends AbstractJpaTenantAwareBaseEntity implements Actio
     @Column(name = "status")
     private Status status;
 
+    /**
+     * Number of status entries the controller reported for this action,
+     * maintained by the repository with the check of the DoS limit. Read
+     * only, as the counter is incremented in the database.
+     */
+    @Column(name = "status_count", insertable = false, updatable = false)
+    private long statusCount;
+
     @CascadeOnDelete
     @OneToMany(mappedBy = "action", targetEntity = JpaActionStatus.class, fetch = FetchType.LAZY, cascade = {
             CascadeType.REMOVE })
@@ -128,6 +138,10 @@ public class JpaAction extends AbstractJpaTenantAwareBaseEntity implements Actio
         return active;
     }
 
+    public long getStatusCount() {
+        return statusCount;
+    }
+
     public void setActionType(final ActionType actionType) {
         this.actionType = actionType;
     }
@@ -65,6 +65,14 @@ public class JpaActionStatus extends AbstractJpaTenantAwareBaseEntity implements
     @NotNull
     private Status status;
 
+    /**
+     * Reported by the controller and therefore counted in
+     * {@link JpaAction#getStatusCount()}, in contrast to the entries the
+     * server writes itself.
+     */
+    @Column(name = "counted")
+    private boolean counted;
+
     @CascadeOnDelete
     @ElementCollection(fetch = FetchType.LAZY, targetClass = String.class)
     @CollectionTable(name = "sp_action_status_messages", joinColumns = @JoinColumn(name = "action_status_id", foreignKey = @ForeignKey(value = ConstraintMode.CONSTRAINT, name = "fk_stat_msg_act_stat")), indexes = {
@@ -121,6 +129,14 @@ public class JpaActionStatus extends AbstractJpaTenantAwareBaseEntity implements
         // JPA default constructor.
     }
 
+    public boolean isCounted() {
+        return counted;
+    }
+
+    public void setCounted(final boolean counted) {
+        this.counted = counted;
+    }
+
     @Override
     public short getDownloadProgressPercent() {
         return downloadProgressPercent;
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa.model;
+
+import java.util.Arrays;
+
+import org.eclipse.hawkbit.repository.eventbus.event.AbstractPropertyChangeEvent.PropertyChange;
+import org.eclipse.hawkbit.repository.jpa.model.helper.EntityPropertyChangeHelper;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.persistence.descriptors.DescriptorEvent;
+import org.eclipse.persistence.descriptors.DescriptorEventAdapter;
+import org.eclipse.persistence.queries.DataModifyQuery;
+import org.eclipse.persistence.queries.SQLCall;
+
+/**
+ * Updates the counters of the actions per rollout group and status in the
+ * table <code>sp_rolloutgroup_status_count</code> if an action of a rollout
+ * group is inserted or its status is changed. The counters are updated with
+ * the statements of the action itself, i.e. within the same transaction.
+ *
+ * The counter of a group and status is split into {@value #SHARDS} rows, an
+ * action always updates the row of its shard. So the feedback of the targets
+ * of one group does not queue up on a single row.
+ */
+public class RolloutGroupStatusCountListener extends DescriptorEventAdapter {
+
+    /**
+     * Number of rows per rollout group and status, the count is their sum.
+     */
+    public static final int SHARDS = 8;
+
+    private static final String INCREMENT = "UPDATE sp_rolloutgroup_status_count SET action_count = action_count + 1 WHERE rolloutgroup = #GROUP AND status = #STATUS AND shard = #SHARD";
+
+    // the rollout group is selected instead of loading the lazy relation of
+    // the action while it is written
+    private static final String MOVE = "UPDATE sp_rolloutgroup_status_count SET action_count = action_count + CASE WHEN status = #NEW THEN 1 ELSE -1 END"
+            + " WHERE status IN (#OLD, #NEW) AND shard = #SHARD AND rolloutgroup = (SELECT a.rolloutgroup FROM sp_action a WHERE a.id = #ACTION)";
+
+    @Override
+    public void postInsert(final DescriptorEvent event) {
+        final JpaAction action = (JpaAction) event.getObject();
+        if (action.getRolloutGroup() == null || action.getStatus() == null) {
+            return;
+        }
+
+        final DataModifyQuery query = new DataModifyQuery(new SQLCall(INCREMENT));
+        query.addArgument("GROUP");
+        query.addArgument("STATUS");
+        query.addArgument("SHARD");
+        event.getSession().executeQuery(query,
+                Arrays.asList(action.getRolloutGroup().getId(), action.getStatus().ordinal(), shard(action)));
+    }
+
+    @Override
+    public void postUpdate(final DescriptorEvent event) {
+        final PropertyChange change = EntityPropertyChangeHelper.getChangeSet(event).get("status");
+        if (change == null || change.getOldValue() == null || change.getNewValue() == null
+                || change.getOldValue().equals(change.getNewValue())) {
+            return;
+        }
+
+        final DataModifyQuery query = new DataModifyQuery(new SQLCall(MOVE));
+        query.addArgument("OLD");
+        query.addArgument("NEW");
+        query.addArgument("SHARD");
+        query.addArgument("ACTION");
+        final JpaAction action = (JpaAction) event.getObject();
+        event.getSession().executeQuery(query, Arrays.asList(((Status) change.getOldValue()).ordinal(),
+                ((Status) change.getNewValue()).ordinal(), shard(action), action.getId()));
+    }
+
+    private static int shard(final JpaAction action) {
+        return (int) (action.getId() % SHARDS);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa.rollout;
+
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Time limited leases in the table <code>sp_lease</code> which are shared by
+ * all instances of a cluster, so a scheduled job of a key, e.g. the check of
+ * the rollouts of a tenant, runs on only one instance at a time. A lease is
+ * held until it expires; the owner may renew it earlier, any other instance
+ * may take it over afterwards or after the owner has released it. An instance
+ * which crashes blocks the key at most for the duration of its lease.
+ */
+@Component
+public class LeaseRegistry {
+
+    private static final String RENEW = "UPDATE sp_lease SET owner = ?, expires_at = ? WHERE lease_key = ? AND (owner = ? OR expires_at < ?)";
+
+    private static final String INSERT = "INSERT INTO sp_lease (lease_key, owner, expires_at) VALUES (?, ?, ?)";
+
+    private static final String RELEASE = "DELETE FROM sp_lease WHERE lease_key = ? AND owner = ?";
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Acquires or renews the lease of the given key for this instance.
+     *
+     * @param key
+     *            the key of the lease
+     * @param duration
+     *            duration of the lease in milliseconds
+     * @return <code>true</code> if this instance holds the lease now,
+     *         <code>false</code> if another instance holds it
+     */
+    public boolean tryAcquire(final String key, final long duration) {
+        try {
+            return newTransaction("acquireLease").execute(status -> {
+                final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                final long now = System.currentTimeMillis();
+                if (jdbcTemplate.update(RENEW, owner, now + duration, key, owner, now) > 0) {
+                    return true;
+                }
+                // unknown key or held by another instance, the primary key
+                // decides if both instances insert the same key
+                return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sp_lease WHERE lease_key = ?", Long.class,
+                        key) == 0 && jdbcTemplate.update(INSERT, key, owner, now + duration) > 0;
+            });
+        } catch (final DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Releases the lease of the given key if this instance holds it, so
+     * another instance can acquire it before it expires.
+     *
+     * @param key
+     *            the key of the lease
+     */
+    public void release(final String key) {
+        newTransaction("releaseLease")
+                .execute(status -> new JdbcTemplate(dataSource).update(RELEASE, key, owner));
+    }
+
+    private TransactionTemplate newTransaction(final String name) {
+        final DefaultTransactionDefinition def = new DefaultTransactionDefinition();
+        def.setName(name);
+        def.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return new TransactionTemplate(txManager, def);
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa.rollout;
+
+import org.eclipse.hawkbit.repository.RolloutProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Triggers the {@link RolloutGroupActivator} in the fixed delay of
+ * {@link RolloutProperties.Pacing}.
+ */
+@Component
+// don't active the rollout scheduler in test, otherwise it is hard to test
+// rolloutmanagement and leads weird side-effects maybe.
+@Profile("!test")
+public class RolloutGroupActivationScheduler {
+
+    @Autowired
+    private RolloutGroupActivator rolloutGroupActivator;
+
+    /**
+     * Scheduler method called by the spring-async mechanism. Activates the
+     * next scheduled actions of the paced rollout groups.
+     */
+    @Scheduled(initialDelayString = RolloutProperties.Pacing.PROP_PACING_DELAY_PLACEHOLDER, fixedDelayString = RolloutProperties.Pacing.PROP_PACING_DELAY_PLACEHOLDER)
+    public void activateScheduledActions() {
+        rolloutGroupActivator.activateScheduledActions();
+    }
+}
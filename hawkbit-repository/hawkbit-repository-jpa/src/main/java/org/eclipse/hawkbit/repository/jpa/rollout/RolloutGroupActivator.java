@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa.rollout;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.hawkbit.repository.DeploymentManagement;
+import org.eclipse.hawkbit.repository.RolloutProperties;
+import org.eclipse.hawkbit.repository.TargetMessageCapacity;
+import org.eclipse.hawkbit.repository.jpa.ActionRepository;
+import org.eclipse.hawkbit.repository.jpa.RolloutGroupRepository;
+import org.eclipse.hawkbit.repository.jpa.RolloutGroupStatusCounter;
+import org.eclipse.hawkbit.repository.jpa.executor.AfterTransactionCommitExecutor;
+import org.eclipse.hawkbit.repository.jpa.model.JpaRolloutGroup;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.Rollout.RolloutStatus;
+import org.eclipse.hawkbit.repository.model.RolloutGroup;
+import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupStatus;
+import org.eclipse.hawkbit.repository.model.TotalTargetCountActionStatus;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.stereotype.Component;
+
+/**
+ * Activates the scheduled {@link Action}s of running {@link RolloutGroup}s
+ * with the rate configured in {@link RolloutProperties.Pacing}, instead of
+ * activating all actions of a group at once when the group is started. So
+ * the downloads of the targets and the messages to the devices are spread
+ * over time.
+ *
+ * The activations of a tenant are limited by a {@link TokenBucket} and, if
+ * configured, by the number of active actions of a rollout and by the
+ * {@link TargetMessageCapacity} of the channel to the targets. The groups are
+ * registered on the instance which has started them; the rollout check
+ * re-registers running groups with scheduled actions, e.g. after a restart.
+ * Only the instance which holds the pacing lease of a tenant in the
+ * {@link LeaseRegistry} activates actions of the tenant, so the rate is not
+ * multiplied by the number of instances and no action is activated twice.
+ * The lease is released when the instance has no registered groups of the
+ * tenant left.
+ */
+@Component
+public class RolloutGroupActivator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RolloutGroupActivator.class);
+
+    private static final Set<Status> ACTIVE_STATUS = Collections
+            .unmodifiableSet(EnumSet.of(Status.RUNNING, Status.RETRIEVED, Status.DOWNLOAD, Status.WARNING,
+                    Status.CANCELING));
+
+    private static final String PACING_LEASE = "rollout-pacing:";
+
+    /**
+     * Duration of the pacing lease in pacing delays, so the lease of an
+     * instance which crashed is taken over after a few delays.
+     */
+    private static final int LEASE_DELAYS = 10;
+
+    private final Map<String, Set<Long>> pacedGroups = new ConcurrentHashMap<>();
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RolloutProperties rolloutProperties;
+
+    @Autowired
+    private RolloutGroupRepository rolloutGroupRepository;
+
+    @Autowired
+    private ActionRepository actionRepository;
+
+    @Autowired
+    private DeploymentManagement deploymentManagement;
+
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
+    @Autowired
+    private AfterTransactionCommitExecutor afterCommit;
+
+    @Autowired
+    private SystemSecurityContext systemSecurityContext;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private LeaseRegistry leaseRegistry;
+
+    @Autowired(required = false)
+    private TargetMessageCapacity targetMessageCapacity;
+
+    /**
+     * @return <code>true</code> if the actions of started rollout groups are
+     *         activated paced by this activator, <code>false</code> if they
+     *         are activated at once
+     */
+    public boolean isPaced() {
+        return rolloutProperties.getPacing().getTargetsPerSecond() > 0;
+    }
+
+    /**
+     * Registers a running rollout group of the current tenant whose
+     * scheduled actions are activated paced after the current transaction
+     * has been committed.
+     *
+     * @param rolloutGroup
+     *            the running rollout group
+     */
+    public void activate(final RolloutGroup rolloutGroup) {
+        final String tenant = tenantAware.getCurrentTenant();
+        final Long rolloutGroupId = rolloutGroup.getId();
+        afterCommit.afterCommit(() -> pacedGroups
+                .computeIfAbsent(tenant, key -> ConcurrentHashMap.newKeySet()).add(rolloutGroupId));
+    }
+
+    /**
+     * Activates the next scheduled actions of the registered rollout groups
+     * of all tenants whose pacing lease this instance holds, as far as their
+     * token buckets allow. A group is unregistered when it has no scheduled
+     * actions left or is not running anymore.
+     */
+    public void activateScheduledActions() {
+        final long leaseDuration = LEASE_DELAYS * rolloutProperties.getPacing().getFixedDelay();
+        pacedGroups.forEach((tenant, rolloutGroupIds) -> {
+            if (rolloutGroupIds.isEmpty()) {
+                return;
+            }
+            final String lease = PACING_LEASE + tenant;
+            if (!leaseRegistry.tryAcquire(lease, leaseDuration)) {
+                LOGGER.debug("Rollout groups of tenant {} are paced by another instance", tenant);
+                return;
+            }
+            try {
+                systemSecurityContext.runAsSystemAsTenant(() -> {
+                    activateScheduledActions(buckets.computeIfAbsent(tenant, key -> new TokenBucket()),
+                            rolloutGroupIds);
+                    return null;
+                }, tenant);
+            } catch (final RuntimeException e) {
+                LOGGER.error("Failed to activate the scheduled actions of tenant {}", tenant, e);
+            }
+            if (rolloutGroupIds.isEmpty()) {
+                leaseRegistry.release(lease);
+            }
+        });
+    }
+
+    private void activateScheduledActions(final TokenBucket bucket, final Set<Long> rolloutGroupIds) {
+        for (final Long rolloutGroupId : rolloutGroupIds) {
+            final int permits = bucket.available(rolloutProperties.getPacing().getTargetsPerSecond());
+            if (permits <= 0) {
+                return;
+            }
+            if (activateScheduledActions(bucket, permits, rolloutGroupId)) {
+                rolloutGroupIds.remove(rolloutGroupId);
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the group is done, i.e. has no scheduled
+     *         actions left or is not running anymore
+     */
+    private boolean activateScheduledActions(final TokenBucket bucket, final int permits, final Long rolloutGroupId) {
+        final JpaRolloutGroup rolloutGroup = rolloutGroupRepository.findOne(rolloutGroupId);
+        if (rolloutGroup == null || rolloutGroup.getStatus() != RolloutGroupStatus.RUNNING) {
+            return true;
+        }
+        final Rollout rollout = rolloutGroup.getRollout();
+        if (rollout.getStatus() == RolloutStatus.PAUSED) {
+            return false;
+        }
+        if (rollout.getStatus() != RolloutStatus.RUNNING && rollout.getStatus() != RolloutStatus.STARTING) {
+            return true;
+        }
+
+        final int limit = Math.min(Math.min(permits, countActiveSlots(rollout)), countMessageSlots());
+        if (limit <= 0) {
+            return false;
+        }
+
+        final List<Action> actions = actionRepository.findByRolloutGroupAndStatus(
+                new PageRequest(0, limit, Direction.ASC, "id"), rolloutGroup, Status.SCHEDULED);
+        LOGGER.debug("Activating {} scheduled actions of rollout group {}", actions.size(), rolloutGroupId);
+        actions.forEach(deploymentManagement::startScheduledAction);
+        bucket.take(actions.size());
+        return actions.size() < limit;
+    }
+
+    private int countMessageSlots() {
+        if (targetMessageCapacity == null) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, targetMessageCapacity.getRemainingCapacity());
+    }
+
+    private int countActiveSlots(final Rollout rollout) {
+        final int maxActiveActions = rolloutProperties.getPacing().getMaxActiveActions();
+        if (maxActiveActions <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        final long active = rolloutGroupStatusCounter.countByRolloutIds(Collections.singletonList(rollout.getId()))
+                .stream().filter(count -> ACTIVE_STATUS.contains(count.getStatus()))
+                .mapToLong(TotalTargetCountActionStatus::getCount).sum();
+        return (int) Math.max(0, maxActiveActions - active);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa.rollout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.hawkbit.eventbus.EventSubscriber;
+import org.eclipse.hawkbit.repository.RolloutManagement;
+import org.eclipse.hawkbit.repository.RolloutProperties;
+import org.eclipse.hawkbit.repository.eventbus.event.ActionPropertyChangeEvent;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.RolloutGroup;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Marks the {@link RolloutGroup}s whose {@link Action}s have been finished,
+ * canceled or failed on this instance as changed and checks only these groups
+ * with {@link RolloutManagement#checkRolloutGroups(java.util.Collection)} in
+ * a short fixed delay. So the next group of a rollout is started right after
+ * the success condition of the running group has been met, without
+ * investigating all running rollouts of all tenants. The
+ * {@link RolloutScheduler} remains as safety net for changes which have not
+ * been recorded here, e.g. on a restart of this instance.
+ *
+ * Groups which could not be checked, because their rollout has been checked
+ * at the same time or the check failed, are marked again for the next check.
+ * Groups whose check failed {@link #MAX_CHECK_ATTEMPTS} times in a row are
+ * dropped and left to the {@link RolloutScheduler}.
+ */
+@Component
+@EventSubscriber
+// don't active the rollout scheduler in test, otherwise it is hard to test
+// rolloutmanagement and leads weird side-effects maybe.
+@Profile("!test")
+public class RolloutGroupCheckScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RolloutGroupCheckScheduler.class);
+
+    private static final Set<Status> COMPLETED_STATUS = Collections
+            .unmodifiableSet(EnumSet.of(Status.FINISHED, Status.ERROR, Status.CANCELED));
+
+    /**
+     * Number of consecutive failed checks after which a group is dropped.
+     */
+    static final int MAX_CHECK_ATTEMPTS = 5;
+
+    private final Map<String, Set<Long>> changedGroups = new ConcurrentHashMap<>();
+
+    /**
+     * Number of failed checks of the groups which have been marked again.
+     */
+    private final Map<Long, Integer> failedChecks = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RolloutManagement rolloutManagement;
+
+    @Autowired
+    private SystemSecurityContext systemSecurityContext;
+
+    /**
+     * Marks the rollout group of an action as changed if the action has been
+     * completed on this instance.
+     *
+     * @param event
+     *            the action property change event
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final ActionPropertyChangeEvent event) {
+        // the instance on which the action has been changed checks the group
+        if (event.getNodeId() != null || event.getChangeSet() == null
+                || !event.getChangeSet().containsKey("status")) {
+            return;
+        }
+
+        final Action action = event.getEntity();
+        final RolloutGroup rolloutGroup = action.getRolloutGroup();
+        if (rolloutGroup != null && COMPLETED_STATUS.contains(action.getStatus())) {
+            mark(event.getTenant(), Collections.singletonList(rolloutGroup.getId()));
+        }
+    }
+
+    private void mark(final String tenant, final Collection<Long> rolloutGroupIds) {
+        // the set of a tenant is removed if it is empty, so it is only changed
+        // while the entry of the tenant is locked
+        changedGroups.compute(tenant, (key, groups) -> {
+            final Set<Long> marked = groups != null ? groups : ConcurrentHashMap.newKeySet();
+            marked.addAll(rolloutGroupIds);
+            return marked;
+        });
+    }
+
+    /**
+     * Scheduler method called by the spring-async mechanism. Checks the
+     * changed rollout groups for each tenant in the
+     * {@link SystemSecurityContext}.
+     */
+    @Scheduled(initialDelayString = RolloutProperties.Evaluation.PROP_EVALUATION_DELAY_PLACEHOLDER, fixedDelayString = RolloutProperties.Evaluation.PROP_EVALUATION_DELAY_PLACEHOLDER)
+    public void checkChangedGroups() {
+        changedGroups.keySet().forEach(tenant -> {
+            final List<Long> rolloutGroupIds = new ArrayList<>();
+            changedGroups.computeIfPresent(tenant, (key, groups) -> {
+                rolloutGroupIds.addAll(groups);
+                return null;
+            });
+            if (rolloutGroupIds.isEmpty()) {
+                return;
+            }
+
+            LOGGER.debug("Checking {} changed rollout groups of tenant {}", rolloutGroupIds.size(), tenant);
+            try {
+                final List<Long> unchecked = systemSecurityContext.runAsSystemAsTenant(
+                        () -> rolloutManagement.checkRolloutGroups(rolloutGroupIds), tenant);
+                rolloutGroupIds.forEach(failedChecks::remove);
+                if (!unchecked.isEmpty()) {
+                    mark(tenant, unchecked);
+                }
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Failed to check {} changed rollout groups of tenant {}", rolloutGroupIds.size(), tenant,
+                        e);
+                markFailed(tenant, rolloutGroupIds);
+            }
+        });
+    }
+
+    private void markFailed(final String tenant, final List<Long> rolloutGroupIds) {
+        final List<Long> retried = new ArrayList<>(rolloutGroupIds.size());
+        for (final Long rolloutGroupId : rolloutGroupIds) {
+            final int attempts = failedChecks.merge(rolloutGroupId, 1, Integer::sum);
+            if (attempts < MAX_CHECK_ATTEMPTS) {
+                retried.add(rolloutGroupId);
+            } else {
+                failedChecks.remove(rolloutGroupId);
+                LOGGER.error(
+                        "Giving up checking rollout group {} of tenant {} after {} failed attempts, it is left to the rollout scheduler",
+                        rolloutGroupId, tenant, attempts);
+            }
+        }
+        if (!retried.isEmpty()) {
+            mark(tenant, retried);
+        }
+    }
+}
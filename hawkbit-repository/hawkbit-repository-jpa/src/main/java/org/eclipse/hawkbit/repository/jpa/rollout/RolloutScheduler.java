@@ -8,36 +8,76 @@
  */
 package org.eclipse.hawkbit.repository.jpa.rollout;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.eclipse.hawkbit.repository.RolloutManagement;
 import org.eclipse.hawkbit.repository.RolloutProperties;
 import org.eclipse.hawkbit.repository.SystemManagement;
 import org.eclipse.hawkbit.security.SystemSecurityContext;
-import org.eclipse.hawkbit.tenancy.TenantAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Scheduler to schedule the
  * {@link RolloutManagement#checkRunningRollouts(long)}. The delay between the
  * checks be be configured using the property
- * {@link #PROP_SCHEDULER_DELAY_PLACEHOLDER}.
+ * {@link #PROP_SCHEDULER_DELAY_PLACEHOLDER}. Changed rollout groups are
+ * checked by the {@link RolloutGroupCheckScheduler} in the meantime, so this
+ * scheduler is only a safety net and runs in a long delay.
+ *
+ * The tenants are shared between the instances of a cluster by a lease per
+ * tenant in the {@link LeaseRegistry}, each instance visits the tenants in
+ * another random order. The rollouts of the tenants which are leased by this
+ * instance are checked in parallel by a bounded pool of
+ * {@link RolloutProperties.Scheduler#getPoolSize()} threads, as the rollouts
+ * of different tenants are independent of each other.
  */
 @Component
 // don't active the rollout scheduler in test, otherwise it is hard to test
 // rolloutmanagement and leads weird side-effects maybe.
 @Profile("!test")
+@ManagedResource(objectName = "org.eclipse.hawkbit:type=RolloutScheduler", description = "Checks the running rollouts of the tenants")
 public class RolloutScheduler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RolloutScheduler.class);
 
-    @Autowired
-    private TenantAware tenantAware;
+    private static final String CHECK_LEASE = "rollout-check:";
+
+    private static final String RECONCILIATION_LEASE = "rollout-reconciliation:";
+
+    private final Map<String, Long> checkDurations = new ConcurrentHashMap<>();
+
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    private final AtomicLong skippedTenants = new AtomicLong();
+
+    private final AtomicLong failedChecks = new AtomicLong();
+
+    private volatile long lastRunDuration;
+
+    private ExecutorService executor;
 
     @Autowired
     private SystemManagement systemManagement;
@@ -51,33 +91,159 @@ public class RolloutScheduler {
     @Autowired
     private RolloutProperties rolloutProperties;
 
+    @Autowired
+    private LeaseRegistry leaseRegistry;
+
+    @PostConstruct
+    void startPool() {
+        executor = Executors.newFixedThreadPool(rolloutProperties.getScheduler().getPoolSize(),
+                new ThreadFactoryBuilder().setNameFormat("rollout-scheduler-pool-%d").build());
+    }
+
+    @PreDestroy
+    void stopPool() {
+        executor.shutdownNow();
+    }
+
     /**
      * Scheduler method called by the spring-async mechanism. Retrieves all
      * tenants from the {@link SystemManagement#findTenants()} and runs for each
-     * tenant the {@link RolloutManagement#checkRunningRollouts(long)} in the
-     * {@link SystemSecurityContext}.
+     * tenant, which is not leased by another instance, the
+     * {@link RolloutManagement#checkRunningRollouts(long)} in the
+     * {@link SystemSecurityContext}. Returns after the rollouts of all tenants
+     * have been checked.
      */
     @Scheduled(initialDelayString = RolloutProperties.Scheduler.PROP_SCHEDULER_DELAY_PLACEHOLDER, fixedDelayString = RolloutProperties.Scheduler.PROP_SCHEDULER_DELAY_PLACEHOLDER)
     public void rolloutScheduler() {
         LOGGER.debug("rollout schedule checker has been triggered.");
-        // run this code in system code privileged to have the necessary
-        // permission to query and create entities.
-        systemSecurityContext.runAsSystem(() -> {
-            // workaround eclipselink that is currently not possible to
-            // execute a query without multitenancy if MultiTenant
-            // annotation is used.
-            // https://bugs.eclipse.org/bugs/show_bug.cgi?id=355458. So
-            // iterate through all tenants and execute the rollout check for
-            // each tenant seperately.
-            final List<String> tenants = systemManagement.findTenants();
-            LOGGER.info("Checking rollouts for {} tenants", tenants.size());
-            for (final String tenant : tenants) {
-                tenantAware.runAsTenant(tenant, () -> {
-                    rolloutManagement.checkRunningRollouts(rolloutProperties.getScheduler().getFixedDelay());
-                    return null;
-                });
+        final long start = System.nanoTime();
+        final long fixedDelay = rolloutProperties.getScheduler().getFixedDelay();
+
+        // workaround eclipselink that is currently not possible to
+        // execute a query without multitenancy if MultiTenant
+        // annotation is used.
+        // https://bugs.eclipse.org/bugs/show_bug.cgi?id=355458. So
+        // iterate through all tenants and execute the rollout check for
+        // each tenant seperately.
+        final List<String> tenants = new ArrayList<>(systemSecurityContext.runAsSystem(systemManagement::findTenants));
+        Collections.shuffle(tenants);
+        LOGGER.info("Checking rollouts for {} tenants", tenants.size());
+
+        backlog.set(tenants.size());
+        final List<Future<?>> checks = new ArrayList<>(tenants.size());
+        tenants.forEach(tenant -> checks.add(executor.submit(() -> checkTenant(tenant, fixedDelay))));
+        awaitAll(checks);
+
+        lastRunDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void checkTenant(final String tenant, final long fixedDelay) {
+        try {
+            // the lease is held until the next run of the scheduler, so the
+            // other instances skip the tenant in their current run
+            if (!leaseRegistry.tryAcquire(CHECK_LEASE + tenant, fixedDelay)) {
+                skippedTenants.incrementAndGet();
+                return;
             }
-            return null;
-        });
+
+            final long start = System.nanoTime();
+            // run this code in system code privileged to have the necessary
+            // permission to query and create entities.
+            systemSecurityContext.runAsSystemAsTenant(() -> {
+                rolloutManagement.checkRunningRollouts(fixedDelay);
+                return null;
+            }, tenant);
+            checkDurations.put(tenant, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (final RuntimeException e) {
+            failedChecks.incrementAndGet();
+            LOGGER.error("Failed to check the rollouts of tenant {}", tenant, e);
+        } finally {
+            backlog.decrementAndGet();
+        }
+    }
+
+    private static void awaitAll(final List<Future<?>> futures) {
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final ExecutionException e) {
+                LOGGER.error("Rollout check failed", e);
+            }
+        }
+    }
+
+    /**
+     * Scheduler method called by the spring-async mechanism. Runs for each
+     * tenant, which is not leased by another instance, the
+     * {@link RolloutManagement#reconcileRolloutStatusCounts()} in the
+     * {@link SystemSecurityContext}.
+     */
+    @Scheduled(initialDelayString = RolloutProperties.Reconciliation.PROP_RECONCILIATION_DELAY_PLACEHOLDER, fixedDelayString = RolloutProperties.Reconciliation.PROP_RECONCILIATION_DELAY_PLACEHOLDER)
+    public void reconcileStatusCounts() {
+        LOGGER.debug("rollout status count reconciliation has been triggered.");
+        final long fixedDelay = rolloutProperties.getReconciliation().getFixedDelay();
+        final List<String> tenants = new ArrayList<>(systemSecurityContext.runAsSystem(systemManagement::findTenants));
+        Collections.shuffle(tenants);
+        tenants.forEach(tenant -> reconcileTenant(tenant, fixedDelay));
+    }
+
+    private void reconcileTenant(final String tenant, final long fixedDelay) {
+        try {
+            if (!leaseRegistry.tryAcquire(RECONCILIATION_LEASE + tenant, fixedDelay)) {
+                return;
+            }
+            systemSecurityContext.runAsSystemAsTenant(() -> {
+                rolloutManagement.reconcileRolloutStatusCounts();
+                return null;
+            }, tenant);
+        } catch (final RuntimeException e) {
+            LOGGER.error("Failed to reconcile the rollout status counts of tenant {}", tenant, e);
+        }
+    }
+
+    /**
+     * @return duration in milliseconds of the last check of the rollouts per
+     *         tenant checked by this instance
+     */
+    @ManagedAttribute(description = "Duration in milliseconds of the last rollout check per tenant")
+    public Map<String, Long> getCheckDurations() {
+        return Collections.unmodifiableMap(checkDurations);
+    }
+
+    /**
+     * @return number of tenants of the current run which have not been
+     *         checked yet
+     */
+    @ManagedAttribute(description = "Number of tenants of the current run which have not been checked yet")
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * @return number of tenants which have been skipped as they were leased
+     *         by another instance
+     */
+    @ManagedAttribute(description = "Number of tenants skipped as they were leased by another instance")
+    public long getSkippedTenants() {
+        return skippedTenants.get();
+    }
+
+    /**
+     * @return number of failed checks of the rollouts of a tenant
+     */
+    @ManagedAttribute(description = "Number of failed rollout checks of a tenant")
+    public long getFailedChecks() {
+        return failedChecks.get();
+    }
+
+    /**
+     * @return duration in milliseconds of the last run of the scheduler
+     */
+    @ManagedAttribute(description = "Duration in milliseconds of the last run over all tenants")
+    public long getLastRunDuration() {
+        return lastRunDuration;
     }
 }
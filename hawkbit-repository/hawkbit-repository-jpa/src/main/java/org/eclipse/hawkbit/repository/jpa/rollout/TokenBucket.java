@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa.rollout;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Token bucket which is refilled with a given number of permits per second
+ * and holds at most the permits of one second, so a bucket which has not been
+ * used for a while allows a burst of one second only.
+ */
+class TokenBucket {
+
+    private static final double SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Ticker ticker;
+
+    private double tokens = -1;
+
+    private long lastRefill;
+
+    TokenBucket() {
+        this(Ticker.systemTicker());
+    }
+
+    TokenBucket(final Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    /**
+     * @param permitsPerSecond
+     *            the rate the bucket is refilled with
+     * @return the number of permits which are available now
+     */
+    synchronized int available(final int permitsPerSecond) {
+        final long now = ticker.read();
+        if (tokens < 0) {
+            tokens = permitsPerSecond;
+        } else {
+            tokens = Math.min(permitsPerSecond, tokens + (now - lastRefill) * permitsPerSecond / SECOND);
+        }
+        lastRefill = now;
+        return (int) tokens;
+    }
+
+    /**
+     * Takes the given number of permits out of the bucket.
+     *
+     * @param permits
+     *            the permits which have been used, at most the
+     *            {@link #available(int)} ones
+     */
+    synchronized void take(final int permits) {
+        tokens = Math.max(0, tokens - permits);
+    }
+}
@@ -11,8 +11,10 @@ package org.eclipse.hawkbit.repository.jpa.rollout.condition;
 import java.util.List;
 
 import org.eclipse.hawkbit.repository.DeploymentManagement;
+import org.eclipse.hawkbit.repository.jpa.ActionRepository;
 import org.eclipse.hawkbit.repository.jpa.RolloutGroupRepository;
 import org.eclipse.hawkbit.repository.jpa.model.JpaRolloutGroup;
+import org.eclipse.hawkbit.repository.jpa.rollout.RolloutGroupActivator;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.Rollout;
 import org.eclipse.hawkbit.repository.model.RolloutGroup;
@@ -24,7 +26,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
- * Success action which starts the next following {@link RolloutGroup}.
+ * Success action which starts the next following {@link RolloutGroup}. The
+ * scheduled actions of the group are activated at once or, if configured,
+ * paced by the {@link RolloutGroupActivator}.
  */
 @Component("startNextRolloutGroupAction")
 public class StartNextGroupRolloutGroupSuccessAction implements RolloutGroupActionEvaluator {
@@ -40,6 +44,12 @@ public class StartNextGroupRolloutGroupSuccessAction implements RolloutGroupActi
     @Autowired
     private SystemSecurityContext systemSecurityContext;
 
+    @Autowired
+    private RolloutGroupActivator rolloutGroupActivator;
+
+    @Autowired
+    private ActionRepository actionRepository;
+
     @Override
     public boolean verifyExpression(final String expression) {
         return true;
@@ -54,6 +64,11 @@ public class StartNextGroupRolloutGroupSuccessAction implements RolloutGroupActi
     }
 
     private void startNextGroup(final Rollout rollout, final RolloutGroup rolloutGroup) {
+        if (rolloutGroupActivator.isPaced()) {
+            startNextGroupPaced(rollout, rolloutGroup);
+            return;
+        }
+
         // retrieve all actions accroding to the parent group of the finished
         // rolloutGroup, so retrieve all child-group actions which need to be
         // started.
@@ -88,4 +103,24 @@ public class StartNextGroupRolloutGroupSuccessAction implements RolloutGroupActi
             });
         }
     }
+
+    private void startNextGroupPaced(final Rollout rollout, final RolloutGroup rolloutGroup) {
+        // the actions are not loaded here, the activator starts them chunk by
+        // chunk with the configured rate
+        rolloutGroupRepository.findByParentAndStatus((JpaRolloutGroup) rolloutGroup, RolloutGroupStatus.SCHEDULED)
+                .forEach(nextGroup -> {
+                    if (actionRepository.countByRolloutIdAndRolloutGroupIdAndStatus(rollout.getId(),
+                            nextGroup.getId(), Action.Status.SCHEDULED) > 0) {
+                        logger.debug("Rolloutgroup {} is now running, activating its actions paced", nextGroup);
+                        nextGroup.setStatus(RolloutGroupStatus.RUNNING);
+                        rolloutGroupRepository.save(nextGroup);
+                        rolloutGroupActivator.activate(nextGroup);
+                    } else {
+                        logger.info("No actions to start for rolloutgroup {}, finishing it", nextGroup);
+                        nextGroup.setStatus(RolloutGroupStatus.FINISHED);
+                        rolloutGroupRepository.save(nextGroup);
+                        startNextGroupPaced(rollout, nextGroup);
+                    }
+                });
+    }
 }
@@ -8,9 +8,7 @@
  */
 package org.eclipse.hawkbit.repository.jpa.rollout.condition;
 
-import org.eclipse.hawkbit.repository.jpa.ActionRepository;
-import org.eclipse.hawkbit.repository.jpa.model.JpaRollout;
-import org.eclipse.hawkbit.repository.jpa.model.JpaRolloutGroup;
+import org.eclipse.hawkbit.repository.jpa.RolloutGroupStatusCounter;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.Rollout;
 import org.eclipse.hawkbit.repository.model.RolloutGroup;
@@ -28,14 +26,13 @@ public class ThresholdRolloutGroupErrorCondition implements RolloutGroupConditio
     private static final Logger LOGGER = LoggerFactory.getLogger(ThresholdRolloutGroupErrorCondition.class);
 
     @Autowired
-    private ActionRepository actionRepository;
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
 
     @Override
     public boolean eval(final Rollout rollout, final RolloutGroup rolloutGroup, final String expression) {
-        final Long totalGroup = actionRepository.countByRolloutAndRolloutGroup((JpaRollout) rollout,
-                (JpaRolloutGroup) rolloutGroup);
-        final Long error = actionRepository.countByRolloutIdAndRolloutGroupIdAndStatus(rollout.getId(),
-                rolloutGroup.getId(), Action.Status.ERROR);
+        final long totalGroup = rolloutGroupStatusCounter.countByRolloutGroupId(rolloutGroup.getId());
+        final long error = rolloutGroupStatusCounter.countByRolloutGroupIdAndStatus(rolloutGroup.getId(),
+                Action.Status.ERROR);
         try {
             final Integer threshold = Integer.valueOf(expression);
 
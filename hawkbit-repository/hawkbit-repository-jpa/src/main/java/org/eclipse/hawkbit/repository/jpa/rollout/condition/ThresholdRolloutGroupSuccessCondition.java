@@ -8,7 +8,7 @@
  */
 package org.eclipse.hawkbit.repository.jpa.rollout.condition;
 
-import org.eclipse.hawkbit.repository.jpa.ActionRepository;
+import org.eclipse.hawkbit.repository.jpa.RolloutGroupStatusCounter;
 import org.eclipse.hawkbit.repository.model.Action;
 import org.eclipse.hawkbit.repository.model.Rollout;
 import org.eclipse.hawkbit.repository.model.RolloutGroup;
@@ -25,13 +25,13 @@ public class ThresholdRolloutGroupSuccessCondition implements RolloutGroupCondit
     private static final Logger LOGGER = LoggerFactory.getLogger(ThresholdRolloutGroupSuccessCondition.class);
 
     @Autowired
-    private ActionRepository actionRepository;
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
 
     @Override
     public boolean eval(final Rollout rollout, final RolloutGroup rolloutGroup, final String expression) {
         final long totalGroup = rolloutGroup.getTotalTargets();
-        final long finished = this.actionRepository.countByRolloutIdAndRolloutGroupIdAndStatus(rollout.getId(),
-                rolloutGroup.getId(), Action.Status.FINISHED);
+        final long finished = rolloutGroupStatusCounter.countByRolloutGroupIdAndStatus(rolloutGroup.getId(),
+                Action.Status.FINISHED);
         try {
             final Integer threshold = Integer.valueOf(expression);
 
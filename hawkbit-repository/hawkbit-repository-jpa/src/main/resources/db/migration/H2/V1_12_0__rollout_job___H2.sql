@@ -0,0 +1,21 @@
+    create table sp_rollout_job (
+        rollout bigint not null,
+        owner varchar(64) not null,
+        heartbeat bigint not null,
+        checkpoint_group bigint,
+        checkpoint_target bigint not null default 0,
+        primary key (rollout)
+    );
+
+    alter table sp_rollout_job 
+        add constraint fk_rollout_job_rollout 
+        foreign key (rollout) 
+        references sp_rollout
+        on delete cascade;
+
+    insert into sp_rollout_job (rollout, owner, heartbeat, checkpoint_group, checkpoint_target)
+        select r.id, '', 0, case when r.status = 0 then (select max(g.id) from sp_rolloutgroup g where g.rollout = r.id) end, 0
+        from sp_rollout r where r.status in (0, 3);
+
+    update sp_rollout_job set checkpoint_target = coalesce((select max(t.target_Id) from sp_rollouttargetgroup t
+        where t.rolloutGroup_Id = sp_rollout_job.checkpoint_group), 0) where checkpoint_group is not null;
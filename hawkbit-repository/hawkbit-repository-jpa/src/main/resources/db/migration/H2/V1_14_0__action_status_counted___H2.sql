@@ -0,0 +1,3 @@
+    alter table sp_action_status add column counted boolean not null default false;
+
+    update sp_action_status set counted = true;
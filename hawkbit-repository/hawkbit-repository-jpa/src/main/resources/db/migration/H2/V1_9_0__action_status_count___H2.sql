@@ -0,0 +1,2 @@
+ALTER TABLE sp_action ADD COLUMN status_count bigint not null default 0;
+UPDATE sp_action a SET status_count = (SELECT COUNT(*) FROM sp_action_status s WHERE s.action = a.id);
@@ -0,0 +1,10 @@
+    alter table sp_rolloutgroup_status_count add column shard integer not null default 0;
+
+    alter table sp_rolloutgroup_status_count 
+        drop primary key, 
+        add primary key (rolloutgroup, status, shard);
+
+    insert into sp_rolloutgroup_status_count (rolloutgroup, status, shard, action_count)
+        select c.rolloutgroup, c.status, s.shard, 0
+        from sp_rolloutgroup_status_count c cross join (select 1 as shard union all select 2 union all select 3 union all select 4
+        union all select 5 union all select 6 union all select 7) s;
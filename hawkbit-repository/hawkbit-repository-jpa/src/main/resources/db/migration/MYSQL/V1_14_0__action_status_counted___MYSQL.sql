@@ -0,0 +1,3 @@
+    alter table sp_action_status add column counted bit not null default 0;
+
+    update sp_action_status set counted = 1;
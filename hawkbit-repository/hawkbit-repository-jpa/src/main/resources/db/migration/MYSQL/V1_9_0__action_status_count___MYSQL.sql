@@ -0,0 +1,2 @@
+ALTER TABLE sp_action ADD COLUMN status_count bigint not null default 0;
+UPDATE sp_action a INNER JOIN (SELECT action, COUNT(*) AS status_count FROM sp_action_status GROUP BY action) s ON s.action = a.id SET a.status_count = s.status_count;
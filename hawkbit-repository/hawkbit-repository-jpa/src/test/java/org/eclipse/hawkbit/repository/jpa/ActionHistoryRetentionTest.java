@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.jpa.model.JpaAction;
+import org.eclipse.hawkbit.repository.jpa.model.JpaActionStatus;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Action History Retention")
+@TestPropertySource(properties = {
+        "hawkbit.server.repository.actionHistoryExportDirectory=${java.io.tmpdir}/hawkbit-action-history-test" })
+public class ActionHistoryRetentionTest extends AbstractJpaIntegrationTest {
+
+    @Autowired
+    private ActionHistoryRetention actionHistoryRetention;
+
+    @Autowired
+    private RepositoryProperties repositoryProperties;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private File exportDirectory;
+
+    @Before
+    public void deleteExports() {
+        exportDirectory = new File(repositoryProperties.getActionHistoryExportDirectory());
+        FileSystemUtils.deleteRecursively(exportDirectory);
+    }
+
+    @Test
+    @Description("Verifies that only the latest status entries of an action are kept and its status count is lowered by the deleted entries of the controller.")
+    public void latestStatusEntriesAreKept() {
+        final Long actionId = assignDistributionSet("trimmed");
+        for (int i = 0; i < 4; i++) {
+            controllerManagament.addUpdateActionStatus(new JpaActionStatus(actionRepository.findOne(actionId),
+                    Status.RUNNING, System.currentTimeMillis(), "running " + i));
+        }
+        // the status entry of the assignment is written by the server and
+        // not counted
+        assertThat(actionStatusRepository.countByAction(actionRepository.findOne(actionId))).isEqualTo(5L);
+        assertThat(actionRepository.findOne(actionId).getStatusCount()).isEqualTo(4L);
+
+        tenantConfigurationManagement.addOrUpdateConfiguration(TenantConfigurationKey.ACTION_STATUS_RETENTION_COUNT,
+                2);
+        actionHistoryRetention.purge();
+
+        final JpaAction action = actionRepository.findOne(actionId);
+        assertThat(actionStatusRepository.countByAction(action)).isEqualTo(2L);
+        assertThat(action.getStatusCount()).as("two counted entries are deleted").isEqualTo(2L);
+    }
+
+    @Test
+    @Description("Verifies that closed actions are purged after the retention time, also without modification time, and exported, active actions are kept.")
+    public void closedActionsArePurgedAndExported() throws Exception {
+        final Long activeActionId = assignDistributionSet("active");
+        final Long closedActionId = assignDistributionSet("closed");
+        controllerManagament.addUpdateActionStatus(new JpaActionStatus(actionRepository.findOne(closedActionId),
+                Status.FINISHED, System.currentTimeMillis(), "finished"));
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("UPDATE sp_action SET last_modified_at = 0 WHERE id = ?", activeActionId);
+        // as inserted by JDBC before the modification time was filled
+        jdbcTemplate.update("UPDATE sp_action SET last_modified_at = NULL, created_at = 0 WHERE id = ?",
+                closedActionId);
+
+        tenantConfigurationManagement.addOrUpdateConfiguration(TenantConfigurationKey.ACTION_RETENTION_DAYS, 1);
+        actionHistoryRetention.purge();
+
+        assertThat(actionRepository.findOne(closedActionId)).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sp_action_status WHERE action = ?", Long.class,
+                closedActionId)).isEqualTo(0L);
+        assertThat(actionRepository.findOne(activeActionId)).isNotNull();
+
+        final File[] exports = exportDirectory.listFiles()[0].listFiles();
+        assertThat(exports).hasSize(1);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(exports[0])), StandardCharsets.UTF_8))) {
+            final String export = reader.lines().collect(Collectors.joining("\n"));
+            assertThat(export).contains("action;" + closedActionId + ";closed;").contains("finished")
+                    .doesNotContain("action;" + activeActionId + ";");
+        }
+    }
+
+    private Long assignDistributionSet(final String controllerId) {
+        final DistributionSet set = testdataFactory.createDistributionSet(controllerId);
+        targetManagement.createTarget(new JpaTarget(controllerId));
+        return deploymentManagement.assignDistributionSet(set.getId(), controllerId).getActions().get(0);
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.hawkbit.repository.exception.TooManyStatusEntriesException;
+import org.eclipse.hawkbit.repository.jpa.model.JpaAction;
+import org.eclipse.hawkbit.repository.jpa.model.JpaActionStatus;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.ActionStatus;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.Lists;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+@TestPropertySource(properties = { "hawkbit.server.repository.eagerActionStatusPersistence=false",
+        "hawkbit.server.security.dos.maxStatusEntriesPerAction=2" })
+public class ActionStatusBatchWriterTest extends AbstractJpaIntegrationTest {
+
+    @Autowired
+    private ActionStatusBatchWriter actionStatusBatchWriter;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    @Description("Informational action status entries are queued and written to the repository with the next flush.")
+    public void informationalActionStatusIsWrittenWithFlush() {
+        final Action action = createActionForTarget("4713");
+
+        final ActionStatus running = new JpaActionStatus(action, Status.RUNNING, System.currentTimeMillis());
+        running.addMessage("running");
+        controllerManagament.addUpdateActionStatus(running);
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.WARNING, System.currentTimeMillis()));
+        assertThat(actionStatusBatchWriter.size()).isEqualTo(2);
+        assertThat(actionStatusRepository.countByAction((JpaAction) action)).as("status is not written before flush")
+                .isEqualTo(1L);
+
+        actionStatusBatchWriter.flush();
+        assertThat(actionStatusBatchWriter.size()).isEqualTo(0);
+        assertThat(actionStatusRepository.countByAction((JpaAction) action)).as("status is written with flush")
+                .isEqualTo(3L);
+        assertThat(actionStatusRepository.countByActionAndStatus((JpaAction) action, Status.RUNNING)).isEqualTo(1L);
+        assertThat(deploymentManagement.findActionStatusByAction(pageReq, action).getContent().stream()
+                .allMatch(status -> status.getLastModifiedAt() != null)).as("audit columns are filled").isTrue();
+    }
+
+    @Test
+    @Description("Queued action status entries of an action are written before an entry which changes the action.")
+    public void queuedActionStatusIsWrittenBeforeStateChange() {
+        final Action action = createActionForTarget("4714");
+
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.RUNNING, System.currentTimeMillis()));
+        assertThat(actionStatusBatchWriter.size()).isEqualTo(1);
+
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.FINISHED, System.currentTimeMillis()));
+        assertThat(actionStatusBatchWriter.size()).isEqualTo(0);
+
+        final List<ActionStatus> status = deploymentManagement.findActionStatusByAction(pageReq, action).getContent();
+        assertThat(status).hasSize(3);
+        assertThat(status.stream().max(Comparator.comparing(ActionStatus::getId)).get().getStatus())
+                .as("state changing status is written last").isEqualTo(Status.FINISHED);
+    }
+
+    @Test
+    @Description("An informational status entry is rejected when it is queued if the written and queued entries "
+            + "reach the limit.")
+    public void queuedActionStatusEntriesAreLimited() {
+        final Action action = createActionForTarget("4716");
+
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.RUNNING, System.currentTimeMillis()));
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.WARNING, System.currentTimeMillis()));
+
+        try {
+            controllerManagament
+                    .addUpdateActionStatus(new JpaActionStatus(action, Status.RUNNING, System.currentTimeMillis()));
+            fail("Expected TooManyStatusEntriesException");
+        } catch (final TooManyStatusEntriesException e) {
+            // expected
+        }
+        assertThat(actionStatusBatchWriter.size()).isEqualTo(2);
+
+        actionStatusBatchWriter.flush();
+        assertThat(actionRepository.findOne(action.getId()).getStatusCount()).isEqualTo(2L);
+    }
+
+    @Test
+    @Description("Entries offered by a rolled back transaction are not queued and entries drained by it are queued again.")
+    public void rolledBackActionStatusIsNotQueued() {
+        final Action action = createActionForTarget("4717");
+
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.RUNNING, System.currentTimeMillis()));
+        assertThat(actionStatusBatchWriter.size()).isEqualTo(1);
+
+        try {
+            new TransactionTemplate(txManager).execute(status -> {
+                controllerManagament.addUpdateActionStatus(
+                        new JpaActionStatus(action, Status.WARNING, System.currentTimeMillis()));
+                // drains the queued entries and exceeds the limit
+                return controllerManagament.addUpdateActionStatus(
+                        new JpaActionStatus(action, Status.FINISHED, System.currentTimeMillis()));
+            });
+            fail("Expected TooManyStatusEntriesException");
+        } catch (final TooManyStatusEntriesException e) {
+            // expected
+        }
+        assertThat(actionStatusBatchWriter.size()).as("drained entry is queued again").isEqualTo(1);
+
+        actionStatusBatchWriter.flush();
+        assertThat(actionStatusRepository.countByAction((JpaAction) action)).isEqualTo(2L);
+        assertThat(actionStatusRepository.countByActionAndStatus((JpaAction) action, Status.RUNNING)).isEqualTo(1L);
+        assertThat(actionStatusRepository.countByActionAndStatus((JpaAction) action, Status.WARNING))
+                .as("entry of the rolled back transaction is not written").isEqualTo(0L);
+        assertThat(actionRepository.findOne(action.getId()).getStatusCount()).isEqualTo(1L);
+    }
+
+    private Action createActionForTarget(final String controllerId) {
+        final Target target = targetManagement.createTarget(new JpaTarget(controllerId));
+        final DistributionSet ds = testdataFactory.createDistributionSet(controllerId);
+        deploymentManagement.assignDistributionSet(ds, Lists.newArrayList(target));
+        return deploymentManagement.findActiveActionsByTarget(target).get(0);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import org.eclipse.hawkbit.repository.exception.TooManyStatusEntriesException;
+import org.eclipse.hawkbit.repository.jpa.model.JpaActionStatus;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import com.google.common.collect.Lists;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+@TestPropertySource(properties = { "hawkbit.server.security.dos.maxStatusEntriesPerAction=2" })
+public class ActionStatusLimitTest extends AbstractJpaIntegrationTest {
+
+    @Test
+    @Description("The status entries of an action are counted and further entries are rejected if the limit is reached.")
+    public void actionStatusEntriesAreLimitedByCounter() {
+        final Action action = createActionForTarget("4715");
+
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.RUNNING, System.currentTimeMillis()));
+        controllerManagament
+                .addUpdateActionStatus(new JpaActionStatus(action, Status.WARNING, System.currentTimeMillis()));
+        assertThat(actionRepository.findOne(action.getId()).getStatusCount()).isEqualTo(2L);
+
+        try {
+            controllerManagament
+                    .addUpdateActionStatus(new JpaActionStatus(action, Status.RUNNING, System.currentTimeMillis()));
+            fail("Expected TooManyStatusEntriesException");
+        } catch (final TooManyStatusEntriesException e) {
+            // expected
+        }
+        assertThat(actionRepository.findOne(action.getId()).getStatusCount()).isEqualTo(2L);
+    }
+
+    private Action createActionForTarget(final String controllerId) {
+        final Target target = targetManagement.createTarget(new JpaTarget(controllerId));
+        final DistributionSet ds = testdataFactory.createDistributionSet(controllerId);
+        deploymentManagement.assignDistributionSet(ds, Lists.newArrayList(target));
+        return deploymentManagement.findActiveActionsByTarget(target).get(0);
+    }
+}
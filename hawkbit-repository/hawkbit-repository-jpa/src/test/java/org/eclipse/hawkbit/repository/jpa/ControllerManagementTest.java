@@ -12,12 +12,14 @@ import static org.fest.assertions.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.validation.ConstraintViolationException;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetPollEvent;
 import org.eclipse.hawkbit.repository.jpa.model.JpaActionStatus;
 import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
 import org.eclipse.hawkbit.repository.model.Action;
@@ -25,10 +27,15 @@ import org.eclipse.hawkbit.repository.model.Action.Status;
 import org.eclipse.hawkbit.repository.model.ActionStatus;
 import org.eclipse.hawkbit.repository.model.DistributionSet;
 import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
 import ru.yandex.qatools.allure.annotations.Description;
 import ru.yandex.qatools.allure.annotations.Features;
 import ru.yandex.qatools.allure.annotations.Stories;
@@ -39,6 +46,9 @@ public class ControllerManagementTest extends AbstractJpaIntegrationTest {
     @Autowired
     private RepositoryProperties repositoryProperties;
 
+    @Autowired
+    private EventBus eventBus;
+
     @Test
     @Description("Controller adds a new action status.")
     public void controllerAddsActionStatus() {
@@ -77,6 +87,57 @@ public class ControllerManagementTest extends AbstractJpaIntegrationTest {
                 .isEqualTo(3);
     }
 
+    @Test
+    @Description("The poll view contains the state of the target and its oldest active action.")
+    public void findOrRegisterTargetPollView() {
+        final TargetPollView registered = controllerManagament.findOrRegisterTargetPollView("AA", null);
+        assertThat(registered.getUpdateStatus()).isEqualTo(TargetUpdateStatus.REGISTERED);
+        assertThat(registered.hasActiveAction()).isFalse();
+        assertThat(registered.isRequestControllerAttributes()).isTrue();
+
+        final Target target = targetManagement.findTargetByControllerID("AA");
+        final Long firstActionId = deploymentManagement
+                .assignDistributionSet(testdataFactory.createDistributionSet("1"), Lists.newArrayList(target))
+                .getActions().get(0);
+        deploymentManagement.assignDistributionSet(testdataFactory.createDistributionSet("2"),
+                Lists.newArrayList(target));
+
+        final TargetPollView pending = controllerManagament.findOrRegisterTargetPollView("AA", null);
+        assertThat(pending.getTargetId()).isEqualTo(target.getId());
+        assertThat(pending.getUpdateStatus()).isEqualTo(TargetUpdateStatus.PENDING);
+        assertThat(pending.getActionId()).as("oldest active action").isEqualTo(firstActionId);
+        assertThat(pending.getActionStatus()).isEqualTo(Status.RUNNING);
+        assertThat(pending.isActionCancelingOrCanceled()).isFalse();
+    }
+
+    @Test
+    @Description("A poll which is written synchronously publishes a poll event.")
+    public void eagerPollPublishesPollEvent() throws InterruptedException {
+        final TargetPollView registered = controllerManagament.findOrRegisterTargetPollView("AB", null);
+        final List<TargetPollEvent> events = Collections.synchronizedList(new ArrayList<>());
+        final Object subscriber = new Object() {
+            @Subscribe
+            public void onEvent(final TargetPollEvent event) {
+                events.add(event);
+            }
+        };
+        eventBus.register(subscriber);
+        try {
+            controllerManagament.findOrRegisterTargetPollView("AB", null);
+
+            final long deadline = System.currentTimeMillis() + 5_000;
+            while (events.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(events).hasSize(1);
+            assertThat(events.get(0).getTargetId()).isEqualTo(registered.getTargetId());
+            assertThat(events.get(0).getLastTargetQuery()).isEqualTo(
+                    targetManagement.findTargetByControllerID("AB").getTargetInfo().getLastTargetQuery());
+        } finally {
+            eventBus.unregister(subscriber);
+        }
+    }
+
     @Test
     @Description("Register a controller which does not exist")
     public void testfindOrRegisterTargetIfItDoesNotexist() {
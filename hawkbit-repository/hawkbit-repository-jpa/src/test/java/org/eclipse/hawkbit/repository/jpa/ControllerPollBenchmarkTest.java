@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
+import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.SessionEventListener;
+import org.eclipse.persistence.sessions.SessionEventManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.context.TestPropertySource;
+
+import com.google.common.collect.Lists;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+/**
+ * Compares the number of database queries and the latency of a controller poll
+ * served by the entity based lookup with the single query
+ * {@link TargetPollView} lookup.
+ */
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+@TestPropertySource(properties = { "hawkbit.server.repository.eagerPollPersistence=false" })
+public class ControllerPollBenchmarkTest extends AbstractJpaIntegrationTest {
+    private static final Logger LOG = LoggerFactory.getLogger(ControllerPollBenchmarkTest.class);
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private final SessionEventListener queryCounter = new SessionEventAdapter() {
+        @Override
+        public void preExecuteQuery(final SessionEvent event) {
+            queries.incrementAndGet();
+        }
+    };
+
+    @Before
+    public void registerQueryCounter() {
+        getSessionEventManager().addListener(queryCounter);
+    }
+
+    @After
+    public void removeQueryCounter() {
+        getSessionEventManager().removeListener(queryCounter);
+    }
+
+    private SessionEventManager getSessionEventManager() {
+        return entityManager.unwrap(JpaEntityManager.class).getServerSession().getEventManager();
+    }
+
+    @Test
+    @Description("Measures database queries per poll and latency of the entity based poll compared to the poll view.")
+    public void pollViewNeedsLessQueriesThanEntityLookup() {
+        final DistributionSet ds = testdataFactory.createDistributionSet("");
+        final Target target = targetManagement.createTarget(new JpaTarget("bench"));
+        deploymentManagement.assignDistributionSet(ds, Lists.newArrayList(target));
+        controllerManagament.findOrRegisterTargetPollView("bench", null);
+
+        final Result entityLookup = measure(this::pollWithEntities);
+        final Result viewLookup = measure(this::pollWithView);
+
+        LOG.info("Entity lookup: {} queries/poll, {} us/poll", entityLookup.queriesPerPoll(),
+                entityLookup.microsPerPoll());
+        LOG.info("Poll view lookup: {} queries/poll, {} us/poll", viewLookup.queriesPerPoll(),
+                viewLookup.microsPerPoll());
+
+        assertThat(viewLookup.queriesPerPoll()).isLessThan(entityLookup.queriesPerPoll());
+    }
+
+    private void pollWithEntities() {
+        final Target target = controllerManagament.findOrRegisterTargetIfItDoesNotexist("bench", null);
+        if (target.getTargetInfo().getUpdateStatus() == TargetUpdateStatus.UNKNOWN) {
+            controllerManagament.updateTargetStatus(target.getTargetInfo(), TargetUpdateStatus.REGISTERED,
+                    System.currentTimeMillis(), null);
+        }
+        assertThat(controllerManagament.findOldestActiveActionByTarget(target).isPresent()).isTrue();
+        controllerManagament.getPollingTime();
+    }
+
+    private void pollWithView() {
+        assertThat(controllerManagament.findOrRegisterTargetPollView("bench", null).hasActiveAction()).isTrue();
+        controllerManagament.getPollingTime();
+    }
+
+    private Result measure(final Runnable poll) {
+        for (int i = 0; i < WARMUP; i++) {
+            poll.run();
+        }
+
+        queries.set(0);
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            poll.run();
+        }
+        return new Result(queries.get(), System.nanoTime() - start);
+    }
+
+    private static final class Result {
+        private final int queries;
+        private final long nanos;
+
+        private Result(final int queries, final long nanos) {
+            this.queries = queries;
+            this.nanos = nanos;
+        }
+
+        private double queriesPerPoll() {
+            return (double) queries / ITERATIONS;
+        }
+
+        private long microsPerPoll() {
+            return TimeUnit.NANOSECONDS.toMicros(nanos) / ITERATIONS;
+        }
+    }
+}
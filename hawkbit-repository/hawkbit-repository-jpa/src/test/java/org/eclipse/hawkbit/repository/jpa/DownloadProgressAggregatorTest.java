@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Callable;
+
+import org.eclipse.hawkbit.repository.RepositoryProperties;
+import org.eclipse.hawkbit.repository.jpa.cache.CacheWriteNotify;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Repository")
+@Stories("Download progress aggregation")
+@RunWith(MockitoJUnitRunner.class)
+public class DownloadProgressAggregatorTest {
+
+    private static final Long STATUS_ID = 1L;
+
+    @Mock
+    private CacheWriteNotify cacheWriteNotifyMock;
+
+    @Mock
+    private TenantAware tenantAwareMock;
+
+    @Mock
+    private SystemSecurityContext systemSecurityContextMock;
+
+    @Spy
+    private RepositoryProperties repositoryProperties = new RepositoryProperties();
+
+    @InjectMocks
+    private DownloadProgressAggregator underTest;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        when(tenantAwareMock.getCurrentTenant()).thenReturn("default");
+        when(systemSecurityContextMock.runAsSystemAsTenant(any(Callable.class), eq("default")))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArguments()[0]).call());
+    }
+
+    @Test
+    @Description("Progress reports of a download between two flushes are published as one snapshot.")
+    public void reportsAreCoalescedPerActionStatus() {
+        underTest.offer(STATUS_ID, 1000L, 100L, 100L);
+        underTest.offer(STATUS_ID, 1000L, 100L, 200L);
+        underTest.offer(STATUS_ID, 1000L, 100L, 300L);
+        assertThat(underTest.size()).isEqualTo(1);
+        verify(cacheWriteNotifyMock, never()).downloadProgress(anyLong(), anyLong(), anyLong(), anyLong());
+
+        underTest.flush();
+
+        verify(cacheWriteNotifyMock).downloadProgress(STATUS_ID, 1000L, 300L, 300L);
+    }
+
+    @Test
+    @Description("A snapshot is only published if the download progressed by the configured granularity.")
+    public void snapshotIsPublishedWithGranularity() {
+        repositoryProperties.setDownloadProgressGranularity(25);
+
+        underTest.offer(STATUS_ID, 1000L, 300L, 300L);
+        underTest.flush();
+        verify(cacheWriteNotifyMock).downloadProgress(STATUS_ID, 1000L, 300L, 300L);
+
+        underTest.offer(STATUS_ID, 1000L, 100L, 400L);
+        underTest.flush();
+        verifyNoMoreInteractions(cacheWriteNotifyMock);
+
+        underTest.offer(STATUS_ID, 1000L, 200L, 600L);
+        underTest.flush();
+        verify(cacheWriteNotifyMock).downloadProgress(STATUS_ID, 1000L, 300L, 600L);
+    }
+
+    @Test
+    @Description("The completion of a download is always published and ends the collection of its progress.")
+    public void completionIsAlwaysPublished() {
+        repositoryProperties.setDownloadProgressGranularity(50);
+
+        underTest.offer(STATUS_ID, 1000L, 600L, 600L);
+        underTest.flush();
+        underTest.offer(STATUS_ID, 1000L, 400L, 1000L);
+        underTest.flush();
+
+        verify(cacheWriteNotifyMock).downloadProgress(STATUS_ID, 1000L, 400L, 1000L);
+        assertThat(underTest.size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.eclipse.hawkbit.repository.jpa.rollout.LeaseRegistry;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Rollout Management")
+public class LeaseRegistryTest extends AbstractJpaIntegrationTest {
+
+    @Autowired
+    private LeaseRegistry leaseRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    @Description("Verifies that a lease can be acquired and renewed by its owner.")
+    public void leaseIsAcquiredAndRenewedByOwner() {
+        assertThat(leaseRegistry.tryAcquire("renew", 60000)).isTrue();
+        assertThat(leaseRegistry.tryAcquire("renew", 60000)).isTrue();
+    }
+
+    @Test
+    @Description("Verifies that a lease of another instance is only taken over after it has expired.")
+    public void leaseOfOtherInstanceIsTakenOverAfterExpiry() {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO sp_lease (lease_key, owner, expires_at) VALUES (?, ?, ?)", "held", "other",
+                System.currentTimeMillis() + 60000);
+        jdbcTemplate.update("INSERT INTO sp_lease (lease_key, owner, expires_at) VALUES (?, ?, ?)", "expired",
+                "other", System.currentTimeMillis() - 1);
+
+        assertThat(leaseRegistry.tryAcquire("held", 60000)).isFalse();
+        assertThat(leaseRegistry.tryAcquire("expired", 60000)).isTrue();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.eclipse.hawkbit.repository.jpa.model.JpaAction;
+import org.eclipse.hawkbit.repository.jpa.model.JpaActionStatus;
+import org.eclipse.hawkbit.repository.jpa.model.JpaRollout;
+import org.eclipse.hawkbit.repository.jpa.rollout.RolloutGroupActivator;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupErrorAction;
+import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupErrorCondition;
+import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessCondition;
+import org.eclipse.hawkbit.repository.model.RolloutGroupConditionBuilder;
+import org.eclipse.hawkbit.repository.model.RolloutGroupConditions;
+import org.eclipse.hawkbit.tenancy.TenantAware;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Rollout Management")
+@TestPropertySource(properties = { "hawkbit.rollout.pacing.targetsPerSecond=1000",
+        "hawkbit.rollout.pacing.maxActiveActions=3" })
+public class RolloutGroupActivatorTest extends AbstractJpaIntegrationTest {
+
+    @Autowired
+    private RolloutGroupActivator rolloutGroupActivator;
+
+    @Autowired
+    private TenantAware tenantAware;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    @Description("Verify that the actions of a running group are activated paced and limited by the number of active actions.")
+    public void pacedActivationIsLimitedByActiveActions() {
+        final Rollout rollout = createRollout("paced");
+        rolloutManagement.startRollout(rollout);
+
+        // the first group is running but its actions are not activated yet
+        assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.RUNNING)).isEmpty();
+        assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.SCHEDULED)).hasSize(10);
+
+        rolloutGroupActivator.activateScheduledActions();
+        assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.RUNNING)).hasSize(3);
+
+        // no slot left as long as the actions are not finished
+        rolloutGroupActivator.activateScheduledActions();
+        assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.RUNNING)).hasSize(3);
+
+        finishRunningActions(rollout);
+        rolloutGroupActivator.activateScheduledActions();
+        // only the rest of the first group is activated, the second group is
+        // not started yet
+        assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.RUNNING)).hasSize(2);
+        assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.SCHEDULED)).hasSize(5);
+    }
+
+    @Test
+    @Description("Verify that the actions of a tenant are only activated by the instance which holds its pacing lease.")
+    public void pacedActivationRequiresPacingLease() {
+        final Rollout rollout = createRollout("leased");
+        rolloutManagement.startRollout(rollout);
+
+        final String lease = "rollout-pacing:" + tenantAware.getCurrentTenant();
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("DELETE FROM sp_lease WHERE lease_key = ?", lease);
+        jdbcTemplate.update("INSERT INTO sp_lease (lease_key, owner, expires_at) VALUES (?, ?, ?)", lease, "other",
+                System.currentTimeMillis() + 60000);
+        try {
+            rolloutGroupActivator.activateScheduledActions();
+            assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.RUNNING)).isEmpty();
+        } finally {
+            jdbcTemplate.update("DELETE FROM sp_lease WHERE lease_key = ?", lease);
+        }
+
+        rolloutGroupActivator.activateScheduledActions();
+        assertThat(deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.RUNNING)).hasSize(3);
+    }
+
+    private Rollout createRollout(final String name) {
+        final DistributionSet distributionSet = testdataFactory.createDistributionSet("dsFor" + name);
+        targetManagement.createTargets(testdataFactory.generateTargets(10, name + "-", name));
+        final RolloutGroupConditions conditions = new RolloutGroupConditionBuilder()
+                .successCondition(RolloutGroupSuccessCondition.THRESHOLD, "50")
+                .errorCondition(RolloutGroupErrorCondition.THRESHOLD, "80")
+                .errorAction(RolloutGroupErrorAction.PAUSE, null).build();
+        final Rollout rolloutToCreate = new JpaRollout();
+        rolloutToCreate.setName(name);
+        rolloutToCreate.setDescription(name);
+        rolloutToCreate.setTargetFilterQuery("controllerId==" + name + "-*");
+        rolloutToCreate.setDistributionSet(distributionSet);
+        return rolloutManagement.createRollout(rolloutToCreate, 2, conditions);
+    }
+
+    private void finishRunningActions(final Rollout rollout) {
+        final List<Action> runningActions = deploymentManagement.findActionsByRolloutAndStatus(rollout, Status.RUNNING);
+        for (final Action action : runningActions) {
+            action.setStatus(Status.FINISHED);
+            controllerManagament.addUpdateActionStatus(
+                    new JpaActionStatus((JpaAction) action, Status.FINISHED, System.currentTimeMillis(), ""));
+        }
+    }
+}
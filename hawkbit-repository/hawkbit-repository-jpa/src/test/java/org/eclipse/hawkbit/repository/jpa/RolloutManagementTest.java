@@ -11,11 +11,14 @@ package org.eclipse.hawkbit.repository.jpa;
 import static org.fest.assertions.api.Assertions.assertThat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
+import javax.sql.DataSource;
+
 import org.eclipse.hawkbit.repository.OffsetBasedPageRequest;
 import org.eclipse.hawkbit.repository.RolloutGroupManagement;
 import org.eclipse.hawkbit.repository.RolloutManagement;
@@ -36,9 +39,11 @@ import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupStatus;
 import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessCondition;
 import org.eclipse.hawkbit.repository.model.RolloutGroupConditionBuilder;
 import org.eclipse.hawkbit.repository.model.RolloutGroupConditions;
+import org.eclipse.hawkbit.repository.model.RolloutPlan;
 import org.eclipse.hawkbit.repository.model.SoftwareModule;
 import org.eclipse.hawkbit.repository.model.Target;
 import org.eclipse.hawkbit.repository.model.TargetUpdateStatus;
+import org.eclipse.hawkbit.repository.model.TotalTargetCountActionStatus;
 import org.eclipse.hawkbit.repository.model.TotalTargetCountStatus;
 import org.eclipse.hawkbit.repository.test.util.TestdataFactory;
 import org.junit.Test;
@@ -48,6 +53,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.google.common.collect.Lists;
 
@@ -67,6 +73,12 @@ public class RolloutManagementTest extends AbstractJpaIntegrationTest {
     @Autowired
     private RolloutGroupManagement rolloutGroupManagement;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private RolloutGroupStatusCounter rolloutGroupStatusCounter;
+
     @Test
     @Description("Verfiying that the rollout is created correctly, executing the filter and split up the targets in the correct group size.")
     public void creatingRolloutIsCorrectPersisted() {
@@ -204,6 +216,70 @@ public class RolloutManagementTest extends AbstractJpaIntegrationTest {
         scheduleGroups.forEach(group -> assertThat(group.getStatus()).isEqualTo(RolloutGroupStatus.SCHEDULED));
     }
 
+    @Test
+    @Description("Verfiying that checking only the changed groups of a rollout starts the next group if the finish condition is hit and ignores groups which are not running")
+    public void checkRolloutGroupsStartsNextGroupOfChangedGroup() {
+        final Rollout createdRollout = createSimpleTestRolloutWithTargetsAndDistributionSet(10, 0, 5, "50", "80");
+        rolloutManagement.startRollout(createdRollout);
+
+        final List<RolloutGroup> groups = rolloutGroupManagement.findRolloutGroupsByRolloutId(createdRollout.getId(),
+                new OffsetBasedPageRequest(0, 100, new Sort(Direction.ASC, "id"))).getContent();
+        assertThat(changeStatusForAllRunningActions(createdRollout, Status.FINISHED)).isEqualTo(2);
+
+        // a scheduled group is not checked
+        rolloutManagement.checkRolloutGroups(Arrays.asList(groups.get(1).getId()));
+        assertThat(rolloutGroupManagement.findRolloutGroupById(groups.get(1).getId()).getStatus())
+                .isEqualTo(RolloutGroupStatus.SCHEDULED);
+
+        rolloutManagement.checkRolloutGroups(Arrays.asList(groups.get(0).getId()));
+        assertThat(rolloutGroupManagement.findRolloutGroupById(groups.get(0).getId()).getStatus())
+                .isEqualTo(RolloutGroupStatus.FINISHED);
+        assertThat(rolloutGroupManagement.findRolloutGroupById(groups.get(1).getId()).getStatus())
+                .isEqualTo(RolloutGroupStatus.RUNNING);
+        assertThat(rolloutGroupManagement.findRolloutGroupById(groups.get(2).getId()).getStatus())
+                .isEqualTo(RolloutGroupStatus.SCHEDULED);
+    }
+
+    @Test
+    @Description("Verfiying that the maintained action counts of a rollout match its actions and that drifted counts are repaired by the reconciliation")
+    public void rolloutStatusCountsAreMaintainedAndReconciled() {
+        final Rollout createdRollout = createSimpleTestRolloutWithTargetsAndDistributionSet(10, 0, 5, "50", "80");
+        rolloutManagement.startRollout(createdRollout);
+        changeStatusForRunningActions(createdRollout, Status.FINISHED, 1);
+        changeStatusForRunningActions(createdRollout, Status.ERROR, 1);
+        assertStatusCountsMatchActions(createdRollout);
+
+        new JdbcTemplate(dataSource).update("UPDATE sp_rolloutgroup_status_count SET action_count = 42");
+        rolloutManagement.reconcileRolloutStatusCounts();
+        assertStatusCountsMatchActions(createdRollout);
+    }
+
+    @Test
+    @Description("Verfiying that the maintained action counts of a rollout are adjusted if targets with actions of the rollout are deleted")
+    public void rolloutStatusCountsAreAdjustedOnTargetDeletion() {
+        final Rollout createdRollout = createSimpleTestRolloutWithTargetsAndDistributionSet(10, 0, 5, "50", "80");
+        rolloutManagement.startRollout(createdRollout);
+
+        final Long runningTargetId = deploymentManagement.findActionsByRolloutAndStatus(createdRollout, Status.RUNNING)
+                .get(0).getTarget().getId();
+        final Long scheduledTargetId = deploymentManagement
+                .findActionsByRolloutAndStatus(createdRollout, Status.SCHEDULED).get(0).getTarget().getId();
+        targetManagement.deleteTargets(runningTargetId, scheduledTargetId);
+
+        assertStatusCountsMatchActions(createdRollout);
+    }
+
+    private void assertStatusCountsMatchActions(final Rollout rollout) {
+        assertThat(toCountByStatus(rolloutGroupStatusCounter.countByRolloutIds(Arrays.asList(rollout.getId()))))
+                .isEqualTo(toCountByStatus(actionRepository.getStatusCountByRolloutId(rollout.getId())));
+    }
+
+    private static Map<Status, Long> toCountByStatus(final List<TotalTargetCountActionStatus> counts) {
+        final Map<Status, Long> countByStatus = new HashMap<>();
+        counts.forEach(count -> countByStatus.put(count.getStatus(), count.getCount()));
+        return countByStatus;
+    }
+
     @Test
     @Description("Verfiying a paused rollout in case of error action hit can be resumed again")
     public void errorActionPausesRolloutAndRolloutGetsResumedStartsNextScheduledGroup() {
@@ -905,6 +981,103 @@ public class RolloutManagementTest extends AbstractJpaIntegrationTest {
         validateRolloutActionStatus(myRollout.getId(), expectedTargetCountStatus);
     }
 
+    @Test
+    @Description("Verify that an interrupted rollout creation is resumed after the last created group.")
+    public void interruptedRolloutCreationIsResumed() throws Exception {
+        final Rollout rollout = createTestRolloutWithTargetsAndDistributionSet(15, 3, "50", "80", "resume", "resume");
+        final List<RolloutGroup> createdGroups = rolloutManagement.findRolloutById(rollout.getId())
+                .getRolloutGroups();
+        assertThat(createdGroups).hasSize(3);
+
+        // simulate an instance which died after the creation of the second
+        // group
+        final Long lastGroupId = createdGroups.get(2).getId();
+        new JdbcTemplate(dataSource).update("DELETE FROM sp_rollouttargetgroup WHERE rolloutGroup_Id = ?",
+                lastGroupId);
+        rolloutGroupRepository.delete(lastGroupId);
+        final JpaRollout interruptedRollout = rolloutRepository.findOne(rollout.getId());
+        interruptedRollout.setStatus(RolloutStatus.CREATING);
+        rolloutRepository.save(interruptedRollout);
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        final Long checkpointGroupId = createdGroups.get(1).getId();
+        jdbcTemplate.update(
+                "INSERT INTO sp_rollout_job (rollout, owner, heartbeat, checkpoint_group, checkpoint_target) VALUES (?, ?, ?, ?, ?)",
+                rollout.getId(), "crashed", 0, checkpointGroupId,
+                jdbcTemplate.queryForObject(
+                        "SELECT MAX(target_Id) FROM sp_rollouttargetgroup WHERE rolloutGroup_Id = ?", Long.class,
+                        checkpointGroupId));
+
+        rolloutManagement.checkRunningRollouts(0);
+
+        assertThat(MultipleInvokeHelper.doWithTimeout(new RolloutStatusCallable(rollout.getId()),
+                new SuccessConditionRolloutStatus(RolloutStatus.READY), 15000, 500)).as("Rollout status").isNotNull();
+        final List<RolloutGroup> rolloutGroups = rolloutManagement.findRolloutById(rollout.getId())
+                .getRolloutGroups();
+        assertThat(rolloutGroups).hasSize(3);
+        assertThat(rolloutGroups.get(2).getParent().getId()).isEqualTo(createdGroups.get(1).getId());
+        final List<Target> resumedTargets = rolloutGroupManagement.findRolloutGroupTargets(rolloutGroups.get(2),
+                new OffsetBasedPageRequest(0, 100, new Sort(Direction.ASC, "controllerId"))).getContent();
+        assertThat(resumedTargets).hasSize(5);
+        assertThat(resumedTargets.get(0).getControllerId()).isEqualTo("resume--00010");
+    }
+
+    @Test
+    @Description("Verify that a rollout plan splits up the targets like the creation and that the creation reuses the planned targets.")
+    public void plannedTargetsAreReusedByCreation() throws Exception {
+        final DistributionSet distributionSet = testdataFactory.createDistributionSet("dsForPlan");
+        final List<Target> targets = targetManagement
+                .createTargets(testdataFactory.generateTargets(15, "plan-", "plan"));
+
+        final RolloutPlan plan = rolloutManagement.planRollout("controllerId==plan-* and description==plan*", 3);
+        assertThat(plan.getTotalTargets()).isEqualTo(15);
+        assertThat(plan.getGroups()).hasSize(3);
+        assertThat(plan.getGroups().get(0).getTotalTargets()).isEqualTo(5);
+        assertThat(plan.getGroups().get(0).getSampleTargets()).contains(targets.get(0).getControllerId());
+
+        // planned targets which are deleted or do not match the filter
+        // anymore before the creation are skipped
+        targetManagement.deleteTargets(targets.get(0).getId());
+        final Target changed = targetManagement.findTargetByControllerID(targets.get(1).getControllerId());
+        changed.setDescription("unplanned");
+        targetManagement.updateTarget(changed);
+
+        final Rollout rollout = createRolloutByVariables("plan", "plan", 3,
+                "controllerId==plan-* and description==plan*", distributionSet, "50", "80");
+        assertThat(rollout.getTotalTargets()).isEqualTo(13);
+        final List<RolloutGroup> rolloutGroups = rolloutManagement.findRolloutById(rollout.getId())
+                .getRolloutGroups();
+        assertThat(rolloutGroups).hasSize(3);
+        assertThat(rolloutGroups.stream().mapToLong(RolloutGroup::getTotalTargets).sum()).isEqualTo(13);
+    }
+
+    @Test
+    @Description("Verify that an interrupted rollout start is resumed from the checkpoint of its job.")
+    public void interruptedRolloutStartIsResumed() throws Exception {
+        final Rollout rollout = createTestRolloutWithTargetsAndDistributionSet(15, 3, "50", "80", "restart",
+                "restart");
+        final List<RolloutGroup> rolloutGroups = rolloutManagement.findRolloutById(rollout.getId())
+                .getRolloutGroups();
+
+        // simulate an instance which died right after it has started the
+        // rollout
+        final JpaRollout interruptedRollout = rolloutRepository.findOne(rollout.getId());
+        interruptedRollout.setStatus(RolloutStatus.STARTING);
+        rolloutRepository.save(interruptedRollout);
+        new JdbcTemplate(dataSource).update(
+                "INSERT INTO sp_rollout_job (rollout, owner, heartbeat, checkpoint_group, checkpoint_target) VALUES (?, ?, ?, ?, ?)",
+                rollout.getId(), "crashed", 0, rolloutGroups.get(0).getId(), 0);
+
+        rolloutManagement.checkRunningRollouts(0);
+
+        assertThat(MultipleInvokeHelper.doWithTimeout(new RolloutStatusCallable(rollout.getId()),
+                new SuccessConditionRolloutStatus(RolloutStatus.RUNNING), 15000, 500)).as("Rollout status")
+                        .isNotNull();
+        final Map<TotalTargetCountStatus.Status, Long> expectedTargetCountStatus = createInitStatusMap();
+        expectedTargetCountStatus.put(TotalTargetCountStatus.Status.RUNNING, 5L);
+        expectedTargetCountStatus.put(TotalTargetCountStatus.Status.SCHEDULED, 10L);
+        validateRolloutActionStatus(rollout.getId(), expectedTargetCountStatus);
+    }
+
     private void validateRolloutGroupActionStatus(final RolloutGroup rolloutGroup,
             final Map<TotalTargetCountStatus.Status, Long> expectedTargetCountStatus) {
         final RolloutGroup rolloutGroupWithDetail = rolloutGroupManagement
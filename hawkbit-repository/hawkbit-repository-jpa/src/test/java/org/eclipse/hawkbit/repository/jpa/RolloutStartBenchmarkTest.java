@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.hawkbit.repository.RolloutManagement;
+import org.eclipse.hawkbit.repository.jpa.model.JpaRollout;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Rollout;
+import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupErrorAction;
+import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupErrorCondition;
+import org.eclipse.hawkbit.repository.model.RolloutGroup.RolloutGroupSuccessCondition;
+import org.eclipse.hawkbit.repository.model.RolloutGroupConditionBuilder;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+/**
+ * Measures the creation and the start of a rollout. The number of targets can
+ * be raised with the system property {@value #TARGETS_PROPERTY}.
+ */
+@Features("Component Tests - Repository")
+@Stories("Rollout Management")
+public class RolloutStartBenchmarkTest extends AbstractJpaIntegrationTest {
+    private static final Logger LOG = LoggerFactory.getLogger(RolloutStartBenchmarkTest.class);
+
+    private static final String TARGETS_PROPERTY = "hawkbit.benchmark.rolloutTargets";
+
+    private static final int GROUPS = 10;
+
+    @Autowired
+    private RolloutManagement rolloutManagement;
+
+    @Test
+    @Description("Measures the duration of the creation and the start of a rollout with many targets.")
+    public void startRolloutWithManyTargets() {
+        final int amountTargets = Integer.getInteger(TARGETS_PROPERTY, 5000);
+        final DistributionSet distributionSet = testdataFactory.createDistributionSet("bench");
+        targetManagement.createTargets(testdataFactory.generateTargets(amountTargets, "bench-", "bench"));
+
+        final Rollout rollout = new JpaRollout();
+        rollout.setName("bench");
+        rollout.setTargetFilterQuery("controllerId==bench-*");
+        rollout.setDistributionSet(distributionSet);
+
+        long start = System.nanoTime();
+        final Rollout created = rolloutManagement.createRollout(rollout, GROUPS,
+                new RolloutGroupConditionBuilder().successCondition(RolloutGroupSuccessCondition.THRESHOLD, "100")
+                        .errorCondition(RolloutGroupErrorCondition.THRESHOLD, "80")
+                        .errorAction(RolloutGroupErrorAction.PAUSE, null).build());
+        final long createMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        rolloutManagement.startRollout(created);
+        final long startMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        LOG.info("Rollout with {} targets in {} groups: created in {} ms, started in {} ms ({} us/target)",
+                amountTargets, GROUPS, createMillis, startMillis,
+                TimeUnit.MILLISECONDS.toMicros(startMillis) / amountTargets);
+
+        final int firstGroupSize = (int) Math.ceil((double) amountTargets / GROUPS);
+        assertThat(actionRepository.countByRollout((JpaRollout) created)).isEqualTo(amountTargets);
+        assertThat(actionRepository.findByRolloutAndStatus((JpaRollout) created, Status.SCHEDULED))
+                .hasSize(amountTargets - firstGroupSize);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
+import org.eclipse.hawkbit.repository.jpa.utils.MultipleInvokeHelper;
+import org.eclipse.hawkbit.repository.model.DistributionSet;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.eclipse.hawkbit.repository.model.TargetDeletion;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Target Management")
+@TestPropertySource(properties = { "hawkbit.server.repository.targetDeletionChunkSize=3",
+        "hawkbit.server.repository.targetDeletionPause=0" })
+public class TargetBulkDeleterTest extends AbstractJpaIntegrationTest {
+
+    @Test
+    @Description("Ensures that targets are deleted asynchronously in chunks including their actions and attributes.")
+    public void deleteTargetsAsyncInChunks() throws Exception {
+        final DistributionSet set = testdataFactory.createDistributionSet("");
+        final List<Long> targets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            targets.add(targetManagement.createTarget(new JpaTarget("async" + i)).getId());
+            targets.add(createTargetWithAttributes("asyncAttributes" + i).getId());
+            deploymentManagement.assignDistributionSet(set.getId(), "async" + i);
+        }
+        // unknown targets are skipped
+        targets.add(-1L);
+
+        final TargetDeletion deletion = targetManagement.deleteTargetsAsync(targets);
+        assertThat(deletion.getTotalTargets()).as("total targets are wrong").isEqualTo(9);
+
+        final TargetDeletion finished = MultipleInvokeHelper.doWithTimeout(
+                () -> targetManagement.findTargetDeletion(deletion.getId()),
+                result -> result.getStatus() == TargetDeletion.Status.FINISHED, 15000, 100);
+        assertThat(finished).as("deletion is not finished").isNotNull();
+        assertThat(finished.getDeletedTargets()).as("deleted targets are wrong").isEqualTo(8);
+        assertThat(targetManagement.countTargetsAll()).as("target count is wrong").isEqualTo(0);
+        assertThat(actionRepository.count()).as("action count is wrong").isEqualTo(0);
+    }
+
+    private Target createTargetWithAttributes(final String controllerId) {
+        final Map<String, String> testData = new HashMap<>();
+        testData.put("test1", "testdata1");
+
+        targetManagement.createTarget(new JpaTarget(controllerId));
+        return controllerManagament.updateControllerAttributes(controllerId, testData);
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.hawkbit.repository.eventbus.event.TargetPollEvent;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTarget;
+import org.eclipse.hawkbit.repository.model.Target;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+@TestPropertySource(properties = { "hawkbit.server.repository.eagerPollPersistence=false" })
+public class TargetPollAggregatorTest extends AbstractJpaIntegrationTest {
+
+    @Autowired
+    private TargetPollAggregator targetPollAggregator;
+
+    @Autowired
+    private EventBus eventBus;
+
+    private final List<TargetPollEvent> targetPollEvents = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    @Description("Controller polls are collected in memory and written to the repository with the next flush.")
+    public void targetPollsArePersistedWithFlush() throws InterruptedException {
+        final Target target = targetManagement.createTarget(new JpaTarget("4711"));
+        assertThat(targetManagement.findTargetByControllerID("4711").getTargetInfo().getLastTargetQuery()).isNull();
+
+        controllerManagament.updateLastTargetQuery("4711", null);
+        controllerManagament.updateLastTargetQuery("4711", null);
+        assertThat(targetPollAggregator.size()).as("polls of one target are coalesced").isEqualTo(1);
+        assertThat(targetManagement.findTargetByControllerID("4711").getTargetInfo().getLastTargetQuery())
+                .as("poll is not written before flush").isNull();
+
+        eventBus.register(this);
+        targetPollAggregator.flush();
+        assertThat(targetPollAggregator.size()).isEqualTo(0);
+        assertThat(targetManagement.findTargetByControllerID("4711").getTargetInfo().getLastTargetQuery())
+                .as("poll is written with flush").isNotNull();
+
+        awaitTargetPollEvents(1);
+        assertThat(targetPollEvents.get(0).getTargetId()).isEqualTo(target.getId());
+        assertThat(targetPollEvents.get(0).getLastTargetQuery()).isEqualTo(
+                targetManagement.findTargetByControllerID("4711").getTargetInfo().getLastTargetQuery());
+    }
+
+    @Test
+    @Description("The polls of several targets are written with the oldest poll time of their period, so no poll time is overstated.")
+    public void pollTimesAreNotOverstated() {
+        final Target first = targetManagement.createTarget(new JpaTarget("first"));
+        final Target second = targetManagement.createTarget(new JpaTarget("second"));
+        final Target third = targetManagement.createTarget(new JpaTarget("third"));
+
+        targetPollAggregator.offer(first.getId(), null, null, null, 10_000_100L);
+        targetPollAggregator.offer(second.getId(), null, null, null, 10_000_900L);
+        targetPollAggregator.offer(third.getId(), null, null, null, 10_002_000L);
+        targetPollAggregator.flush();
+
+        assertThat(targetManagement.findTargetByControllerID("first").getTargetInfo().getLastTargetQuery())
+                .isEqualTo(10_000_100L);
+        assertThat(targetManagement.findTargetByControllerID("second").getTargetInfo().getLastTargetQuery())
+                .isEqualTo(10_000_100L);
+        assertThat(targetManagement.findTargetByControllerID("third").getTargetInfo().getLastTargetQuery())
+                .isEqualTo(10_002_000L);
+    }
+
+    @Subscribe
+    public void onEvent(final TargetPollEvent event) {
+        targetPollEvents.add(event);
+    }
+
+    private void awaitTargetPollEvents(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (targetPollEvents.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(targetPollEvents).hasSize(count);
+    }
+}
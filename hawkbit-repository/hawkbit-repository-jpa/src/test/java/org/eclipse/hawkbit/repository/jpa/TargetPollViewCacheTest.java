@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.net.URI;
+
+import org.eclipse.hawkbit.repository.eventbus.event.TargetPollViewChangedEvent;
+import org.eclipse.hawkbit.repository.model.TargetPollView;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Component Tests - Repository")
+@Stories("Controller Management")
+@TestPropertySource(properties = { "hawkbit.server.repository.pollViewCache=true" })
+public class TargetPollViewCacheTest extends AbstractJpaIntegrationTest {
+
+    @Autowired
+    private TargetPollViewCache targetPollViewCache;
+
+    @After
+    public void evictAll() {
+        targetPollViewCache.evictAll();
+    }
+
+    @Test
+    @Description("Polls of a controller are served from the poll view cache until the view is evicted.")
+    public void targetPollViewIsServedFromCache() {
+        final TargetPollView registered = controllerManagament.findOrRegisterTargetPollView("AA", null);
+        assertThat(targetPollViewCache.get("AA")).as("view is cached after the first poll").isNotNull();
+
+        final TargetPollView cached = controllerManagament.findOrRegisterTargetPollView("AA",
+                URI.create("http://127.0.0.1"));
+        assertThat(cached.getTargetId()).isEqualTo(registered.getTargetId());
+        assertThat(cached.getAddress()).as("poll is reflected in the cached view").isEqualTo("http://127.0.0.1");
+        assertThat(targetPollViewCache.get("AA")).isSameAs(cached);
+
+        targetPollViewCache.onEvent(
+                new TargetPollViewChangedEvent(tenantAware.getCurrentTenant(), registered.getTargetId()));
+        assertThat(targetPollViewCache.get("AA")).as("view is evicted by the event").isNull();
+
+        final long evictionCount = targetPollViewCache.getEvictionCount();
+        targetPollViewCache.evict(registered.getTargetId());
+        targetPollViewCache.put(cached, evictionCount);
+        assertThat(targetPollViewCache.get("AA")).as("view loaded before an eviction is not cached").isNull();
+    }
+
+    @Test
+    @Description("A poll of a view which has been evicted and loaded again in between does not replace the fresh view.")
+    public void staleViewDoesNotReplaceFreshView() {
+        final TargetPollView stale = controllerManagament.findOrRegisterTargetPollView("AA", null);
+        assertThat(targetPollViewCache.get("AA")).isSameAs(stale);
+
+        targetPollViewCache.evict(stale.getTargetId());
+        final TargetPollView fresh = controllerManagament.findOrRegisterTargetPollView("AA", null);
+        assertThat(targetPollViewCache.get("AA")).isSameAs(fresh);
+
+        targetPollViewCache.update(stale, stale.withPoll("http://127.0.0.1", System.currentTimeMillis()));
+        assertThat(targetPollViewCache.get("AA")).as("fresh view is kept").isSameAs(fresh);
+    }
+}
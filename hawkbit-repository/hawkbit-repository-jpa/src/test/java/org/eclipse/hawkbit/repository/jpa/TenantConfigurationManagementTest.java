@@ -16,12 +16,15 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.hawkbit.repository.eventbus.event.TenantConfigurationChangedEvent;
+import org.eclipse.hawkbit.repository.jpa.model.JpaTenantConfiguration;
 import org.eclipse.hawkbit.repository.model.TenantConfigurationValue;
 import org.eclipse.hawkbit.tenancy.configuration.DurationHelper;
 import org.eclipse.hawkbit.tenancy.configuration.TenantConfigurationKey;
 import org.eclipse.hawkbit.tenancy.configuration.validator.TenantConfigurationValidatorException;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import ru.yandex.qatools.allure.annotations.Description;
 import ru.yandex.qatools.allure.annotations.Features;
@@ -31,6 +34,12 @@ import ru.yandex.qatools.allure.annotations.Stories;
 @Stories("Tenant Configuration Management")
 public class TenantConfigurationManagementTest extends AbstractJpaIntegrationTestWithMongoDB {
 
+    @Autowired
+    private TenantConfigurationRepository tenantConfigurationRepository;
+
+    @Autowired
+    private TenantConfigurationSnapshotCache snapshotCache;
+
     @Test
     @Description("Tests that tenant specific configuration can be persisted and in case the tenant does not have specific configuration the default from environment is used instead.")
     public void storeTenantSpecificConfigurationAsString() {
@@ -229,6 +238,30 @@ public class TenantConfigurationManagementTest extends AbstractJpaIntegrationTes
         }
     }
 
+    @Test
+    @Description("Tests that configuration values are served from the snapshot of the tenant until the snapshot is evicted by a change event.")
+    public void configurationValuesAreServedFromSnapshot() {
+        final TenantConfigurationKey configKey = TenantConfigurationKey.POLLING_TIME_INTERVAL;
+        tenantConfigurationManagement.addOrUpdateConfiguration(configKey, "00:05:00");
+        assertThat(controllerManagament.getPollingTime()).isEqualTo("00:05:00");
+
+        // change the value behind the back of the management
+        final JpaTenantConfiguration configuration = tenantConfigurationRepository.findByKey(configKey.getKeyName());
+        configuration.setValue("00:07:00");
+        tenantConfigurationRepository.save(configuration);
+        assertThat(tenantConfigurationManagement.getConfigurationValue(configKey, String.class).getValue())
+                .isEqualTo("00:05:00");
+        assertThat(controllerManagament.getPollingTime()).isEqualTo("00:05:00");
+
+        snapshotCache.onEvent(new TenantConfigurationChangedEvent(tenantAware.getCurrentTenant(), null));
+        assertThat(tenantConfigurationManagement.getConfigurationValue(configKey, String.class).getValue())
+                .isEqualTo("00:07:00");
+        assertThat(controllerManagament.getPollingTime()).isEqualTo("00:07:00");
+
+        tenantConfigurationManagement.deleteConfiguration(configKey);
+        assertThat(tenantConfigurationManagement.getConfigurationValue(configKey, String.class).isGlobal()).isTrue();
+    }
+
     @Test
     @Description("Verifies that every TenenatConfiguraationKeyName exists only once")
     public void verifyThatAllKeysAreDifferent() {
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.repository.jpa.rollout;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+
+import org.eclipse.hawkbit.repository.RolloutManagement;
+import org.eclipse.hawkbit.repository.eventbus.event.AbstractPropertyChangeEvent.PropertyChange;
+import org.eclipse.hawkbit.repository.eventbus.event.ActionPropertyChangeEvent;
+import org.eclipse.hawkbit.repository.model.Action;
+import org.eclipse.hawkbit.repository.model.Action.Status;
+import org.eclipse.hawkbit.repository.model.RolloutGroup;
+import org.eclipse.hawkbit.security.SystemSecurityContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Repository")
+@Stories("Rollout Management")
+@RunWith(MockitoJUnitRunner.class)
+public class RolloutGroupCheckSchedulerTest {
+
+    private static final Long GROUP_ID = 1L;
+
+    @Mock
+    private RolloutManagement rolloutManagementMock;
+
+    @Mock
+    private SystemSecurityContext systemSecurityContextMock;
+
+    @InjectMocks
+    private RolloutGroupCheckScheduler underTest;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        when(systemSecurityContextMock.runAsSystemAsTenant(any(Callable.class), eq("default")))
+                .thenAnswer(invocation -> ((Callable<?>) invocation.getArguments()[0]).call());
+        when(rolloutManagementMock.checkRolloutGroups(anyCollectionOf(Long.class)))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    @Description("The group of an action which has been finished is marked by the status change event and checked once.")
+    public void groupOfFinishedActionIsChecked() {
+        underTest.onEvent(statusChange(Status.FINISHED));
+        underTest.onEvent(statusChange(Status.FINISHED));
+
+        underTest.checkChangedGroups();
+        underTest.checkChangedGroups();
+
+        verify(rolloutManagementMock).checkRolloutGroups(Collections.singletonList(GROUP_ID));
+        verifyNoMoreInteractions(rolloutManagementMock);
+    }
+
+    @Test
+    @Description("The group of an action which is still running is not marked.")
+    public void groupOfRunningActionIsNotChecked() {
+        underTest.onEvent(statusChange(Status.RUNNING));
+
+        underTest.checkChangedGroups();
+
+        verifyNoMoreInteractions(rolloutManagementMock);
+    }
+
+    @Test
+    @Description("A group which has not been checked because its rollout has been checked at the same time is checked again.")
+    public void uncheckedGroupIsMarkedAgain() {
+        when(rolloutManagementMock.checkRolloutGroups(anyCollectionOf(Long.class)))
+                .thenReturn(Collections.singletonList(GROUP_ID)).thenReturn(Collections.emptyList());
+        underTest.onEvent(statusChange(Status.ERROR));
+
+        underTest.checkChangedGroups();
+        underTest.checkChangedGroups();
+        underTest.checkChangedGroups();
+
+        verify(rolloutManagementMock, times(2)).checkRolloutGroups(Collections.singletonList(GROUP_ID));
+        verifyNoMoreInteractions(rolloutManagementMock);
+    }
+
+    @Test
+    @Description("A group whose check keeps failing is given up after the maximum number of attempts.")
+    public void failingGroupIsGivenUp() {
+        when(rolloutManagementMock.checkRolloutGroups(anyCollectionOf(Long.class)))
+                .thenThrow(new IllegalStateException("check failed"));
+        underTest.onEvent(statusChange(Status.FINISHED));
+
+        for (int i = 0; i < RolloutGroupCheckScheduler.MAX_CHECK_ATTEMPTS + 2; i++) {
+            underTest.checkChangedGroups();
+        }
+
+        verify(rolloutManagementMock, times(RolloutGroupCheckScheduler.MAX_CHECK_ATTEMPTS))
+                .checkRolloutGroups(Collections.singletonList(GROUP_ID));
+        verifyNoMoreInteractions(rolloutManagementMock);
+    }
+
+    private static ActionPropertyChangeEvent statusChange(final Status status) {
+        final RolloutGroup rolloutGroup = mock(RolloutGroup.class);
+        when(rolloutGroup.getId()).thenReturn(GROUP_ID);
+        final Action action = mock(Action.class);
+        when(action.getTenant()).thenReturn("default");
+        when(action.getStatus()).thenReturn(status);
+        when(action.getRolloutGroup()).thenReturn(rolloutGroup);
+        return new ActionPropertyChangeEvent(action,
+                Collections.singletonMap("status", new PropertyChange(Status.RUNNING, status)));
+    }
+}
@@ -51,7 +51,11 @@ public final class RestResourceConversionHelper {
 
     private static final Logger LOG = LoggerFactory.getLogger(RestResourceConversionHelper.class);
 
-    private static final int BUFFER_SIZE = 4096;
+    /**
+     * Size of the copy buffer and the response buffer, large enough to copy
+     * the artifact chunks with only a few writes to the servlet container.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     private RestResourceConversionHelper() {
 
@@ -181,8 +185,8 @@ public final class RestResourceConversionHelper {
         response.setHeader(CONTENT_LENGTH, String.valueOf(r.getLength()));
 
         try {
-            copyStreams(file.getFileInputStream(), response.getOutputStream(), controllerManagement, statusId,
-                    r.getStart(), r.getLength());
+            copyStreams(file, response.getOutputStream(), controllerManagement, statusId, r.getStart(),
+                    r.getLength());
         } catch (final IOException e) {
             LOG.error("fullfileRequest of file ({}) failed!", artifact.getFilename(), e);
             throw new FileSteamingFailedException(artifact.getFilename());
@@ -255,8 +259,8 @@ public final class RestResourceConversionHelper {
                         .println("Content-Range: bytes " + r.getStart() + "-" + r.getEnd() + "/" + r.getTotal());
 
                 // Copy single part range of multi part range.
-                copyStreams(file.getFileInputStream(), response.getOutputStream(), controllerManagement, statusId,
-                        r.getStart(), r.getLength());
+                copyStreams(file, response.getOutputStream(), controllerManagement, statusId, r.getStart(),
+                        r.getLength());
             }
 
             // End with final multipart boundary.
@@ -277,29 +281,34 @@ public final class RestResourceConversionHelper {
         response.setStatus(SC_PARTIAL_CONTENT);
 
         try {
-            copyStreams(file.getFileInputStream(), response.getOutputStream(), controllerManagement, statusId,
-                    r.getStart(), r.getLength());
+            copyStreams(file, response.getOutputStream(), controllerManagement, statusId, r.getStart(),
+                    r.getLength());
         } catch (final IOException e) {
             LOG.error("standardRangeRequest of file ({}) failed!", artifact.getFilename(), e);
             throw new FileSteamingFailedException(artifact.getFilename());
         }
     }
 
-    private static long copyStreams(final InputStream from, final OutputStream to,
+    private static long copyStreams(final DbArtifact file, final OutputStream to,
             final ControllerManagement controllerManagement, final Long statusId, final long start, final long length)
             throws IOException {
-        checkNotNull(from);
+        checkNotNull(file);
         checkNotNull(to);
+
+        // the range is opened directly at its start, i.e. the store seeks to
+        // the start instead of skipping through the artifact
+        try (final InputStream from = file.openRange(start, length)) {
+            return copyStreams(from, to, controllerManagement, statusId, length);
+        }
+    }
+
+    private static long copyStreams(final InputStream from, final OutputStream to,
+            final ControllerManagement controllerManagement, final Long statusId, final long length)
+            throws IOException {
         final byte[] buf = new byte[BUFFER_SIZE];
         long total = 0;
         int progressPercent = 1;
 
-        // skipp until start is reached
-        long skipped = 0;
-        do {
-            skipped += from.skip(start);
-        } while (skipped < start);
-
         long toRead = length;
         boolean toContinue = true;
         long shippedSinceLastEvent = 0;
@@ -9,12 +9,14 @@
 package org.eclipse.hawkbit;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.ShallowEtagHeaderFilter;
 
@@ -24,6 +26,10 @@ import org.springframework.web.filter.ShallowEtagHeaderFilter;
  * expensive operation and the response output need to be copied in memory which
  * should be excluded in case of artifact downloads which could be big of size.
  * 
+ * An ETag which has already been set by the handler itself is kept as is,
+ * e.g. if the handler calculates the ETag based on the state of the resource
+ * to answer with {@code 304 Not Modified} without rendering the response.
+ * 
  *
  *
  *
@@ -60,6 +66,13 @@ public class ExcludePathAwareShallowETagFilter extends ShallowEtagHeaderFilter {
         }
     }
 
+    @Override
+    protected boolean isEligibleForEtag(final HttpServletRequest request, final HttpServletResponse response,
+            final int responseStatusCode, final InputStream inputStream) {
+        return response.getHeader(HttpHeaders.ETAG) == null
+                && super.isEligibleForEtag(request, response, responseStatusCode, inputStream);
+    }
+
     private boolean shouldExclude(final HttpServletRequest request) {
         for (final String pattern : excludeAntPaths) {
             if (antMatcher.match(request.getContextPath() + pattern, request.getRequestURI())) {
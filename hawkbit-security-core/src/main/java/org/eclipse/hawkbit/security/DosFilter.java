@@ -8,11 +8,10 @@
  */
 package org.eclipse.hawkbit.security;
 
-import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.eclipse.hawkbit.security.SecurityConstants.SECURITY_LOG_PREFIX;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import javax.servlet.FilterChain;
@@ -23,17 +22,21 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.hawkbit.util.IpUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-
 /**
  * Filter for protection against denial of service attacks. It reduces the
  * maximum number of request per seconds which can be separately configured for
- * read (GET) and write (PUT/POST/DELETE) requests.
+ * read (GET) and write (PUT/POST/DELETE) requests per client. Optionally the
+ * requests of all clients of a tenant are limited as well.
+ *
+ * The limits are enforced by a {@link RequestRateLimiter}, either of this node
+ * or shared in the cluster. Rejected requests are answered with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header.
  */
 public class DosFilter extends OncePerRequestFilter {
 
@@ -41,23 +44,28 @@ public class DosFilter extends OncePerRequestFilter {
     private static final Logger LOG_DOS = LoggerFactory.getLogger(SECURITY_LOG_PREFIX + ".dos");
     private static final Logger LOG_BLACKLIST = LoggerFactory.getLogger(SECURITY_LOG_PREFIX + ".blacklist");
 
+    private static final String TENANT_VARIABLE = "tenant";
+
     private final Pattern ipAdressBlacklist;
 
-    private final Cache<String, AtomicInteger> readCountCache = CacheBuilder.newBuilder().expireAfterAccess(1, SECONDS)
-            .build();
+    private final RequestRateLimiter rateLimiter;
 
-    private final Cache<String, AtomicInteger> writeCountCache = CacheBuilder.newBuilder().expireAfterAccess(1, SECONDS)
-            .build();
+    private final String api;
 
-    private final Integer maxRead;
-    private final Integer maxWrite;
+    private final int maxRead;
+    private final int maxWrite;
+    private final int maxTenant;
 
     private final Pattern whitelist;
 
     private final String forwardHeader;
 
+    private final String[] includeAntPaths;
+    private final AntPathMatcher antMatcher = new AntPathMatcher();
+
     /**
-     * Filter constructor including configuration.
+     * Filter constructor including configuration, which limits all requests
+     * with a {@link RequestRateLimiter} of this node.
      *
      * @param maxRead
      *            Maximum number of allowed REST read/GET requests per second
@@ -76,10 +84,50 @@ public class DosFilter extends OncePerRequestFilter {
      */
     public DosFilter(final Integer maxRead, final Integer maxWrite, final String ipDosWhiteListPattern,
             final String ipBlackListPattern, final String forwardHeader) {
+        this(new LocalRequestRateLimiter(), "all", maxRead, maxWrite, 0, ipDosWhiteListPattern, ipBlackListPattern,
+                forwardHeader);
+    }
+
+    /**
+     * Filter constructor including configuration.
+     *
+     * @param rateLimiter
+     *            which enforces the limits
+     * @param api
+     *            name of the API the filter protects, separates the limits of
+     *            the APIs
+     * @param maxRead
+     *            Maximum number of allowed REST read/GET requests per second
+     *            per client
+     * @param maxWrite
+     *            Maximum number of allowed REST write/(PUT/POST/etc.) requests
+     *            per second per client
+     * @param maxTenant
+     *            Maximum number of allowed requests per second of all clients
+     *            of a tenant, only applied to paths with a {@code {tenant}}
+     *            variable, <code>0</code> to disable
+     * @param ipDosWhiteListPattern
+     *            {@link Pattern} with with white list of peer IP addresses for
+     *            DOS filter
+     * @param ipBlackListPattern
+     *            {@link Pattern} with black listed IP addresses
+     * @param forwardHeader
+     *            the header containing the forwarded IP address e.g.
+     *            {@code x-forwarded-for}
+     * @param includeAntPaths
+     *            paths of the API, all requests are filtered if empty
+     */
+    public DosFilter(final RequestRateLimiter rateLimiter, final String api, final Integer maxRead,
+            final Integer maxWrite, final int maxTenant, final String ipDosWhiteListPattern,
+            final String ipBlackListPattern, final String forwardHeader, final String... includeAntPaths) {
 
+        this.rateLimiter = rateLimiter;
+        this.api = api;
         this.maxRead = maxRead;
         this.maxWrite = maxWrite;
+        this.maxTenant = maxTenant;
         this.forwardHeader = forwardHeader;
+        this.includeAntPaths = includeAntPaths;
 
         if (ipBlackListPattern != null && !ipBlackListPattern.isEmpty()) {
             ipAdressBlacklist = Pattern.compile(ipBlackListPattern);
@@ -94,6 +142,11 @@ public class DosFilter extends OncePerRequestFilter {
         }
     }
 
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return includeAntPaths.length > 0 && findIncludePattern(request) == null;
+    }
+
     @Override
     protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
             final FilterChain filterChain) throws ServletException, IOException {
@@ -116,6 +169,10 @@ public class DosFilter extends OncePerRequestFilter {
                 else {
                     processChain = handleWriteRequest(response, ip);
                 }
+
+                if (processChain) {
+                    processChain = handleTenantRequest(request, response);
+                }
             }
         }
 
@@ -148,34 +205,68 @@ public class DosFilter extends OncePerRequestFilter {
     }
 
     private boolean handleWriteRequest(final HttpServletResponse response, final String ip) {
-        boolean processChain = true;
-        final AtomicInteger count = writeCountCache.getIfPresent(ip);
+        final long retryAfter = rateLimiter.acquire(api + ":write:" + ip, maxWrite);
 
-        if (count == null) {
-            writeCountCache.put(ip, new AtomicInteger());
-        } else if (count.getAndIncrement() > maxWrite) {
+        if (retryAfter > 0) {
             LOG_DOS.info("Registered DOS attack! Client {} is above configured WRITE request threshold ({})!", ip,
                     maxWrite);
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            processChain = false;
+            rejectRequest(response, retryAfter);
+            return false;
         }
 
-        return processChain;
+        return true;
     }
 
     private boolean handleReadRequest(final HttpServletResponse response, final String ip) {
-        boolean processChain = true;
-        final AtomicInteger count = readCountCache.getIfPresent(ip);
+        final long retryAfter = rateLimiter.acquire(api + ":read:" + ip, maxRead);
 
-        if (count == null) {
-            readCountCache.put(ip, new AtomicInteger());
-        } else if (count.getAndIncrement() > maxRead) {
+        if (retryAfter > 0) {
             LOG_DOS.info("Registered DOS attack! Client {} is above configured READ request threshold ({})!", ip,
                     maxRead);
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            processChain = false;
+            rejectRequest(response, retryAfter);
+            return false;
         }
 
-        return processChain;
+        return true;
+    }
+
+    private boolean handleTenantRequest(final HttpServletRequest request, final HttpServletResponse response) {
+        if (maxTenant <= 0) {
+            return true;
+        }
+
+        final String pattern = findIncludePattern(request);
+        if (pattern == null || !pattern.contains("{" + TENANT_VARIABLE + "}")) {
+            return true;
+        }
+
+        final String tenant = antMatcher
+                .extractUriTemplateVariables(request.getContextPath() + pattern, request.getRequestURI())
+                .get(TENANT_VARIABLE);
+        final long retryAfter = rateLimiter.acquire(api + ":tenant:" + tenant.toUpperCase(), maxTenant);
+
+        if (retryAfter > 0) {
+            LOG_DOS.info("Registered DOS attack! Tenant {} is above configured request threshold ({})!", tenant,
+                    maxTenant);
+            rejectRequest(response, retryAfter);
+            return false;
+        }
+
+        return true;
+    }
+
+    private static void rejectRequest(final HttpServletResponse response, final long retryAfterMillis) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999))));
+    }
+
+    private String findIncludePattern(final HttpServletRequest request) {
+        for (final String pattern : includeAntPaths) {
+            if (antMatcher.match(request.getContextPath() + pattern, request.getRequestURI())) {
+                return pattern;
+            }
+        }
+        return null;
     }
 }
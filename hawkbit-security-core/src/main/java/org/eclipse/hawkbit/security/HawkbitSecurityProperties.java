@@ -141,6 +141,49 @@ public class HawkbitSecurityProperties {
              */
             int maxWrite = 50;
 
+            /**
+             * Set to <code>true</code> to enforce the limits across all nodes
+             * of the cluster through Redis instead of per node.
+             */
+            private boolean distributed = false;
+
+            /**
+             * Limits of the Direct Device Integration API, default to the
+             * global limits.
+             */
+            private final ApiLimits ddi = new ApiLimits();
+
+            /**
+             * Limits of the artifact download API of the controllers, default
+             * to the global limits.
+             */
+            private final ApiLimits dl = new ApiLimits();
+
+            /**
+             * Limits of the management API, default to the global limits.
+             */
+            private final ApiLimits mgmt = new ApiLimits();
+
+            public boolean isDistributed() {
+                return distributed;
+            }
+
+            public void setDistributed(final boolean distributed) {
+                this.distributed = distributed;
+            }
+
+            public ApiLimits getDdi() {
+                return ddi;
+            }
+
+            public ApiLimits getDl() {
+                return dl;
+            }
+
+            public ApiLimits getMgmt() {
+                return mgmt;
+            }
+
             public String getWhitelist() {
                 return whitelist;
             }
@@ -165,6 +208,73 @@ public class HawkbitSecurityProperties {
                 this.maxWrite = maxWrite;
             }
 
+            /**
+             * @param limits
+             *            of an API
+             * @return the maximum number of read requests per second per
+             *         client of the API
+             */
+            public int getMaxRead(final ApiLimits limits) {
+                return limits.getMaxRead() != null ? limits.getMaxRead() : maxRead;
+            }
+
+            /**
+             * @param limits
+             *            of an API
+             * @return the maximum number of write requests per second per
+             *         client of the API
+             */
+            public int getMaxWrite(final ApiLimits limits) {
+                return limits.getMaxWrite() != null ? limits.getMaxWrite() : maxWrite;
+            }
+
+            /**
+             * Request limits of one API.
+             */
+            public static class ApiLimits {
+
+                /**
+                 * Maximum number of allowed read/GET requests per second per
+                 * client, defaults to the global limit.
+                 */
+                private Integer maxRead;
+
+                /**
+                 * Maximum number of allowed write/(PUT/POST/etc.) requests
+                 * per second per client, defaults to the global limit.
+                 */
+                private Integer maxWrite;
+
+                /**
+                 * Maximum number of allowed requests per second of all
+                 * clients of a tenant (0 to disable).
+                 */
+                private int maxTenant = 0;
+
+                public Integer getMaxRead() {
+                    return maxRead;
+                }
+
+                public void setMaxRead(final Integer maxRead) {
+                    this.maxRead = maxRead;
+                }
+
+                public Integer getMaxWrite() {
+                    return maxWrite;
+                }
+
+                public void setMaxWrite(final Integer maxWrite) {
+                    this.maxWrite = maxWrite;
+                }
+
+                public int getMaxTenant() {
+                    return maxTenant;
+                }
+
+                public void setMaxTenant(final int maxTenant) {
+                    this.maxTenant = maxTenant;
+                }
+            }
         }
     }
 }
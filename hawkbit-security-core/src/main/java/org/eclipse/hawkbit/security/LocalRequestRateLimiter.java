@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * {@link RequestRateLimiter} of a single node. The token bucket of a key is
+ * kept as its theoretical arrival time (generic cell rate algorithm), i.e.
+ * the time at which the bucket would be full again, in one {@link AtomicLong}
+ * which is updated with compare and set. So permits are taken without locks
+ * and without allocations once the key is known.
+ *
+ * A bucket which has not been accessed for one second is full and is
+ * dropped.
+ */
+public class LocalRequestRateLimiter implements RequestRateLimiter {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Ticker ticker;
+
+    private final LoadingCache<String, AtomicLong> buckets;
+
+    /**
+     * Constructor.
+     */
+    public LocalRequestRateLimiter() {
+        this(Ticker.systemTicker());
+    }
+
+    LocalRequestRateLimiter(final Ticker ticker) {
+        this.ticker = ticker;
+        this.buckets = CacheBuilder.newBuilder().ticker(ticker).expireAfterAccess(SECOND, TimeUnit.NANOSECONDS)
+                .build(CacheLoader.from(() -> new AtomicLong(Long.MIN_VALUE)));
+    }
+
+    @Override
+    public long acquire(final String key, final int maxPerSecond) {
+        if (maxPerSecond <= 0) {
+            return 0;
+        }
+
+        final long interval = SECOND / maxPerSecond;
+        final long tolerance = SECOND - interval;
+        final AtomicLong arrival = buckets.getUnchecked(key);
+        final long now = ticker.read();
+
+        while (true) {
+            final long current = arrival.get();
+            final long wait = Math.max(current, now) - now - tolerance;
+            if (wait > 0) {
+                return TimeUnit.NANOSECONDS.toMillis(wait + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+            }
+            if (arrival.compareAndSet(current, Math.max(current, now) + interval)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+/**
+ * Limits the rate of requests per key, e.g. per client IP address and API.
+ * Each key owns a token bucket with a capacity of the permitted requests per
+ * second, which is refilled continuously. So a client may send a burst of
+ * requests up to the limit and afterwards requests with the permitted rate.
+ */
+@FunctionalInterface
+public interface RequestRateLimiter {
+
+    /**
+     * Takes a permit for a request of the given key.
+     *
+     * @param key
+     *            of the limited entity, e.g. the client IP address
+     * @param maxPerSecond
+     *            maximum number of requests per second of the key,
+     *            non-positive values do not limit the requests
+     * @return <code>0</code> if the request is permitted, otherwise the time
+     *         in milliseconds after which the next request of the key will be
+     *         permitted
+     */
+    long acquire(String key, int maxPerSecond);
+}
@@ -89,4 +89,15 @@ public class ExcludePathAwareShallowETagFilterTest {
         verify(filterChainMock, times(1)).doFilter(Mockito.eq(servletRequestMock), responseArgumentCaptor.capture());
         assertThat(mockingDetails(responseArgumentCaptor.getValue()).isMock()).isFalse();
     }
+
+    @Test
+    public void eTagOfHandlerIsNotRecalculated() {
+        when(servletRequestMock.getMethod()).thenReturn("GET");
+        when(servletResponseMock.getHeader("ETag")).thenReturn("\"1234\"");
+
+        final ExcludePathAwareShallowETagFilter filterUnderTest = new ExcludePathAwareShallowETagFilter();
+
+        assertThat(filterUnderTest.isEligibleForEtag(servletRequestMock, servletResponseMock, 200, null))
+                .as("ETag set by the handler must not be overridden").isFalse();
+    }
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+@Features("Unit Tests - Security")
+@Stories("Request rate limiter")
+public class LocalRequestRateLimiterTest {
+
+    private final ManualTicker ticker = new ManualTicker();
+
+    private final LocalRequestRateLimiter underTest = new LocalRequestRateLimiter(ticker);
+
+    @Test
+    @Description("A burst up to the limit is permitted, further requests are rejected with the time to wait.")
+    public void burstUpToLimitIsPermitted() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(underTest.acquire("key", 10)).isEqualTo(0);
+        }
+
+        assertThat(underTest.acquire("key", 10)).isEqualTo(100);
+        ticker.advance(40);
+        assertThat(underTest.acquire("key", 10)).isEqualTo(60);
+    }
+
+    @Test
+    @Description("The bucket is refilled continuously with the permitted rate.")
+    public void bucketIsRefilledWithRate() {
+        for (int i = 0; i < 10; i++) {
+            underTest.acquire("key", 10);
+        }
+
+        ticker.advance(100);
+        assertThat(underTest.acquire("key", 10)).isEqualTo(0);
+        assertThat(underTest.acquire("key", 10)).isGreaterThan(0);
+
+        ticker.advance(1000);
+        for (int i = 0; i < 10; i++) {
+            assertThat(underTest.acquire("key", 10)).isEqualTo(0);
+        }
+        assertThat(underTest.acquire("key", 10)).isGreaterThan(0);
+    }
+
+    @Test
+    @Description("Each key owns its bucket.")
+    public void keysAreLimitedIndependently() {
+        for (int i = 0; i < 5; i++) {
+            underTest.acquire("first", 5);
+        }
+
+        assertThat(underTest.acquire("first", 5)).isGreaterThan(0);
+        assertThat(underTest.acquire("second", 5)).isEqualTo(0);
+    }
+
+    @Test
+    @Description("Non-positive limits do not limit the requests.")
+    public void nonPositiveLimitIsUnlimited() {
+        for (int i = 0; i < 1000; i++) {
+            assertThat(underTest.acquire("key", 0)).isEqualTo(0);
+        }
+    }
+
+    private static final class ManualTicker extends Ticker {
+        private long nanos = 1;
+
+        private void advance(final long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+}
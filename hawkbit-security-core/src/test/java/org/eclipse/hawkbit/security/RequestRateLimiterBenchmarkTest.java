@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2015 Bosch Software Innovations GmbH and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.hawkbit.security;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ru.yandex.qatools.allure.annotations.Description;
+import ru.yandex.qatools.allure.annotations.Features;
+import ru.yandex.qatools.allure.annotations.Stories;
+
+/**
+ * Measures the overhead of the {@link LocalRequestRateLimiter} per request
+ * with concurrent threads, for clients with their own keys and for a single
+ * key shared by all threads, e.g. the limit of a tenant.
+ */
+@Features("Unit Tests - Security")
+@Stories("Request rate limiter")
+public class RequestRateLimiterBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(RequestRateLimiterBenchmarkTest.class);
+
+    private static final int THREADS = 8;
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    private final LocalRequestRateLimiter underTest = new LocalRequestRateLimiter();
+
+    @Test
+    @Description("Measures the latency of a permit with concurrent requests of distinct and of a shared key.")
+    public void acquireUnderContention() throws Exception {
+        final String[] keys = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "ddi:read:10.0.0." + i;
+        }
+
+        final long distinctKeys = measure(i -> keys[i % keys.length]);
+        final long sharedKey = measure(i -> "ddi:tenant:DEFAULT");
+
+        LOG.info("Distinct keys: {} ns/request with {} threads", distinctKeys, THREADS);
+        LOG.info("Shared key: {} ns/request with {} threads", sharedKey, THREADS);
+
+        assertThat(distinctKeys).isLessThan(TimeUnit.MICROSECONDS.toNanos(100));
+        assertThat(sharedKey).isLessThan(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    private long measure(final IntFunction<String> key) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < WARMUP; i++) {
+                        underTest.acquire(key.apply(i), Integer.MAX_VALUE);
+                    }
+                    start.await();
+                    final long begin = System.nanoTime();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        underTest.acquire(key.apply(i), Integer.MAX_VALUE);
+                    }
+                    return System.nanoTime() - begin;
+                }));
+            }
+            start.countDown();
+
+            long nanos = 0;
+            for (final Future<Long> result : results) {
+                nanos += result.get();
+            }
+            return nanos / ((long) THREADS * ITERATIONS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
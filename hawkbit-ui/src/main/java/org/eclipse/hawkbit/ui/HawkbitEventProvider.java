@@ -23,6 +23,7 @@ import org.eclipse.hawkbit.repository.eventbus.event.RolloutGroupChangeEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetCreatedEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetDeletedEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetInfoUpdateEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetPollEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetTagCreatedBulkEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetTagDeletedEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetTagUpdateEvent;
@@ -49,6 +50,7 @@ public class HawkbitEventProvider implements UIEventProvider {
 
         BULK_EVENTS.add(TargetCreatedEvent.class);
         BULK_EVENTS.add(TargetInfoUpdateEvent.class);
+        BULK_EVENTS.add(TargetPollEvent.class);
         BULK_EVENTS.add(TargetDeletedEvent.class);
         BULK_EVENTS.add(DistributionDeletedEvent.class);
         BULK_EVENTS.add(DistributionCreatedEvent.class);
@@ -31,6 +31,7 @@ import org.eclipse.hawkbit.repository.TargetManagement;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetCreatedEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetDeletedEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetInfoUpdateEvent;
+import org.eclipse.hawkbit.repository.eventbus.event.TargetPollEvent;
 import org.eclipse.hawkbit.repository.eventbus.event.TargetUpdatedEvent;
 import org.eclipse.hawkbit.repository.model.NamedEntity;
 import org.eclipse.hawkbit.repository.model.Target;
@@ -138,6 +139,8 @@ public class TargetTable extends AbstractTable<Target, TargetIdName> {
             onTargetUpdateEvents(((List<TargetInfoUpdateEvent>) events).stream()
                     .map(targetInfoUpdateEvent -> targetInfoUpdateEvent.getEntity().getTarget())
                     .collect(Collectors.toList()));
+        } else if (TargetPollEvent.class.isInstance(firstEvent)) {
+            onTargetPollEvents((List<TargetPollEvent>) events);
         } else if (TargetDeletedEvent.class.isInstance(firstEvent)) {
             onTargetDeletedEvent((List<TargetDeletedEvent>) events);
         } else if (TargetUpdatedEvent.class.isInstance(firstEvent)) {
@@ -793,6 +796,25 @@ public class TargetTable extends AbstractTable<Target, TargetIdName> {
         }
     }
 
+    /**
+     * EventListener method which is called by the event bus to notify about a
+     * list of {@link TargetPollEvent}. A target which has just polled is not
+     * overdue, so the poll status of the visible targets is reset without
+     * loading them.
+     *
+     * @param events
+     *            list of poll events
+     */
+    private void onTargetPollEvents(final List<TargetPollEvent> events) {
+        final Set<Long> polledTargetIds = events.stream().map(TargetPollEvent::getTargetId)
+                .collect(Collectors.toSet());
+        final LazyQueryContainer targetContainer = (LazyQueryContainer) getContainerDataSource();
+        getVisibleItemIds().stream()
+                .filter(itemId -> polledTargetIds.contains(((TargetIdName) itemId).getTargetId()))
+                .forEach(itemId -> targetContainer.getItem(itemId)
+                        .getItemProperty(SPUILabelDefinitions.VAR_POLL_STATUS_TOOL_TIP).setValue(null));
+    }
+
     private void onTargetCreatedEvents() {
         refreshTargets();
     }